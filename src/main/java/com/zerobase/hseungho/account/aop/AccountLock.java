@@ -7,5 +7,23 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
-    long tryLockTime() default 5000L;
+    /**
+     * lock 취득 대기 시간(ms)
+     */
+    long tryLockTime() default 1000L;
+
+    /**
+     * lock 자동 해제 시간(ms), 0 이하면 요청이 끝날 때까지 watchdog 이 연장한다.
+     */
+    long leaseTime() default -1L;
+
+    /**
+     * 요청 순서대로 lock 을 넘긴다.(redisson 백엔드만 해당)
+     */
+    boolean fair() default false;
+
+    /**
+     * 이 노드에서 같은 계좌의 lock 보유자 하나와 기다리는 요청이 이 수만큼 있으면 새 요청은 기다리지 않고 실패한다. 음수면 제한 없음
+     */
+    int maxQueueDepth() default -1;
 }
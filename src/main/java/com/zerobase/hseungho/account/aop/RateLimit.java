@@ -0,0 +1,26 @@
+package com.zerobase.hseungho.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * 사용자/계좌별 token bucket 요청 제한 <br>
+ * account.rate-limit.{value}.* 설정이 있으면 속성 값보다 우선한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface RateLimit {
+    /**
+     * 엔드포인트 이름, bucket key 와 설정 이름에 쓴다.
+     */
+    String value();
+
+    long userCapacity() default 20L;
+
+    double userRefillPerSecond() default 10.0;
+
+    long accountCapacity() default 10L;
+
+    double accountRefillPerSecond() default 5.0;
+}
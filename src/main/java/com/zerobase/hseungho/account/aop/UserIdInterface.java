@@ -0,0 +1,5 @@
+package com.zerobase.hseungho.account.aop;
+
+public interface UserIdInterface {
+    Long getUserId();
+}
@@ -0,0 +1,52 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.AccountLockProvider;
+import com.zerobase.hseungho.account.service.CircuitBreakerAccountLockProvider;
+import com.zerobase.hseungho.account.service.JdbcAccountLockProvider;
+import com.zerobase.hseungho.account.service.LocalAccountLockProvider;
+import com.zerobase.hseungho.account.service.RedissonAccountLockProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * account.lock.providers 순서로 lock 백엔드를 묶는다. <br>
+ * - redisson, jdbc : 여러 노드 배포 <br>
+ * - local : 단일 노드 배포
+ */
+@Configuration
+public class AccountLockConfig {
+
+    @Bean
+    @Primary
+    public CircuitBreakerAccountLockProvider accountLockProvider(
+            RedissonAccountLockProvider redissonAccountLockProvider,
+            JdbcAccountLockProvider jdbcAccountLockProvider,
+            LocalAccountLockProvider localAccountLockProvider,
+            @Value("${account.lock.providers:redisson,jdbc}") List<String> providerNames,
+            @Value("${account.lock.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${account.lock.circuit-breaker.open-ms:10000}") long openMillis,
+            @Value("${account.lock.circuit-breaker.guard-ms:30000}") long guardMillis) {
+        Map<String, AccountLockProvider> byName = Stream.of(
+                        redissonAccountLockProvider, jdbcAccountLockProvider, localAccountLockProvider)
+                .collect(Collectors.toMap(AccountLockProvider::getName, Function.identity()));
+        List<AccountLockProvider> chain = providerNames.stream()
+                .map(String::trim)
+                .map(name -> {
+                    AccountLockProvider provider = byName.get(name);
+                    if (provider == null) {
+                        throw new IllegalArgumentException("Unknown lock provider : " + name);
+                    }
+                    return provider;
+                })
+                .collect(Collectors.toList());
+        return new CircuitBreakerAccountLockProvider(chain, failureThreshold, openMillis, guardMillis);
+    }
+}
@@ -0,0 +1,62 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.AdmissionController;
+import com.zerobase.hseungho.account.service.LockService;
+import com.zerobase.hseungho.account.service.RateLimiter;
+import com.zerobase.hseungho.account.service.TransactionGuard;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 요청 제한, 수용 제어, lock 대기열 거절, 거래 진입 경로 지표를 /actuator/metrics 로 노출한다.
+ */
+@Configuration
+public class AdmissionMetricsConfig {
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionController admissionController, LockService lockService) {
+        return registry -> {
+            Gauge.builder("admission.limit", admissionController, AdmissionController::getLimit)
+                    .register(registry);
+            Gauge.builder("admission.in.flight", admissionController, AdmissionController::getInFlight)
+                    .register(registry);
+            FunctionCounter.builder("admission.rejected", admissionController, AdmissionController::getRejectedCount)
+                    .register(registry);
+            FunctionCounter.builder("account.lock.shed", lockService, LockService::getShedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rateLimitMetrics(RateLimiter rateLimiter) {
+        return registry -> {
+            FunctionCounter.builder("rate.limit.rejected", rateLimiter, RateLimiter::getLocalRejectedCount)
+                    .tag("source", "local")
+                    .register(registry);
+            FunctionCounter.builder("rate.limit.rejected", rateLimiter, RateLimiter::getRemoteRejectedCount)
+                    .tag("source", "redis")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionGuardMetrics(TransactionGuard transactionGuard) {
+        return registry -> {
+            FunctionCounter.builder("transaction.guard.enter", transactionGuard, TransactionGuard::getScriptCount)
+                    .tag("path", "script")
+                    .register(registry);
+            FunctionCounter.builder("transaction.guard.enter", transactionGuard, TransactionGuard::getContendedCount)
+                    .tag("path", "contended")
+                    .register(registry);
+            FunctionCounter.builder("transaction.guard.enter", transactionGuard, TransactionGuard::getReplayCount)
+                    .tag("path", "replayed")
+                    .register(registry);
+            FunctionCounter.builder("transaction.guard.enter", transactionGuard, TransactionGuard::getFallbackCount)
+                    .tag("path", "fallback")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.TransactionAggregator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 하루 거래 집계의 대기 중인 계좌-날짜 수와 flush 결과를 /actuator/metrics 로 노출한다.
+ */
+@Configuration
+public class AggregateMetricsConfig {
+
+    @Bean
+    public MeterBinder transactionAggregateMetrics(TransactionAggregator transactionAggregator) {
+        return registry -> {
+            Gauge.builder("transaction.aggregate.pending", transactionAggregator,
+                            TransactionAggregator::getPendingCount)
+                    .register(registry);
+            FunctionCounter.builder("transaction.aggregate.flushed", transactionAggregator,
+                            TransactionAggregator::getFlushedCount)
+                    .register(registry);
+            FunctionCounter.builder("transaction.aggregate.flush.failed", transactionAggregator,
+                            TransactionAggregator::getFailedCount)
+                    .register(registry);
+        };
+    }
+}
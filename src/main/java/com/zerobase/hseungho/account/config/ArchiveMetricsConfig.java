@@ -0,0 +1,47 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.StatementGenerator;
+import com.zerobase.hseungho.account.service.TransactionArchiver;
+import com.zerobase.hseungho.account.service.TransactionRollupJob;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 거래 보관, 월별 roll-up, 내역서 건수와 실패 횟수를 /actuator/metrics 로 노출한다.
+ */
+@Configuration
+public class ArchiveMetricsConfig {
+
+    @Bean
+    public MeterBinder transactionArchiveMetrics(TransactionArchiver transactionArchiver) {
+        return registry -> {
+            FunctionCounter.builder("transaction.archived", transactionArchiver,
+                            TransactionArchiver::getArchivedCount)
+                    .register(registry);
+            FunctionCounter.builder("transaction.archive.failed", transactionArchiver,
+                            TransactionArchiver::getFailedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionRollupMetrics(TransactionRollupJob transactionRollupJob) {
+        return registry -> {
+            FunctionCounter.builder("transaction.rollup.rows", transactionRollupJob,
+                            TransactionRollupJob::getRolledUpCount)
+                    .register(registry);
+            FunctionCounter.builder("transaction.rollup.chunk.failed", transactionRollupJob,
+                            TransactionRollupJob::getFailedChunkCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder statementMetrics(StatementGenerator statementGenerator) {
+        return registry -> FunctionCounter.builder("account.statement.generated", statementGenerator,
+                        StatementGenerator::getGeneratedCount)
+                .register(registry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.BalanceEngine;
+import com.zerobase.hseungho.account.service.JournalBalanceEngine;
+import com.zerobase.hseungho.account.service.RedisBalanceEngine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.stream.Stream;
+
+/**
+ * account.balance-engine.type 으로 잔액 엔진을 고른다. <br>
+ * - redis : Redis 가 잔액 기준, 여러 노드 배포 <br>
+ * - journal : 프로세스 안의 원장과 journal, 단일 노드 배포
+ */
+@Configuration
+public class BalanceEngineConfig {
+
+    @Bean(destroyMethod = "")
+    @Primary
+    public BalanceEngine balanceEngine(RedisBalanceEngine redisBalanceEngine,
+                                       JournalBalanceEngine journalBalanceEngine,
+                                       @Value("${account.balance-engine.type:redis}") String type) {
+        return Stream.of(redisBalanceEngine, journalBalanceEngine)
+                .filter(engine -> engine.getName().equals(type.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown balance engine : " + type));
+    }
+
+    @Bean
+    public MeterBinder ledgerMetrics(JournalBalanceEngine journalBalanceEngine) {
+        return registry -> {
+            Gauge.builder("ledger.unprojected", journalBalanceEngine, JournalBalanceEngine::getUnprojectedCount)
+                    .register(registry);
+            FunctionCounter.builder("ledger.projected", journalBalanceEngine, JournalBalanceEngine::getProjectedCount)
+                    .register(registry);
+        };
+    }
+}
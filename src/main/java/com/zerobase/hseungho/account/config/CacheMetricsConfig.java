@@ -0,0 +1,86 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.AccountListCache;
+import com.zerobase.hseungho.account.service.AccountNearCache;
+import com.zerobase.hseungho.account.service.NegativeCache;
+import com.zerobase.hseungho.account.service.TransactionCache;
+import com.zerobase.hseungho.account.service.TransactionIdFilter;
+import com.zerobase.hseungho.account.util.LocalCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 로컬 캐시 적중률/제거 지표를 /actuator/metrics 로 노출한다.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder accountNearCacheMetrics(AccountNearCache accountNearCache) {
+        return registry -> bindLocalCache(registry, "account", accountNearCache.getCache());
+    }
+
+    @Bean
+    public MeterBinder accountListCacheMetrics(AccountListCache accountListCache) {
+        return registry -> bindLocalCache(registry, "account-list", accountListCache.getLocalCache());
+    }
+
+    @Bean
+    public MeterBinder transactionCacheMetrics(TransactionCache transactionCache) {
+        return registry -> bindLocalCache(registry, "transaction", transactionCache.getCache());
+    }
+
+    @Bean
+    public MeterBinder negativeCacheMetrics(NegativeCache negativeCache) {
+        return registry -> {
+            bindLocalCache(registry, "missing-user", negativeCache.getMissingUsers());
+            bindLocalCache(registry, "missing-account", negativeCache.getMissingAccounts());
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionIdFilterMetrics(TransactionIdFilter transactionIdFilter) {
+        return registry -> {
+            FunctionCounter.builder("transaction.id.filter.definite.misses", transactionIdFilter,
+                            TransactionIdFilter::getDefiniteMissCount)
+                    .register(registry);
+            Gauge.builder("transaction.id.filter.insertions", transactionIdFilter,
+                            TransactionIdFilter::getInsertions)
+                    .register(registry);
+            Gauge.builder("transaction.id.filter.bits", transactionIdFilter,
+                            TransactionIdFilter::getMemoryBits)
+                    .register(registry);
+            Gauge.builder("transaction.id.filter.expected.fpp", transactionIdFilter,
+                            TransactionIdFilter::getExpectedFalseProbability)
+                    .register(registry);
+        };
+    }
+
+    public static void bindLocalCache(MeterRegistry registry, String cacheName, LocalCache<?, ?> cache) {
+        FunctionCounter.builder("local.cache.hits", cache, LocalCache::getHitCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("local.cache.misses", cache, LocalCache::getMissCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("local.cache.evictions", cache, LocalCache::getEvictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("local.cache.expirations", cache, LocalCache::getExpirationCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("local.cache.size", cache, LocalCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("local.cache.hit.rate", cache, LocalCache::getHitRate)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("local.cache.weight", cache, LocalCache::weight)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+}
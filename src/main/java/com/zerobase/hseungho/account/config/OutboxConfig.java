@@ -0,0 +1,44 @@
+package com.zerobase.hseungho.account.config;
+
+import com.zerobase.hseungho.account.service.FileOutboxEventSink;
+import com.zerobase.hseungho.account.service.MemoryOutboxEventSink;
+import com.zerobase.hseungho.account.service.OutboxEventSink;
+import com.zerobase.hseungho.account.service.OutboxRelay;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.stream.Stream;
+
+/**
+ * account.outbox.sink 로 잔액 변경 이벤트를 보낼 곳을 고른다. <br>
+ * - memory : 최근 이벤트를 메모리에 둔다.(테스트, 로컬 실행) <br>
+ * - file : JSON lines 파일에 붙인다.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @Primary
+    public OutboxEventSink outboxEventSink(MemoryOutboxEventSink memoryOutboxEventSink,
+                                           FileOutboxEventSink fileOutboxEventSink,
+                                           @Value("${account.outbox.sink:memory}") String sinkName) {
+        return Stream.of(memoryOutboxEventSink, fileOutboxEventSink)
+                .filter(sink -> sink.getName().equals(sinkName.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown outbox sink : " + sinkName));
+    }
+
+    @Bean
+    public MeterBinder outboxMetrics(OutboxRelay outboxRelay) {
+        return registry -> {
+            FunctionCounter.builder("outbox.relayed", outboxRelay, OutboxRelay::getRelayedCount)
+                    .register(registry);
+            FunctionCounter.builder("outbox.relay.failed", outboxRelay, OutboxRelay::getFailedCount)
+                    .register(registry);
+        };
+    }
+}
@@ -15,9 +15,14 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    // lease 를 지정하지 않은 lock 은 이 시간으로 잡고, 보유 중인 동안 watchdog 이 1/3 주기로 연장한다.
+    @Value("${account.lock.watchdog-timeout-ms:10000}")
+    private long lockWatchdogTimeout;
+
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
+        config.setLockWatchdogTimeout(lockWatchdogTimeout);
         config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
 
         return Redisson.create(config);
@@ -2,20 +2,39 @@ package com.zerobase.hseungho.account.controller;
 
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.dto.AccountInfo;
+import com.zerobase.hseungho.account.dto.AccountSummaryInfo;
+import com.zerobase.hseungho.account.dto.BulkCreateAccount;
 import com.zerobase.hseungho.account.dto.CreateAccount;
 import com.zerobase.hseungho.account.dto.DeleteAccount;
+import com.zerobase.hseungho.account.service.AccountListCache;
 import com.zerobase.hseungho.account.service.AccountService;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.AccountBulkService;
+import com.zerobase.hseungho.account.service.AccountSummaryService;
+import com.zerobase.hseungho.account.service.StatementFile;
+import com.zerobase.hseungho.account.service.StatementGenerator;
+import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final AccountBulkService accountBulkService;
+    private final AccountListCache accountListCache;
+    private final AccountSummaryService accountSummaryService;
+    private final StatementGenerator statementGenerator;
 
     @PostMapping("/account")
     public CreateAccount.Response createAccount(
@@ -28,6 +47,25 @@ public class AccountController {
         );
     }
 
+    @PostMapping(value = "/account/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkCreateAccount.Response createAccounts(
+            @RequestBody @Valid BulkCreateAccount.Request request) {
+        return BulkCreateAccount.Response.from(
+                accountBulkService.createAccounts(request.getAccounts())
+        );
+    }
+
+    /**
+     * 본문의 "user_id,initial_balance" 줄을 읽는 대로 만든다.
+     */
+    @PostMapping(value = "/account/bulk", consumes = "text/csv")
+    public BulkCreateAccount.Response importAccounts(
+            HttpServletRequest request) throws IOException {
+        return BulkCreateAccount.Response.from(
+                accountBulkService.importCsv(request.getReader())
+        );
+    }
+
     @DeleteMapping("/account")
     public DeleteAccount.Response createAccount(
             @RequestBody @Valid DeleteAccount.Request request) {
@@ -42,12 +80,36 @@ public class AccountController {
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId) {
-        return accountService.getAccountsByUserId(userId).stream()
-                .map(accountDto -> AccountInfo.builder()
-                        .accountNumber(accountDto.getAccountNumber())
-                        .balance(accountDto.getBalance())
-                        .build())
-                .collect(Collectors.toList());
+        return accountListCache.getAccountInfos(userId);
+    }
+
+    @GetMapping("/account/summary")
+    public AccountSummaryInfo getAccountSummary(
+            @RequestParam("user_id") Long userId) {
+        return accountSummaryService.getSummary(userId);
+    }
+
+    /**
+     * 월별 거래 내역서 내려받기 <br>
+     * Tomcat 이 sendfile 을 지원하면 파일 구간을 넘겨 커널에서 바로 보내고, 아니면 transferTo 로 응답에 복사한다.
+     */
+    @GetMapping("/account/statement")
+    public void getStatement(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam("month") @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        StatementFile.Region region = statementGenerator.find(month, accountNumber)
+                .orElseThrow(() -> AccountException.of(ErrorCode.STATEMENT_NOT_FOUND));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setContentLength(region.getLength());
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", region.getPath().toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", region.getOffset());
+            request.setAttribute("org.apache.tomcat.sendfile.end", region.getOffset() + region.getLength());
+            return;
+        }
+        region.transferTo(Channels.newChannel(response.getOutputStream()));
     }
 
     @GetMapping("/account/{id}")
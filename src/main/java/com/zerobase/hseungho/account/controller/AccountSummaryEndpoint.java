@@ -0,0 +1,29 @@
+package com.zerobase.hseungho.account.controller;
+
+import com.zerobase.hseungho.account.service.AccountSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 사용자 요약 다시 계산 <br>
+ * POST /actuator/accountsummary, 본문에 userId 가 있으면 그 사용자만 다시 계산한다.
+ */
+@Component
+@Endpoint(id = "accountsummary")
+@RequiredArgsConstructor
+public class AccountSummaryEndpoint {
+    private final AccountSummaryService accountSummaryService;
+
+    @WriteOperation
+    public Map<String, Object> rebuild(@Nullable Long userId) {
+        if (userId != null) {
+            return Map.of("rebuilt", 1, "summary", accountSummaryService.rebuild(userId));
+        }
+        return Map.of("rebuilt", accountSummaryService.rebuildAll());
+    }
+}
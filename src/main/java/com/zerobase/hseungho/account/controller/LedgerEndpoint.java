@@ -0,0 +1,45 @@
+package com.zerobase.hseungho.account.controller;
+
+import com.zerobase.hseungho.account.dto.BalanceVerification;
+import com.zerobase.hseungho.account.service.BalanceVerificationService;
+import com.zerobase.hseungho.account.service.TransactionRollupJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 월별 roll-up 과 잔액 확인 <br>
+ * POST /actuator/ledger, 본문의 from ~ to(yyyy-MM, to 가 없으면 from 한 달)의 roll-up 을 다시 만든다. <br>
+ * GET /actuator/ledger/{accountNumber}, 최근 roll-up 부터 거래를 다시 더해 계좌 잔액과 비교한다.
+ */
+@Component
+@Endpoint(id = "ledger")
+@RequiredArgsConstructor
+public class LedgerEndpoint {
+    private final TransactionRollupJob transactionRollupJob;
+    private final BalanceVerificationService balanceVerificationService;
+
+    @WriteOperation
+    public Map<String, Integer> rollUp(String from, @Nullable String to) {
+        YearMonth fromMonth = YearMonth.parse(from);
+        YearMonth toMonth = to == null ? fromMonth : YearMonth.parse(to);
+        Map<String, Integer> rolledUp = new LinkedHashMap<>();
+        for (YearMonth month = fromMonth; !month.isAfter(toMonth); month = month.plusMonths(1)) {
+            rolledUp.put(month.toString(), transactionRollupJob.rollUp(month));
+        }
+        return rolledUp;
+    }
+
+    @ReadOperation
+    public BalanceVerification verify(@Selector String accountNumber) {
+        return balanceVerificationService.verify(accountNumber);
+    }
+}
@@ -0,0 +1,26 @@
+package com.zerobase.hseungho.account.controller;
+
+import com.zerobase.hseungho.account.service.StatementGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * 월별 거래 내역서 다시 만들기 <br>
+ * POST /actuator/statement, 본문의 month(yyyy-MM) 내역서를 다시 만든다.(그 달의 roll-up 이 있어야 한다)
+ */
+@Component
+@Endpoint(id = "statement")
+@RequiredArgsConstructor
+public class StatementEndpoint {
+    private final StatementGenerator statementGenerator;
+
+    @WriteOperation
+    public Map<String, Integer> generate(String month) {
+        return Map.of("generated", statementGenerator.generate(YearMonth.parse(month)));
+    }
+}
@@ -0,0 +1,29 @@
+package com.zerobase.hseungho.account.controller;
+
+import com.zerobase.hseungho.account.service.TransactionAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 하루 거래 집계 다시 계산 <br>
+ * POST /actuator/transactionaggregate, 본문의 from ~ to(yyyy-MM-dd, to 가 없으면 from 하루)를 다시 계산한다.
+ */
+@Component
+@Endpoint(id = "transactionaggregate")
+@RequiredArgsConstructor
+public class TransactionAggregateEndpoint {
+    private final TransactionAggregateService transactionAggregateService;
+
+    @WriteOperation
+    public Map<String, Object> backfill(String from, @Nullable String to) {
+        LocalDate fromDate = LocalDate.parse(from);
+        LocalDate toDate = to == null ? fromDate : LocalDate.parse(to);
+        return Map.of("rebuilt", transactionAggregateService.backfill(fromDate, toDate));
+    }
+}
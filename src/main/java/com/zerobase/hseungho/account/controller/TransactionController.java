@@ -1,22 +1,32 @@
 package com.zerobase.hseungho.account.controller;
 
 import com.zerobase.hseungho.account.aop.AccountLock;
+import com.zerobase.hseungho.account.aop.RateLimit;
 import com.zerobase.hseungho.account.dto.CancelBalance;
+import com.zerobase.hseungho.account.dto.DailyTransactionAggregateInfo;
 import com.zerobase.hseungho.account.dto.QueryTransaction;
+import com.zerobase.hseungho.account.dto.QueryTransactions;
 import com.zerobase.hseungho.account.dto.UseBalance;
 import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.TransactionAggregateService;
 import com.zerobase.hseungho.account.service.TransactionService;
+import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 여러 거래 한 번에 확인
+ * 5. 계좌별 하루 거래 집계
  */
 @Slf4j
 @RestController
@@ -24,8 +34,10 @@ import javax.validation.Valid;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionAggregateService transactionAggregateService;
 
-    @AccountLock
+    @RateLimit("use")
+    @AccountLock(tryLockTime = 1000L, maxQueueDepth = 8)
     @PostMapping("/transaction/use")
     public UseBalance.Response useBalance(
             @RequestBody @Valid UseBalance.Request request
@@ -41,6 +53,10 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use balance.");
 
+            // 결과를 알 수 없는 거래는 실패로 남기지 않는다.(거래 조회로 확인)
+            if (e.getErrorCode() == ErrorCode.TRANSACTION_OUTCOME_UNKNOWN) {
+                throw e;
+            }
             transactionService.saveFailedUseTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
@@ -50,7 +66,8 @@ public class TransactionController {
         }
     }
 
-    @AccountLock
+    @RateLimit(value = "cancel", accountCapacity = 5L, accountRefillPerSecond = 1.0)
+    @AccountLock(tryLockTime = 3000L, maxQueueDepth = 2)
     @PostMapping("/transaction/cancel")
     public CancelBalance.Response cancelBalance(
             @RequestBody @Valid CancelBalance.Request request
@@ -66,6 +83,9 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to cancel balance.");
 
+            if (e.getErrorCode() == ErrorCode.TRANSACTION_OUTCOME_UNKNOWN) {
+                throw e;
+            }
             transactionService.saveFailedCancelTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
@@ -75,6 +95,25 @@ public class TransactionController {
         }
     }
 
+    @PostMapping("/transaction/query")
+    public QueryTransactions.Response queryTransactions(
+            @RequestBody @Valid QueryTransactions.Request request
+    ) {
+        return QueryTransactions.Response.of(
+                request.getTransactionIds(),
+                transactionService.queryTransactionsByIds(request.getTransactionIds())
+        );
+    }
+
+    @GetMapping("/transaction/aggregate")
+    public List<DailyTransactionAggregateInfo> getDailyAggregates(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return transactionAggregateService.getDailyAggregates(accountNumber, from, to);
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public QueryTransaction.Response queryTransaction(
             @PathVariable String transactionId
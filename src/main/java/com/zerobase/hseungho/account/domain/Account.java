@@ -15,11 +15,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_account_account_number", columnList = "accountNumber", unique = true),
+        @Index(name = "ix_account_user_status", columnList = "account_user_id, accountStatus")
+})
 public class Account extends BaseEntity {
 
     @ManyToOne
     private AccountUser accountUser;
 
+    @Convert(converter = AccountNumberConverter.class)
     private String accountNumber;
 
     @Enumerated(EnumType.STRING)
@@ -31,16 +36,30 @@ public class Account extends BaseEntity {
 
     private LocalDateTime unRegisteredAt;
 
+    /**
+     * 마지막으로 잔액을 바꾼 lock 보유자의 fencing token <br>
+     * AccountRepository.advanceFencingToken 으로만 바꾼다.
+     */
+    @Column(updatable = false)
+    private Long fencingToken;
+
+    /**
+     * 잔액 엔진 계좌의 마지막으로 반영한 잔액 변경 순번 <br>
+     * AccountRepository.advanceBalance 로만 바꾼다.
+     */
+    @Column(updatable = false)
+    private Long balanceSequence;
+
     public void useBalance(Long amount) {
         if (amount > balance) {
-            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            throw AccountException.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
         balance -= amount;
     }
 
     public void cancelBalance(Long amount) {
         if (amount < 0) {
-            throw new AccountException(ErrorCode.BAD_REQUEST);
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
         }
         balance += amount;
     }
@@ -0,0 +1,22 @@
+package com.zerobase.hseungho.account.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * JdbcAccountLockProvider 가 SELECT ... FOR UPDATE 로 잠그는 계좌별 lock 행
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "account_lock")
+public class AccountLockEntry {
+
+    @Id
+    private String lockKey;
+
+}
@@ -0,0 +1,22 @@
+package com.zerobase.hseungho.account.domain;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * 계좌 번호는 API 에서는 10자리 문자열, DB 에서는 BIGINT 로 저장한다.
+ */
+@Converter
+public class AccountNumberConverter implements AttributeConverter<String, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(String accountNumber) {
+        return accountNumber == null ? null : Long.parseLong(accountNumber);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long accountNumber) {
+        return accountNumber == null ? null : String.valueOf(accountNumber);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.zerobase.hseungho.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 사용자별 계좌 요약(읽기 모델) <br>
+ * 계좌 생성/해지/잔액 변경과 같은 DB 트랜잭션에서 AccountSummaryRepository.applyDelta 로 증감한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class AccountSummary {
+
+    @Id
+    private Long userId;
+
+    /**
+     * 해지하지 않은 계좌 수
+     */
+    private Integer accountCount;
+
+    private Long totalBalance;
+
+    private LocalDateTime lastActivityAt;
+
+}
@@ -1,9 +1,12 @@
 package com.zerobase.hseungho.account.domain;
 
+import com.zerobase.hseungho.account.event.AccountUserEntityListener;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 
 @Getter
 @Setter
@@ -11,8 +14,17 @@ import javax.persistence.Entity;
 @AllArgsConstructor
 @SuperBuilder
 @Entity
+@EntityListeners(AccountUserEntityListener.class)
 public class AccountUser extends BaseEntity {
 
     private String name;
 
+    /**
+     * 보유 계좌 수(해지 계좌 포함) <br>
+     * AccountUserRepository.incrementAccountCount 로만 바꾼다.
+     */
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private int accountCount = 0;
+
 }
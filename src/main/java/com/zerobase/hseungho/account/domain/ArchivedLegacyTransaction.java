@@ -0,0 +1,28 @@
+package com.zerobase.hseungho.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+
+/**
+ * 보관된 이전 아이디(발급 시각이 없는) 거래의 보관 파일 달 <br>
+ * 거래 테이블에서 지울 때 같은 DB 트랜잭션에서 넣고, TransactionArchive 는 이 달의 파일만 찾는다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class ArchivedLegacyTransaction {
+
+    @Id
+    private String transactionId;
+
+    /**
+     * 보관 파일 달의 첫날
+     */
+    private LocalDate archiveMonth;
+
+}
@@ -0,0 +1,89 @@
+package com.zerobase.hseungho.account.domain;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 계좌별 하루 거래 집계 <br>
+ * TransactionAggregator 가 거래를 메모리에 모았다가 증감으로 더하고, 금액은 성공한 거래만 더한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "ux_daily_transaction_aggregate_account_date",
+                columnList = "accountId, aggregateDate", unique = true)
+})
+public class DailyTransactionAggregate extends BaseEntity {
+
+    private Long accountId;
+
+    private LocalDate aggregateDate;
+
+    private Long useSuccessCount;
+
+    private Long useFailureCount;
+
+    private Long useAmount;
+
+    private Long cancelSuccessCount;
+
+    private Long cancelFailureCount;
+
+    private Long cancelAmount;
+
+    public static DailyTransactionAggregate empty(Long accountId, LocalDate aggregateDate) {
+        return DailyTransactionAggregate.builder()
+                .accountId(accountId)
+                .aggregateDate(aggregateDate)
+                .useSuccessCount(0L)
+                .useFailureCount(0L)
+                .useAmount(0L)
+                .cancelSuccessCount(0L)
+                .cancelFailureCount(0L)
+                .cancelAmount(0L)
+                .build();
+    }
+
+    public DailyTransactionAggregate add(TransactionType transactionType,
+                                         TransactionResultType transactionResultType,
+                                         long count,
+                                         long amount) {
+        boolean success = transactionResultType == TransactionResultType.S;
+        if (transactionType == TransactionType.USE) {
+            if (success) {
+                useSuccessCount += count;
+                useAmount += amount;
+            } else {
+                useFailureCount += count;
+            }
+        } else {
+            if (success) {
+                cancelSuccessCount += count;
+                cancelAmount += amount;
+            } else {
+                cancelFailureCount += count;
+            }
+        }
+        return this;
+    }
+
+    public DailyTransactionAggregate plus(DailyTransactionAggregate other) {
+        useSuccessCount += other.useSuccessCount;
+        useFailureCount += other.useFailureCount;
+        useAmount += other.useAmount;
+        cancelSuccessCount += other.cancelSuccessCount;
+        cancelFailureCount += other.cancelFailureCount;
+        cancelAmount += other.cancelAmount;
+        return this;
+    }
+
+}
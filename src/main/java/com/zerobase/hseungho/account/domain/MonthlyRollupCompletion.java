@@ -0,0 +1,31 @@
+package com.zerobase.hseungho.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 달의 roll-up 이 모든 chunk 에서 끝났다는 표시 <br>
+ * 실패한 chunk 가 없을 때만 남기므로, roll-up 행이 있어도 이 표시가 없으면 끝나지 않은 달이다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class MonthlyRollupCompletion {
+
+    /**
+     * roll-up 달의 첫날
+     */
+    @Id
+    private LocalDate rollupMonth;
+
+    private int chunkCount;
+
+    private LocalDateTime completedAt;
+
+}
@@ -0,0 +1,89 @@
+package com.zerobase.hseungho.account.domain;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 계좌별 한 달 거래 roll-up(TransactionRollupJob) <br>
+ * 잔액 확인과 거래 내역은 가장 최근 roll-up 의 마감 잔액에서 시작해 그 다음 달 거래만 읽는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "ux_monthly_transaction_rollup_account_month",
+                columnList = "accountId, rollupMonth", unique = true),
+        @Index(name = "ix_monthly_transaction_rollup_month", columnList = "rollupMonth")
+})
+public class MonthlyTransactionRollup extends BaseEntity {
+
+    private Long accountId;
+
+    /**
+     * 달의 첫날
+     */
+    private LocalDate rollupMonth;
+
+    /**
+     * 달의 첫 거래 직전 잔액
+     */
+    private Long openingBalance;
+
+    /**
+     * 달의 마지막 거래의 balanceSnapshot
+     */
+    private Long closingBalance;
+
+    private Long useSuccessCount;
+
+    private Long useFailureCount;
+
+    private Long useAmount;
+
+    private Long cancelSuccessCount;
+
+    private Long cancelFailureCount;
+
+    private Long cancelAmount;
+
+    /**
+     * 마감 잔액을 만든 마지막 거래
+     */
+    private String lastTransactionId;
+
+    public void add(TransactionType transactionType,
+                    TransactionResultType transactionResultType,
+                    long amount) {
+        boolean success = transactionResultType == TransactionResultType.S;
+        if (transactionType == TransactionType.USE) {
+            if (success) {
+                useSuccessCount++;
+                useAmount += amount;
+            } else {
+                useFailureCount++;
+            }
+        } else {
+            if (success) {
+                cancelSuccessCount++;
+                cancelAmount += amount;
+            } else {
+                cancelFailureCount++;
+            }
+        }
+    }
+
+    /**
+     * 달 안의 거래로 계산한 잔액 증감
+     */
+    public long getBalanceDelta() {
+        return cancelAmount - useAmount;
+    }
+}
@@ -0,0 +1,56 @@
+package com.zerobase.hseungho.account.domain;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 거래와 같은 DB 트랜잭션에서 저장하는 잔액 변경 이벤트(transactional outbox) <br>
+ * OutboxRelay 가 id 순서로 읽어 OutboxEventSink 로 보내고 지운다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_outbox_event_account_id", columnList = "accountId, id")
+})
+public class OutboxEvent extends BaseEntity {
+
+    private Long accountId;
+
+    private String accountNumber;
+
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+
+    private Long amount;
+
+    private Long balanceSnapshot;
+
+    private LocalDateTime transactedAt;
+
+    public static OutboxEvent from(Transaction transaction) {
+        return OutboxEvent.builder()
+                .accountId(transaction.getAccount().getId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionId(transaction.getTransactionId())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+}
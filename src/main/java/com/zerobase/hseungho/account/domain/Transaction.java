@@ -4,6 +4,7 @@ import com.zerobase.hseungho.account.type.TransactionResultType;
 import com.zerobase.hseungho.account.type.TransactionType;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -14,6 +15,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @SuperBuilder
 @Entity
+@Immutable
+@Table(indexes = {
+        @Index(name = "ux_transaction_transaction_id", columnList = "transactionId", unique = true),
+        @Index(name = "ix_transaction_account_transacted_at", columnList = "account_id, transactedAt"),
+        @Index(name = "ix_transaction_transacted_at", columnList = "transactedAt")
+})
 public class Transaction extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
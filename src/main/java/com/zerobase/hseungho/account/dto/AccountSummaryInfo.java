@@ -0,0 +1,28 @@
+package com.zerobase.hseungho.account.dto;
+
+import com.zerobase.hseungho.account.domain.AccountSummary;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountSummaryInfo {
+
+    private Long userId;
+    private Integer accountCount;
+    private Long totalBalance;
+    private LocalDateTime lastActivityAt;
+
+    public static AccountSummaryInfo from(AccountSummary accountSummary) {
+        return AccountSummaryInfo.builder()
+                .userId(accountSummary.getUserId())
+                .accountCount(accountSummary.getAccountCount())
+                .totalBalance(accountSummary.getTotalBalance())
+                .lastActivityAt(accountSummary.getLastActivityAt())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.zerobase.hseungho.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceVerification {
+
+    private String accountNumber;
+
+    /**
+     * 시작한 roll-up 의 달, roll-up 이 없으면 null(첫 거래부터)
+     */
+    private LocalDate rollupMonth;
+
+    private Long openingBalance;
+    private Long expectedBalance;
+    private Long actualBalance;
+    private Long scannedTransactions;
+
+    /**
+     * balanceSnapshot 이 앞 거래로 계산한 잔액과 다른 거래 수
+     */
+    private Long mismatchCount;
+    private String firstMismatchTransactionId;
+    private boolean matched;
+}
@@ -0,0 +1,69 @@
+package com.zerobase.hseungho.account.dto;
+
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BulkCreateAccount {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @Valid
+        @NotNull
+        @Size(min = 1, max = 10000)
+        private List<CreateAccount.Request> accounts;
+    }
+
+    /**
+     * 행 하나의 결과, 실패하면 errorCode 만 담는다. <br>
+     * row 는 요청의 몇 번째 계좌인지(1부터), CSV 는 줄 번호
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private int row;
+        private Long userId;
+        private String accountNumber;
+        private ErrorCode errorCode;
+
+        public static Result created(int row, Long userId, String accountNumber) {
+            return new Result(row, userId, accountNumber, null);
+        }
+
+        public static Result failed(int row, Long userId, ErrorCode errorCode) {
+            return new Result(row, userId, null, errorCode);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private int created;
+        private int failed;
+        private List<Result> results;
+
+        public static Response from(List<Result> results) {
+            int created = (int) results.stream()
+                    .filter(result -> result.getErrorCode() == null)
+                    .count();
+            return Response.builder()
+                    .created(created)
+                    .failed(results.size() - created)
+                    .results(results)
+                    .build();
+        }
+    }
+}
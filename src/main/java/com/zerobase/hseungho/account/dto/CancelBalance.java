@@ -1,6 +1,7 @@
 package com.zerobase.hseungho.account.dto;
 
 import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.aop.TransactionIdInterface;
 import com.zerobase.hseungho.account.type.TransactionResultType;
 import lombok.*;
 
@@ -11,12 +12,13 @@ public class CancelBalance {
     @Getter
     @Setter
     @AllArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements AccountLockIdInterface, TransactionIdInterface {
         @NotBlank
         private String transactionId;
 
         @NotBlank
         @Size(min = 10, max = 10)
+        @Pattern(regexp = "[1-9][0-9]*")
         private String accountNumber;
 
         @NotNull
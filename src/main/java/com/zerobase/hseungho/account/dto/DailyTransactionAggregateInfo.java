@@ -0,0 +1,50 @@
+package com.zerobase.hseungho.account.dto;
+
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyTransactionAggregateInfo {
+
+    private String accountNumber;
+    private LocalDate aggregateDate;
+    private Long useSuccessCount;
+    private Long useFailureCount;
+    private Long useAmount;
+    private Long cancelSuccessCount;
+    private Long cancelFailureCount;
+    private Long cancelAmount;
+
+    /**
+     * 성공 / 전체, 거래가 없으면 null
+     */
+    private Double useSuccessRatio;
+    private Double cancelSuccessRatio;
+
+    public static DailyTransactionAggregateInfo from(String accountNumber,
+                                                     DailyTransactionAggregate aggregate) {
+        return DailyTransactionAggregateInfo.builder()
+                .accountNumber(accountNumber)
+                .aggregateDate(aggregate.getAggregateDate())
+                .useSuccessCount(aggregate.getUseSuccessCount())
+                .useFailureCount(aggregate.getUseFailureCount())
+                .useAmount(aggregate.getUseAmount())
+                .cancelSuccessCount(aggregate.getCancelSuccessCount())
+                .cancelFailureCount(aggregate.getCancelFailureCount())
+                .cancelAmount(aggregate.getCancelAmount())
+                .useSuccessRatio(ratio(aggregate.getUseSuccessCount(), aggregate.getUseFailureCount()))
+                .cancelSuccessRatio(ratio(aggregate.getCancelSuccessCount(), aggregate.getCancelFailureCount()))
+                .build();
+    }
+
+    private static Double ratio(long success, long failure) {
+        long total = success + failure;
+        return total == 0L ? null : (double) success / total;
+    }
+}
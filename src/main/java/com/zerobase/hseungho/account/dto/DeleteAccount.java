@@ -5,6 +5,7 @@ import lombok.*;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
@@ -20,6 +21,7 @@ public class DeleteAccount {
 
         @NotBlank
         @Size(min = 10, max = 10)
+        @Pattern(regexp = "[1-9][0-9]*")
         private String accountNumber;
     }
 
@@ -0,0 +1,59 @@
+package com.zerobase.hseungho.account.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class QueryTransactions {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotNull
+        @Size(min = 1, max = 1000)
+        private List<@NotBlank String> transactionIds;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+
+        /**
+         * 찾은 거래, 요청한 아이디 순서
+         */
+        private List<QueryTransaction.Response> transactions;
+
+        /**
+         * 찾지 못한 아이디, 요청한 아이디 순서
+         */
+        private List<String> missingTransactionIds;
+
+        public static Response of(List<String> transactionIds,
+                                  Map<String, TransactionDto> found) {
+            List<QueryTransaction.Response> transactions = new ArrayList<>(found.size());
+            List<String> missingTransactionIds = new ArrayList<>();
+            for (String transactionId : transactionIds) {
+                TransactionDto transactionDto = found.get(transactionId);
+                if (transactionDto == null) {
+                    missingTransactionIds.add(transactionId);
+                } else {
+                    transactions.add(QueryTransaction.Response.fromDto(transactionDto));
+                }
+            }
+            return Response.builder()
+                    .transactions(transactions)
+                    .missingTransactionIds(missingTransactionIds)
+                    .build();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zerobase.hseungho.account.dto;
 
 import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.aop.UserIdInterface;
 import com.zerobase.hseungho.account.type.TransactionResultType;
 import lombok.*;
 
@@ -11,13 +12,14 @@ public class UseBalance  {
     @Getter
     @Setter
     @AllArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements AccountLockIdInterface, UserIdInterface {
         @NotNull
         @Min(1)
         private Long userId;
 
         @NotBlank
         @Size(min = 10, max = 10)
+        @Pattern(regexp = "[1-9][0-9]*")
         private String accountNumber;
 
         @NotNull
@@ -0,0 +1,24 @@
+package com.zerobase.hseungho.account.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 계좌 생성/해지/잔액 변경 이벤트 <br>
+ * 발행한 DB 트랜잭션 안에서 사용자 요약(AccountSummary)에 증감을 반영한다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountChangedEvent {
+    private final Long userId;
+    private final String accountNumber;
+    private final int accountCountDelta;
+    private final long balanceDelta;
+
+    /**
+     * 계좌 수와 잔액이 바뀌지 않은 변경
+     */
+    public AccountChangedEvent(Long userId, String accountNumber) {
+        this(userId, accountNumber, 0, 0L);
+    }
+}
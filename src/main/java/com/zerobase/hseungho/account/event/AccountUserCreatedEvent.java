@@ -0,0 +1,13 @@
+package com.zerobase.hseungho.account.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 사용자 생성 이벤트
+ */
+@Getter
+@AllArgsConstructor
+public class AccountUserCreatedEvent {
+    private final Long userId;
+}
@@ -0,0 +1,23 @@
+package com.zerobase.hseungho.account.event;
+
+import com.zerobase.hseungho.account.domain.AccountUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+
+/**
+ * 사용자가 저장되면 AccountUserCreatedEvent 를 발행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountUserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void postPersist(AccountUser accountUser) {
+        eventPublisher.publishEvent(new AccountUserCreatedEvent(accountUser.getId()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.zerobase.hseungho.account.event;
+
+import com.zerobase.hseungho.account.domain.OutboxEvent;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 외부로 보내는 잔액 변경 이벤트 <br>
+ * 적어도 한 번 전달하므로 받는 쪽은 eventId 로 중복을 거른다. 같은 계좌의 이벤트는 eventId 순서로 전달한다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceEvent {
+    private Long eventId;
+    private Long accountId;
+    private String accountNumber;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public static BalanceEvent from(OutboxEvent outboxEvent) {
+        return BalanceEvent.builder()
+                .eventId(outboxEvent.getId())
+                .accountId(outboxEvent.getAccountId())
+                .accountNumber(outboxEvent.getAccountNumber())
+                .transactionId(outboxEvent.getTransactionId())
+                .transactionType(outboxEvent.getTransactionType())
+                .transactionResultType(outboxEvent.getTransactionResultType())
+                .amount(outboxEvent.getAmount())
+                .balanceSnapshot(outboxEvent.getBalanceSnapshot())
+                .transactedAt(outboxEvent.getTransactedAt())
+                .build();
+    }
+}
@@ -1,19 +1,40 @@
 package com.zerobase.hseungho.account.exception;
 
 import com.zerobase.hseungho.account.type.ErrorCode;
-import lombok.*;
+import lombok.Getter;
 
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 비즈니스 예외 <br>
+ * - 실패 응답이 목적이므로 stack trace 를 채우지 않는다. <br>
+ * - stack trace, cause, suppressed 가 없어 불변이므로 ErrorCode 별로 하나를 만들어 재사용한다.(of)
+ */
 @Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class AccountException extends RuntimeException {
-    private ErrorCode errorCode;
-    private String errorMessage;
+    private static final Map<ErrorCode, AccountException> INSTANCES = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            INSTANCES.put(errorCode, new AccountException(errorCode));
+        }
+    }
+
+    private final ErrorCode errorCode;
+    private final String errorMessage;
 
     public AccountException(ErrorCode errorCode) {
+        this(errorCode, errorCode.getDescription());
+    }
+
+    public AccountException(ErrorCode errorCode, String errorMessage) {
+        super(errorMessage, null, false, false);
         this.errorCode = errorCode;
-        this.errorMessage = errorCode.getDescription();
+        this.errorMessage = errorMessage;
+    }
+
+    public static AccountException of(ErrorCode errorCode) {
+        return INSTANCES.get(errorCode);
     }
 }
@@ -1,56 +1,79 @@
 package com.zerobase.hseungho.account.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zerobase.hseungho.account.dto.ErrorResponse;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * 실패 응답 body 는 ErrorCode 별로 미리 직렬화해 두고 그대로 쓴다. <br>
+ * AccountException 의 메시지가 ErrorCode 기본 설명과 다르면 그 메시지로 직렬화한다.
+ */
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final Map<ErrorCode, byte[]> errorBodies = new EnumMap<>(ErrorCode.class);
+    private final ObjectMapper objectMapper;
+    private final HttpHeaders jsonHeaders;
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) throws JsonProcessingException {
+        this.objectMapper = objectMapper;
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            errorBodies.put(errorCode, objectMapper.writeValueAsBytes(
+                    new ErrorResponse(errorCode, errorCode.getDescription())));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        jsonHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
     @ExceptionHandler(AccountException.class)
-    public ErrorResponse handleAccountException(AccountException e, HttpServletResponse response) {
+    public ResponseEntity<byte[]> handleAccountException(AccountException e) {
         log.error("{} is occurred.", e.getErrorCode());
-        response.setStatus(e.getErrorCode().getHttpStatus().value());
-        return new ErrorResponse(e.getErrorCode(), e.getErrorMessage());
+        ErrorCode errorCode = e.getErrorCode();
+        if (errorCode.getDescription().equals(e.getErrorMessage())) {
+            return errorResponse(errorCode);
+        }
+        try {
+            return new ResponseEntity<>(objectMapper.writeValueAsBytes(new ErrorResponse(errorCode, e.getErrorMessage())),
+                    jsonHeaders, errorCode.getHttpStatus());
+        } catch (JsonProcessingException ex) {
+            return errorResponse(errorCode);
+        }
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
+    public ResponseEntity<byte[]> handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
         log.error("MethodArgumentNotValidException is occurred.", e);
-        return new ErrorResponse(
-                ErrorCode.BAD_REQUEST,
-                ErrorCode.BAD_REQUEST.getDescription()
-        );
+        return errorResponse(ErrorCode.BAD_REQUEST);
     }
 
     @ExceptionHandler(DataIntegrityViolationException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ErrorResponse handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+    public ResponseEntity<byte[]> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
         log.error("DataIntegrityViolationException is occurred.", e);
-        return new ErrorResponse(
-                ErrorCode.BAD_REQUEST,
-                ErrorCode.BAD_REQUEST.getDescription()
-        );
+        return errorResponse(ErrorCode.BAD_REQUEST);
     }
 
     @ExceptionHandler(Exception.class)
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    public ErrorResponse handleException(Exception e) {
+    public ResponseEntity<byte[]> handleException(Exception e) {
         log.error("Exception is occurred.", e);
-        return new ErrorResponse(
-                ErrorCode.INTERNAL_SERVER_ERROR,
-                ErrorCode.INTERNAL_SERVER_ERROR.getDescription()
-        );
+        return errorResponse(ErrorCode.INTERNAL_SERVER_ERROR);
+    }
+
+    private ResponseEntity<byte[]> errorResponse(ErrorCode errorCode) {
+        return new ResponseEntity<>(errorBodies.get(errorCode), jsonHeaders, errorCode.getHttpStatus());
     }
 
 }
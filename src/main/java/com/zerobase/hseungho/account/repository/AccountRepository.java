@@ -2,7 +2,12 @@ package com.zerobase.hseungho.account.repository;
 
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,7 +16,35 @@ import java.util.Optional;
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findFirstByOrderByIdDesc();
-    Long countByAccountUser(AccountUser accountUser);
     Optional<Account> findByAccountNumber(String accountNumber);
     List<Account> findAllByAccountUser(AccountUser accountUser);
+    long countByAccountUser_IdAndAccountStatus(Long userId, AccountStatus accountStatus);
+
+    @Query("select a.id from Account a where a.id > :after order by a.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select coalesce(sum(a.balance), 0) from Account a " +
+            "where a.accountUser.id = :userId and a.accountStatus = :accountStatus")
+    long sumBalanceByUserId(@Param("userId") Long userId,
+                            @Param("accountStatus") AccountStatus accountStatus);
+
+    /**
+     * 더 큰 fencing token 일 때만 갱신한다. 갱신한 행 수(0 또는 1)를 반환한다. <br>
+     * 이후 조회가 DB 의 최신 잔액을 읽도록 영속성 컨텍스트를 비운다.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.fencingToken = :fencingToken " +
+            "where a.id = :id and (a.fencingToken is null or a.fencingToken < :fencingToken)")
+    int advanceFencingToken(@Param("id") Long id,
+                            @Param("fencingToken") Long fencingToken);
+
+    /**
+     * 잔액 엔진의 잔액을 더 큰 순번일 때만 반영한다. 갱신한 행 수(0 또는 1)를 반환한다.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = :balance, a.balanceSequence = :sequence " +
+            "where a.id = :id and (a.balanceSequence is null or a.balanceSequence < :sequence)")
+    int advanceBalance(@Param("id") Long id,
+                       @Param("balance") Long balance,
+                       @Param("sequence") Long sequence);
 }
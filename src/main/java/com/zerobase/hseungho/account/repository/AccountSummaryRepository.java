@@ -0,0 +1,36 @@
+package com.zerobase.hseungho.account.repository;
+
+import com.zerobase.hseungho.account.domain.AccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, Long> {
+
+    /**
+     * 요약 행에 증감을 더한다. 갱신한 행 수(0 또는 1)를 반환한다.
+     */
+    @Modifying
+    @Query("update AccountSummary s set s.accountCount = s.accountCount + :accountCountDelta, " +
+            "s.totalBalance = s.totalBalance + :balanceDelta, s.lastActivityAt = :activityAt " +
+            "where s.userId = :userId")
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("accountCountDelta") int accountCountDelta,
+                   @Param("balanceDelta") long balanceDelta,
+                   @Param("activityAt") LocalDateTime activityAt);
+
+    /**
+     * 요약 행을 lock 한다.(applyDelta 와 순서대로 처리)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountSummary s where s.userId = :userId")
+    Optional<AccountSummary> findByIdForUpdate(@Param("userId") Long userId);
+}
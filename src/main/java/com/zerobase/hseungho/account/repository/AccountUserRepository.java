@@ -2,8 +2,54 @@ package com.zerobase.hseungho.account.repository;
 
 import com.zerobase.hseungho.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
+
+    /**
+     * 계좌 수가 최대치 미만일 때만 1 증가시킨다. <br>
+     * 증가한 행 수(0 또는 1)를 반환한다.
+     */
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 " +
+            "where u.id = :id and u.accountCount < :maxAccountCount")
+    int incrementAccountCount(@Param("id") Long id,
+                              @Param("maxAccountCount") int maxAccountCount);
+
+    /**
+     * 계좌 수에 count 를 더해도 최대치 이하일 때만 더한다.(계좌 일괄 생성) <br>
+     * 더한 행 수(0 또는 1)를 반환한다.
+     */
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + :count " +
+            "where u.id = :id and u.accountCount + :count <= :maxAccountCount")
+    int addAccountCount(@Param("id") Long id,
+                        @Param("count") int count,
+                        @Param("maxAccountCount") int maxAccountCount);
+
+    /**
+     * 사용자 행을 lock 한다.(계좌 생성과 순서대로 처리)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AccountUser u where u.id = :id")
+    Optional<AccountUser> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select u.id as id, u.accountCount as accountCount from AccountUser u where u.id in :ids")
+    List<AccountCount> findAccountCounts(@Param("ids") Collection<Long> ids);
+
+    interface AccountCount {
+        Long getId();
+
+        int getAccountCount();
+    }
 }
@@ -0,0 +1,9 @@
+package com.zerobase.hseungho.account.repository;
+
+import com.zerobase.hseungho.account.domain.ArchivedLegacyTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedLegacyTransactionRepository extends JpaRepository<ArchivedLegacyTransaction, String> {
+}
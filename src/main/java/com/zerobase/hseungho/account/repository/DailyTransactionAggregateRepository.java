@@ -0,0 +1,43 @@
+package com.zerobase.hseungho.account.repository;
+
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyTransactionAggregateRepository extends JpaRepository<DailyTransactionAggregate, Long> {
+
+    List<DailyTransactionAggregate> findByAccountIdAndAggregateDateBetweenOrderByAggregateDate(
+            Long accountId, LocalDate from, LocalDate to);
+
+    /**
+     * 집계 행에 증감을 더한다. 갱신한 행 수(0 또는 1)를 반환한다.
+     */
+    @Modifying
+    @Query("update DailyTransactionAggregate a set " +
+            "a.useSuccessCount = a.useSuccessCount + :useSuccessCount, " +
+            "a.useFailureCount = a.useFailureCount + :useFailureCount, " +
+            "a.useAmount = a.useAmount + :useAmount, " +
+            "a.cancelSuccessCount = a.cancelSuccessCount + :cancelSuccessCount, " +
+            "a.cancelFailureCount = a.cancelFailureCount + :cancelFailureCount, " +
+            "a.cancelAmount = a.cancelAmount + :cancelAmount " +
+            "where a.accountId = :accountId and a.aggregateDate = :aggregateDate")
+    int applyDelta(@Param("accountId") Long accountId,
+                   @Param("aggregateDate") LocalDate aggregateDate,
+                   @Param("useSuccessCount") long useSuccessCount,
+                   @Param("useFailureCount") long useFailureCount,
+                   @Param("useAmount") long useAmount,
+                   @Param("cancelSuccessCount") long cancelSuccessCount,
+                   @Param("cancelFailureCount") long cancelFailureCount,
+                   @Param("cancelAmount") long cancelAmount);
+
+    @Modifying
+    @Query("delete from DailyTransactionAggregate a where a.aggregateDate = :aggregateDate")
+    int deleteByAggregateDate(@Param("aggregateDate") LocalDate aggregateDate);
+}
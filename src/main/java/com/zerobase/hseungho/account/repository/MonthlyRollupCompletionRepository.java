@@ -0,0 +1,11 @@
+package com.zerobase.hseungho.account.repository;
+
+import com.zerobase.hseungho.account.domain.MonthlyRollupCompletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface MonthlyRollupCompletionRepository extends JpaRepository<MonthlyRollupCompletion, LocalDate> {
+}
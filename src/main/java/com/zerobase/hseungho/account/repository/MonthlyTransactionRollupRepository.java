@@ -0,0 +1,18 @@
+package com.zerobase.hseungho.account.repository;
+
+import com.zerobase.hseungho.account.domain.MonthlyTransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyTransactionRollupRepository extends JpaRepository<MonthlyTransactionRollup, Long> {
+
+    /**
+     * before 달 이전의 가장 최근 roll-up
+     */
+    Optional<MonthlyTransactionRollup> findFirstByAccountIdAndRollupMonthBeforeOrderByRollupMonthDesc(
+            Long accountId, LocalDate before);
+}
@@ -1,12 +1,96 @@
 package com.zerobase.hseungho.account.repository;
 
 import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    @Query("select t from Transaction t join fetch t.account where t.transactionId in :transactionIds")
+    List<Transaction> findAllByTransactionIdIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select t.transactionId from Transaction t")
+    Stream<String> streamAllTransactionIds();
+
+    @Query("select max(t.transactedAt) from Transaction t where t.account.accountUser.id = :userId")
+    Optional<LocalDateTime> findLastTransactedAtByUserId(@Param("userId") Long userId);
+
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<String> findTransactionIdsIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    /**
+     * 기간의 거래를 계좌, 거래 종류, 결과별로 센다.(집계 다시 계산)
+     */
+    @Query("select t.account.id as accountId, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, count(t) as count, " +
+            "coalesce(sum(t.amount), 0) as amount from Transaction t " +
+            "where t.transactedAt >= :from and t.transactedAt < :to " +
+            "group by t.account.id, t.transactionType, t.transactionResultType")
+    List<TransactionTotal> sumByAccount(@Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    /**
+     * 보관할 거래를 오래된 순서로 읽는다.(TransactionArchiver)
+     */
+    @Query("select t from Transaction t join fetch t.account " +
+            "where t.transactedAt < :before order by t.transactedAt, t.id")
+    List<Transaction> findOldest(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Transaction t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 계좌의 from 이후 거래를 시각 순서로 읽는다.(잔액 확인)
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select t.transactionId as transactionId, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactedAt as transactedAt from Transaction t " +
+            "where t.account.id = :accountId and t.transactedAt >= :from order by t.transactedAt, t.id")
+    Stream<TransactionEntry> streamByAccountIdFrom(@Param("accountId") Long accountId,
+                                                   @Param("from") LocalDateTime from);
+
+    interface TransactionEntry {
+        String getTransactionId();
+
+        TransactionType getTransactionType();
+
+        TransactionResultType getTransactionResultType();
+
+        Long getAmount();
+
+        Long getBalanceSnapshot();
+
+        LocalDateTime getTransactedAt();
+    }
+
+    interface TransactionTotal {
+        Long getAccountId();
+
+        TransactionType getTransactionType();
+
+        TransactionResultType getTransactionResultType();
+
+        long getCount();
+
+        long getAmount();
+    }
 }
@@ -0,0 +1,247 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.dto.BulkCreateAccount.Result;
+import com.zerobase.hseungho.account.dto.CreateAccount;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository.AccountCount;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 계좌 일괄 생성(POST /account/bulk, JSON 또는 CSV) <br>
+ * - chunk-size 행씩 한 DB 트랜잭션에서 만든다. 결과는 행마다 요청 순서대로 돌려준다. <br>
+ * - 사용자 계좌 수 제한은 chunk 안의 사용자별 요청 수를 모아 한 번에 검사하고 더한다.(넘치는 행만 실패) <br>
+ * - 계좌 번호는 chunk 마다 마지막 계좌 번호 다음부터 연속으로 한 번에 잡는다. <br>
+ * - 계좌는 JDBC batch 로 넣는다. 다른 생성과 번호나 계좌 수가 겹치면 chunk 를 다시 시도한다. <br>
+ * - CSV 는 "user_id,initial_balance" 줄을 읽는 대로 chunk 로 만든다.(숫자로 시작하지 않는 첫 줄은 header)
+ */
+@Slf4j
+@Service
+public class AccountBulkService {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountNumberIndex accountNumberIndex;
+    private final NegativeCache negativeCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public AccountBulkService(AccountRepository accountRepository,
+                              AccountUserRepository accountUserRepository,
+                              AccountNumberIndex accountNumberIndex,
+                              NegativeCache negativeCache,
+                              ApplicationEventPublisher eventPublisher,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${account.bulk.chunk-size:1000}") int chunkSize) {
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.accountNumberIndex = accountNumberIndex;
+        this.negativeCache = negativeCache;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public List<Result> createAccounts(List<CreateAccount.Request> requests) {
+        List<Result> results = new ArrayList<>(requests.size());
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < requests.size(); i++) {
+            CreateAccount.Request request = requests.get(i);
+            chunk.add(new Row(i + 1, request.getUserId(), request.getInitialBalance()));
+            if (chunk.size() == chunkSize) {
+                results.addAll(createChunk(chunk));
+                chunk.clear();
+            }
+        }
+        results.addAll(createChunk(chunk));
+        return results;
+    }
+
+    /**
+     * 정책 <br>
+     * - 숫자가 아니거나 사용자 아이디가 1 미만, 초기 잔액이 0 미만인 줄은 실패
+     */
+    public List<Result> importCsv(Reader reader) throws IOException {
+        List<Result> results = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || (lineNumber == 1 && !Character.isDigit(line.charAt(0)))) {
+                continue;
+            }
+            Row row = parse(lineNumber, line);
+            if (row == null) {
+                results.add(Result.failed(lineNumber, null, ErrorCode.BAD_REQUEST));
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                results.addAll(createChunk(chunk));
+                chunk.clear();
+            }
+        }
+        results.addAll(createChunk(chunk));
+        results.sort(Comparator.comparingInt(Result::getRow));
+        return results;
+    }
+
+    private static Row parse(int lineNumber, String line) {
+        int comma = line.indexOf(',');
+        if (comma < 0) {
+            return null;
+        }
+        try {
+            long userId = Long.parseLong(line.substring(0, comma).trim());
+            long initialBalance = Long.parseLong(line.substring(comma + 1).trim());
+            if (userId < 1 || initialBalance < 0) {
+                return null;
+            }
+            return new Row(lineNumber, userId, initialBalance);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Result> createChunk(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Chunk chunk = transactionTemplate.execute(status -> insertChunk(rows));
+                chunk.accounts.forEach(account -> {
+                    accountNumberIndex.put(account);
+                    negativeCache.invalidateAccount(account.getAccountNumber());
+                });
+                return chunk.results;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Bulk account chunk failed : {}", rows.size());
+                    List<Result> failed = new ArrayList<>(rows.size());
+                    rows.forEach(row -> failed.add(Result.failed(row.row, row.userId, ErrorCode.INTERNAL_SERVER_ERROR)));
+                    return failed;
+                }
+            }
+        }
+    }
+
+    private Chunk insertChunk(List<Row> rows) {
+        Map<Long, List<Row>> rowsByUser = new LinkedHashMap<>();
+        for (Row row : rows) {
+            rowsByUser.computeIfAbsent(row.userId, userId -> new ArrayList<>()).add(row);
+        }
+        Map<Long, Integer> accountCounts = new HashMap<>();
+        for (AccountCount accountCount : accountUserRepository.findAccountCounts(rowsByUser.keySet())) {
+            accountCounts.put(accountCount.getId(), accountCount.getAccountCount());
+        }
+
+        Map<Row, ErrorCode> failures = new HashMap<>();
+        for (Map.Entry<Long, List<Row>> entry : rowsByUser.entrySet()) {
+            Long userId = entry.getKey();
+            List<Row> userRows = entry.getValue();
+            Integer accountCount = accountCounts.get(userId);
+            if (accountCount == null) {
+                negativeCache.putMissingUser(userId);
+                userRows.forEach(row -> failures.put(row, ErrorCode.USER_NOT_FOUND));
+                continue;
+            }
+            int allowed = Math.min(userRows.size(), Math.max(0, AccountService.MAX_ACCOUNT_PER_USER - accountCount));
+            if (allowed > 0 && accountUserRepository.addAccountCount(userId, allowed,
+                    AccountService.MAX_ACCOUNT_PER_USER) == 0) {
+                throw new ConcurrencyFailureException("Account count changed : " + userId);
+            }
+            userRows.subList(allowed, userRows.size())
+                    .forEach(row -> failures.put(row, ErrorCode.MAX_ACCOUNT_PER_USER_10));
+        }
+
+        long nextAccountNumber = accountRepository.findFirstByOrderByIdDesc()
+                .map(account -> Long.parseLong(account.getAccountNumber()) + 1)
+                .orElse(1_000_000_000L);
+        LocalDateTime now = LocalDateTime.now();
+        List<Result> results = new ArrayList<>(rows.size());
+        List<Account> accounts = new ArrayList<>(rows.size());
+        Map<Long, List<Account>> accountsByUser = new LinkedHashMap<>();
+        for (Row row : rows) {
+            ErrorCode failure = failures.get(row);
+            if (failure != null) {
+                results.add(Result.failed(row.row, row.userId, failure));
+                continue;
+            }
+            String accountNumber = String.valueOf(nextAccountNumber++);
+            Account account = Account.builder()
+                    .accountUser(accountUserRepository.getReferenceById(row.userId))
+                    .accountStatus(AccountStatus.IN_USE)
+                    .accountNumber(accountNumber)
+                    .balance(row.initialBalance)
+                    .registeredAt(now)
+                    .build();
+            accounts.add(account);
+            accountsByUser.computeIfAbsent(row.userId, userId -> new ArrayList<>()).add(account);
+            results.add(Result.created(row.row, row.userId, accountNumber));
+        }
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+        accountRepository.saveAll(accounts);
+        publishAccountChanges(accountsByUser);
+        return new Chunk(results, accounts);
+    }
+
+    /**
+     * 사용자마다 한 번, 만든 계좌 수와 초기 잔액 합으로 발행한다.
+     */
+    private void publishAccountChanges(Map<Long, List<Account>> accountsByUser) {
+        accountsByUser.forEach((userId, userAccounts) -> eventPublisher.publishEvent(new AccountChangedEvent(
+                userId,
+                userAccounts.get(userAccounts.size() - 1).getAccountNumber(),
+                userAccounts.size(),
+                userAccounts.stream().mapToLong(Account::getBalance).sum())));
+    }
+
+    @RequiredArgsConstructor
+    private static final class Row {
+        private final int row;
+        private final Long userId;
+        private final Long initialBalance;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Chunk {
+        private final List<Result> results;
+        private final List<Account> accounts;
+    }
+}
@@ -0,0 +1,217 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.dto.AccountInfo;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.util.LocalCache;
+import com.zerobase.hseungho.account.util.LuaScript;
+import io.netty.buffer.ByteBuf;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자별 계좌 목록 2단계 캐시(로컬 -> Redis -> DB) <br>
+ * - 같은 사용자에 대한 동시 캐시 미스는 하나의 DB 조회만 실행한다.(single-flight) <br>
+ * - 계좌 생성/해지/잔액 변경이 커밋되면 로컬과 Redis 에서 제거하고 다른 노드에 전파한다. <br>
+ * - 조회 중에 무효화가 일어나면 조회 결과를 캐시에 적재하지 않는다. <br>
+ *   로컬은 사용자별 조회(flight)에 무효화 여부를 표시하고, <br>
+ *   Redis 는 사용자별 버전을 무효화마다 올리고 조회 전에 읽은 버전이 그대로일 때만 저장한다.(compare-and-set) <br>
+ *   그래서 다른 노드의 무효화 전에 DB 에서 읽은 목록이 Redis 에 남지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountListCache {
+    private static final String KEY_PREFIX = "ACCOUNTS:";
+    private static final String VERSION_KEY_PREFIX = "ACCOUNTS:VERSION:";
+    private static final String INVALIDATION_TOPIC = "ACCOUNTS:INVALIDATE";
+
+    private final AccountService accountService;
+    private final RedissonClient redissonClient;
+    private final LocalCache<Long, List<AccountInfo>> localCache;
+    private final Duration redisTtl;
+    private final LuaScript putScript = new LuaScript("scripts/account_list_put.lua");
+    private final LuaScript invalidateScript = new LuaScript("scripts/account_list_invalidate.lua");
+    private final ConcurrentMap<Long, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private RTopic invalidationTopic;
+    private int listenerId;
+
+    public AccountListCache(AccountService accountService,
+                            RedissonClient redissonClient,
+                            @Value("${account.cache.account-list.maximum-size:10000}") int maximumSize,
+                            @Value("${account.cache.account-list.ttl:1m}") Duration ttl,
+                            @Value("${account.cache.account-list.redis-ttl:10m}") Duration redisTtl) {
+        this.accountService = accountService;
+        this.redissonClient = redissonClient;
+        this.localCache = new LocalCache<>(maximumSize, ttl);
+        this.redisTtl = redisTtl;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC);
+        listenerId = invalidationTopic.addListener(Long.class,
+                (channel, userId) -> invalidateLocal(userId));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (invalidationTopic != null) {
+            invalidationTopic.removeListener(listenerId);
+        }
+    }
+
+    public List<AccountInfo> getAccountInfos(Long userId) {
+        List<AccountInfo> cached = localCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Flight flight = new Flight();
+        Flight leader = inFlight.putIfAbsent(userId, flight);
+        if (leader != null) {
+            return await(leader.result);
+        }
+
+        try {
+            flight.result.complete(load(userId, flight));
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(userId, flight);
+        }
+        return await(flight.result);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public void invalidate(Long userId) {
+        invalidateLocal(userId);
+        try {
+            invalidateScript.eval(redissonClient, List.of(VERSION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                    String.valueOf(redisTtl.toMillis()));
+            invalidationTopic.publish(userId);
+        } catch (Exception e) {
+            log.error("Failed to invalidate account list cache : {}", userId);
+        }
+    }
+
+    public LocalCache<Long, List<AccountInfo>> getLocalCache() {
+        return localCache;
+    }
+
+    /**
+     * 조회 중인 flight 에 먼저 표시하고 로컬에서 지운다. <br>
+     * load 는 로컬에 넣은 뒤 표시를 다시 보므로, 어느 순서로 겹쳐도 무효화 전 목록이 남지 않는다.
+     */
+    private void invalidateLocal(Long userId) {
+        Flight flight = inFlight.get(userId);
+        if (flight != null) {
+            flight.invalidated = true;
+        }
+        localCache.invalidate(userId);
+    }
+
+    private List<AccountInfo> load(Long userId, Flight flight) {
+        List<AccountInfo> accountInfos = getFromRedis(userId);
+        if (accountInfos == null) {
+            Long version = getVersion(userId);
+            accountInfos = accountService.getAccountsByUserId(userId).stream()
+                    .map(AccountInfo::from)
+                    .collect(Collectors.toList());
+            if (version != null && !flight.invalidated) {
+                putToRedis(userId, version, accountInfos);
+            }
+        }
+
+        if (!flight.invalidated) {
+            localCache.put(userId, accountInfos);
+            if (flight.invalidated) {
+                localCache.invalidate(userId);
+            }
+        }
+        return accountInfos;
+    }
+
+    /**
+     * @return Redis 장애 시 null(저장하지 않는다)
+     */
+    private Long getVersion(Long userId) {
+        try {
+            return redissonClient.getAtomicLong(VERSION_KEY_PREFIX + userId).get();
+        } catch (Exception e) {
+            log.error("Failed to read account list version : {}", userId);
+            return null;
+        }
+    }
+
+    private List<AccountInfo> getFromRedis(Long userId) {
+        try {
+            return bucket(userId).get();
+        } catch (Exception e) {
+            log.error("Failed to read account list cache : {}", userId);
+            return null;
+        }
+    }
+
+    /**
+     * bucket 과 같은 JsonJacksonCodec 으로 직렬화해서 버전이 그대로일 때만 저장한다.
+     */
+    private void putToRedis(Long userId, long version, List<AccountInfo> accountInfos) {
+        try {
+            putScript.eval(redissonClient, List.of(VERSION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                    String.valueOf(version), toJson(accountInfos), String.valueOf(redisTtl.toMillis()));
+        } catch (Exception e) {
+            log.error("Failed to write account list cache : {}", userId);
+        }
+    }
+
+    private RBucket<List<AccountInfo>> bucket(Long userId) {
+        return redissonClient.getBucket(KEY_PREFIX + userId, JsonJacksonCodec.INSTANCE);
+    }
+
+    private static String toJson(List<AccountInfo> accountInfos) throws IOException {
+        ByteBuf encoded = JsonJacksonCodec.INSTANCE.getValueEncoder().encode(accountInfos);
+        try {
+            return encoded.toString(StandardCharsets.UTF_8);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    private static List<AccountInfo> await(CompletableFuture<List<AccountInfo>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<List<AccountInfo>> result = new CompletableFuture<>();
+        private volatile boolean invalidated;
+    }
+}
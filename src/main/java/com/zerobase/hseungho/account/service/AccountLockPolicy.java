@@ -0,0 +1,43 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.AccountLock;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 엔드포인트별 lock 정책, @AccountLock 의 속성에서 만든다.
+ */
+@Getter
+@AllArgsConstructor
+public class AccountLockPolicy {
+    public static final AccountLockPolicy DEFAULT = new AccountLockPolicy(1000L, -1L, false, -1);
+
+    private final long waitMillis;
+    private final long leaseMillis;
+    private final boolean fair;
+    private final int maxQueueDepth;
+
+    public static AccountLockPolicy from(AccountLock accountLock) {
+        return new AccountLockPolicy(
+                accountLock.tryLockTime(),
+                accountLock.leaseTime(),
+                accountLock.fair(),
+                accountLock.maxQueueDepth()
+        );
+    }
+
+    /**
+     * 여러 백엔드를 차례로 시도할 때 남은 대기 시간만 넘긴다.
+     */
+    public AccountLockPolicy withWaitMillis(long waitMillis) {
+        return new AccountLockPolicy(Math.max(0L, waitMillis), leaseMillis, fair, maxQueueDepth);
+    }
+
+    public boolean hasLease() {
+        return leaseMillis > 0;
+    }
+
+    public boolean hasQueueLimit() {
+        return maxQueueDepth >= 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.zerobase.hseungho.account.service;
+
+/**
+ * 계좌 lock 백엔드 <br>
+ * - tryLock 은 경합으로 lock 을 얻지 못하면 false 를 반환하고, 백엔드 장애는 예외로 알린다. <br>
+ * - unlock 은 lock 을 얻은 스레드에서 호출한다. <br>
+ * - 백엔드가 지원하지 않는 정책 속성(lease, fair)은 무시한다. <br>
+ * - fencing token 은 백엔드와 상관없이 FencingTokenIssuer 에서 발급한다.
+ */
+public interface AccountLockProvider {
+
+    String getName();
+
+    boolean tryLock(String accountNumber, AccountLockPolicy policy) throws InterruptedException;
+
+    void unlock(String accountNumber);
+}
@@ -0,0 +1,122 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.util.LocalCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 계좌 번호 -> (계좌 id, 소유주 id, 상태) 로컬 캐시 <br>
+ * - 잔액은 캐시하지 않는다. 잔액은 항상 DB 에서 읽는다. <br>
+ * - 소유주는 바뀌지 않고 상태는 IN_USE -> UNREGISTERED 로만 바뀌므로, <br>
+ *   캐시된 UNREGISTERED 와 소유주는 DB 조회 없이 믿을 수 있다. <br>
+ * - 계좌 해지 시 무효화하고, 다른 노드에는 Redis pub/sub 으로 전파한다.
+ */
+@Slf4j
+@Component
+public class AccountNearCache {
+    private static final String INVALIDATION_TOPIC = "ACCOUNT:INVALIDATE";
+
+    private final AccountNumberIndex accountNumberIndex;
+    private final RedissonClient redissonClient;
+    private final LocalCache<String, CachedAccount> cache;
+
+    private RTopic invalidationTopic;
+    private int listenerId;
+
+    public AccountNearCache(AccountNumberIndex accountNumberIndex,
+                            RedissonClient redissonClient,
+                            @Value("${account.cache.account.maximum-size:10000}") int maximumSize,
+                            @Value("${account.cache.account.ttl:10m}") Duration ttl) {
+        this.accountNumberIndex = accountNumberIndex;
+        this.redissonClient = redissonClient;
+        this.cache = new LocalCache<>(maximumSize, ttl);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC);
+        listenerId = invalidationTopic.addListener(String.class,
+                (channel, accountNumber) -> cache.invalidate(accountNumber));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (invalidationTopic != null) {
+            invalidationTopic.removeListener(listenerId);
+        }
+    }
+
+    public Optional<CachedAccount> get(String accountNumber) {
+        CachedAccount cached = cache.get(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return accountNumberIndex.findByAccountNumber(accountNumber)
+                .map(account -> {
+                    CachedAccount loaded = CachedAccount.from(account);
+                    cache.put(accountNumber, loaded);
+                    return loaded;
+                });
+    }
+
+    /**
+     * 바로 로컬에서 제거하고, 트랜잭션 중이면 커밋 이후에 한 번 더 제거하고 전파한다.
+     */
+    public void invalidate(String accountNumber) {
+        cache.invalidate(accountNumber);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(accountNumber);
+                    publishInvalidation(accountNumber);
+                }
+            });
+        } else {
+            publishInvalidation(accountNumber);
+        }
+    }
+
+    private void publishInvalidation(String accountNumber) {
+        try {
+            invalidationTopic.publish(accountNumber);
+        } catch (Exception e) {
+            // 다른 노드는 ttl 이 지나면 갱신된다.
+            log.error("Failed to publish account cache invalidation : {}", accountNumber);
+        }
+    }
+
+    public LocalCache<String, CachedAccount> getCache() {
+        return cache;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedAccount {
+        private final Long id;
+        private final Long userId;
+        private final AccountStatus accountStatus;
+
+        public static CachedAccount from(Account account) {
+            return new CachedAccount(
+                    account.getId(),
+                    account.getAccountUser().getId(),
+                    account.getAccountStatus()
+            );
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.util.LocalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 계좌 번호 -> 계좌 id near-cache <br>
+ * - 계좌 번호와 id 의 매핑은 생성 이후 바뀌지 않으므로 무효화가 필요 없다.(ttl 없음) <br>
+ * - 캐시에 있으면 PK 로 조회하고(영속성 컨텍스트 우선), 없으면 계좌 번호로 조회 후 적재한다. <br>
+ *   적중하면 계좌 번호 unique index 탐색을 건너뛰고, 같은 트랜잭션에서 이미 읽은 계좌는 DB 를 읽지 않는다. <br>
+ * - 최근에 쓴 maximum-size 개만 둔다.(LRU, 엔트리 하나에 약 100 바이트이므로 기본 10만 개에 약 10MB) <br>
+ * - 없는 계좌 번호는 NegativeCache 에 적재해서 반복 조회를 막는다.
+ */
+@Component
+public class AccountNumberIndex {
+
+    private final AccountRepository accountRepository;
+    private final NegativeCache negativeCache;
+    private final LocalCache<Long, Long> accountIds;
+
+    public AccountNumberIndex(AccountRepository accountRepository,
+                              NegativeCache negativeCache,
+                              @Value("${account.cache.account-number.maximum-size:100000}") int maximumSize) {
+        this.accountRepository = accountRepository;
+        this.negativeCache = negativeCache;
+        this.accountIds = new LocalCache<>(maximumSize, Duration.ZERO);
+    }
+
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        long number = toNumber(accountNumber);
+        if (number < 0) {
+            return Optional.empty();
+        }
+
+        Long accountId = accountIds.get(number);
+        if (accountId != null) {
+            Optional<Account> account = accountRepository.findById(accountId);
+            if (account.isPresent()) {
+                return account;
+            }
+        }
+
+        if (negativeCache.isMissingAccount(accountNumber)) {
+            return Optional.empty();
+        }
+        Optional<Account> account = accountRepository.findByAccountNumber(accountNumber);
+        if (account.isPresent()) {
+            put(account.get());
+        } else {
+            negativeCache.putMissingAccount(accountNumber);
+        }
+        return account;
+    }
+
+    public void put(Account account) {
+        long number = toNumber(account.getAccountNumber());
+        if (number < 0 || account.getId() == null) {
+            return;
+        }
+        accountIds.put(number, account.getId());
+    }
+
+    public int size() {
+        return accountIds.size();
+    }
+
+    /**
+     * 숫자가 아니거나 0 으로 시작하는 계좌 번호는 존재할 수 없으므로 -1 을 반환한다.
+     */
+    static long toNumber(String accountNumber) {
+        if (accountNumber == null || accountNumber.isEmpty() || accountNumber.length() > 18
+                || accountNumber.charAt(0) == '0') {
+            return -1L;
+        }
+        long number = 0;
+        for (int i = 0; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
@@ -3,12 +3,14 @@ package com.zerobase.hseungho.account.service;
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.domain.AccountUser;
 import com.zerobase.hseungho.account.dto.AccountDto;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
 import com.zerobase.hseungho.account.exception.AccountException;
 import com.zerobase.hseungho.account.repository.AccountRepository;
 import com.zerobase.hseungho.account.repository.AccountUserRepository;
 import com.zerobase.hseungho.account.type.AccountStatus;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
@@ -21,8 +23,16 @@ import java.util.stream.Collectors;
 @Transactional
 @RequiredArgsConstructor
 public class AccountService {
+    static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountUserReader accountUserReader;
+    private final AccountNumberIndex accountNumberIndex;
+    private final AccountNearCache accountNearCache;
+    private final NegativeCache negativeCache;
+    private final BalanceEngine balanceEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 사용자 검증
@@ -30,31 +40,34 @@ public class AccountService {
      * 계좌 저장 및 정보 응답
      */
     public AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = accountUserReader.getAccountUser(userId);
 
         validateCreateAccount(accountUser);
 
         String newAccountNum = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> Integer.parseInt(account.getAccountNumber()) + 1 + "")
+                .map(account -> Long.parseLong(account.getAccountNumber()) + 1 + "")
                 .orElse("1000000000");
 
-        return AccountDto.fromEntity(
-                accountRepository.save(Account.builder()
-                        .accountUser(accountUser)
-                        .accountStatus(AccountStatus.IN_USE)
-                        .accountNumber(newAccountNum)
-                        .balance(initialBalance)
-                        .registeredAt(LocalDateTime.now())
-                        .build()
-                )
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(accountUser)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber(newAccountNum)
+                .balance(initialBalance)
+                .registeredAt(LocalDateTime.now())
+                .build()
         );
+        accountNumberIndex.put(account);
+        negativeCache.invalidateAccount(newAccountNum);
+        eventPublisher.publishEvent(new AccountChangedEvent(userId, newAccountNum, 1, initialBalance));
+
+        return AccountDto.fromEntity(account);
     }
 
     public AccountDto deleteAccount(Long userId, String accountNumber) {
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = accountUserReader.getAccountUser(userId);
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account account = accountNumberIndex.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
 
         validateDeleteAccount(accountUser, account);
 
@@ -62,12 +75,15 @@ public class AccountService {
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountNearCache.invalidate(accountNumber);
+        // 잔액이 0 인 계좌만 해지할 수 있다.
+        eventPublisher.publishEvent(new AccountChangedEvent(userId, accountNumber, -1, 0L));
 
         return AccountDto.fromEntity(account);
     }
 
     public List<AccountDto> getAccountsByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = accountUserReader.getAccountUser(userId);
 
         List<Account> accounts = accountRepository.findAllByAccountUser(accountUser);
 
@@ -80,34 +96,35 @@ public class AccountService {
 
     private void validateGetAccounts(List<Account> accounts) {
         if (accounts == null || accounts.size() == 0) {
-            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+            throw AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND);
         }
     }
 
     private void validateDeleteAccount(AccountUser accountUser, Account account) {
         if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+            throw AccountException.of(ErrorCode.USER_ACCOUNT_UN_MATCH);
         }
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
-            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            throw AccountException.of(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
-            throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
+        long balance = balanceEngine.isManaged(account.getAccountNumber())
+                ? balanceEngine.getBalance(account.getAccountNumber(), account.getId())
+                : account.getBalance();
+        if (balance > 0) {
+            throw AccountException.of(ErrorCode.BALANCE_NOT_EMPTY);
         }
     }
 
+    /**
+     * 조건부 증가로 검사와 증가를 한 번에 한다. <br>
+     * 증가한 행의 lock 이 커밋까지 유지되므로 동시 생성도 10개를 넘지 못한다.
+     */
     private void validateCreateAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
-            throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
+        if (accountUserRepository.incrementAccountCount(accountUser.getId(), MAX_ACCOUNT_PER_USER) == 0) {
+            throw AccountException.of(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
     }
 
-    private AccountUser getAccountUser(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-        return accountUser;
-    }
-
     public Account getAccount(Long id) {
         if(id < 0){
             throw new RuntimeException("Minus");
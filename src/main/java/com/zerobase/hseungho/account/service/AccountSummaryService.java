@@ -0,0 +1,142 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.AccountSummary;
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.dto.AccountSummaryInfo;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.AccountSummaryRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사용자별 계좌 요약 읽기 모델 <br>
+ * - AccountChangedEvent 를 발행한 DB 트랜잭션 안에서 요약 행에 증감을 더하므로, 요약은 계좌와 함께 커밋/롤백된다. <br>
+ * - 요약 행은 첫 계좌를 만들 때 계좌 테이블에서 계산해 만든다.(사용자 행 lock 으로 같은 사용자의 생성은 순서대로 처리된다) <br>
+ * - 잔액 엔진 계좌는 DB 에 반영될 때 요약에 더해진다. <br>
+ * - 요약 행이 없던 때의 계좌나 어긋난 요약은 rebuild 로 계좌와 거래 테이블에서 다시 계산한다. <br>
+ *   사용자 행(계좌 생성)과 요약 행(증감) 순서로 lock 을 잡은 뒤 계산하므로, 그 사이에 커밋된 증감을 덮어쓰지 않는다. <br>
+ * - 요약 행이 없는 사용자는 처음 조회할 때 rebuild 로 채운다.(요약 행이 생기기 전에 만든 계좌)
+ */
+@Slf4j
+@Service
+public class AccountSummaryService {
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionRepository transactionRepository;
+    private final NegativeCache negativeCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public AccountSummaryService(AccountSummaryRepository accountSummaryRepository,
+                                 AccountRepository accountRepository,
+                                 AccountUserRepository accountUserRepository,
+                                 TransactionRepository transactionRepository,
+                                 NegativeCache negativeCache,
+                                 PlatformTransactionManager transactionManager) {
+        this.accountSummaryRepository = accountSummaryRepository;
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionRepository = transactionRepository;
+        this.negativeCache = negativeCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 요약 행 하나만 읽는다. 행이 없으면 계좌와 거래 테이블에서 계산해 만든다.
+     */
+    public AccountSummaryInfo getSummary(Long userId) {
+        return accountSummaryRepository.findById(userId)
+                .map(AccountSummaryInfo::from)
+                .orElseGet(() -> rebuild(userId));
+    }
+
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getAccountCountDelta() == 0 && event.getBalanceDelta() == 0L) {
+            return;
+        }
+        int updated = accountSummaryRepository.applyDelta(event.getUserId(),
+                event.getAccountCountDelta(), event.getBalanceDelta(), LocalDateTime.now());
+        if (updated == 0 && event.getAccountCountDelta() > 0) {
+            accountSummaryRepository.save(calculate(event.getUserId(), LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * 한 사용자의 요약을 계좌와 거래 테이블에서 다시 계산한다.
+     */
+    public AccountSummaryInfo rebuild(Long userId) {
+        validateUserExists(userId);
+        return transactionTemplate.execute(status -> AccountSummaryInfo.from(rebuildLocked(userId)));
+    }
+
+    /**
+     * 모든 사용자의 요약을 다시 계산한다. 사용자 REBUILD_PAGE_SIZE 명마다 커밋한다.
+     *
+     * @return 다시 계산한 사용자 수
+     */
+    public int rebuildAll() {
+        int rebuilt = 0;
+        PageRequest pageRequest = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+        while (true) {
+            PageRequest current = pageRequest;
+            Page<AccountUser> users = transactionTemplate.execute(status -> {
+                Page<AccountUser> page = accountUserRepository.findAll(current);
+                page.forEach(user -> rebuildLocked(user.getId()));
+                return page;
+            });
+            rebuilt += users.getNumberOfElements();
+            if (!users.hasNext()) {
+                break;
+            }
+            pageRequest = pageRequest.next();
+        }
+        log.info("Account summaries rebuilt : {}", rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * 트랜잭션 안에서 호출한다. 사용자 행과 요약 행을 lock 한 뒤 계산하고 커밋할 때까지 잡고 있는다.
+     */
+    private AccountSummary rebuildLocked(Long userId) {
+        accountUserRepository.findByIdForUpdate(userId);
+        accountSummaryRepository.findByIdForUpdate(userId);
+        return accountSummaryRepository.save(calculate(userId, null));
+    }
+
+    /**
+     * @param activityAt 거래가 없을 때의 마지막 활동 시각
+     */
+    private AccountSummary calculate(Long userId, LocalDateTime activityAt) {
+        return AccountSummary.builder()
+                .userId(userId)
+                .accountCount((int) accountRepository.countByAccountUser_IdAndAccountStatus(
+                        userId, AccountStatus.IN_USE))
+                .totalBalance(accountRepository.sumBalanceByUserId(userId, AccountStatus.IN_USE))
+                .lastActivityAt(transactionRepository.findLastTransactedAtByUserId(userId)
+                        .orElse(activityAt))
+                .build();
+    }
+
+    private void validateUserExists(Long userId) {
+        if (negativeCache.isMissingUser(userId) || !accountUserRepository.existsById(userId)) {
+            throw AccountException.of(ErrorCode.USER_NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 사용자 조회 <br>
+ * - 없는 사용자는 NegativeCache 에 기록해서 ttl 동안 DB 를 다시 조회하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountUserReader {
+    private final AccountUserRepository accountUserRepository;
+    private final NegativeCache negativeCache;
+
+    /**
+     * 정책 <br>
+     * - 사용자가 없는 경우 실패 응답
+     */
+    public AccountUser getAccountUser(Long userId) {
+        if (negativeCache.isMissingUser(userId)) {
+            throw AccountException.of(ErrorCode.USER_NOT_FOUND);
+        }
+        return accountUserRepository.findById(userId)
+                .orElseThrow(() -> {
+                    negativeCache.putMissingUser(userId);
+                    return AccountException.of(ErrorCode.USER_NOT_FOUND);
+                });
+    }
+}
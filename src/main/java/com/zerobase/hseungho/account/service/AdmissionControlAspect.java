@@ -0,0 +1,43 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.AccountLock;
+import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.AdmissionController.Permit;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * lock 을 기다리기 전에 수용 여부를 판단하고, 끝나면 응답 시간을 AdmissionController 에 알린다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@RequiredArgsConstructor
+public class AdmissionControlAspect {
+
+    private final AdmissionController admissionController;
+
+    @Around("@annotation(accountLock) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               AccountLock accountLock,
+                               AccountLockIdInterface request) throws Throwable {
+        Permit permit = admissionController.acquire(request.getAccountNumber(), accountLock.tryLockTime());
+        boolean lockTimedOut = false;
+        try {
+            return pjp.proceed();
+        } catch (AccountException e) {
+            lockTimedOut = e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+            throw e;
+        } finally {
+            admissionController.release(permit, lockTimedOut);
+        }
+    }
+
+}
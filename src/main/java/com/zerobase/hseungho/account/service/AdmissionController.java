@@ -0,0 +1,152 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 계좌 lock 앞단의 수용 제어 <br>
+ * - 노드 전체 동시 처리 수를 AIMD 로 조정한다. 지연이 기준 이하면 limit 를 조금씩 늘리고, 기준을 넘으면 비율로 줄인다. <br>
+ *   줄이는 것은 마지막으로 줄인 뒤에 시작한 요청이 느릴 때만 한다.(응답 시간 한 번에 한 번) <br>
+ * - 계좌 lock 경합은 노드 혼잡이 아니므로 limit 조정에 쓰지 않는다. <br>
+ *   앞선 요청이 있던 요청과 lock 대기 시간이 초과된 요청은 limit 를 바꾸지 않는다. <br>
+ * - 계좌별로 처리 중/대기 중인 요청 수를 세고, 앞선 요청 수 x 평균 처리 시간이 <br>
+ *   lock 대기 시간을 넘을 것으로 예상되면 기다리지 않고 바로 거절한다. <br>
+ * - 평균 처리 시간은 지연 기준에서 시작하고, 앞선 요청 없이 들어온 요청의 응답 시간으로 잰다.(대기 시간이 섞이지 않도록)
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+    private static final double SERVICE_TIME_WEIGHT = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final LongSupplier ticker;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, Integer> perAccount = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private double limit;
+    private double serviceTimeNanos;
+    private long lastDecreasedAt;
+    private boolean decreased;
+
+    @Autowired
+    public AdmissionController(@Value("${account.admission.initial-limit:64}") int initialLimit,
+                               @Value("${account.admission.min-limit:8}") int minLimit,
+                               @Value("${account.admission.max-limit:512}") int maxLimit,
+                               @Value("${account.admission.latency-threshold-ms:500}") long latencyThresholdMillis,
+                               @Value("${account.admission.backoff-ratio:0.9}") double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyThresholdMillis, backoffRatio, System::nanoTime);
+    }
+
+    AdmissionController(int initialLimit, int minLimit, int maxLimit,
+                        long latencyThresholdMillis, double backoffRatio, LongSupplier ticker) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000L;
+        this.serviceTimeNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param budgetMillis 이 요청이 lock 을 기다릴 수 있는 시간
+     */
+    public Permit acquire(String accountNumber, long budgetMillis) {
+        if (inFlight.incrementAndGet() > getLimit()) {
+            inFlight.decrementAndGet();
+            throw reject("node limit", accountNumber);
+        }
+
+        int[] ahead = new int[1];
+        perAccount.compute(accountNumber, (key, depth) -> {
+            ahead[0] = depth == null ? 0 : depth;
+            return ahead[0] + 1;
+        });
+        if (ahead[0] > 0 && ahead[0] * getServiceTimeNanos() > budgetMillis * 1_000_000L) {
+            leave(accountNumber);
+            throw reject("estimated wait", accountNumber);
+        }
+        return new Permit(accountNumber, ahead[0], ticker.getAsLong());
+    }
+
+    /**
+     * @param lockTimedOut 계좌 lock 대기 시간이 초과되어 실패했는지 여부
+     */
+    public void release(Permit permit, boolean lockTimedOut) {
+        long now = ticker.getAsLong();
+        leave(permit.accountNumber);
+        if (permit.ahead == 0 && !lockTimedOut) {
+            onSample(permit.startedAt, now);
+        }
+    }
+
+    public int getLimit() {
+        synchronized (this) {
+            return (int) limit;
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    synchronized double getServiceTimeNanos() {
+        return serviceTimeNanos;
+    }
+
+    private synchronized void onSample(long startedAt, long now) {
+        long elapsedNanos = now - startedAt;
+        serviceTimeNanos += SERVICE_TIME_WEIGHT * (elapsedNanos - serviceTimeNanos);
+        if (elapsedNanos <= latencyThresholdNanos) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        } else if (!decreased || startedAt - lastDecreasedAt >= 0) {
+            // 이전에 줄일 때 이미 처리 중이던 요청은 줄인 limit 를 겪지 않았다.
+            limit = Math.max(minLimit, limit * backoffRatio);
+            lastDecreasedAt = now;
+            decreased = true;
+        }
+    }
+
+    private void leave(String accountNumber) {
+        perAccount.computeIfPresent(accountNumber, (key, depth) -> depth <= 1 ? null : depth - 1);
+        inFlight.decrementAndGet();
+    }
+
+    private AccountException reject(String reason, String accountNumber) {
+        rejectedCount.incrementAndGet();
+        log.error("Admission rejected by {} : {}", reason, accountNumber);
+        return AccountException.of(ErrorCode.TRANSACTION_OVERLOADED);
+    }
+
+    @Getter
+    public static class Permit {
+        private final String accountNumber;
+        private final int ahead;
+        private final long startedAt;
+
+        private Permit(String accountNumber, int ahead, long startedAt) {
+            this.accountNumber = accountNumber;
+            this.ahead = ahead;
+            this.startedAt = startedAt;
+        }
+    }
+}
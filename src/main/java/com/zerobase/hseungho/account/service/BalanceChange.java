@@ -0,0 +1,29 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 잔액 엔진이 DB 에 반영할 잔액 변경 하나 <br>
+ * sequence 는 계좌별로 증가하고, 더 큰 sequence 의 잔액만 DB 에 반영한다.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class BalanceChange {
+    private final Long accountId;
+    private final String accountNumber;
+    private final Long userId;
+    private final String transactionId;
+    private final TransactionType transactionType;
+    private final TransactionResultType transactionResultType;
+    private final Long amount;
+    private final Long balance;
+    private final Long sequence;
+    private final LocalDateTime transactedAt;
+}
@@ -0,0 +1,52 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * DB 밖에서 잔액을 관리하는 엔진 <br>
+ * - account.balance-engine.type 으로 고르고, account.balance-engine.accounts 에 지정한 계좌만 처리한다. <br>
+ * - 거래와 잔액은 비동기로 DB 에 반영한다.(BalanceProjection)
+ */
+public interface BalanceEngine {
+
+    String getName();
+
+    boolean isEnabled();
+
+    boolean isManaged(String accountNumber);
+
+    /**
+     * 잔액을 바꾸고 거래를 돌려준다. 잔액이 부족하면 AMOUNT_EXCEED_BALANCE
+     */
+    CachedTransaction apply(String accountNumber,
+                            CachedAccount account,
+                            TransactionType transactionType,
+                            Long amount,
+                            String transactionId,
+                            LocalDateTime transactedAt);
+
+    /**
+     * 실패한 거래를 현재 잔액과 함께 기록한다.
+     */
+    void recordFailure(String accountNumber,
+                       CachedAccount account,
+                       TransactionType transactionType,
+                       Long amount,
+                       String transactionId,
+                       LocalDateTime transactedAt);
+
+    long getBalance(String accountNumber, Long accountId);
+
+    /**
+     * 아직 DB 에 반영되지 않은 거래
+     *
+     * @return 찾은 거래만 담은 아이디 -> 거래
+     */
+    Map<String, CachedTransaction> findPending(Collection<String> transactionIds);
+}
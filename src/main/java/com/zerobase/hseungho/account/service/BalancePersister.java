@@ -0,0 +1,130 @@
+package com.zerobase.hseungho.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.PendingEntry;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Redis 잔액 엔진의 stream 을 읽어 batch-size 개씩 DB 에 반영한다.(BalanceProjection) <br>
+ * - 반영한 항목은 ack 후 stream 과 BAL:PENDING 에서 지운다.(stream 에는 반영되지 않은 변경만 남는다) <br>
+ * - 다른 노드가 읽고 반영하지 못한 채 claim-idle-ms 가 지난 항목은 가져와서 다시 반영한다.
+ */
+@Slf4j
+@Component
+public class BalancePersister {
+    static final String GROUP = "persister";
+
+    private final RedissonClient redissonClient;
+    private final RedisBalanceEngine balanceEngine;
+    private final BalanceProjection balanceProjection;
+    private final int batchSize;
+    private final long claimIdleMillis;
+    private final AtomicLong persistedCount = new AtomicLong();
+
+    private volatile boolean groupCreated;
+
+    public BalancePersister(RedissonClient redissonClient,
+                            RedisBalanceEngine balanceEngine,
+                            BalanceProjection balanceProjection,
+                            @Value("${account.balance-engine.batch-size:500}") int batchSize,
+                            @Value("${account.balance-engine.claim-idle-ms:30000}") long claimIdleMillis) {
+        this.redissonClient = redissonClient;
+        this.balanceEngine = balanceEngine;
+        this.balanceProjection = balanceProjection;
+        this.batchSize = batchSize;
+        this.claimIdleMillis = claimIdleMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${account.balance-engine.flush-interval-ms:100}")
+    public void flush() {
+        if (!balanceEngine.isEnabled()) {
+            return;
+        }
+        try {
+            int persisted;
+            do {
+                persisted = flushBatch();
+            } while (persisted == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Balance persist failed", e);
+        }
+    }
+
+    public long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    /**
+     * 반영한 항목 수
+     */
+    int flushBatch() {
+        RStream<String, String> stream = redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE);
+        String consumer = redissonClient.getId();
+        if (!groupCreated) {
+            createGroup(stream);
+        }
+
+        Map<StreamMessageId, Map<String, String>> entries = new LinkedHashMap<>(claimIdle(stream, consumer));
+        // 재시작 전에 이 노드가 읽고 반영하지 못한 항목, 이후 새 항목
+        entries.putAll(stream.readGroup(GROUP, consumer,
+                StreamReadGroupArgs.greaterThan(StreamMessageId.ALL).count(batchSize)));
+        if (entries.size() < batchSize) {
+            entries.putAll(stream.readGroup(GROUP, consumer,
+                    StreamReadGroupArgs.neverDelivered().count(batchSize - entries.size())));
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<BalanceChange> changes = entries.values().stream()
+                .map(RedisBalanceEngine::toChange)
+                .collect(Collectors.toList());
+        balanceProjection.project(changes);
+        StreamMessageId[] ids = entries.keySet().toArray(new StreamMessageId[0]);
+        stream.ack(GROUP, ids);
+        stream.remove(ids);
+        redissonClient.getMap(RedisBalanceEngine.PENDING_KEY, StringCodec.INSTANCE)
+                .fastRemove(changes.stream().map(BalanceChange::getTransactionId).toArray());
+        persistedCount.addAndGet(ids.length);
+        return ids.length;
+    }
+
+    private Map<StreamMessageId, Map<String, String>> claimIdle(RStream<String, String> stream, String consumer) {
+        List<PendingEntry> pending = stream.listPending(GROUP, StreamMessageId.MIN, StreamMessageId.MAX,
+                claimIdleMillis, TimeUnit.MILLISECONDS, batchSize);
+        StreamMessageId[] ids = pending.stream()
+                .filter(entry -> !consumer.equals(entry.getConsumerName()))
+                .map(PendingEntry::getId)
+                .toArray(StreamMessageId[]::new);
+        if (ids.length == 0) {
+            return Map.of();
+        }
+        log.info("Claiming {} balance entries", ids.length);
+        return stream.claim(GROUP, consumer, claimIdleMillis, TimeUnit.MILLISECONDS, ids);
+    }
+
+    private void createGroup(RStream<String, String> stream) {
+        try {
+            stream.createGroup(GROUP, StreamMessageId.ALL);
+        } catch (RuntimeException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupCreated = true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.OutboxEvent;
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 잔액 엔진의 변경을 DB(Account, Transaction)에 반영한다. <br>
+ * - 한 번의 트랜잭션으로 거래와 outbox 이벤트를 모아서 저장하고, 계좌별로 가장 큰 sequence 의 잔액만 반영한다. <br>
+ * - 처음 저장하는 거래만 커밋 후 하루 거래 집계에 모은다.(TransactionAggregator) <br>
+ * - 이미 저장된 거래는 건너뛰고 잔액은 sequence 가 더 클 때만 바꾸므로 같은 변경을 여러 번 반영해도 된다.
+ */
+@Component
+public class BalanceProjection {
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionAggregator transactionAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public BalanceProjection(TransactionRepository transactionRepository,
+                             AccountRepository accountRepository,
+                             OutboxEventRepository outboxEventRepository,
+                             TransactionAggregator transactionAggregator,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionAggregator = transactionAggregator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void project(Collection<BalanceChange> changes) {
+        transactionTemplate.executeWithoutResult(status -> persist(changes));
+    }
+
+    private void persist(Collection<BalanceChange> changes) {
+        List<BalanceChange> fresh = new ArrayList<>(changes.size());
+        Set<String> transactionIds = new HashSet<>();
+        for (BalanceChange change : changes) {
+            if (transactionIds.add(change.getTransactionId())) {
+                fresh.add(change);
+            }
+        }
+        Set<String> saved = new HashSet<>(transactionRepository.findTransactionIdsIn(transactionIds));
+
+        List<BalanceChange> unsaved = fresh.stream()
+                .filter(change -> !saved.contains(change.getTransactionId()))
+                .collect(Collectors.toList());
+        transactionRepository.saveAll(unsaved.stream()
+                .map(this::toTransaction)
+                .collect(Collectors.toList()));
+        outboxEventRepository.saveAll(unsaved.stream()
+                .map(BalanceProjection::toOutboxEvent)
+                .collect(Collectors.toList()));
+        unsaved.forEach(change -> transactionAggregator.recordAfterCommit(change.getAccountId(),
+                change.getTransactedAt(), change.getTransactionType(), change.getTransactionResultType(),
+                change.getAmount()));
+
+        Map<Long, BalanceChange> latest = new HashMap<>();
+        for (BalanceChange change : fresh) {
+            latest.merge(change.getAccountId(), change,
+                    (previous, current) -> current.getSequence() > previous.getSequence() ? current : previous);
+        }
+        // 처음 저장하는 거래의 증감만 요약에 더해야 여러 번 반영해도 같다.
+        Map<Long, Long> balanceDeltas = new HashMap<>();
+        for (BalanceChange change : unsaved) {
+            balanceDeltas.merge(change.getAccountId(), balanceDelta(change), Long::sum);
+        }
+        latest.forEach((accountId, change) -> {
+            accountRepository.advanceBalance(accountId, change.getBalance(), change.getSequence());
+            eventPublisher.publishEvent(new AccountChangedEvent(change.getUserId(), change.getAccountNumber(),
+                    0, balanceDeltas.getOrDefault(accountId, 0L)));
+        });
+    }
+
+    private Transaction toTransaction(BalanceChange change) {
+        return Transaction.builder()
+                .account(accountRepository.getReferenceById(change.getAccountId()))
+                .transactionType(change.getTransactionType())
+                .transactionResultType(change.getTransactionResultType())
+                .amount(change.getAmount())
+                .balanceSnapshot(change.getBalance())
+                .transactionId(change.getTransactionId())
+                .transactedAt(change.getTransactedAt())
+                .build();
+    }
+
+    private static long balanceDelta(BalanceChange change) {
+        if (change.getTransactionResultType() != TransactionResultType.S) {
+            return 0L;
+        }
+        return change.getTransactionType() == TransactionType.USE ? -change.getAmount() : change.getAmount();
+    }
+
+    private static OutboxEvent toOutboxEvent(BalanceChange change) {
+        return OutboxEvent.builder()
+                .accountId(change.getAccountId())
+                .accountNumber(change.getAccountNumber())
+                .transactionId(change.getTransactionId())
+                .transactionType(change.getTransactionType())
+                .transactionResultType(change.getTransactionResultType())
+                .amount(change.getAmount())
+                .balanceSnapshot(change.getBalance())
+                .transactedAt(change.getTransactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.MonthlyTransactionRollup;
+import com.zerobase.hseungho.account.dto.BalanceVerification;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.MonthlyTransactionRollupRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository.TransactionEntry;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 계좌 잔액을 거래로 다시 계산해서 확인한다. <br>
+ * - 가장 최근 roll-up 의 마감 잔액에서 시작해 그 다음 달부터의 거래만 읽는다. <br>
+ * - roll-up 이 없으면 남아 있는 첫 거래의 직전 잔액에서 시작한다.(보관된 거래는 읽지 않는다) <br>
+ * - 잔액 엔진 계좌는 DB 에 반영되기 전의 거래만큼 어긋나 보일 수 있다.
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceVerificationService {
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final MonthlyTransactionRollupRepository rollupRepository;
+
+    @Transactional(readOnly = true)
+    public BalanceVerification verify(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+        Optional<MonthlyTransactionRollup> rollup = rollupRepository
+                .findFirstByAccountIdAndRollupMonthBeforeOrderByRollupMonthDesc(account.getId(), LocalDate.now());
+        LocalDateTime from = rollup.map(r -> r.getRollupMonth().plusMonths(1).atStartOfDay())
+                .orElse(BEGINNING);
+
+        Long opening = rollup.map(MonthlyTransactionRollup::getClosingBalance).orElse(null);
+        long expected = opening == null ? account.getBalance() : opening;
+        long scanned = 0L;
+        long mismatches = 0L;
+        String firstMismatch = null;
+        try (Stream<TransactionEntry> entries = transactionRepository.streamByAccountIdFrom(account.getId(), from)) {
+            Iterator<TransactionEntry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                TransactionEntry entry = iterator.next();
+                if (scanned++ == 0 && opening == null) {
+                    opening = TransactionRollupJob.balanceBefore(entry.getTransactionType(),
+                            entry.getTransactionResultType(), entry.getAmount(), entry.getBalanceSnapshot());
+                    expected = opening;
+                }
+                expected += balanceDelta(entry);
+                if (expected != entry.getBalanceSnapshot()) {
+                    if (mismatches++ == 0) {
+                        firstMismatch = entry.getTransactionId();
+                    }
+                    // 어긋난 곳 이후는 기록된 잔액에서 다시 이어서 본다.
+                    expected = entry.getBalanceSnapshot();
+                }
+            }
+        }
+        return BalanceVerification.builder()
+                .accountNumber(accountNumber)
+                .rollupMonth(rollup.map(MonthlyTransactionRollup::getRollupMonth).orElse(null))
+                .openingBalance(opening == null ? account.getBalance() : opening)
+                .expectedBalance(expected)
+                .actualBalance(account.getBalance())
+                .scannedTransactions(scanned)
+                .mismatchCount(mismatches)
+                .firstMismatchTransactionId(firstMismatch)
+                .matched(mismatches == 0 && expected == account.getBalance())
+                .build();
+    }
+
+    private static long balanceDelta(TransactionEntry entry) {
+        if (entry.getTransactionResultType() != TransactionResultType.S) {
+            return 0L;
+        }
+        return entry.getTransactionType() == TransactionType.USE ? -entry.getAmount() : entry.getAmount();
+    }
+}
@@ -0,0 +1,226 @@
+package com.zerobase.hseungho.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 백엔드 목록을 순서대로 시도하는 lock <br>
+ * - 연속으로 실패한 백엔드는 일정 시간 건너뛰고(open), 시간이 지나면 한 번 다시 시도한다.(half-open) <br>
+ * - 경합으로 lock 을 얻지 못한 경우는 다음 백엔드로 넘기지 않는다.(같은 계좌를 두 백엔드에서 잠그지 않도록) <br>
+ * - 모든 백엔드가 실패하면 예외를 던진다.(lock 없이 진행하지 않는다) <br>
+ * - 백엔드를 차례로 시도할 때 앞 백엔드에서 쓴 시간을 빼고 남은 대기 시간만 넘긴다. <br>
+ * - open 에서 다시 닫힌 백엔드는 guard 시간 동안 뒤 백엔드의 lock 도 함께 잡는다. <br>
+ *   그동안 뒤 백엔드로 잡은 보유자(이 노드와 아직 전환하지 못한 다른 노드)가 풀 때까지 기다리고, 새로 잡지 못하게 한다. <br>
+ * - 일부 노드만 주 백엔드에 guard 시간보다 오래 닿지 못하면 노드 간 배제가 보장되지 않으므로 <br>
+ *   겹친 보유자는 fencing token 으로 막는다.(FencingTokenIssuer)
+ */
+@Slf4j
+public class CircuitBreakerAccountLockProvider implements AccountLockProvider {
+    private final List<Circuit> circuits;
+    private final LongSupplier ticker;
+    private final ThreadLocal<Map<String, List<AccountLockProvider>>> grantedBy =
+            ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * @param guardMillis 다시 닫힌 백엔드가 뒤 백엔드의 lock 을 함께 잡는 시간
+     */
+    public CircuitBreakerAccountLockProvider(List<AccountLockProvider> providers,
+                                             int failureThreshold,
+                                             long openMillis,
+                                             long guardMillis) {
+        this(providers, failureThreshold, openMillis, guardMillis, System::nanoTime);
+    }
+
+    CircuitBreakerAccountLockProvider(List<AccountLockProvider> providers,
+                                      int failureThreshold,
+                                      long openMillis,
+                                      long guardMillis,
+                                      LongSupplier ticker) {
+        this.circuits = providers.stream()
+                .map(provider -> new Circuit(provider, failureThreshold,
+                        TimeUnit.MILLISECONDS.toNanos(openMillis), TimeUnit.MILLISECONDS.toNanos(guardMillis)))
+                .collect(Collectors.toList());
+        this.ticker = ticker;
+    }
+
+    @Override
+    public String getName() {
+        return "circuit-breaker";
+    }
+
+    @Override
+    public boolean tryLock(String accountNumber, AccountLockPolicy policy) throws InterruptedException {
+        long deadline = ticker.getAsLong() + TimeUnit.MILLISECONDS.toNanos(policy.getWaitMillis());
+        for (int i = 0; i < circuits.size(); i++) {
+            Circuit circuit = circuits.get(i);
+            if (!circuit.allowRequest(ticker.getAsLong())) {
+                continue;
+            }
+            boolean isLock;
+            try {
+                isLock = circuit.provider.tryLock(accountNumber, policy.withWaitMillis(remainingMillis(deadline)));
+            } catch (RuntimeException e) {
+                log.error("Lock provider {} failed", circuit.provider.getName());
+                circuit.onFailure(ticker.getAsLong());
+                continue;
+            }
+            circuit.onSuccess(ticker.getAsLong());
+            if (!isLock) {
+                return false;
+            }
+            List<AccountLockProvider> granted = new ArrayList<>(2);
+            granted.add(circuit.provider);
+            boolean guarded = false;
+            try {
+                guarded = !circuit.isGuarding(ticker.getAsLong())
+                        || lockGuards(accountNumber, policy, deadline, i + 1, granted);
+            } finally {
+                if (!guarded) {
+                    unlockAll(accountNumber, granted);
+                }
+            }
+            if (guarded) {
+                grantedBy.get().put(accountNumber, granted);
+            }
+            return guarded;
+        }
+        throw new IllegalStateException("No lock provider available");
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        List<AccountLockProvider> granted = grantedBy.get().remove(accountNumber);
+        if (granted != null) {
+            unlockAll(accountNumber, granted);
+        }
+    }
+
+    /**
+     * 현재 스레드가 보유한 lock 을 발급한 백엔드 이름, 없으면 null
+     */
+    public String getGrantedProviderName(String accountNumber) {
+        List<AccountLockProvider> granted = grantedBy.get().get(accountNumber);
+        return granted == null ? null : granted.get(0).getName();
+    }
+
+    /**
+     * 이름의 백엔드가 첫 백엔드이고 닫혀 있는지(open, half-open, guard 중이 아님) <br>
+     * 이 클래스를 거치지 않고 같은 lock 을 직접 잡는 쪽(TransactionGuard)이 먼저 확인한다.
+     */
+    public boolean isPrimaryClosed(String providerName) {
+        Circuit primary = circuits.get(0);
+        return primary.provider.getName().equals(providerName) && primary.isClosed(ticker.getAsLong());
+    }
+
+    /**
+     * 뒤 백엔드의 lock 을 남은 대기 시간 안에 잡는다. 장애인 백엔드는 보유자도 없으므로 건너뛴다.
+     *
+     * @return 경합으로 하나라도 잡지 못하면 false
+     */
+    private boolean lockGuards(String accountNumber,
+                               AccountLockPolicy policy,
+                               long deadline,
+                               int from,
+                               List<AccountLockProvider> granted) throws InterruptedException {
+        for (Circuit guard : circuits.subList(from, circuits.size())) {
+            if (!guard.allowRequest(ticker.getAsLong())) {
+                continue;
+            }
+            boolean isLock;
+            try {
+                isLock = guard.provider.tryLock(accountNumber, policy.withWaitMillis(remainingMillis(deadline)));
+            } catch (RuntimeException e) {
+                log.error("Lock provider {} failed", guard.provider.getName());
+                guard.onFailure(ticker.getAsLong());
+                continue;
+            }
+            guard.onSuccess(ticker.getAsLong());
+            if (!isLock) {
+                return false;
+            }
+            granted.add(guard.provider);
+        }
+        return true;
+    }
+
+    private void unlockAll(String accountNumber, List<AccountLockProvider> granted) {
+        for (int i = granted.size() - 1; i >= 0; i--) {
+            try {
+                granted.get(i).unlock(accountNumber);
+            } catch (RuntimeException e) {
+                log.error("Lock provider {} unlock failed", granted.get(i).getName());
+            }
+        }
+    }
+
+    private long remainingMillis(long deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - ticker.getAsLong());
+    }
+
+    private static class Circuit {
+        private final AccountLockProvider provider;
+        private final int failureThreshold;
+        private final long openNanos;
+        private final long guardNanos;
+
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean open;
+        private long guardUntil;
+        private boolean guarding;
+
+        private Circuit(AccountLockProvider provider, int failureThreshold, long openNanos, long guardNanos) {
+            this.provider = provider;
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openNanos;
+            this.guardNanos = guardNanos;
+        }
+
+        private synchronized boolean allowRequest(long now) {
+            if (!open) {
+                return true;
+            }
+            if (now - openUntil >= 0) {
+                // half-open: 다음 실패 전까지 한 번 더 열어 둔다.
+                openUntil = now + openNanos;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void onSuccess(long now) {
+            consecutiveFailures = 0;
+            if (open && guardNanos > 0) {
+                // open 동안 뒤 백엔드로 잡은 lock 이 남아 있을 수 있다.
+                guarding = true;
+                guardUntil = now + guardNanos;
+            }
+            open = false;
+        }
+
+        private synchronized boolean isClosed(long now) {
+            return !open && !isGuarding(now);
+        }
+
+        private synchronized boolean isGuarding(long now) {
+            if (guarding && now - guardUntil >= 0) {
+                guarding = false;
+            }
+            return guarding;
+        }
+
+        private synchronized void onFailure(long now) {
+            if (++consecutiveFailures >= failureThreshold) {
+                open = true;
+                openUntil = now + openNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.zerobase.hseungho.account.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * fencing token 발급 <br>
+ * - lock 백엔드와 상관없이 DB sequence(account_fencing_token_seq)에서 꺼내므로 <br>
+ *   백엔드가 바뀌는 동안 서로 다른 백엔드의 보유자가 겹쳐도 나중에 얻은 보유자의 token 이 더 크다. <br>
+ * - 계좌의 fencing token 은 더 큰 값으로만 바뀌므로(AccountRepository.advanceFencingToken) 먼저 얻은 보유자는 커밋하지 못한다.
+ */
+@Component
+public class FencingTokenIssuer {
+    private static final String NEXT_VALUE = "select next value for account_fencing_token_seq";
+
+    private final DataSource dataSource;
+
+    public FencingTokenIssuer(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public long issue() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(NEXT_VALUE);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Fencing token sequence is empty");
+            }
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Fencing token issue failed", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zerobase.hseungho.account.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.hseungho.account.event.BalanceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 이벤트를 한 줄에 하나씩 JSON 으로 파일 끝에 붙이는 sink <br>
+ * batch 마다 한 번 write 하고 force 한 뒤 반환한다.
+ */
+@Component
+public class FileOutboxEventSink implements OutboxEventSink {
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxEventSink(ObjectMapper objectMapper,
+                               @Value("${account.outbox.file.path:outbox/balance-events.jsonl}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Paths.get(path);
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<BalanceEvent> events) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        try {
+            for (BalanceEvent event : events) {
+                lines.write(objectMapper.writeValueAsBytes(event));
+                lines.write('\n');
+            }
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Balance event serialization failed", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
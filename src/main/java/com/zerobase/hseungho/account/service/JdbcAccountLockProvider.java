@@ -0,0 +1,131 @@
+package com.zerobase.hseungho.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 행 lock <br>
+ * - account_lock 의 계좌 행을 SELECT ... FOR UPDATE 로 잠그고, unlock 까지 연결과 트랜잭션을 유지한다. <br>
+ * - 노드가 죽으면 연결이 끊기면서 풀리므로 lease 만료가 없다. lease 와 fair 는 무시한다. <br>
+ * - lock 하나가 연결 하나를 잡으므로 동시에 보유하는 lock 수를 제한해서 서비스 트랜잭션이 쓸 연결을 남긴다. <br>
+ * - 연결을 기다린 시간은 정책의 대기 시간에서 빼고 남은 시간만 행 lock 을 기다린다. <br>
+ *   JDBC query timeout 은 초 단위이므로 행 lock 대기는 남은 시간을 올림한 초(최소 1초)까지 걸릴 수 있다.
+ */
+@Slf4j
+@Component
+public class JdbcAccountLockProvider implements AccountLockProvider {
+    private static final String SELECT_FOR_UPDATE =
+            "select lock_key from account_lock where lock_key = ? for update";
+    private static final String INSERT = "insert into account_lock(lock_key) values (?)";
+
+    private final DataSource dataSource;
+    private final Semaphore connections;
+    private final ThreadLocal<Map<String, Connection>> heldConnections = ThreadLocal.withInitial(HashMap::new);
+
+    public JdbcAccountLockProvider(DataSource dataSource,
+                                   @Value("${account.lock.jdbc.max-held-connections:5}") int maxHeldConnections) {
+        this.dataSource = dataSource;
+        this.connections = new Semaphore(maxHeldConnections);
+    }
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    @Override
+    public boolean tryLock(String accountNumber, AccountLockPolicy policy) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getWaitMillis());
+        if (!connections.tryAcquire(policy.getWaitMillis(), TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        if (policy.getWaitMillis() > 0 && deadline - System.nanoTime() <= 0) {
+            // 연결을 기다리느라 대기 시간을 다 썼다.
+            connections.release();
+            return false;
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            if (!selectForUpdate(connection, accountNumber, remainingSeconds(deadline))) {
+                insertLockRow(connection, accountNumber, deadline);
+            }
+            heldConnections.get().put(accountNumber, connection);
+            return true;
+        } catch (SQLTransientException e) {
+            // lock 대기 시간 초과
+            release(connection);
+            return false;
+        } catch (SQLException e) {
+            release(connection);
+            throw new IllegalStateException("JDBC lock failed", e);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        Connection connection = heldConnections.get().remove(accountNumber);
+        if (connection != null) {
+            release(connection);
+        }
+    }
+
+    private boolean selectForUpdate(Connection connection, String accountNumber, int timeoutSeconds)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+            statement.setQueryTimeout(timeoutSeconds);
+            statement.setString(1, accountNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * 처음 잠그는 계좌는 행을 만든다. 다른 노드가 먼저 만들었으면 그 행을 잠근다.
+     */
+    private void insertLockRow(Connection connection, String accountNumber, long deadline) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setString(1, accountNumber);
+            statement.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            connection.rollback();
+            if (!selectForUpdate(connection, accountNumber, remainingSeconds(deadline))) {
+                throw e;
+            }
+        }
+    }
+
+    private static int remainingSeconds(long deadline) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        return (int) Math.max(1L, (remainingMillis + 999L) / 1000L);
+    }
+
+    private void release(Connection connection) {
+        if (connection == null) {
+            connections.release();
+            return;
+        }
+        try (connection) {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.error("Failed to release JDBC lock");
+        } finally {
+            connections.release();
+        }
+    }
+}
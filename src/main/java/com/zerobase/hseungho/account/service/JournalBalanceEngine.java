@@ -0,0 +1,517 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.LongLongHashMap;
+import com.zerobase.hseungho.account.util.WriteAheadJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 프로세스 안의 잔액 원장 <br>
+ * - 잔액은 계좌 id 를 키로 하는 LongLongHashMap 에 두고, 모든 변경을 WriteAheadJournal 에 남긴 뒤 응답한다. <br>
+ * - 잔액은 journal 이 디스크에 내려간 뒤에만 응답한다. journal 의 force 가 실패하거나 flush-timeout-ms 까지 <br>
+ *   내려가지 않으면 이후 거래를 받지 않고, 메모리의 잔액은 버린 채 재시작 시 디스크에 남은 journal 로 다시 복구한다. <br>
+ *   그 거래는 디스크에 남았는지 알 수 없으므로 TRANSACTION_OUTCOME_UNKNOWN 으로 응답하고 DB 에도 반영하지 않는다. <br>
+ * - journal 의 lsn 이 잔액 순번이고, 스케줄러가 디스크에 내려간 변경을 BalanceProjection 으로 DB 에 반영한다. <br>
+ * - snapshot-interval-ms 마다 잔액 전체를 snapshot 으로 남기고, snapshot 과 DB 에 모두 반영된 segment 를 지운다. <br>
+ * - 재시작 시 마지막 snapshot 에 이후 journal 을 더해 잔액을 복구하고, 남아 있는 변경은 다시 DB 에 반영한다. <br>
+ *   account.balance-engine.accounts 에서 빠진 계좌의 잔액은 버리고 snapshot 을 다시 남긴다.(다시 지정되면 DB 잔액으로 채운다) <br>
+ * - 원장이 한 프로세스 안에 있으므로 단일 노드 배포에서만 사용한다.
+ */
+@Slf4j
+@Component
+public class JournalBalanceEngine implements BalanceEngine {
+    static final String NAME = "journal";
+    private static final long MISSING = Long.MIN_VALUE;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final AccountRepository accountRepository;
+    private final TransactionCache transactionCache;
+    private final BalanceProjection balanceProjection;
+    private final Set<String> accountNumbers;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int batchSize;
+    private final long flushTimeoutMillis;
+    private final LongLongHashMap balances = new LongLongHashMap(64, MISSING);
+    private final ConcurrentSkipListMap<Long, BalanceChange> unprojected = new ConcurrentSkipListMap<>();
+    private final AtomicLong projectedCount = new AtomicLong();
+
+    private WriteAheadJournal journal;
+    private volatile long snapshotLsn;
+
+    public JournalBalanceEngine(AccountRepository accountRepository,
+                                TransactionCache transactionCache,
+                                BalanceProjection balanceProjection,
+                                @Value("${account.balance-engine.type:redis}") String type,
+                                @Value("${account.balance-engine.accounts:}") List<String> accountNumbers,
+                                @Value("${account.balance-engine.journal.directory:ledger}") String directory,
+                                @Value("${account.balance-engine.journal.segment-size-mb:64}") int segmentSizeMb,
+                                @Value("${account.balance-engine.batch-size:500}") int batchSize,
+                                @Value("${account.balance-engine.journal.flush-timeout-ms:5000}") long flushTimeoutMillis) {
+        this.accountRepository = accountRepository;
+        this.transactionCache = transactionCache;
+        this.balanceProjection = balanceProjection;
+        this.accountNumbers = accountNumbers.stream()
+                .map(String::trim)
+                .filter(accountNumber -> !accountNumber.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.enabled = NAME.equals(type.trim()) && !this.accountNumbers.isEmpty();
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.batchSize = batchSize;
+        this.flushTimeoutMillis = flushTimeoutMillis;
+    }
+
+    /**
+     * 마지막 snapshot 과 이후 journal 로 잔액을 복구한다.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        snapshotLsn = loadSnapshot();
+        journal = WriteAheadJournal.open(directory, segmentSize, snapshotLsn, (lsn, payload) -> {
+            BalanceChange change = decode(lsn, payload);
+            if (lsn > snapshotLsn) {
+                balances.put(change.getAccountId(), change.getBalance());
+            }
+            unprojected.put(lsn, change);
+        });
+        log.info("Ledger recovered : snapshot lsn {}, last lsn {}, {} accounts, {} unprojected",
+                snapshotLsn, journal.getLastLsn(), balances.size(), unprojected.size());
+        if (dropUnmanaged() > 0) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isManaged(String accountNumber) {
+        return enabled && accountNumbers.contains(accountNumber);
+    }
+
+    /**
+     * 잔액을 바꾸고 journal 에 남긴다. 다른 요청과 같은 fsync 로 디스크에 내려간 뒤 돌려준다. <br>
+     * 내려가기 전에 바뀐 잔액을 이어서 쓰는 거래는 lsn 이 더 크므로 먼저 응답하지 않는다.
+     */
+    @Override
+    public CachedTransaction apply(String accountNumber,
+                                   CachedAccount account,
+                                   TransactionType transactionType,
+                                   Long amount,
+                                   String transactionId,
+                                   LocalDateTime transactedAt) {
+        load(account.getId());
+        BalanceChange change;
+        synchronized (balances) {
+            long balance = balances.get(account.getId());
+            if (transactionType == TransactionType.USE && balance < amount) {
+                throw AccountException.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            balance = transactionType == TransactionType.USE ? balance - amount : balance + amount;
+            change = append(accountNumber, account, transactionType, TransactionResultType.S,
+                    amount, balance, transactionId, transactedAt);
+            balances.put(account.getId(), balance);
+        }
+        awaitDurable(change.getSequence(), ErrorCode.TRANSACTION_OUTCOME_UNKNOWN);
+
+        CachedTransaction transaction = new CachedTransaction(account.getId(), accountNumber,
+                transactionType, TransactionResultType.S, amount, change.getBalance(), transactionId, transactedAt);
+        transactionCache.put(transaction);
+        return transaction;
+    }
+
+    @Override
+    public void recordFailure(String accountNumber,
+                              CachedAccount account,
+                              TransactionType transactionType,
+                              Long amount,
+                              String transactionId,
+                              LocalDateTime transactedAt) {
+        load(account.getId());
+        BalanceChange change;
+        synchronized (balances) {
+            change = append(accountNumber, account, transactionType, TransactionResultType.F,
+                    amount, balances.get(account.getId()), transactionId, transactedAt);
+        }
+        awaitDurable(change.getSequence(), ErrorCode.TRANSACTION_OUTCOME_UNKNOWN);
+    }
+
+    /**
+     * 읽은 잔액을 만든 변경이 디스크에 내려간 뒤 돌려준다.
+     */
+    @Override
+    public long getBalance(String accountNumber, Long accountId) {
+        load(accountId);
+        long balance;
+        long lsn;
+        synchronized (balances) {
+            balance = balances.get(accountId);
+            lsn = journal.getLastLsn();
+        }
+        awaitDurable(lsn, ErrorCode.INTERNAL_SERVER_ERROR);
+        return balance;
+    }
+
+    /**
+     * DB 반영 대기열에서 디스크에 내려간 변경만 찾는다.(단일 노드 배포)
+     */
+    @Override
+    public Map<String, CachedTransaction> findPending(Collection<String> transactionIds) {
+        Map<String, CachedTransaction> found = new HashMap<>();
+        if (!enabled || transactionIds.isEmpty()) {
+            return found;
+        }
+        Set<String> ids = new HashSet<>(transactionIds);
+        for (BalanceChange change : unprojected.headMap(journal.getDurableLsn(), true).values()) {
+            if (ids.contains(change.getTransactionId())) {
+                found.put(change.getTransactionId(), CachedTransaction.from(change));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 디스크에 내려간 변경을 batch-size 개씩 DB 에 반영한다.
+     */
+    @Scheduled(fixedDelayString = "${account.balance-engine.flush-interval-ms:100}")
+    public void project() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int projected;
+            do {
+                projected = projectBatch();
+            } while (projected == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Ledger projection failed", e);
+        }
+    }
+
+    /**
+     * 잔액 전체를 snapshot 으로 남기고 필요 없어진 journal segment 를 지운다.
+     */
+    @Scheduled(fixedDelayString = "${account.balance-engine.journal.snapshot-interval-ms:60000}",
+            initialDelayString = "${account.balance-engine.journal.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Ledger snapshot failed", e);
+        }
+    }
+
+    public long getProjectedCount() {
+        return projectedCount.get();
+    }
+
+    /**
+     * 아직 DB 에 반영되지 않은 변경 수
+     */
+    public int getUnprojectedCount() {
+        return unprojected.size();
+    }
+
+    int projectBatch() {
+        List<BalanceChange> batch = new ArrayList<>(Math.min(batchSize, unprojected.size()));
+        for (BalanceChange change : unprojected.headMap(journal.getDurableLsn(), true).values()) {
+            batch.add(change);
+            if (batch.size() == batchSize) {
+                break;
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        balanceProjection.project(batch);
+        batch.forEach(change -> unprojected.remove(change.getSequence()));
+        projectedCount.addAndGet(batch.size());
+        return batch.size();
+    }
+
+    void takeSnapshot() throws IOException {
+        if (journal.getLastLsn() != snapshotLsn) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long lsn;
+        ByteBuffer buffer;
+        synchronized (balances) {
+            lsn = journal.getLastLsn();
+            buffer = ByteBuffer.allocate(4 + 8 + 4 + balances.size() * 16 + 4)
+                    .putInt(SNAPSHOT_VERSION)
+                    .putLong(lsn)
+                    .putInt(balances.size());
+            ByteBuffer entries = buffer;
+            balances.forEach((accountId, balance) -> entries.putLong(accountId).putLong(balance));
+        }
+        // 응답하지 않은 변경이 snapshot 에만 남지 않도록 journal 이 먼저 내려가야 한다.
+        awaitDurable(lsn, ErrorCode.INTERNAL_SERVER_ERROR);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue()).flip();
+
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath(lsn), StandardCopyOption.ATOMIC_MOVE);
+        for (long older : listSnapshotLsns()) {
+            if (older < lsn) {
+                Files.deleteIfExists(snapshotPath(older));
+            }
+        }
+        snapshotLsn = lsn;
+
+        // snapshot 에 담겼고 DB 에도 반영된 변경만 지운다.
+        Long firstUnprojected = unprojected.isEmpty() ? null : unprojected.firstKey();
+        long retainFrom = firstUnprojected == null ? lsn + 1 : Math.min(lsn + 1, firstUnprojected);
+        int deleted = journal.deleteBefore(retainFrom);
+        log.info("Ledger snapshot at lsn {}, {} journal segments deleted", lsn, deleted);
+    }
+
+    /**
+     * 지정된 계좌가 아닌 잔액을 버린다.
+     *
+     * @return 버린 계좌 수
+     */
+    private int dropUnmanaged() {
+        Set<Long> managed = accountNumbers.stream()
+                .map(accountRepository::findByAccountNumber)
+                .flatMap(Optional::stream)
+                .map(Account::getId)
+                .collect(Collectors.toSet());
+        List<Long> unmanaged = new ArrayList<>();
+        balances.forEach((accountId, balance) -> {
+            if (!managed.contains(accountId)) {
+                unmanaged.add(accountId);
+            }
+        });
+        unmanaged.forEach(balances::remove);
+        if (!unmanaged.isEmpty()) {
+            log.info("Ledger dropped {} unmanaged accounts", unmanaged.size());
+        }
+        return unmanaged.size();
+    }
+
+    /**
+     * journal 이나 snapshot 에 없는 계좌는 처음 거래할 때 DB 잔액으로 채운다.
+     */
+    private void load(Long accountId) {
+        synchronized (balances) {
+            if (balances.containsKey(accountId)) {
+                return;
+            }
+        }
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+        synchronized (balances) {
+            if (!balances.containsKey(accountId)) {
+                balances.put(accountId, account.getBalance());
+            }
+        }
+    }
+
+    /**
+     * balances lock 안에서 호출해야 lsn 순서와 잔액 변경 순서가 같다.
+     */
+    private BalanceChange append(String accountNumber,
+                                 CachedAccount account,
+                                 TransactionType transactionType,
+                                 TransactionResultType transactionResultType,
+                                 Long amount,
+                                 long balance,
+                                 String transactionId,
+                                 LocalDateTime transactedAt) {
+        BalanceChange.BalanceChangeBuilder builder = BalanceChange.builder()
+                .accountId(account.getId())
+                .accountNumber(accountNumber)
+                .userId(account.getUserId())
+                .transactionId(transactionId)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .balance(balance)
+                .transactedAt(transactedAt);
+        long lsn;
+        try {
+            lsn = journal.append(encode(builder.build()));
+        } catch (IllegalStateException e) {
+            log.error("Ledger append failed", e);
+            throw AccountException.of(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+        BalanceChange change = builder.sequence(lsn).build();
+        unprojected.put(lsn, change);
+        return change;
+    }
+
+    /**
+     * 실패하면 journal 은 실패 상태이고, lsn 까지의 변경은 응답하지도 DB 에 반영하지도 않는다.
+     *
+     * @param errorCode 내려가지 않았을 때 응답할 오류
+     */
+    private void awaitDurable(long lsn, ErrorCode errorCode) {
+        try {
+            journal.awaitDurable(lsn, flushTimeoutMillis);
+        } catch (IOException e) {
+            log.error("Ledger flush failed : lsn {}", lsn, e);
+            throw AccountException.of(errorCode);
+        }
+    }
+
+    private long loadSnapshot() throws IOException {
+        List<Long> lsns = listSnapshotLsns();
+        for (int i = lsns.size() - 1; i >= 0; i--) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath(lsns.get(i))));
+            if (!isValidSnapshot(buffer)) {
+                log.error("Invalid ledger snapshot : {}", lsns.get(i));
+                continue;
+            }
+            buffer.getInt();
+            long lsn = buffer.getLong();
+            int count = buffer.getInt();
+            for (int j = 0; j < count; j++) {
+                balances.put(buffer.getLong(), buffer.getLong());
+            }
+            return lsn;
+        }
+        return 0L;
+    }
+
+    private static boolean isValidSnapshot(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (length < 4 + 8 + 4 + 4
+                || buffer.getInt(0) != SNAPSHOT_VERSION
+                || length != 4 + 8 + 4 + buffer.getInt(12) * 16L + 4) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, length - 4);
+        return buffer.getInt(length - 4) == (int) crc.getValue();
+    }
+
+    private List<Long> listSnapshotLsns() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(
+                            name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted(Comparator.naturalOrder())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path snapshotPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+    }
+
+    static byte[] encode(BalanceChange change) {
+        byte[] accountNumber = change.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        byte[] transactionId = change.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        LocalDateTime transactedAt = change.getTransactedAt();
+        return ByteBuffer.allocate(8 + 8 + 1 + 1 + 8 + 8 + 8 + 4 + 1 + accountNumber.length + 1 + transactionId.length)
+                .putLong(change.getAccountId())
+                .putLong(change.getUserId())
+                .put((byte) change.getTransactionType().ordinal())
+                .put((byte) change.getTransactionResultType().ordinal())
+                .putLong(change.getAmount())
+                .putLong(change.getBalance())
+                .putLong(transactedAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(transactedAt.getNano())
+                .put((byte) accountNumber.length)
+                .put(accountNumber)
+                .put((byte) transactionId.length)
+                .put(transactionId)
+                .array();
+    }
+
+    static BalanceChange decode(long lsn, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        BalanceChange.BalanceChangeBuilder builder = BalanceChange.builder()
+                .sequence(lsn)
+                .accountId(buffer.getLong())
+                .userId(buffer.getLong())
+                .transactionType(TransactionType.values()[buffer.get()])
+                .transactionResultType(TransactionResultType.values()[buffer.get()])
+                .amount(buffer.getLong())
+                .balance(buffer.getLong())
+                .transactedAt(LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC));
+        byte[] accountNumber = new byte[buffer.get()];
+        buffer.get(accountNumber);
+        byte[] transactionId = new byte[buffer.get()];
+        buffer.get(transactionId);
+        return builder
+                .accountNumber(new String(accountNumber, StandardCharsets.UTF_8))
+                .transactionId(new String(transactionId, StandardCharsets.UTF_8))
+                .build();
+    }
+}
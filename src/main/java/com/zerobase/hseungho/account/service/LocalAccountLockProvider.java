@@ -0,0 +1,47 @@
+package com.zerobase.hseungho.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM 내부 lock, 단일 노드 배포용 <br>
+ * - 계좌 번호 해시로 고른 stripe 를 잠근다. 서로 다른 계좌가 같은 stripe 에서 기다릴 수 있다. <br>
+ * - 프로세스가 죽으면 같이 풀리므로 lease 와 fair 는 무시한다.
+ */
+@Component
+public class LocalAccountLockProvider implements AccountLockProvider {
+    private final ReentrantLock[] stripes;
+
+    public LocalAccountLockProvider(@Value("${account.lock.local.stripes:1024}") int stripes) {
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean tryLock(String accountNumber, AccountLockPolicy policy) throws InterruptedException {
+        return stripe(accountNumber).tryLock(policy.getWaitMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        ReentrantLock lock = stripe(accountNumber);
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+}
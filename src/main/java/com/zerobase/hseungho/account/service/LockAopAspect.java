@@ -1,32 +1,68 @@
 package com.zerobase.hseungho.account.service;
 
+import com.zerobase.hseungho.account.aop.AccountLock;
 import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.TransactionGuard.Entry;
+import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.lang.reflect.Method;
+
+/**
+ * 계좌 lock 을 잡고 요청을 처리한다. <br>
+ * Idempotency-Key 헤더가 있으면 같은 키로 이미 성공한 요청은 다시 처리하지 않고 저장된 응답을 돌려준다.
+ */
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
 
-    private final LockService lockService;
+    private final TransactionGuard transactionGuard;
 
-    @Around("@annotation(com.zerobase.hseungho.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(accountLock) && args(request)")
     public Object aroundMethod(ProceedingJoinPoint pjp,
+                               AccountLock accountLock,
                                AccountLockIdInterface request) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        Entry entry = transactionGuard.enter(
+                method, AccountLockPolicy.from(accountLock), request, getIdempotencyKey());
+        Object result = null;
         try {
-            return pjp.proceed();
+            if (entry.isReplayed()) {
+                return transactionGuard.replay(entry, method.getReturnType());
+            }
+            result = pjp.proceed();
+            return result;
         } finally {
             // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            transactionGuard.exit(entry, result);
+        }
+    }
+
+    private static String getIdempotencyKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        String key = ((ServletRequestAttributes) attributes).getRequest().getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key != null && (key.isEmpty() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
         }
+        return key;
     }
 
 }
@@ -4,44 +4,153 @@ import com.zerobase.hseungho.account.exception.AccountException;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 계좌 lock <br>
+ * - 백엔드는 AccountLockProvider 로 고른다.(account.lock.providers) <br>
+ * - 백엔드 장애로 lock 을 얻지 못하면 lock 없이 진행하지 않고 실패 응답한다. <br>
+ * - 대기 시간, lease, fair, 대기열 제한은 엔드포인트의 @AccountLock 에서 정한다. <br>
+ *   이 노드에서 같은 계좌의 보유자 하나와 기다리는 요청이 제한만큼 있으면 새 요청은 기다리지 않고 바로 실패한다. <br>
+ * - lock 을 얻으면 백엔드와 상관없이 DB sequence 에서 fencing token 을 발급하고(FencingTokenIssuer), <br>
+ *   잔액 갱신 시 비교해서 lock 을 잃은 보유자가 커밋하지 못하게 한다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    private static final ThreadLocal<Long> FENCING_TOKEN = new ThreadLocal<>();
+    private static final ThreadLocal<Set<String>> QUEUED = ThreadLocal.withInitial(HashSet::new);
+
+    private final AccountLockProvider accountLockProvider;
+    private final FencingTokenIssuer fencingTokenIssuer;
+    // 계좌별 보유자와 기다리는 요청 수
+    private final ConcurrentHashMap<String, Integer> waiting = new ConcurrentHashMap<>();
+    private final AtomicLong shedCount = new AtomicLong();
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        lock(accountNumber, AccountLockPolicy.DEFAULT);
+    }
+
+    public void lock(String accountNumber, AccountLockPolicy policy) {
         log.debug("Trying lock for accountNumber : {}", accountNumber);
 
+        enterQueue(accountNumber, policy);
+        boolean isLock = false;
         try {
-            // waitTime: lock 취득 대기 시간
-            // leaseTime: lock 자동 해제 시간
-            boolean isLock = lock.tryLock(1, 5, TimeUnit.SECONDS);
-            if(!isLock) {
-                log.error("======Lock acquisition failed=====");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            isLock = accountLockProvider.tryLock(accountNumber, policy);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            log.error("Lock backend failed");
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } finally {
+            if (!isLock) {
+                leaveQueue(accountNumber);
             }
-        } catch (AccountException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Redis lock failed");
+        }
+        if (!isLock) {
+            log.error("======Lock acquisition failed=====");
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        try {
+            FENCING_TOKEN.set(fencingTokenIssuer.issue());
+        } catch (RuntimeException e) {
+            log.error("Fencing token issue failed");
+            unlock(accountNumber);
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
     }
 
     public void unlock(String accountNumber) {
         log.debug("Unlock for accountNumber : {}" ,accountNumber);
+        FENCING_TOKEN.remove();
+
+        try {
+            accountLockProvider.unlock(accountNumber);
+        } finally {
+            leaveQueue(accountNumber);
+        }
+    }
+
+    /**
+     * 대기열이 가득 차서 기다리지 않고 실패한 요청 수
+     */
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    int getQueueDepth(String accountNumber) {
+        return waiting.getOrDefault(accountNumber, 0);
+    }
+
+    /**
+     * 보유자도 unlock 까지 자리를 차지한다. 제한이 있으면 보유자 하나와 대기 요청 maxQueueDepth 개까지 허용한다.
+     */
+    private void enterQueue(String accountNumber, AccountLockPolicy policy) {
+        if (QUEUED.get().contains(accountNumber)) {
+            // 이미 보유 중인 스레드가 다시 잡는 경우
+            return;
+        }
+        int limit = policy.hasQueueLimit() ? policy.getMaxQueueDepth() + 1 : Integer.MAX_VALUE;
+        boolean[] entered = new boolean[1];
+        waiting.compute(accountNumber, (key, depth) -> {
+            int current = depth == null ? 0 : depth;
+            if (current >= limit) {
+                return depth;
+            }
+            entered[0] = true;
+            return current + 1;
+        });
+        if (!entered[0]) {
+            shedCount.incrementAndGet();
+            log.error("Lock queue is full : {}", accountNumber);
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        QUEUED.get().add(accountNumber);
+    }
+
+    /**
+     * 현재 스레드가 차지한 자리만 돌려준다.
+     */
+    private void leaveQueue(String accountNumber) {
+        if (QUEUED.get().remove(accountNumber)) {
+            waiting.computeIfPresent(accountNumber, (key, depth) -> depth <= 1 ? null : depth - 1);
+        }
+    }
+
+    /**
+     * LockService 를 거치지 않고 얻은 lock(TransactionGuard)을 보유자로 센다. <br>
+     * 대기열 자리를 차지하고 fencing token 을 발급해서 현재 스레드에 둔다. 실패하면 자리를 돌려준다.
+     */
+    void hold(String accountNumber) {
+        enterQueue(accountNumber, AccountLockPolicy.DEFAULT);
+        try {
+            FENCING_TOKEN.set(fencingTokenIssuer.issue());
+        } catch (RuntimeException e) {
+            leaveQueue(accountNumber);
+            throw e;
+        }
+    }
 
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    void release(String accountNumber) {
+        FENCING_TOKEN.remove();
+        leaveQueue(accountNumber);
     }
 
-    private String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    /**
+     * 현재 스레드가 보유한 lock 의 fencing token, lock 없이 호출되면 empty
+     */
+    public OptionalLong getFencingToken() {
+        Long fencingToken = FENCING_TOKEN.get();
+        return fencingToken == null ? OptionalLong.empty() : OptionalLong.of(fencingToken);
     }
 }
@@ -0,0 +1,50 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.event.BalanceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 최근 이벤트를 메모리에 두는 sink(테스트, 로컬 실행용) <br>
+ * maximum-size 를 넘으면 오래된 이벤트부터 버린다.
+ */
+@Component
+public class MemoryOutboxEventSink implements OutboxEventSink {
+    private final int maximumSize;
+    private final Deque<BalanceEvent> events = new ArrayDeque<>();
+    private final AtomicLong publishedCount = new AtomicLong();
+
+    public MemoryOutboxEventSink(@Value("${account.outbox.memory.maximum-size:10000}") int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void publish(List<BalanceEvent> published) {
+        for (BalanceEvent event : published) {
+            if (events.size() == maximumSize) {
+                events.pollFirst();
+            }
+            events.addLast(event);
+        }
+        publishedCount.addAndGet(published.size());
+    }
+
+    public synchronized List<BalanceEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+}
@@ -0,0 +1,128 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.event.AccountUserCreatedEvent;
+import com.zerobase.hseungho.account.util.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * 존재하지 않는 사용자 id / 계좌 번호 캐시 <br>
+ * - 없는 키를 반복 조회해도 ttl 동안은 DB 를 조회하지 않는다. <br>
+ * - 사용자/계좌 생성 시 바로 로컬에서 제거하고, 커밋 이후에 한 번 더 제거하고 다른 노드에 전파한다. <br>
+ * - 생성 커밋 직전에 시작된 조회가 뒤늦게 적재한 엔트리는 ttl 이 지나면 사라지므로 ttl 은 짧게 둔다.
+ */
+@Slf4j
+@Component
+public class NegativeCache {
+    private static final String INVALIDATION_TOPIC = "NEGATIVE:INVALIDATE";
+    private static final String USER_PREFIX = "U:";
+    private static final String ACCOUNT_PREFIX = "A:";
+
+    private final RedissonClient redissonClient;
+    private final LocalCache<Long, Boolean> missingUsers;
+    private final LocalCache<String, Boolean> missingAccounts;
+
+    private RTopic invalidationTopic;
+    private int listenerId;
+
+    public NegativeCache(RedissonClient redissonClient,
+                         @Value("${account.cache.negative.maximum-size:100000}") int maximumSize,
+                         @Value("${account.cache.negative.ttl:30s}") Duration ttl) {
+        this.redissonClient = redissonClient;
+        this.missingUsers = new LocalCache<>(maximumSize, ttl);
+        this.missingAccounts = new LocalCache<>(maximumSize, ttl);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC);
+        listenerId = invalidationTopic.addListener(String.class,
+                (channel, key) -> invalidateLocal(key));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (invalidationTopic != null) {
+            invalidationTopic.removeListener(listenerId);
+        }
+    }
+
+    public boolean isMissingUser(Long userId) {
+        return missingUsers.get(userId) != null;
+    }
+
+    public void putMissingUser(Long userId) {
+        missingUsers.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isMissingAccount(String accountNumber) {
+        return missingAccounts.get(accountNumber) != null;
+    }
+
+    public void putMissingAccount(String accountNumber) {
+        missingAccounts.put(accountNumber, Boolean.TRUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountUserCreated(AccountUserCreatedEvent event) {
+        invalidate(USER_PREFIX + event.getUserId());
+    }
+
+    public void invalidateUser(Long userId) {
+        invalidate(USER_PREFIX + userId);
+    }
+
+    public void invalidateAccount(String accountNumber) {
+        invalidate(ACCOUNT_PREFIX + accountNumber);
+    }
+
+    private void invalidate(String key) {
+        invalidateLocal(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateLocal(key);
+                    publishInvalidation(key);
+                }
+            });
+        } else {
+            publishInvalidation(key);
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        if (key.startsWith(USER_PREFIX)) {
+            missingUsers.invalidate(Long.valueOf(key.substring(USER_PREFIX.length())));
+        } else if (key.startsWith(ACCOUNT_PREFIX)) {
+            missingAccounts.invalidate(key.substring(ACCOUNT_PREFIX.length()));
+        }
+    }
+
+    private void publishInvalidation(String key) {
+        try {
+            invalidationTopic.publish(key);
+        } catch (Exception e) {
+            // 다른 노드는 ttl 이 지나면 갱신된다.
+            log.error("Failed to publish negative cache invalidation : {}", key);
+        }
+    }
+
+    public LocalCache<Long, Boolean> getMissingUsers() {
+        return missingUsers;
+    }
+
+    public LocalCache<String, Boolean> getMissingAccounts() {
+        return missingAccounts;
+    }
+}
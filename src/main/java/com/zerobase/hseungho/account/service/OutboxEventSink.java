@@ -0,0 +1,17 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.event.BalanceEvent;
+
+import java.util.List;
+
+/**
+ * OutboxRelay 가 이벤트를 보내는 곳 <br>
+ * - 예외 없이 반환하면 보낸 것으로 보고 outbox 에서 지운다. <br>
+ * - 예외를 던지면 같은 batch 를 다음에 다시 보낸다.(적어도 한 번)
+ */
+public interface OutboxEventSink {
+
+    String getName();
+
+    void publish(List<BalanceEvent> events);
+}
@@ -0,0 +1,150 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.OutboxEvent;
+import com.zerobase.hseungho.account.event.BalanceEvent;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * outbox 의 이벤트를 batch 로 읽어 OutboxEventSink 로 보낸다. <br>
+ * - 계좌 id 를 relay-threads 개 partition 으로 나누고, thread 하나가 partition 하나를 맡는다. <br>
+ * - partition 안에서는 id 순서로 보내고 보낸 뒤에 지우므로, 같은 계좌의 이벤트는 순서대로 적어도 한 번 전달된다. <br>
+ * - 여러 노드에서 같은 partition 을 동시에 보내지 않도록 partition 마다 Redis lock 을 잡고, 못 잡으면 넘긴다.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private static final String LOCK_PREFIX = "OUTBOX:RELAY:";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventSink sink;
+    private final RedissonClient redissonClient;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int relayThreads;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final AtomicLong relayedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private ScheduledExecutorService executor;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxEventSink sink,
+                       RedissonClient redissonClient,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${account.outbox.enabled:true}") boolean enabled,
+                       @Value("${account.outbox.relay-threads:2}") int relayThreads,
+                       @Value("${account.outbox.batch-size:500}") int batchSize,
+                       @Value("${account.outbox.poll-interval-ms:100}") long pollIntervalMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.redissonClient = redissonClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.relayThreads = relayThreads;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(relayThreads, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int partition = 0; partition < relayThreads; partition++) {
+            int assigned = partition;
+            executor.scheduleWithFixedDelay(() -> relay(assigned),
+                    pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    public long getRelayedCount() {
+        return relayedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * partition 의 이벤트가 batch-size 보다 적게 남을 때까지 보낸다.
+     */
+    void relay(int partition) {
+        RLock lock;
+        try {
+            lock = redissonClient.getLock(LOCK_PREFIX + partition);
+            if (!lock.tryLock()) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            // 순서를 지키기 위해 lock 을 확인할 수 없으면 보내지 않는다.
+            log.error("Outbox relay lock failed : {}", partition, e);
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch(partition);
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            log.error("Outbox relay failed : {}", partition, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 보낸 이벤트 수
+     */
+    int relayBatch(int partition) {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.findOldest(
+                    relayThreads, partition, PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events.stream()
+                    .map(BalanceEvent::from)
+                    .collect(Collectors.toList()));
+            outboxEventRepository.deleteByIdIn(events.stream()
+                    .map(OutboxEvent::getId)
+                    .collect(Collectors.toList()));
+            return events.size();
+        });
+        relayedCount.addAndGet(relayed);
+        return relayed;
+    }
+}
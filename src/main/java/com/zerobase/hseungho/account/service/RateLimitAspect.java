@@ -0,0 +1,42 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.aop.RateLimit;
+import com.zerobase.hseungho.account.aop.UserIdInterface;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 요청 한도를 넘은 요청은 수용 제어와 lock 전에 거절한다. <br>
+ * 계좌 lock 을 잡는 엔드포인트는 TransactionGuard 가 lock 과 같은 script 에서 처리한다.(수용 제어 뒤)
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class RateLimitAspect {
+
+    private final RateLimiter rateLimiter;
+    private final TransactionGuard transactionGuard;
+
+    @Around("@annotation(rateLimit) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               RateLimit rateLimit,
+                               AccountLockIdInterface request) throws Throwable {
+        if (transactionGuard.handlesRateLimit(((MethodSignature) pjp.getSignature()).getMethod())) {
+            return pjp.proceed();
+        }
+        Long userId = request instanceof UserIdInterface
+                ? ((UserIdInterface) request).getUserId()
+                : null;
+        rateLimiter.acquire(rateLimit, userId, request.getAccountNumber());
+        return pjp.proceed();
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.RateLimit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.env.Environment;
+
+/**
+ * 엔드포인트별 token bucket 용량과 초당 충전량 <br>
+ * account.rate-limit.{endpoint}.* 설정이 @RateLimit 속성보다 우선한다.
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitPolicy {
+    private final String endpoint;
+    private final long userCapacity;
+    private final double userRefillPerSecond;
+    private final long accountCapacity;
+    private final double accountRefillPerSecond;
+
+    public static RateLimitPolicy resolve(RateLimit rateLimit, Environment environment) {
+        String prefix = "account.rate-limit." + rateLimit.value() + ".";
+        return new RateLimitPolicy(
+                rateLimit.value(),
+                environment.getProperty(prefix + "user-capacity", Long.class, rateLimit.userCapacity()),
+                environment.getProperty(prefix + "user-refill-per-second", Double.class, rateLimit.userRefillPerSecond()),
+                environment.getProperty(prefix + "account-capacity", Long.class, rateLimit.accountCapacity()),
+                environment.getProperty(prefix + "account-refill-per-second", Double.class, rateLimit.accountRefillPerSecond())
+        );
+    }
+}
@@ -0,0 +1,149 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.RateLimit;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.util.LocalCache;
+import com.zerobase.hseungho.account.util.LuaScript;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 사용자/계좌별 token bucket 요청 제한 <br>
+ * - 사용자와 계좌 bucket 을 Lua script 한 번으로 같이 검사하고 꺼낸다.(노드 간 공유) <br>
+ * - bucket 충전은 script 안에서 Redis 서버 시각(TIME)으로 계산하므로 노드 간 시계 차이의 영향을 받지 않는다. <br>
+ * - 거절되면 다시 시도할 수 있는 시각까지 해당 bucket 을 로컬에 기록해 두고, <br>
+ *   그 전에 오는 요청은 Redis 를 거치지 않고 거절한다.(다른 노드는 token 을 꺼내기만 하므로 그 전에는 채워질 수 없다) <br>
+ * - Redis 장애 시에는 제한하지 않는다. <br>
+ * - 계좌 lock 을 잡는 엔드포인트는 TransactionGuard 가 같은 bucket 을 진입 script 에서 꺼낸다.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+    private final RedissonClient redissonClient;
+    private final Environment environment;
+    private final LongSupplier clock;
+    private final LuaScript script = new LuaScript("scripts/token_bucket.lua");
+    private final LocalCache<String, Long> deniedUntil;
+    private final ConcurrentHashMap<String, RateLimitPolicy> policies = new ConcurrentHashMap<>();
+    private final AtomicLong localRejectedCount = new AtomicLong();
+    private final AtomicLong remoteRejectedCount = new AtomicLong();
+
+    @Autowired
+    public RateLimiter(RedissonClient redissonClient,
+                       Environment environment,
+                       @Value("${account.rate-limit.local-maximum-size:100000}") int localMaximumSize) {
+        this(redissonClient, environment, localMaximumSize, System::currentTimeMillis);
+    }
+
+    RateLimiter(RedissonClient redissonClient, Environment environment, int localMaximumSize, LongSupplier clock) {
+        this.redissonClient = redissonClient;
+        this.environment = environment;
+        this.clock = clock;
+        this.deniedUntil = new LocalCache<>(localMaximumSize, Duration.ZERO);
+    }
+
+    /**
+     * @param userId 사용자 bucket 을 쓰지 않으면 null
+     */
+    public void acquire(RateLimit rateLimit, Long userId, String accountNumber) {
+        Buckets buckets = buckets(rateLimit, userId, accountNumber);
+        long now = now();
+        checkLocal(buckets, now);
+
+        List<Object> args = new ArrayList<>(buckets.limits.size() + 1);
+        args.add(String.valueOf(now));
+        args.addAll(buckets.limits);
+        List<Long> result;
+        try {
+            result = script.eval(redissonClient, buckets.keys, args.toArray());
+        } catch (RuntimeException e) {
+            log.error("Rate limit check failed", e);
+            return;
+        }
+        if (result.get(0) == 1L) {
+            return;
+        }
+        reject(buckets, result.get(2).intValue(), now, result.get(1));
+    }
+
+    /**
+     * 엔드포인트 설정에 따른 사용자/계좌 bucket key 와 (용량, 초당 충전량) 목록
+     */
+    Buckets buckets(RateLimit rateLimit, Long userId, String accountNumber) {
+        RateLimitPolicy policy = policies.computeIfAbsent(rateLimit.value(),
+                endpoint -> RateLimitPolicy.resolve(rateLimit, environment));
+        Buckets buckets = new Buckets();
+        if (userId != null) {
+            buckets.add("RL:" + policy.getEndpoint() + ":U:" + userId,
+                    policy.getUserCapacity(), policy.getUserRefillPerSecond());
+        }
+        buckets.add("RL:" + policy.getEndpoint() + ":A:" + accountNumber,
+                policy.getAccountCapacity(), policy.getAccountRefillPerSecond());
+        return buckets;
+    }
+
+    /**
+     * 이전에 거절된 bucket 이 아직 채워지지 않았으면 Redis 를 거치지 않고 거절한다.
+     */
+    void checkLocal(Buckets buckets, long now) {
+        for (Object key : buckets.keys) {
+            Long until = deniedUntil.get((String) key);
+            if (until != null && now < until) {
+                localRejectedCount.incrementAndGet();
+                throw rateLimitExceeded(until - now);
+            }
+        }
+    }
+
+    /**
+     * @param index 가장 오래 기다려야 하는 bucket 번호(1부터)
+     */
+    void reject(Buckets buckets, int index, long now, long retryAfterMillis) {
+        deniedUntil.put((String) buckets.keys.get(index - 1), now + retryAfterMillis);
+        remoteRejectedCount.incrementAndGet();
+        throw rateLimitExceeded(retryAfterMillis);
+    }
+
+    /**
+     * 다시 시도할 수 있을 때까지 남은 시간을 메시지에 담는다.
+     */
+    private static AccountException rateLimitExceeded(long retryAfterMillis) {
+        return new AccountException(ErrorCode.RATE_LIMIT_EXCEEDED,
+                ErrorCode.RATE_LIMIT_EXCEEDED.getDescription() + " (" + retryAfterMillis + "ms)");
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    public long getLocalRejectedCount() {
+        return localRejectedCount.get();
+    }
+
+    public long getRemoteRejectedCount() {
+        return remoteRejectedCount.get();
+    }
+
+    static class Buckets {
+        final List<Object> keys = new ArrayList<>(2);
+        final List<Object> limits = new ArrayList<>(4);
+
+        private void add(String key, long capacity, double refillPerSecond) {
+            keys.add(key);
+            limits.add(String.valueOf(capacity));
+            limits.add(String.valueOf(refillPerSecond));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.LuaScript;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RSet;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Redis 잔액 엔진 <br>
+ * - account.balance-engine.accounts 에 지정한 계좌는 Redis 의 잔액이 기준이다. <br>
+ * - 잔액 검사와 DECRBY, stream 기록을 Lua script 한 번으로 처리하고, <br>
+ *   BalancePersister 가 stream 을 읽어 거래와 잔액을 DB 에 모아서 반영한다. <br>
+ * - 잔액 key 가 없으면 아직 반영되지 않은 stream 의 마지막 잔액, 없으면 DB 잔액으로 채운다. <br>
+ * - 반영되지 않은 거래는 BAL:PENDING(거래 아이디 -> stream 항목 id)으로 모든 노드에서 찾는다. <br>
+ * - 엔진이 처리하던 계좌는 BAL:ACCOUNTS 에 두고, 시작할 때 빠졌거나 새로 지정된 계좌의 잔액 key 를 지운다. <br>
+ *   빠진 계좌의 변경이 stream 에 남아 있으면 시작하지 않는다.(DB 에 반영될 때까지 지정한 채로 두어야 한다) <br>
+ * - Redis 5 이상(stream), AOF 와 noeviction 설정이 필요하다.
+ */
+@Slf4j
+@Component
+public class RedisBalanceEngine implements BalanceEngine {
+    static final String NAME = "redis";
+    static final String STREAM_KEY = "BAL:STREAM";
+    static final String PENDING_KEY = "BAL:PENDING";
+    static final String ACCOUNTS_KEY = "BAL:ACCOUNTS";
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final TransactionCache transactionCache;
+    private final Set<String> accountNumbers;
+    private final boolean enabled;
+    private final LuaScript script = new LuaScript("scripts/balance_apply.lua");
+
+    public RedisBalanceEngine(RedissonClient redissonClient,
+                              AccountRepository accountRepository,
+                              TransactionCache transactionCache,
+                              @Value("${account.balance-engine.type:redis}") String type,
+                              @Value("${account.balance-engine.accounts:}") List<String> accountNumbers) {
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+        this.transactionCache = transactionCache;
+        this.accountNumbers = accountNumbers.stream()
+                .map(String::trim)
+                .filter(accountNumber -> !accountNumber.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.enabled = NAME.equals(type.trim()) && !this.accountNumbers.isEmpty();
+    }
+
+    /**
+     * 엔진 밖에 있는 동안 DB 잔액이 바뀌었을 수 있으므로, 빠진 계좌와 새로 지정된 계좌의 잔액 key 를 지운다. <br>
+     * 다시 지정된 계좌는 첫 거래에서 stream 이나 DB 잔액으로 다시 채운다. 엔진을 쓰지 않으면 모든 계좌가 빠진 것으로 본다. <br>
+     * 빠진 계좌의 변경이 아직 DB 에 반영되지 않았으면 그 뒤 DB 거래와 섞이므로 엔진 사용 여부와 관계없이 시작을 멈춘다.
+     */
+    @PostConstruct
+    public void reconcileAccounts() {
+        Set<String> managed = enabled ? accountNumbers : Set.of();
+        Set<String> unpersisted = Set.of();
+        try {
+            RSet<String> previous = redissonClient.getSet(ACCOUNTS_KEY, StringCodec.INSTANCE);
+            Set<String> removed = new HashSet<>(previous.readAll());
+            Set<String> added = new HashSet<>(managed);
+            added.removeAll(removed);
+            removed.removeAll(managed);
+            if (removed.isEmpty() && added.isEmpty()) {
+                return;
+            }
+            unpersisted = findUnpersisted(removed);
+            if (!unpersisted.isEmpty()) {
+                throw new IllegalStateException(
+                        "Balance engine stream still holds unpersisted changes of removed accounts : " + unpersisted);
+            }
+            String[] keys = Stream.concat(removed.stream(), added.stream())
+                    .flatMap(accountNumber -> Stream.of(getBalanceKey(accountNumber), getSequenceKey(accountNumber)))
+                    .toArray(String[]::new);
+            redissonClient.getKeys().delete(keys);
+            previous.removeAll(removed);
+            previous.addAll(added);
+            log.info("Balance engine accounts reconciled : {} removed, {} added", removed.size(), added.size());
+        } catch (RuntimeException e) {
+            if (enabled || !unpersisted.isEmpty()) {
+                throw e;
+            }
+            log.error("Balance engine account reconcile failed", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isManaged(String accountNumber) {
+        return enabled && accountNumbers.contains(accountNumber);
+    }
+
+    /**
+     * 잔액을 바꾸고 stream 에 기록한다. 거래는 DB 에 반영되기 전에도 BAL:PENDING 으로 조회/취소할 수 있고, 이 노드의 캐시에도 둔다.
+     */
+    @Override
+    public CachedTransaction apply(String accountNumber,
+                                   CachedAccount account,
+                                   TransactionType transactionType,
+                                   Long amount,
+                                   String transactionId,
+                                   LocalDateTime transactedAt) {
+        List<Long> result = eval(accountNumber, account, transactionType,
+                TransactionResultType.S, amount, transactionId, transactedAt);
+        if (result.get(0) == 0L) {
+            throw AccountException.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        CachedTransaction transaction = new CachedTransaction(account.getId(), accountNumber,
+                transactionType, TransactionResultType.S, amount, result.get(1), transactionId, transactedAt);
+        transactionCache.put(transaction);
+        return transaction;
+    }
+
+    /**
+     * 실패한 거래를 현재 잔액과 함께 기록한다.
+     */
+    @Override
+    public void recordFailure(String accountNumber,
+                              CachedAccount account,
+                              TransactionType transactionType,
+                              Long amount,
+                              String transactionId,
+                              LocalDateTime transactedAt) {
+        eval(accountNumber, account, transactionType,
+                TransactionResultType.F, amount, transactionId, transactedAt);
+    }
+
+    @Override
+    public long getBalance(String accountNumber, Long accountId) {
+        String balance = (String) redissonClient.getBucket(getBalanceKey(accountNumber), StringCodec.INSTANCE).get();
+        return balance != null ? Long.parseLong(balance) : rebuild(accountId)[0];
+    }
+
+    /**
+     * BAL:PENDING 에 남아 있어도 stream 에서 지워졌으면(DB 에 반영됨) 돌려주지 않는다.
+     */
+    @Override
+    public Map<String, CachedTransaction> findPending(Collection<String> transactionIds) {
+        Map<String, CachedTransaction> found = new HashMap<>();
+        if (!enabled || transactionIds.isEmpty()) {
+            return found;
+        }
+        RMap<String, String> pending = redissonClient.getMap(PENDING_KEY, StringCodec.INSTANCE);
+        RStream<String, String> stream = redissonClient.getStream(STREAM_KEY, StringCodec.INSTANCE);
+        pending.getAll(new HashSet<>(transactionIds)).forEach((transactionId, id) -> {
+            StreamMessageId messageId = toMessageId(id);
+            stream.range(1, messageId, messageId).values().stream()
+                    .findFirst()
+                    .ifPresent(entry -> found.put(transactionId, CachedTransaction.from(toChange(entry))));
+        });
+        return found;
+    }
+
+    static BalanceChange toChange(Map<String, String> entry) {
+        return BalanceChange.builder()
+                .accountId(Long.parseLong(entry.get("accountId")))
+                .accountNumber(entry.get("accountNumber"))
+                .userId(Long.parseLong(entry.get("userId")))
+                .transactionId(entry.get("transactionId"))
+                .transactionType(TransactionType.valueOf(entry.get("transactionType")))
+                .transactionResultType(TransactionResultType.valueOf(entry.get("transactionResultType")))
+                .amount(Long.parseLong(entry.get("amount")))
+                .balance(Long.parseLong(entry.get("balance")))
+                .sequence(Long.parseLong(entry.get("sequence")))
+                .transactedAt(LocalDateTime.parse(entry.get("transactedAt")))
+                .build();
+    }
+
+    private static StreamMessageId toMessageId(String id) {
+        int separator = id.indexOf('-');
+        return new StreamMessageId(Long.parseLong(id.substring(0, separator)),
+                Long.parseLong(id.substring(separator + 1)));
+    }
+
+    private List<Long> eval(String accountNumber,
+                            CachedAccount account,
+                            TransactionType transactionType,
+                            TransactionResultType transactionResultType,
+                            Long amount,
+                            String transactionId,
+                            LocalDateTime transactedAt) {
+        List<Object> keys = Arrays.asList(
+                getBalanceKey(accountNumber), getSequenceKey(accountNumber), STREAM_KEY, PENDING_KEY);
+        Object[] args = {
+                transactionType.name(), transactionResultType.name(), String.valueOf(amount),
+                String.valueOf(account.getId()), accountNumber, String.valueOf(account.getUserId()),
+                transactionId, transactedAt.toString(), "", ""
+        };
+        List<Long> result = script.eval(redissonClient, keys, args);
+        if (result.get(0) != -1L) {
+            return result;
+        }
+        log.info("Rebuilding balance of {}", accountNumber);
+        long[] rebuilt = rebuild(account.getId());
+        args[8] = String.valueOf(rebuilt[0]);
+        args[9] = String.valueOf(rebuilt[1]);
+        return script.eval(redissonClient, keys, args);
+    }
+
+    /**
+     * 잔액 key 가 없을 때의 { 잔액, 순번 } <br>
+     * stream 에는 DB 에 반영되지 않은 변경만 남아 있으므로 stream 을 먼저 본다.
+     */
+    private long[] rebuild(Long accountId) {
+        String id = String.valueOf(accountId);
+        long[][] latest = new long[1][];
+        forEachStreamEntry(entry -> {
+            if (id.equals(entry.get("accountId"))) {
+                latest[0] = new long[]{Long.parseLong(entry.get("balance")), Long.parseLong(entry.get("sequence"))};
+            }
+        });
+        if (latest[0] != null) {
+            return latest[0];
+        }
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+        return new long[]{
+                account.getBalance(),
+                account.getBalanceSequence() == null ? 0L : account.getBalanceSequence()
+        };
+    }
+
+    /**
+     * stream 에 변경이 남아 있는(DB 에 반영되지 않은) 계좌
+     */
+    private Set<String> findUnpersisted(Set<String> accountNumbers) {
+        Set<String> found = new TreeSet<>();
+        if (!accountNumbers.isEmpty()) {
+            forEachStreamEntry(entry -> {
+                if (accountNumbers.contains(entry.get("accountNumber"))) {
+                    found.add(entry.get("accountNumber"));
+                }
+            });
+        }
+        return found;
+    }
+
+    /**
+     * stream 에 남은 항목을 오래된 순서로 REBUILD_PAGE_SIZE 개씩 읽는다.
+     */
+    private void forEachStreamEntry(Consumer<Map<String, String>> consumer) {
+        RStream<String, String> stream = redissonClient.getStream(STREAM_KEY, StringCodec.INSTANCE);
+        StreamMessageId from = StreamMessageId.MIN;
+        while (true) {
+            Map<StreamMessageId, Map<String, String>> page = stream.range(REBUILD_PAGE_SIZE, from, StreamMessageId.MAX);
+            StreamMessageId last = null;
+            for (Map.Entry<StreamMessageId, Map<String, String>> entry : page.entrySet()) {
+                last = entry.getKey();
+                consumer.accept(entry.getValue());
+            }
+            if (page.size() < REBUILD_PAGE_SIZE) {
+                return;
+            }
+            from = new StreamMessageId(last.getId0(), last.getId1() + 1);
+        }
+    }
+
+    private static String getBalanceKey(String accountNumber) {
+        return "BAL:" + accountNumber;
+    }
+
+    private static String getSequenceKey(String accountNumber) {
+        return "BAL:" + accountNumber + ":SEQ";
+    }
+}
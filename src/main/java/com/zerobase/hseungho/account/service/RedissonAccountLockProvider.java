@@ -0,0 +1,57 @@
+package com.zerobase.hseungho.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis lock <br>
+ * - lease 를 지정하지 않으면 watchdog 이 보유 중인 동안만 연장한다. <br>
+ * - fair 정책이면 fair lock 으로 요청 순서대로 넘긴다. 해제는 얻은 lock 객체로 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedissonAccountLockProvider implements AccountLockProvider {
+    private final RedissonClient redissonClient;
+    private final ThreadLocal<Map<String, RLock>> heldLocks = ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public String getName() {
+        return "redisson";
+    }
+
+    @Override
+    public boolean tryLock(String accountNumber, AccountLockPolicy policy) throws InterruptedException {
+        RLock lock = policy.isFair()
+                ? redissonClient.getFairLock(getLockKey(accountNumber))
+                : redissonClient.getLock(getLockKey(accountNumber));
+        boolean isLock = policy.hasLease()
+                ? lock.tryLock(policy.getWaitMillis(), policy.getLeaseMillis(), TimeUnit.MILLISECONDS)
+                : lock.tryLock(policy.getWaitMillis(), TimeUnit.MILLISECONDS);
+        if (isLock) {
+            heldLocks.get().put(accountNumber, lock);
+        }
+        return isLock;
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        RLock lock = heldLocks.get().remove(accountNumber);
+        if (lock != null && lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        } else {
+            log.error("Lock was already released : {}", accountNumber);
+        }
+    }
+
+    static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
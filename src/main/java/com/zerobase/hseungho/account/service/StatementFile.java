@@ -0,0 +1,433 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 월별 거래 내역서 파일(StatementGenerator) <br>
+ * - statements-yyyy-MM.dat 에 계좌번호 순으로 계좌마다 [H 줄][T 줄...][F 줄]을 이어 쓴다. 줄은 모두 LINE_LENGTH 바이트다. <br>
+ *   H : 계좌번호, 달, 시작 잔액 <br>
+ *   T : 거래 시각, 종류, 결과, 금액, 거래 후 잔액, 거래 아이디 <br>
+ *   F : 거래 수, 사용 금액, 취소 금액, 마감 잔액 <br>
+ * - statements-yyyy-MM.idx 는 [버전 int][세대 long] 다음에 [계좌번호 20바이트][시작 위치 long][길이 int] 항목을 <br>
+ *   계좌번호 순으로 담는다. 계좌번호는 앞을 0 으로 채워 바이트 순서가 숫자 순서(DB 의 BIGINT 정렬)와 같게 한다. <br>
+ * - dat 는 다시 만들 때마다 세대를 붙인 새 이름(statements-yyyy-MM.{세대}.dat)으로 두고, idx 가 자기 세대의 dat 를 가리킨다. <br>
+ *   찾은 구간은 다시 만들어져도 같은 파일을 가리키고(sendfile 포함), 바로 이전 세대의 dat 까지 남겨 둔다. <br>
+ * - 쓰는 동안은 .tmp 파일에 WINDOW_SIZE 씩 메모리 매핑해서 쓰고, 다 쓰면 잘라낸 뒤 이름을 바꾼다.(idx 를 마지막에) <br>
+ * - 조회는 idx 를 이진 탐색해서 dat 의 구간을 돌려준다.
+ */
+@Component
+public class StatementFile {
+    static final int LINE_LENGTH = 96;
+    private static final String PREFIX = "statements-";
+    private static final String DATA_SUFFIX = ".dat";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_SIZE = 4 + 8;
+    private static final int ACCOUNT_NUMBER_LENGTH = 20;
+    private static final int INDEX_ENTRY_SIZE = ACCOUNT_NUMBER_LENGTH + 8 + 4;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path directory;
+
+    public StatementFile(@Value("${account.statement.directory:statements}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean exists(YearMonth month) {
+        return Files.exists(indexPath(month));
+    }
+
+    /**
+     * 계좌번호 순으로 거래를 받아 그 달의 내역서 파일을 새로 쓴다.
+     */
+    public Writer open(YearMonth month) throws IOException {
+        Files.createDirectories(directory);
+        return new Writer(month);
+    }
+
+    public Optional<Region> find(YearMonth month, String accountNumber) throws IOException {
+        Path indexPath = indexPath(month);
+        if (!Files.exists(indexPath)) {
+            return Optional.empty();
+        }
+        byte[] key = accountNumberBytes(accountNumber);
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long generation = readGeneration(index);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            byte[] candidate = new byte[ACCOUNT_NUMBER_LENGTH];
+            long low = 0L;
+            long high = (index.size() - INDEX_HEADER_SIZE) / INDEX_ENTRY_SIZE - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                entry.clear();
+                readFully(index, entry, INDEX_HEADER_SIZE + mid * INDEX_ENTRY_SIZE);
+                entry.flip().get(candidate);
+                int compared = Arrays.compare(candidate, key);
+                if (compared < 0) {
+                    low = mid + 1;
+                } else if (compared > 0) {
+                    high = mid - 1;
+                } else {
+                    return Optional.of(new Region(dataPath(month, generation), entry.getLong(), entry.getInt()));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 지금 idx 의 세대, idx 가 없으면 0
+     */
+    private long currentGeneration(YearMonth month) throws IOException {
+        Path indexPath = indexPath(month);
+        if (!Files.exists(indexPath)) {
+            return 0L;
+        }
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            return readGeneration(index);
+        }
+    }
+
+    /**
+     * keepFrom 보다 이전 세대의 dat 를 지운다.
+     */
+    private void deleteGenerationsBefore(YearMonth month, long keepFrom) throws IOException {
+        String prefix = PREFIX + month + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (!name.startsWith(prefix) || !name.endsWith(DATA_SUFFIX)) {
+                    continue;
+                }
+                String generation = name.substring(prefix.length(), name.length() - DATA_SUFFIX.length());
+                if (!generation.isEmpty() && generation.chars().allMatch(Character::isDigit)
+                        && Long.parseLong(generation) < keepFrom) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private Path dataPath(YearMonth month, long generation) {
+        return directory.resolve(PREFIX + month + "." + generation + DATA_SUFFIX);
+    }
+
+    private Path dataTempPath(YearMonth month) {
+        return directory.resolve(PREFIX + month + DATA_SUFFIX + TEMP_SUFFIX);
+    }
+
+    private Path indexPath(YearMonth month) {
+        return directory.resolve(PREFIX + month + INDEX_SUFFIX);
+    }
+
+    private static Path tempPath(Path path) {
+        return path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * 오른쪽 정렬, 앞은 0
+     */
+    private static byte[] accountNumberBytes(String accountNumber) {
+        byte[] bytes = new byte[ACCOUNT_NUMBER_LENGTH];
+        Arrays.fill(bytes, (byte) '0');
+        byte[] value = accountNumber.getBytes(StandardCharsets.US_ASCII);
+        int length = Math.min(value.length, ACCOUNT_NUMBER_LENGTH);
+        System.arraycopy(value, value.length - length, bytes, ACCOUNT_NUMBER_LENGTH - length, length);
+        return bytes;
+    }
+
+    private static long readGeneration(FileChannel index) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        readFully(index, header, 0L);
+        header.flip();
+        int version = header.getInt();
+        if (version != INDEX_VERSION) {
+            throw new IOException("Unsupported statement index version : " + version);
+        }
+        return header.getLong();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of statement index");
+            }
+        }
+    }
+
+    /**
+     * 내역서 한 개의 dat 파일 구간
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Region {
+        private final Path path;
+        private final long offset;
+        private final int length;
+
+        /**
+         * FileChannel.transferTo 로 보낸다.(대상이 소켓이면 커널에서 바로 복사) <br>
+         * 파일이 구간보다 짧거나 한 바이트도 보내지 못하면 IOException
+         */
+        public void transferTo(WritableByteChannel target) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long position = offset;
+                long end = offset + length;
+                if (channel.size() < end) {
+                    throw new IOException("Statement data is shorter than region : " + path);
+                }
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        throw new IOException("Statement transfer made no progress : " + path + " at " + position);
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+    public class Writer implements Closeable {
+        private final YearMonth month;
+        private final long generation;
+        private final Path dataTemp;
+        private final Path indexTemp;
+        private final FileChannel data;
+        private final DataOutputStream index;
+        private final byte[] line = new byte[LINE_LENGTH];
+        private MappedByteBuffer window;
+        private long windowStart;
+        private boolean committed;
+
+        private String accountNumber;
+        private byte[] lastKey;
+        private long statementStart;
+        private long transactionCount;
+        private long usedAmount;
+        private long cancelledAmount;
+        private long closingBalance;
+        private int statementCount;
+
+        private Writer(YearMonth month) throws IOException {
+            this.month = month;
+            this.generation = currentGeneration(month) + 1;
+            this.dataTemp = dataTempPath(month);
+            this.indexTemp = tempPath(indexPath(month));
+            this.data = FileChannel.open(dataTemp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexTemp)));
+            this.index.writeInt(INDEX_VERSION);
+            this.index.writeLong(generation);
+            this.window = data.map(FileChannel.MapMode.READ_WRITE, 0L, WINDOW_SIZE);
+        }
+
+        /**
+         * 계좌번호가 바뀌면 앞 계좌의 F 줄과 새 계좌의 H 줄을 쓴다. <br>
+         * openingBalance 가 없으면(roll-up 없음) 첫 거래 직전 잔액으로 시작한다.
+         */
+        public void add(String accountNumber,
+                        Long openingBalance,
+                        String transactionId,
+                        TransactionType transactionType,
+                        TransactionResultType transactionResultType,
+                        long amount,
+                        long balanceSnapshot,
+                        LocalDateTime transactedAt) throws IOException {
+            if (!accountNumber.equals(this.accountNumber)) {
+                finishStatement();
+                startStatement(accountNumber, openingBalance != null ? openingBalance
+                        : TransactionRollupJob.balanceBefore(transactionType, transactionResultType,
+                        amount, balanceSnapshot));
+            }
+            clearLine('T');
+            putDateTime(2, transactedAt);
+            putText(22, transactionType.name(), 6);
+            putText(29, transactionResultType.name(), 1);
+            putNumber(31, amount, 12);
+            putNumber(44, balanceSnapshot, 15);
+            putText(60, transactionId, 32);
+            writeLine();
+
+            transactionCount++;
+            if (transactionResultType == TransactionResultType.S) {
+                if (transactionType == TransactionType.USE) {
+                    usedAmount += amount;
+                } else {
+                    cancelledAmount += amount;
+                }
+            }
+            closingBalance = balanceSnapshot;
+        }
+
+        /**
+         * 그 달에 거래가 없는 계좌는 시작, 마감 줄만 쓴다.
+         */
+        public void addWithoutTransactions(String accountNumber, long balance) throws IOException {
+            finishStatement();
+            startStatement(accountNumber, balance);
+        }
+
+        /**
+         * 마지막 계좌를 마무리하고 파일을 바꿔 넣는다.
+         *
+         * @return 쓴 내역서 수
+         */
+        public int commit() throws IOException {
+            finishStatement();
+            long size = position();
+            window.force();
+            window = null;
+            data.truncate(size);
+            data.force(true);
+            data.close();
+            index.close();
+            // 같은 세대의 dat 가 있으면 idx 를 바꾸기 전에 멈췄던 것이므로 덮어쓴다.
+            Files.move(dataTemp, dataPath(month, generation),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTemp, indexPath(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            // 이전 idx 로 찾은 구간을 아직 보내는 중일 수 있으므로 바로 이전 세대는 남긴다.
+            deleteGenerationsBefore(month, generation - 1);
+            return statementCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            window = null;
+            data.close();
+            index.close();
+            Files.deleteIfExists(dataTemp);
+            Files.deleteIfExists(indexTemp);
+        }
+
+        /**
+         * idx 를 이진 탐색하므로 계좌번호가 커지는 순서가 아니면 IllegalStateException
+         */
+        private void startStatement(String accountNumber, long openingBalance) throws IOException {
+            byte[] key = accountNumberBytes(accountNumber);
+            if (lastKey != null && Arrays.compare(lastKey, key) >= 0) {
+                throw new IllegalStateException("Statement accounts out of order : " + accountNumber);
+            }
+            lastKey = key;
+            this.accountNumber = accountNumber;
+            statementStart = position();
+            transactionCount = 0L;
+            usedAmount = 0L;
+            cancelledAmount = 0L;
+            closingBalance = openingBalance;
+
+            clearLine('H');
+            putText(2, accountNumber, ACCOUNT_NUMBER_LENGTH);
+            putText(23, month.toString(), 7);
+            putNumber(31, openingBalance, 20);
+            writeLine();
+        }
+
+        private void finishStatement() throws IOException {
+            if (accountNumber == null) {
+                return;
+            }
+            clearLine('F');
+            putNumber(2, transactionCount, 10);
+            putNumber(13, usedAmount, 15);
+            putNumber(29, cancelledAmount, 15);
+            putNumber(45, closingBalance, 20);
+            writeLine();
+
+            index.write(accountNumberBytes(accountNumber));
+            index.writeLong(statementStart);
+            index.writeInt((int) (position() - statementStart));
+            statementCount++;
+            accountNumber = null;
+        }
+
+        private long position() {
+            return windowStart + window.position();
+        }
+
+        private void writeLine() throws IOException {
+            if (window.remaining() < LINE_LENGTH) {
+                windowStart += window.position();
+                window = data.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+            }
+            window.put(line);
+        }
+
+        private void clearLine(char type) {
+            Arrays.fill(line, (byte) ' ');
+            line[0] = (byte) type;
+            line[LINE_LENGTH - 1] = '\n';
+        }
+
+        private void putText(int offset, String value, int width) {
+            int length = Math.min(value.length(), width);
+            for (int i = 0; i < length; i++) {
+                line[offset + i] = (byte) value.charAt(i);
+            }
+        }
+
+        /**
+         * 오른쪽 정렬
+         */
+        private void putNumber(int offset, long value, int width) {
+            String text = Long.toString(value);
+            putText(offset + Math.max(0, width - text.length()), text, width);
+        }
+
+        /**
+         * yyyy-MM-dd HH:mm:ss
+         */
+        private void putDateTime(int offset, LocalDateTime value) {
+            putDigits(offset, value.getYear(), 4);
+            line[offset + 4] = '-';
+            putDigits(offset + 5, value.getMonthValue(), 2);
+            line[offset + 7] = '-';
+            putDigits(offset + 8, value.getDayOfMonth(), 2);
+            putDigits(offset + 11, value.getHour(), 2);
+            line[offset + 13] = ':';
+            putDigits(offset + 14, value.getMinute(), 2);
+            line[offset + 16] = ':';
+            putDigits(offset + 17, value.getSecond(), 2);
+        }
+
+        private void putDigits(int offset, int value, int width) {
+            for (int i = width - 1; i >= 0; i--) {
+                line[offset + i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.MonthlyRollupCompletionRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.SharedDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * roll-up 이 끝난(MonthlyRollupCompletion 이 있는) 달의 거래 내역서를 한 번에 만든다.(StatementFile) <br>
+ * - 그 달의 거래를 계좌번호, 시각 순서로 한 번만 스크롤하면서 메모리 매핑한 파일에 바로 쓴다. <br>
+ * - 그 달에 거래가 있었거나 하루라도 사용 중이던 계좌(달 중에 해지한 계좌 포함)의 내역서를 만든다. <br>
+ * - 시작 잔액은 그 달의 MonthlyTransactionRollup 에서 가져온다.(roll-up 이 없는 계좌는 첫 거래 직전 잔액) <br>
+ * - 거래가 없는 계좌는 시작, 마감 줄만 쓴다. 잔액은 이전 roll-up 의 마감 잔액, 없으면 다음 거래 직전 잔액, <br>
+ *   그것도 없으면 현재 잔액이다. <br>
+ * - 내역서 디렉터리는 모든 노드가 함께 쓰는 저장소여야 한다.(한 노드만 만들고 모든 노드가 읽음) <br>
+ *   노드마다 따로 붙은 디렉터리면 시작하지 않는다.(SharedDirectory, TransactionArchive 와 같음)
+ */
+@Slf4j
+@Component
+public class StatementGenerator {
+    private static final String LOCK_KEY = "ACCOUNT:STATEMENT";
+    private static final String STORAGE_KEY = "ACCOUNT:STATEMENT:STORAGE";
+    private static final int FETCH_SIZE = 1000;
+    private static final String SELECT_TRANSACTIONS = "select a.accountNumber, r.openingBalance, t.transactionId, " +
+            "t.transactionType, t.transactionResultType, t.amount, t.balanceSnapshot, t.transactedAt, " +
+            "a.id, a.balance, (select p.closingBalance from MonthlyTransactionRollup p " +
+            "where p.accountId = a.id and p.rollupMonth = (select max(q.rollupMonth) " +
+            "from MonthlyTransactionRollup q where q.accountId = a.id and q.rollupMonth < :month)) " +
+            "from Account a " +
+            "left join Transaction t on t.account = a and t.transactedAt >= :start and t.transactedAt < :end " +
+            "left join MonthlyTransactionRollup r on r.accountId = a.id and r.rollupMonth = :month " +
+            "where t.id is not null or (a.registeredAt < :end " +
+            "and (a.unRegisteredAt is null or a.unRegisteredAt >= :start)) " +
+            "order by a.accountNumber, t.transactedAt, t.id";
+    private static final String SELECT_NEXT_TRANSACTION = "select t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot from Transaction t " +
+            "where t.account.id = :accountId and t.transactedAt >= :end " +
+            "order by t.transactedAt, t.id";
+
+    private final SessionFactory sessionFactory;
+    private final MonthlyRollupCompletionRepository completionRepository;
+    private final StatementFile statementFile;
+    private final RedissonClient redissonClient;
+    private final boolean enabled;
+    private final AtomicLong generatedCount = new AtomicLong();
+
+    public StatementGenerator(EntityManagerFactory entityManagerFactory,
+                              MonthlyRollupCompletionRepository completionRepository,
+                              StatementFile statementFile,
+                              RedissonClient redissonClient,
+                              @Value("${account.statement.enabled:true}") boolean enabled) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.completionRepository = completionRepository;
+        this.statementFile = statementFile;
+        this.redissonClient = redissonClient;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (enabled) {
+            SharedDirectory.verify(redissonClient, STORAGE_KEY, statementFile.getDirectory());
+        }
+    }
+
+    /**
+     * 지난달 roll-up 이 끝났고 내역서가 없으면 만든다.
+     */
+    @Scheduled(cron = "${account.statement.cron:0 30 * * * *}")
+    public void generateLastMonth() {
+        YearMonth lastMonth = YearMonth.now().minusMonths(1);
+        if (!enabled || statementFile.exists(lastMonth)
+                || !completionRepository.existsById(lastMonth.atDay(1))) {
+            return;
+        }
+        generate(lastMonth);
+    }
+
+    /**
+     * 정책 <br>
+     * - roll-up 이 끝나지 않은 달은 실패 응답 <br>
+     * - 거래가 보관되기 시작한 달은 실패 응답
+     *
+     * @return 만든 내역서 수, 다른 노드가 실행 중이면 -1
+     */
+    public int generate(YearMonth month) {
+        if (!completionRepository.existsById(month.atDay(1))) {
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
+        }
+        if (month.atDay(1).atStartOfDay().isBefore(TransactionArchiver.cutoff())) {
+            throw AccountException.of(ErrorCode.ARCHIVED_PERIOD);
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            return -1;
+        }
+        try {
+            long started = System.nanoTime();
+            int generated = write(month);
+            generatedCount.addAndGet(generated);
+            log.info("Statements {} : {} accounts, {} ms",
+                    month, generated, (System.nanoTime() - started) / 1_000_000);
+            return generated;
+        } catch (IOException e) {
+            log.error("Statement generation failed : {}", month);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<StatementFile.Region> find(YearMonth month, String accountNumber) {
+        try {
+            return statementFile.find(month, accountNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+
+    private int write(YearMonth month) throws IOException {
+        LocalDate start = month.atDay(1);
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             StatementFile.Writer writer = statementFile.open(month)) {
+            try (ScrollableResults rows = session.createQuery(SELECT_TRANSACTIONS)
+                    .setParameter("month", start)
+                    .setParameter("start", start.atStartOfDay())
+                    .setParameter("end", start.plusMonths(1).atStartOfDay())
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    if (row[2] == null) {
+                        writer.addWithoutTransactions((String) row[0], balanceWithoutTransactions(session, start,
+                                (Long) row[8], (Long) row[9], (Long) row[10]));
+                        continue;
+                    }
+                    writer.add((String) row[0], (Long) row[1], (String) row[2], (TransactionType) row[3],
+                            (TransactionResultType) row[4], (Long) row[5], (Long) row[6], (LocalDateTime) row[7]);
+                }
+            }
+            return writer.commit();
+        }
+    }
+
+    /**
+     * 그 달에 거래가 없는 계좌의 잔액
+     */
+    private static long balanceWithoutTransactions(StatelessSession session,
+                                                   LocalDate start,
+                                                   Long accountId,
+                                                   Long balance,
+                                                   Long previousClosingBalance) {
+        if (previousClosingBalance != null) {
+            return previousClosingBalance;
+        }
+        Object[] next = (Object[]) session.createQuery(SELECT_NEXT_TRANSACTION)
+                .setParameter("accountId", accountId)
+                .setParameter("end", start.plusMonths(1).atStartOfDay())
+                .setMaxResults(1)
+                .uniqueResult();
+        if (next == null) {
+            return balance;
+        }
+        return TransactionRollupJob.balanceBefore((TransactionType) next[0], (TransactionResultType) next[1],
+                (Long) next[2], (Long) next[3]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import com.zerobase.hseungho.account.dto.DailyTransactionAggregateInfo;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.DailyTransactionAggregateRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository.TransactionTotal;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌별 하루 거래 집계 조회와 다시 계산 <br>
+ * - 조회는 집계 행만 읽으므로 아직 flush 되지 않은 거래(flush-interval-ms 이내)는 빠질 수 있다. <br>
+ * - backfill 은 날짜마다 집계 행을 지우고 거래 테이블에서 다시 계산한다. <br>
+ *   오늘처럼 거래가 계속 들어오는 날은 계산 중에 모인 증감이 겹칠 수 있으므로 지난 날짜에 쓰는 것이 좋다.
+ */
+@Slf4j
+@Service
+public class TransactionAggregateService {
+    private static final long MAX_QUERY_DAYS = 366L;
+
+    private final DailyTransactionAggregateRepository aggregateRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionAggregator transactionAggregator;
+    private final AccountNearCache accountNearCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionAggregateService(DailyTransactionAggregateRepository aggregateRepository,
+                                       TransactionRepository transactionRepository,
+                                       TransactionAggregator transactionAggregator,
+                                       AccountNearCache accountNearCache,
+                                       PlatformTransactionManager transactionManager) {
+        this.aggregateRepository = aggregateRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionAggregator = transactionAggregator;
+        this.accountNearCache = accountNearCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 정책 <br>
+     * - 계좌가 없는 경우, <br>
+     * - 시작일이 종료일보다 늦거나 기간이 366일을 넘는 경우 실패 응답 <br>
+     * 거래가 없는 날은 결과에 없다.
+     */
+    public List<DailyTransactionAggregateInfo> getDailyAggregates(String accountNumber,
+                                                                  LocalDate from,
+                                                                  LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_QUERY_DAYS) {
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
+        }
+        CachedAccount account = accountNearCache.get(accountNumber)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        return aggregateRepository.findByAccountIdAndAggregateDateBetweenOrderByAggregateDate(
+                        account.getId(), from, to).stream()
+                .map(aggregate -> DailyTransactionAggregateInfo.from(accountNumber, aggregate))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * from ~ to 의 집계를 거래 테이블에서 다시 계산한다. 날짜마다 커밋한다. <br>
+     * 거래가 보관되기 시작한 날짜는 거래 테이블에 남은 거래만으로 다시 만들게 되므로 실패 응답
+     *
+     * @return 다시 만든 집계 행 수
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
+        }
+        if (from.atStartOfDay().isBefore(TransactionArchiver.cutoff())) {
+            throw AccountException.of(ErrorCode.ARCHIVED_PERIOD);
+        }
+        // 모아 둔 증감이 다시 계산한 행에 나중에 더해지지 않도록 먼저 내린다.
+        transactionAggregator.flush();
+        int rebuilt = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            LocalDate current = date;
+            rebuilt += transactionTemplate.execute(status -> rebuild(current));
+        }
+        log.info("Transaction aggregates rebuilt : {} ~ {}, {}", from, to, rebuilt);
+        return rebuilt;
+    }
+
+    private int rebuild(LocalDate date) {
+        aggregateRepository.deleteByAggregateDate(date);
+        Map<Long, DailyTransactionAggregate> aggregates = new HashMap<>();
+        for (TransactionTotal total : transactionRepository.sumByAccount(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            aggregates.computeIfAbsent(total.getAccountId(),
+                            accountId -> DailyTransactionAggregate.empty(accountId, date))
+                    .add(total.getTransactionType(), total.getTransactionResultType(),
+                            total.getCount(), total.getAmount());
+        }
+        aggregateRepository.saveAll(aggregates.values());
+        return aggregates.size();
+    }
+}
@@ -0,0 +1,147 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import com.zerobase.hseungho.account.repository.DailyTransactionAggregateRepository;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 거래를 계좌, 날짜별로 메모리에 모았다가 flush-interval-ms 마다 DailyTransactionAggregate 에 더한다. <br>
+ * - 거래가 커밋된 뒤에 모으므로 롤백된 거래는 집계되지 않는다. <br>
+ * - 한 번의 flush 는 한 트랜잭션에서 모인 계좌-날짜마다 증감을 더하고, 행이 없던 것만 모아서 저장한다. <br>
+ * - flush 에 실패하면(다른 노드가 같은 행을 먼저 만든 경우 포함) 증감을 다시 모아 다음 flush 에 더한다. <br>
+ * - 내리지 못하고 종료된 증감은 TransactionAggregateService.backfill 로 거래 테이블에서 다시 계산한다.
+ */
+@Slf4j
+@Component
+public class TransactionAggregator {
+    private final DailyTransactionAggregateRepository aggregateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<AggregateKey, DailyTransactionAggregate> pending = new ConcurrentHashMap<>();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public TransactionAggregator(DailyTransactionAggregateRepository aggregateRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.aggregateRepository = aggregateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordAfterCommit(Long accountId,
+                                  LocalDateTime transactedAt,
+                                  TransactionType transactionType,
+                                  TransactionResultType transactionResultType,
+                                  Long amount) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(accountId, transactedAt, transactionType, transactionResultType, amount);
+                }
+            });
+        } else {
+            record(accountId, transactedAt, transactionType, transactionResultType, amount);
+        }
+    }
+
+    void record(Long accountId,
+                LocalDateTime transactedAt,
+                TransactionType transactionType,
+                TransactionResultType transactionResultType,
+                Long amount) {
+        AggregateKey key = new AggregateKey(accountId, transactedAt.toLocalDate());
+        pending.compute(key, (k, aggregate) ->
+                (aggregate == null ? DailyTransactionAggregate.empty(k.accountId, k.aggregateDate) : aggregate)
+                        .add(transactionType, transactionResultType, 1L, amount));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${account.aggregate.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<DailyTransactionAggregate> deltas = drain();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(deltas));
+            flushedCount.addAndGet(deltas.size());
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            log.error("Transaction aggregate flush failed : {}", deltas.size());
+            deltas.forEach(this::restore);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * 키마다 remove 로 꺼내므로 꺼낸 뒤의 거래는 새 항목에 모인다.
+     */
+    private List<DailyTransactionAggregate> drain() {
+        List<DailyTransactionAggregate> deltas = new ArrayList<>(pending.size());
+        for (AggregateKey key : pending.keySet()) {
+            DailyTransactionAggregate delta = pending.remove(key);
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    private void apply(List<DailyTransactionAggregate> deltas) {
+        List<DailyTransactionAggregate> missing = new ArrayList<>();
+        for (DailyTransactionAggregate delta : deltas) {
+            int updated = aggregateRepository.applyDelta(delta.getAccountId(), delta.getAggregateDate(),
+                    delta.getUseSuccessCount(), delta.getUseFailureCount(), delta.getUseAmount(),
+                    delta.getCancelSuccessCount(), delta.getCancelFailureCount(), delta.getCancelAmount());
+            if (updated == 0) {
+                missing.add(delta);
+            }
+        }
+        aggregateRepository.saveAll(missing);
+    }
+
+    /**
+     * 저장에 실패한 엔티티는 id 가 남아 있을 수 있으므로 새 엔티티로 다시 모은다.
+     */
+    private void restore(DailyTransactionAggregate delta) {
+        AggregateKey key = new AggregateKey(delta.getAccountId(), delta.getAggregateDate());
+        pending.merge(key, DailyTransactionAggregate.empty(key.accountId, key.aggregateDate).plus(delta),
+                DailyTransactionAggregate::plus);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class AggregateKey {
+        private final Long accountId;
+        private final LocalDate aggregateDate;
+    }
+}
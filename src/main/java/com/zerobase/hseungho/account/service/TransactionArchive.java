@@ -0,0 +1,463 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.ArchivedLegacyTransaction;
+import com.zerobase.hseungho.account.repository.ArchivedLegacyTransactionRepository;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.TransactionIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 취소 기간이 지난 거래를 월별 파일에 보관한다.(TransactionArchiver) <br>
+ * - 파일은 transactions-yyyy-MM.arc 이고, 거래 아이디의 발급 월(UTC)로 나눈다.(시각이 없는 이전 아이디는 거래 월) <br>
+ * - 파일에는 block 을 뒤에 붙이기만 한다. block 은 [header][deflate 로 압축한 열 단위 payload] 이다. <br>
+ *   header : [magic int][행 수 int][아이디 발급 시각 최소 long][최대 long][이전 아이디 수 int][payload 길이 int][crc32c int] <br>
+ *   payload : 아이디 순으로 정렬한 행을 열마다 모아 쓴다.(아이디, 계좌 id, 계좌번호, 종류, 결과, 금액, 잔액, 거래 시각) <br>
+ * - 조회는 아이디의 발급 월 파일에서 header 의 시각 범위에 드는 block 만 풀어 본다. <br>
+ *   이전 아이디는 ArchivedLegacyTransaction 에 남긴 달의 파일에서 이전 아이디가 있는 block 만 본다. <br>
+ * - 쓰다 만 block 은 읽을 때 건너뛰고 다음에 붙일 때 잘라낸다.
+ */
+@Slf4j
+@Component
+public class TransactionArchive {
+    private static final String PREFIX = "transactions-";
+    private static final String SUFFIX = ".arc";
+    private static final int MAGIC = 0x54584152;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+    private static final int LEGACY_INDEX_BATCH_SIZE = 1000;
+
+    private final ArchivedLegacyTransactionRepository legacyRepository;
+    private final Path directory;
+
+    public TransactionArchive(ArchivedLegacyTransactionRepository legacyRepository,
+                              @Value("${account.archive.directory:archive}") String directory) {
+        this.legacyRepository = legacyRepository;
+        this.directory = Paths.get(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 거래를 월별 파일에 나눠 붙이고 디스크에 내린다.
+     */
+    public synchronized void append(List<CachedTransaction> transactions) throws IOException {
+        Files.createDirectories(directory);
+        Map<YearMonth, List<CachedTransaction>> partitions = transactions.stream()
+                .collect(Collectors.groupingBy(TransactionArchive::partitionOf, TreeMap::new, Collectors.toList()));
+        for (Map.Entry<YearMonth, List<CachedTransaction>> partition : partitions.entrySet()) {
+            appendBlock(path(partition.getKey()), partition.getValue());
+        }
+    }
+
+    public Optional<CachedTransaction> find(String transactionId) {
+        Optional<Instant> issuedAt = TransactionIds.issuedAt(transactionId);
+        try {
+            if (issuedAt.isPresent()) {
+                Path path = path(YearMonth.from(issuedAt.get().atOffset(ZoneOffset.UTC)));
+                return Files.exists(path)
+                        ? find(path, transactionId, issuedAt.get().toEpochMilli())
+                        : Optional.empty();
+            }
+            Optional<ArchivedLegacyTransaction> legacy = legacyRepository.findById(transactionId);
+            if (legacy.isEmpty()) {
+                return Optional.empty();
+            }
+            Path path = path(YearMonth.from(legacy.get().getArchiveMonth()));
+            return Files.exists(path) ? find(path, transactionId, -1L) : Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 이전 아이디 거래의 보관 달을 남긴다. 거래 행을 지우는 DB 트랜잭션 안에서 호출한다.
+     */
+    public void indexLegacy(List<CachedTransaction> transactions) {
+        List<ArchivedLegacyTransaction> legacy = transactions.stream()
+                .filter(transaction -> TransactionIds.issuedAt(transaction.getTransactionId()).isEmpty())
+                .map(transaction -> new ArchivedLegacyTransaction(transaction.getTransactionId(),
+                        partitionOf(transaction).atDay(1)))
+                .collect(Collectors.toList());
+        if (!legacy.isEmpty()) {
+            legacyRepository.saveAll(legacy);
+        }
+    }
+
+    /**
+     * 색인이 비어 있으면 색인이 생기기 전에 보관한 이전 아이디를 넣는다. 이전 아이디가 있는 block 만 푼다. <br>
+     * 중간에 멈춰도 같은 아이디를 다시 저장할 뿐이다.
+     *
+     * @return 넣은 아이디 수
+     */
+    public int rebuildLegacyIndex() throws IOException {
+        if (legacyRepository.count() > 0) {
+            return 0;
+        }
+        int indexed = 0;
+        List<ArchivedLegacyTransaction> batch = new ArrayList<>();
+        for (Path path : listPaths()) {
+            LocalDate month = monthOf(path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                for (Block block : readBlocks(channel)) {
+                    if (block.legacyCount == 0) {
+                        continue;
+                    }
+                    byte[] payload = readPayload(channel, block);
+                    if (crc(payload) != block.crc) {
+                        log.error("Archive block crc mismatch : {} at {}", path.getFileName(), block.position);
+                        continue;
+                    }
+                    try (DataInputStream in = inflate(payload)) {
+                        for (int i = 0; i < block.rowCount; i++) {
+                            String transactionId = in.readUTF();
+                            if (TransactionIds.issuedAt(transactionId).isEmpty()) {
+                                batch.add(new ArchivedLegacyTransaction(transactionId, month));
+                            }
+                        }
+                    }
+                    if (batch.size() >= LEGACY_INDEX_BATCH_SIZE) {
+                        legacyRepository.saveAll(batch);
+                        indexed += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        legacyRepository.saveAll(batch);
+        return indexed + batch.size();
+    }
+
+    /**
+     * 보관된 모든 거래 아이디를 넘긴다.(거래 아이디 필터 다시 만들기)
+     */
+    public void forEachTransactionId(Consumer<String> consumer) throws IOException {
+        for (Path path : listPaths()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                for (Block block : readBlocks(channel)) {
+                    byte[] payload = readPayload(channel, block);
+                    if (crc(payload) != block.crc) {
+                        log.error("Archive block crc mismatch : {} at {}", path.getFileName(), block.position);
+                        continue;
+                    }
+                    try (DataInputStream in = inflate(payload)) {
+                        for (int i = 0; i < block.rowCount; i++) {
+                            consumer.accept(in.readUTF());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static YearMonth partitionOf(CachedTransaction transaction) {
+        return TransactionIds.issuedAt(transaction.getTransactionId())
+                .map(issuedAt -> YearMonth.from(issuedAt.atOffset(ZoneOffset.UTC)))
+                .orElseGet(() -> YearMonth.from(transaction.getTransactedAt()));
+    }
+
+    private void appendBlock(Path path, List<CachedTransaction> transactions) throws IOException {
+        List<CachedTransaction> rows = new ArrayList<>(transactions);
+        rows.sort(Comparator.comparing(CachedTransaction::getTransactionId));
+        long minMillis = Long.MAX_VALUE;
+        long maxMillis = Long.MIN_VALUE;
+        int legacyCount = 0;
+        for (CachedTransaction row : rows) {
+            Optional<Instant> issuedAt = TransactionIds.issuedAt(row.getTransactionId());
+            if (issuedAt.isPresent()) {
+                minMillis = Math.min(minMillis, issuedAt.get().toEpochMilli());
+                maxMillis = Math.max(maxMillis, issuedAt.get().toEpochMilli());
+            } else {
+                legacyCount++;
+            }
+        }
+        byte[] payload = encode(rows);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(rows.size())
+                .putLong(minMillis)
+                .putLong(maxMillis)
+                .putInt(legacyCount)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .flip();
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            List<Block> blocks = readBlocks(channel);
+            long end = blocks.isEmpty() ? 0L : blocks.get(blocks.size() - 1).end();
+            if (channel.size() > end) {
+                log.warn("Truncating partial archive block : {} at {}", path.getFileName(), end);
+                channel.truncate(end);
+            }
+            channel.position(end);
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(payload));
+            channel.force(true);
+        }
+    }
+
+    private Optional<CachedTransaction> find(Path path, String transactionId, long issuedMillis) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (Block block : readBlocks(channel)) {
+                boolean candidate = issuedMillis < 0
+                        ? block.legacyCount > 0
+                        : block.minMillis <= issuedMillis && issuedMillis <= block.maxMillis;
+                if (!candidate) {
+                    continue;
+                }
+                byte[] payload = readPayload(channel, block);
+                if (crc(payload) != block.crc) {
+                    log.error("Archive block crc mismatch : {} at {}", path.getFileName(), block.position);
+                    continue;
+                }
+                Optional<CachedTransaction> found = decode(payload, block.rowCount, transactionId);
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * header 가 온전하고 payload 가 파일 안에 있는 block 까지
+     */
+    private static List<Block> readBlocks(FileChannel channel) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        long size = channel.size();
+        long position = 0L;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                break;
+            }
+            Block block = new Block(position, header.getInt(), header.getLong(), header.getLong(),
+                    header.getInt(), header.getInt(), header.getInt());
+            if (block.length < 0 || block.end() > size) {
+                break;
+            }
+            blocks.add(block);
+            position = block.end();
+        }
+        return blocks;
+    }
+
+    private static byte[] readPayload(FileChannel channel, Block block) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(block.length);
+        long position = block.position + HEADER_SIZE;
+        while (payload.hasRemaining()) {
+            int read = channel.read(payload, position + payload.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive block");
+            }
+        }
+        return payload.array();
+    }
+
+    static byte[] encode(List<CachedTransaction> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            for (CachedTransaction row : rows) {
+                out.writeUTF(row.getTransactionId());
+            }
+            for (CachedTransaction row : rows) {
+                out.writeLong(row.getAccountId());
+            }
+            for (CachedTransaction row : rows) {
+                out.writeLong(Long.parseLong(row.getAccountNumber()));
+            }
+            for (CachedTransaction row : rows) {
+                out.writeByte(row.getTransactionType().ordinal());
+            }
+            for (CachedTransaction row : rows) {
+                out.writeByte(row.getTransactionResultType().ordinal());
+            }
+            for (CachedTransaction row : rows) {
+                out.writeLong(row.getAmount());
+            }
+            for (CachedTransaction row : rows) {
+                out.writeLong(row.getBalanceSnapshot());
+            }
+            // 아이디 순이면 거래 시각도 거의 순서대로라 차이값이 작게 압축된다.
+            long previous = 0L;
+            for (CachedTransaction row : rows) {
+                long seconds = row.getTransactedAt().toEpochSecond(ZoneOffset.UTC);
+                out.writeLong(seconds - previous);
+                previous = seconds;
+            }
+            for (CachedTransaction row : rows) {
+                out.writeInt(row.getTransactedAt().getNano());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 아이디 열만 읽고 없으면 나머지 열은 풀지 않는다.
+     */
+    static Optional<CachedTransaction> decode(byte[] payload, int rowCount, String transactionId) throws IOException {
+        try (DataInputStream in = inflate(payload)) {
+            List<String> transactionIds = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                transactionIds.add(in.readUTF());
+            }
+            int index = Collections.binarySearch(transactionIds, transactionId);
+            if (index < 0) {
+                return Optional.empty();
+            }
+            long accountId = readLong(in, rowCount, index);
+            long accountNumber = readLong(in, rowCount, index);
+            byte transactionType = readByte(in, rowCount, index);
+            byte transactionResultType = readByte(in, rowCount, index);
+            long amount = readLong(in, rowCount, index);
+            long balanceSnapshot = readLong(in, rowCount, index);
+            long seconds = 0L;
+            for (int i = 0; i <= index; i++) {
+                seconds += in.readLong();
+            }
+            skipFully(in, (rowCount - index - 1) * Long.BYTES);
+            skipFully(in, index * Integer.BYTES);
+            int nano = in.readInt();
+            return Optional.of(new CachedTransaction(
+                    accountId,
+                    String.valueOf(accountNumber),
+                    TransactionType.values()[transactionType],
+                    TransactionResultType.values()[transactionResultType],
+                    amount,
+                    balanceSnapshot,
+                    transactionId,
+                    LocalDateTime.ofEpochSecond(seconds, nano, ZoneOffset.UTC)
+            ));
+        }
+    }
+
+    private static long readLong(DataInputStream in, int rowCount, int index) throws IOException {
+        skipFully(in, index * Long.BYTES);
+        long value = in.readLong();
+        skipFully(in, (rowCount - index - 1) * Long.BYTES);
+        return value;
+    }
+
+    private static byte readByte(DataInputStream in, int rowCount, int index) throws IOException {
+        skipFully(in, index);
+        byte value = in.readByte();
+        skipFully(in, rowCount - index - 1);
+        return value;
+    }
+
+    private static void skipFully(DataInputStream in, int count) throws IOException {
+        int remaining = count;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException("Unexpected end of archive payload");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static DataInputStream inflate(byte[] payload) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private List<Path> listPaths() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path path(YearMonth month) {
+        return directory.resolve(PREFIX + month + SUFFIX);
+    }
+
+    private static LocalDate monthOf(Path path) {
+        String name = path.getFileName().toString();
+        return YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())).atDay(1);
+    }
+
+    private static class Block {
+        private final long position;
+        private final int rowCount;
+        private final long minMillis;
+        private final long maxMillis;
+        private final int legacyCount;
+        private final int length;
+        private final int crc;
+
+        private Block(long position, int rowCount, long minMillis, long maxMillis,
+                      int legacyCount, int length, int crc) {
+            this.position = position;
+            this.rowCount = rowCount;
+            this.minMillis = minMillis;
+            this.maxMillis = maxMillis;
+            this.legacyCount = legacyCount;
+            this.length = length;
+            this.crc = crc;
+        }
+
+        private long end() {
+            return position + HEADER_SIZE + length;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.util.SharedDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 취소할 수 없게 된(1년이 지난) 거래를 거래 테이블에서 TransactionArchive 로 옮긴다. <br>
+ * - batch-size 개씩 오래된 순서로 읽어 보관 파일에 붙이고 디스크에 내린 뒤 테이블에서 지운다. <br>
+ * - 지우기 전에 멈추면 다음 실행에서 같은 거래를 다시 붙인다.(조회는 먼저 찾은 것을 쓰므로 중복돼도 된다) <br>
+ * - 보관 디렉터리는 모든 노드가 함께 쓰는 저장소여야 한다.(어느 노드에서든 보관된 거래를 찾도록) <br>
+ *   노드마다 따로 붙은 디렉터리면 시작하지 않는다.(SharedDirectory) <br>
+ * - 보관 파일을 함께 쓰는 여러 노드가 동시에 옮기지 않도록 Redis lock 을 잡고, 못 잡으면 넘긴다. <br>
+ * - 이전 아이디 거래의 보관 달은 거래 행을 지우는 DB 트랜잭션에서 색인에 남긴다.
+ */
+@Slf4j
+@Component
+public class TransactionArchiver {
+    private static final String LOCK_KEY = "TRANSACTION:ARCHIVE";
+    private static final String STORAGE_KEY = "TRANSACTION:ARCHIVE:STORAGE";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final RedissonClient redissonClient;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final AtomicLong archivedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public TransactionArchiver(TransactionRepository transactionRepository,
+                               TransactionArchive transactionArchive,
+                               RedissonClient redissonClient,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${account.archive.enabled:true}") boolean enabled,
+                               @Value("${account.archive.batch-size:5000}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.redissonClient = redissonClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 보관된 거래는 거래 테이블에 없으므로 이 시각보다 전의 기간은 다시 계산하지 않는다. <br>
+     * validateCancelBalance 와 같은 기준
+     */
+    public static LocalDateTime cutoff() {
+        return LocalDateTime.now().minusYears(1L);
+    }
+
+    @PostConstruct
+    void verifyDirectory() throws IOException {
+        if (enabled) {
+            SharedDirectory.verify(redissonClient, STORAGE_KEY, transactionArchive.getDirectory());
+        }
+    }
+
+    /**
+     * 색인이 생기기 전에 보관한 이전 아이디를 색인에 넣는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexLegacy() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        int indexed = transactionArchive.rebuildLegacyIndex();
+        if (indexed > 0) {
+            log.info("Archived legacy transaction index rebuilt : {}", indexed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${account.archive.interval-ms:3600000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock;
+        try {
+            lock = redissonClient.getLock(LOCK_KEY);
+            if (!lock.tryLock()) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.error("Transaction archive lock failed", e);
+            return;
+        }
+        try {
+            LocalDateTime before = cutoff();
+            int archived;
+            do {
+                archived = archiveBatch(before);
+            } while (archived == batchSize);
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            log.error("Transaction archive failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getArchivedCount() {
+        return archivedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return 옮긴 거래 수
+     */
+    int archiveBatch(LocalDateTime before) {
+        List<Transaction> transactions = transactionTemplate.execute(status ->
+                transactionRepository.findOldest(before, PageRequest.of(0, batchSize)));
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        List<CachedTransaction> archived = transactions.stream()
+                .map(CachedTransaction::from)
+                .collect(Collectors.toList());
+        try {
+            transactionArchive.append(archived);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionArchive.indexLegacy(archived);
+            transactionRepository.deleteByIdIn(transactions.stream()
+                    .map(Transaction::getId)
+                    .collect(Collectors.toList()));
+        });
+        archivedCount.addAndGet(transactions.size());
+        return transactions.size();
+    }
+}
@@ -0,0 +1,232 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.dto.TransactionDto;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.LocalCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 거래 아이디 -> 거래 캐시 <br>
+ * - 거래는 저장 이후 바뀌지 않으므로(@Immutable) 무효화하지 않고 메모리 크기로만 제한한다. <br>
+ *   엔트리마다 키 문자열, 레코드, map 엔트리의 추정 바이트 수(estimateBytes)를 더해 maximum-bytes 를 넘지 않게 한다. <br>
+ * - 엔트리 하나를 고정 길이 byte[] 로 저장해서 엔트리당 객체 수와 GC 부담을 줄인다. <br>
+ * - 저장한 거래는 커밋 이후에 적재한다.(롤백된 거래가 캐시에 남지 않도록) <br>
+ * - 캐시에 없으면 Bloom filter 로 존재하지 않는 거래 아이디를 DB 조회 없이 걸러낸다. <br>
+ * - DB 에 없으면 보관된 거래(TransactionArchive)에서 찾는다. <br>
+ * - 여러 아이디는 캐시와 필터를 거친 나머지만 IN_CHUNK_SIZE 개씩 IN 조회한다.
+ */
+@Component
+public class TransactionCache {
+    private static final int RECORD_SIZE = 8 + 8 + 1 + 1 + 8 + 8 + 8 + 4;
+    private static final int IN_CHUNK_SIZE = 500;
+    /**
+     * LinkedHashMap.Entry(40) + 해시 테이블 칸(8) + LocalCache.Entry(32)
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 40 + 8 + 32;
+    /**
+     * String(24) + byte[] header(16), compact string 기준
+     */
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdFilter transactionIdFilter;
+    private final TransactionArchive transactionArchive;
+    private final LocalCache<String, byte[]> cache;
+
+    public TransactionCache(TransactionRepository transactionRepository,
+                            TransactionIdFilter transactionIdFilter,
+                            TransactionArchive transactionArchive,
+                            @Value("${account.cache.transaction.maximum-bytes:256MB}") DataSize maximumBytes) {
+        this.transactionRepository = transactionRepository;
+        this.transactionIdFilter = transactionIdFilter;
+        this.transactionArchive = transactionArchive;
+        this.cache = new LocalCache<>(maximumBytes.toBytes(), Duration.ZERO, TransactionCache::estimateBytes);
+    }
+
+    public Optional<CachedTransaction> findByTransactionId(String transactionId) {
+        byte[] record = cache.get(transactionId);
+        if (record != null) {
+            return Optional.of(decode(transactionId, record));
+        }
+        if (!transactionIdFilter.mightContain(transactionId)) {
+            return Optional.empty();
+        }
+        Optional<CachedTransaction> found = transactionRepository.findByTransactionId(transactionId)
+                .map(CachedTransaction::from)
+                .or(() -> transactionArchive.find(transactionId));
+        found.ifPresent(cached -> cache.put(transactionId, encode(cached)));
+        return found;
+    }
+
+    /**
+     * @return 찾은 거래만 담은 아이디 -> 거래
+     */
+    public Map<String, CachedTransaction> findAllByTransactionIds(Collection<String> transactionIds) {
+        Map<String, CachedTransaction> found = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String transactionId : new LinkedHashSet<>(transactionIds)) {
+            byte[] record = cache.get(transactionId);
+            if (record != null) {
+                found.put(transactionId, decode(transactionId, record));
+            } else if (transactionIdFilter.mightContain(transactionId)) {
+                uncached.add(transactionId);
+            }
+        }
+        for (int from = 0; from < uncached.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = uncached.subList(from, Math.min(from + IN_CHUNK_SIZE, uncached.size()));
+            for (Transaction transaction : transactionRepository.findAllByTransactionIdIn(chunk)) {
+                CachedTransaction cached = CachedTransaction.from(transaction);
+                found.put(cached.getTransactionId(), cached);
+                cache.put(cached.getTransactionId(), encode(cached));
+            }
+        }
+        for (String transactionId : uncached) {
+            if (!found.containsKey(transactionId)) {
+                transactionArchive.find(transactionId).ifPresent(cached -> {
+                    found.put(transactionId, cached);
+                    cache.put(transactionId, encode(cached));
+                });
+            }
+        }
+        return found;
+    }
+
+    public void putAfterCommit(Transaction transaction) {
+        CachedTransaction cached = CachedTransaction.from(transaction);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(cached.getTransactionId(), encode(cached));
+                }
+            });
+        } else {
+            cache.put(cached.getTransactionId(), encode(cached));
+        }
+    }
+
+    /**
+     * DB 에 저장되기 전인 거래(잔액 엔진)
+     */
+    public void put(CachedTransaction transaction) {
+        cache.put(transaction.getTransactionId(), encode(transaction));
+    }
+
+    public LocalCache<String, byte[]> getCache() {
+        return cache;
+    }
+
+    /**
+     * 64bit JVM, compressed oops 기준 엔트리 하나가 차지하는 힙 바이트 수(8바이트 정렬)
+     */
+    static long estimateBytes(String transactionId, byte[] record) {
+        return ENTRY_OVERHEAD_BYTES
+                + align(STRING_OVERHEAD_BYTES + transactionId.length())
+                + align(ARRAY_HEADER_BYTES + record.length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static byte[] encode(CachedTransaction transaction) {
+        LocalDateTime transactedAt = transaction.getTransactedAt();
+        return ByteBuffer.allocate(RECORD_SIZE)
+                .putLong(transaction.getAccountId())
+                .putLong(Long.parseLong(transaction.getAccountNumber()))
+                .put((byte) transaction.getTransactionType().ordinal())
+                .put((byte) transaction.getTransactionResultType().ordinal())
+                .putLong(transaction.getAmount())
+                .putLong(transaction.getBalanceSnapshot())
+                .putLong(transactedAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(transactedAt.getNano())
+                .array();
+    }
+
+    static CachedTransaction decode(String transactionId, byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        return new CachedTransaction(
+                buffer.getLong(),
+                String.valueOf(buffer.getLong()),
+                TransactionType.values()[buffer.get()],
+                TransactionResultType.values()[buffer.get()],
+                buffer.getLong(),
+                buffer.getLong(),
+                transactionId,
+                LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC)
+        );
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedTransaction {
+        private final Long accountId;
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final TransactionResultType transactionResultType;
+        private final Long amount;
+        private final Long balanceSnapshot;
+        private final String transactionId;
+        private final LocalDateTime transactedAt;
+
+        public static CachedTransaction from(Transaction transaction) {
+            return new CachedTransaction(
+                    transaction.getAccount().getId(),
+                    transaction.getAccount().getAccountNumber(),
+                    transaction.getTransactionType(),
+                    transaction.getTransactionResultType(),
+                    transaction.getAmount(),
+                    transaction.getBalanceSnapshot(),
+                    transaction.getTransactionId(),
+                    transaction.getTransactedAt()
+            );
+        }
+
+        public static CachedTransaction from(BalanceChange change) {
+            return new CachedTransaction(
+                    change.getAccountId(),
+                    change.getAccountNumber(),
+                    change.getTransactionType(),
+                    change.getTransactionResultType(),
+                    change.getAmount(),
+                    change.getBalance(),
+                    change.getTransactionId(),
+                    change.getTransactedAt()
+            );
+        }
+
+        public TransactionDto toDto() {
+            return TransactionDto.builder()
+                    .accountNumber(accountNumber)
+                    .transactionType(transactionType)
+                    .transactionResultType(transactionResultType)
+                    .amount(amount)
+                    .balanceSnapshot(balanceSnapshot)
+                    .transactionId(transactionId)
+                    .transactedAt(transactedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.zerobase.hseungho.account.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.hseungho.account.aop.AccountLock;
+import com.zerobase.hseungho.account.aop.AccountLockIdInterface;
+import com.zerobase.hseungho.account.aop.RateLimit;
+import com.zerobase.hseungho.account.aop.UserIdInterface;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.RateLimiter.Buckets;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.util.LuaScript;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 잔액 거래 진입/종료를 Redis script 한 번씩으로 처리한다. <br>
+ * - 진입 : 멱등 키 조회 → 요청 제한 → lock 취득, 그 뒤 DB 에서 fencing token 발급(FencingTokenIssuer) <br>
+ * - 종료 : 성공 응답 저장 → lock 해제 <br>
+ * - 요청 제한을 진입 script 에서 하므로 수용 제어 뒤에 검사한다.(RateLimitAspect 는 넘긴다) <br>
+ * - lock 은 Redisson lock 과 같은 key, 같은 hash 구조로 잡고 해제 시 같은 channel 로 알리므로 <br>
+ *   LockService(Redisson) 로 기다리는 요청과 섞여도 된다. <br>
+ * - 다른 요청이 lock 을 보유 중이면 token 만 꺼낸 상태로 LockService 로 넘겨 기다린다.(pub/sub) <br>
+ * - fair lock 정책, redisson 이 닫힌 첫 lock 백엔드가 아닌 경우(open, half-open, guard 중), <br>
+ *   script 실패 후 일정 시간 동안은 RateLimiter 와 LockService 의 기존 경로로 처리한다. <br>
+ * - 멱등 키는 계좌, 사용자, 엔드포인트 별로 나누고 요청 본문의 hash 와 함께 응답을 저장한다. <br>
+ *   같은 키로 본문이 다른 요청이 오면 저장된 응답을 돌려주지 않고 실패 응답한다. <br>
+ * - watchdog 이 없으므로 lease 는 정책의 lease 또는 watchdog 시간이고, 만료되면 fencing token 으로 막는다.
+ */
+@Slf4j
+@Component
+public class TransactionGuard {
+    private static final long ACQUIRED = 0L;
+    private static final long REPLAYED = 1L;
+    private static final long RATE_LIMITED = 3L;
+    private static final String UNLOCK_MESSAGE = "0";
+    private static final String LOCK_PROVIDER = "redisson";
+
+    private final RedissonClient redissonClient;
+    private final RateLimiter rateLimiter;
+    private final LockService lockService;
+    private final CircuitBreakerAccountLockProvider accountLockProvider;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long leaseMillis;
+    private final long idempotencyTtlMillis;
+    private final long suspendMillis;
+    private final LongSupplier clock;
+    private final LuaScript enterScript = new LuaScript("scripts/transaction_enter.lua");
+    private final LuaScript exitScript = new LuaScript("scripts/transaction_exit.lua");
+    private final AtomicLong scriptCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private final AtomicLong replayCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    private volatile long suspendedUntil;
+
+    @Autowired
+    public TransactionGuard(RedissonClient redissonClient,
+                            RateLimiter rateLimiter,
+                            LockService lockService,
+                            CircuitBreakerAccountLockProvider accountLockProvider,
+                            ObjectMapper objectMapper,
+                            @Value("${account.guard.enabled:true}") boolean enabled,
+                            @Value("${account.lock.watchdog-timeout-ms:30000}") long leaseMillis,
+                            @Value("${account.guard.idempotency-ttl-ms:86400000}") long idempotencyTtlMillis,
+                            @Value("${account.lock.circuit-breaker.open-ms:10000}") long suspendMillis) {
+        this(redissonClient, rateLimiter, lockService, accountLockProvider, objectMapper, enabled,
+                leaseMillis, idempotencyTtlMillis, suspendMillis, System::currentTimeMillis);
+    }
+
+    TransactionGuard(RedissonClient redissonClient,
+                     RateLimiter rateLimiter,
+                     LockService lockService,
+                     CircuitBreakerAccountLockProvider accountLockProvider,
+                     ObjectMapper objectMapper,
+                     boolean enabled,
+                     long leaseMillis,
+                     long idempotencyTtlMillis,
+                     long suspendMillis,
+                     LongSupplier clock) {
+        this.redissonClient = redissonClient;
+        this.rateLimiter = rateLimiter;
+        this.lockService = lockService;
+        this.accountLockProvider = accountLockProvider;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.leaseMillis = leaseMillis;
+        this.idempotencyTtlMillis = idempotencyTtlMillis;
+        this.suspendMillis = suspendMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 요청 제한을 lock 과 같은 script 에서 처리하므로 RateLimitAspect 는 넘긴다.
+     */
+    public boolean handlesRateLimit(Method method) {
+        return enabled && method.isAnnotationPresent(AccountLock.class);
+    }
+
+    /**
+     * @param idempotencyKey 클라이언트가 보낸 멱등 키, 없으면 null
+     */
+    public Entry enter(Method method,
+                       AccountLockPolicy policy,
+                       AccountLockIdInterface request,
+                       String idempotencyKey) {
+        String accountNumber = request.getAccountNumber();
+        String resultKey = idempotencyKey == null ? null : getResultKey(method, request, idempotencyKey);
+        String requestHash = idempotencyKey == null ? null : hash(request);
+        long now = clock.getAsLong();
+        RateLimit rateLimit = enabled ? method.getAnnotation(RateLimit.class) : null;
+        Long userId = request instanceof UserIdInterface ? ((UserIdInterface) request).getUserId() : null;
+        Buckets buckets = rateLimit == null ? null : rateLimiter.buckets(rateLimit, userId, accountNumber);
+        long bucketNow = rateLimiter.now();
+        if (buckets != null) {
+            rateLimiter.checkLocal(buckets, bucketNow);
+        }
+
+        if (!enabled || policy.isFair() || now < suspendedUntil
+                || !accountLockProvider.isPrimaryClosed(LOCK_PROVIDER)) {
+            // 요청 제한은 Redis 장애 시 하지 않는다.
+            if (rateLimit != null && now >= suspendedUntil) {
+                rateLimiter.acquire(rateLimit, userId, accountNumber);
+            }
+            fallbackCount.incrementAndGet();
+            return lockAndLookup(accountNumber, policy, resultKey, requestHash);
+        }
+
+        List<Object> result;
+        try {
+            result = enterScript.eval(redissonClient,
+                    enterKeys(accountNumber, resultKey, buckets),
+                    enterArgs(policy, bucketNow, resultKey, buckets));
+        } catch (RuntimeException e) {
+            log.error("Transaction enter script failed", e);
+            suspendedUntil = now + suspendMillis;
+            fallbackCount.incrementAndGet();
+            return lockAndLookup(accountNumber, policy, resultKey, requestHash);
+        }
+
+        long status = (Long) result.get(0);
+        if (status == ACQUIRED) {
+            Entry entry = new Entry(accountNumber, resultKey, requestHash, Holder.SCRIPT, null);
+            try {
+                lockService.hold(accountNumber);
+            } catch (RuntimeException e) {
+                log.error("Fencing token issue failed");
+                exit(entry, null);
+                throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            scriptCount.incrementAndGet();
+            return entry;
+        }
+        if (status == REPLAYED) {
+            String stored = getStoredResponse((String) result.get(1), requestHash);
+            replayCount.incrementAndGet();
+            return new Entry(accountNumber, resultKey, requestHash, Holder.NONE, stored);
+        }
+        if (status == RATE_LIMITED) {
+            rateLimiter.reject(buckets, ((Long) result.get(2)).intValue(), bucketNow, (Long) result.get(1));
+        }
+        // 다른 요청이 보유 중 : 요청 제한 token 은 이미 꺼냈으므로 lock 만 기다린다.
+        contendedCount.incrementAndGet();
+        return lockAndLookup(accountNumber, policy, resultKey, requestHash);
+    }
+
+    /**
+     * 이미 처리된 요청의 저장된 응답
+     */
+    public Object replay(Entry entry, Class<?> responseType) throws JsonProcessingException {
+        return objectMapper.readValue(entry.getStoredResult(), responseType);
+    }
+
+    /**
+     * @param result 성공 응답, 실패했거나 저장된 응답을 돌려준 경우 null
+     */
+    public void exit(Entry entry, Object result) {
+        String serialized = entry.getResultKey() == null || entry.isReplayed() || result == null
+                ? null
+                : serialize(result);
+        String response = serialized == null ? null : entry.getRequestHash() + ":" + serialized;
+
+        if (entry.getHolder() == Holder.SCRIPT) {
+            lockService.release(entry.getAccountNumber());
+            String lockKey = RedissonAccountLockProvider.getLockKey(entry.getAccountNumber());
+            try {
+                List<Long> released = exitScript.eval(redissonClient,
+                        Arrays.asList(lockKey,
+                                "redisson_lock__channel:{" + lockKey + "}",
+                                entry.getResultKey() == null ? "" : entry.getResultKey()),
+                        getOwner(), UNLOCK_MESSAGE, response == null ? "" : response,
+                        String.valueOf(idempotencyTtlMillis));
+                if (released.get(0) == 0L) {
+                    log.error("Lock was already released : {}", entry.getAccountNumber());
+                }
+            } catch (RuntimeException e) {
+                // lock 은 lease 가 지나면 풀린다.
+                log.error("Transaction exit script failed");
+            }
+        } else if (entry.getHolder() == Holder.LOCK_SERVICE) {
+            try {
+                if (response != null) {
+                    redissonClient.getBucket(entry.getResultKey(), StringCodec.INSTANCE)
+                            .set(response, idempotencyTtlMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                log.error("Idempotent response store failed");
+            } finally {
+                lockService.unlock(entry.getAccountNumber());
+            }
+        }
+    }
+
+    /**
+     * script 한 번으로 lock 을 얻은 요청 수
+     */
+    public long getScriptCount() {
+        return scriptCount.get();
+    }
+
+    /**
+     * 다른 요청이 보유 중이어서 LockService 로 기다린 요청 수
+     */
+    public long getContendedCount() {
+        return contendedCount.get();
+    }
+
+    public long getReplayCount() {
+        return replayCount.get();
+    }
+
+    /**
+     * script 를 쓰지 않고 기존 경로로 처리한 요청 수
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /**
+     * LockService 로 lock 을 얻은 뒤, 먼저 처리된 같은 요청이 있는지 확인한다.
+     */
+    private Entry lockAndLookup(String accountNumber, AccountLockPolicy policy, String resultKey, String requestHash) {
+        lockService.lock(accountNumber, policy);
+        String stored = null;
+        if (resultKey != null) {
+            try {
+                stored = (String) redissonClient.getBucket(resultKey, StringCodec.INSTANCE).get();
+            } catch (RuntimeException e) {
+                log.error("Idempotent response lookup failed");
+            }
+        }
+        if (stored != null) {
+            try {
+                stored = getStoredResponse(stored, requestHash);
+            } catch (AccountException e) {
+                lockService.unlock(accountNumber);
+                throw e;
+            }
+            replayCount.incrementAndGet();
+        }
+        return new Entry(accountNumber, resultKey, requestHash, Holder.LOCK_SERVICE, stored);
+    }
+
+    private List<Object> enterKeys(String accountNumber, String resultKey, Buckets buckets) {
+        List<Object> keys = new ArrayList<>(4);
+        keys.add(RedissonAccountLockProvider.getLockKey(accountNumber));
+        keys.add(resultKey == null ? "" : resultKey);
+        if (buckets != null) {
+            keys.addAll(buckets.keys);
+        }
+        return keys;
+    }
+
+    private Object[] enterArgs(AccountLockPolicy policy, long now, String resultKey, Buckets buckets) {
+        List<Object> args = new ArrayList<>(8);
+        args.add(getOwner());
+        args.add(String.valueOf(policy.hasLease() ? policy.getLeaseMillis() : leaseMillis));
+        args.add(resultKey == null ? "0" : "1");
+        args.add(String.valueOf(now));
+        if (buckets != null) {
+            args.addAll(buckets.limits);
+        }
+        return args.toArray();
+    }
+
+    /**
+     * 다른 사용자가 같은 키를 써도 겹치지 않도록 사용자 별로 나눈다.(사용자가 없는 요청은 계좌 별)
+     */
+    private static String getResultKey(Method method, AccountLockIdInterface request, String idempotencyKey) {
+        Long userId = request instanceof UserIdInterface ? ((UserIdInterface) request).getUserId() : null;
+        return "IDEM:" + request.getAccountNumber() + ":" + (userId == null ? "" : "U" + userId + ":")
+                + method.getName() + ":" + idempotencyKey;
+    }
+
+    /**
+     * 저장된 값은 "요청 hash:응답" 이다. 요청이 다르면 같은 키를 다른 요청에 다시 쓴 것이다.
+     */
+    private static String getStoredResponse(String stored, String requestHash) {
+        if (!stored.startsWith(requestHash + ":")) {
+            throw AccountException.of(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        return stored.substring(requestHash.length() + 1);
+    }
+
+    private String hash(AccountLockIdInterface request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request hash failed", e);
+        }
+    }
+
+    /**
+     * Redisson lock 과 같은 보유자 표기
+     */
+    private String getOwner() {
+        return redissonClient.getId() + ":" + Thread.currentThread().getId();
+    }
+
+    private String serialize(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.error("Idempotent response serialization failed");
+            return null;
+        }
+    }
+
+    enum Holder {
+        SCRIPT,
+        LOCK_SERVICE,
+        NONE
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Entry {
+        private final String accountNumber;
+        private final String resultKey;
+        private final String requestHash;
+        private final Holder holder;
+        private final String storedResult;
+
+        public boolean isReplayed() {
+            return storedResult != null;
+        }
+    }
+}
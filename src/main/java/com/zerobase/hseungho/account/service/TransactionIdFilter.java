@@ -0,0 +1,508 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.util.BloomFilterSpec;
+import com.zerobase.hseungho.account.util.LuaScript;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 발급된 거래 아이디의 Bloom filter <br>
+ * - 비트 배열은 Redis bitmap 에 두고 모든 노드가 공유한다. 해시는 로컬에서 계산하고 비트 조회는 batch, 설정은 Lua script 한 번으로 보낸다. <br>
+ * - 포화되면 두 배 크기의 다음 세대를 만든다.(scalable bloom filter) 조회는 모든 세대를 본다. <br>
+ *   세대 bitmap 은 Redis bitmap 한도(MAX_BITS)를 넘지 않는 크기까지만 만들고, 그 뒤로는 마지막 세대에 계속 넣는다.(오탐만 늘어난다) <br>
+ * - 필터는 epoch 단위로 만든다. 다시 만들 때는 새 epoch 를 "만드는 중" 으로 걸어 두고 거래 테이블과 보관된 거래를 스트리밍한 뒤 <br>
+ *   현재 epoch 를 한 번에 바꾼다. 만드는 동안 추가되는 아이디는 현재 epoch 와 새 epoch 에 모두 넣는다. <br>
+ * - 조회 batch 는 마지막에 현재 epoch 를 다시 읽는다. Redis 에 epoch 가 없으면(데이터 유실) 준비되지 않은 상태로 돌아가고, <br>
+ *   epoch 나 세대가 바뀌었으면 다시 읽은 뒤 조회한다.(다른 노드가 바꾼 필터로 "없음" 판단을 하지 않는다) <br>
+ * - 준비되기 전이나 Redis 오류 시에는 "있을 수 있음" 으로 응답한다.(false negative 를 만들지 않는다) <br>
+ * - 거래 아이디는 커밋 전에 추가하고, 넣지 못하면 거래를 실패시킨다.(커밋된 거래를 어느 노드도 "없음" 으로 답하지 않도록) <br>
+ *   롤백된 거래의 아이디는 필터에 남아 오탐이 될 뿐이다. <br>
+ * - 추가할 때 필터를 다시 만드는 중이었으면 커밋 뒤에 한 번 더 넣는다.(스트리밍이 아직 커밋되지 않은 거래를 놓치지 않도록)
+ */
+@Slf4j
+@Component
+public class TransactionIdFilter {
+    private static final String KEY_PREFIX = "TXBF:";
+    private static final String EPOCH_KEY = "TXBF:EPOCH";
+    private static final String NEXT_EPOCH_KEY = "TXBF:NEXT";
+    private static final String EPOCH_SEQUENCE_KEY = "TXBF:EPOCH:SEQ";
+    private static final String REBUILD_LOCK_KEY = "TXBF:REBUILD";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_GENERATION = 16;
+    /**
+     * Redis bitmap(문자열) 최대 크기 512MB
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private final RedissonClient redissonClient;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final LuaScript addScript = new LuaScript("scripts/transaction_id_filter_add.lua");
+    private final long expectedInsertions;
+    private final double falseProbability;
+
+    private final AtomicLong definiteMissCount = new AtomicLong();
+
+    private volatile boolean ready;
+    private volatile Layout layout;
+    private volatile Layout nextLayout;
+    private volatile long insertions;
+
+    public TransactionIdFilter(RedissonClient redissonClient,
+                               TransactionRepository transactionRepository,
+                               TransactionArchive transactionArchive,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${account.transaction-id-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${account.transaction-id-filter.false-probability:0.001}") double falseProbability) {
+        this.redissonClient = redissonClient;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falseProbability = falseProbability;
+    }
+
+    /**
+     * false 면 해당 거래 아이디는 확실히 없다.
+     */
+    public boolean mightContain(String transactionId) {
+        Layout current = layout;
+        if (!ready || current == null) {
+            return true;
+        }
+        try {
+            Lookup lookup = lookup(transactionId, current);
+            if (!lookup.found && !lookup.matches(current)) {
+                current = reload(lookup);
+                if (current == null) {
+                    return true;
+                }
+                lookup = lookup(transactionId, current);
+            }
+            if (lookup.found || !lookup.matches(current)) {
+                return true;
+            }
+            definiteMissCount.incrementAndGet();
+            return false;
+        } catch (Exception e) {
+            log.error("Transaction id filter lookup failed", e);
+            return true;
+        }
+    }
+
+    /**
+     * 거래를 저장하기 전에 호출한다. 넣지 못하면 AccountException(INTERNAL_SERVER_ERROR) 으로 거래를 실패시킨다. <br>
+     * 현재 epoch 가 없거나 만드는 중인 epoch 가 있었으면 DB 트랜잭션이 커밋된 뒤에 한 번 더 넣는다.
+     */
+    public void addBeforeCommit(String transactionId) {
+        Written written;
+        try {
+            written = addAll(List.of(transactionId));
+        } catch (Exception e) {
+            log.error("Transaction id filter update failed : {}", transactionId, e);
+            throw AccountException.of(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+        if ((written.current == 0L || written.next != 0L)
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        addAll(List.of(transactionId));
+                    } catch (Exception e) {
+                        log.error("Transaction id filter update after commit failed : {}", transactionId, e);
+                    }
+                }
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        refresh();
+    }
+
+    /**
+     * Redis 의 필터가 사라졌으면 다시 만든다.
+     */
+    @Scheduled(fixedDelayString = "${account.transaction-id-filter.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            long epoch = redissonClient.getAtomicLong(EPOCH_KEY).get();
+            if (epoch == 0L) {
+                ready = false;
+                layout = null;
+                rebuild();
+            } else {
+                Layout current = loadLayout(epoch);
+                layout = current;
+                insertions = countInsertions(current);
+                ready = true;
+            }
+        } catch (Exception e) {
+            log.error("Transaction id filter refresh failed", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getDefiniteMissCount() {
+        return definiteMissCount.get();
+    }
+
+    public long getInsertions() {
+        return insertions;
+    }
+
+    public long getMemoryBits() {
+        Layout current = layout;
+        if (current == null) {
+            return 0L;
+        }
+        long bits = 0;
+        for (int g = 0; g <= current.generation; g++) {
+            bits += current.spec(g).getNumBits();
+        }
+        return bits;
+    }
+
+    /**
+     * 세대별 이론적 false positive 확률을 합친 값
+     */
+    public double getExpectedFalseProbability() {
+        Layout current = layout;
+        if (!ready || current == null) {
+            return 0.0;
+        }
+        double allNegative = 1.0;
+        long remaining = insertions;
+        for (int g = 0; g <= current.generation; g++) {
+            long inGeneration = g == current.generation ? remaining : Math.min(remaining, current.capacity(g));
+            remaining -= inGeneration;
+            allNegative *= 1 - current.spec(g).expectedFalseProbability(inGeneration);
+        }
+        return 1 - allNegative;
+    }
+
+    private void rebuild() {
+        RLock lock = redissonClient.getLock(REBUILD_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            long rows = transactionRepository.count();
+            long epoch = redissonClient.getAtomicLong(EPOCH_SEQUENCE_KEY).incrementAndGet();
+            long baseCapacity = Math.min(Math.max(expectedInsertions, rows * 2), maxBaseCapacity());
+            redissonClient.getAtomicLong(baseCapacityKey(epoch)).set(baseCapacity);
+            redissonClient.getAtomicLong(generationKey(epoch)).set(0);
+            Layout building = new Layout(epoch, baseCapacity, 0);
+            nextLayout = building;
+            // 이 뒤로 추가되는 아이디는 새 epoch 에도 들어간다. 그 전에 추가되고 아직 커밋되지 않은 아이디는
+            // 현재 epoch 가 없던 때에 추가되었으므로 커밋 뒤에 다시 넣는다.(addBeforeCommit)
+            redissonClient.getAtomicLong(NEXT_EPOCH_KEY).set(epoch);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> transactionIds = transactionRepository.streamAllTransactionIds()) {
+                    List<String> chunk = new ArrayList<>(REBUILD_BATCH_SIZE);
+                    transactionIds.forEach(transactionId -> {
+                        chunk.add(transactionId);
+                        if (chunk.size() == REBUILD_BATCH_SIZE) {
+                            addToBuilding(building, chunk);
+                            chunk.clear();
+                        }
+                    });
+                    addToBuilding(building, chunk);
+                }
+            });
+            // 보관은 파일에 붙인 뒤 테이블에서 지우므로, 테이블 다음에 읽어야 옮기는 중인 아이디를 놓치지 않는다.
+            addArchivedIds(building);
+
+            long previousEpoch = redissonClient.getAtomicLong(EPOCH_KEY).getAndSet(epoch);
+            redissonClient.getAtomicLong(NEXT_EPOCH_KEY).delete();
+            if (previousEpoch != 0L) {
+                delete(loadLayout(previousEpoch));
+            }
+            Layout current = loadLayout(epoch);
+            layout = current;
+            nextLayout = null;
+            insertions = countInsertions(current);
+            ready = true;
+            log.info("Transaction id filter rebuilt : epoch {}, {} ids, {} bits", epoch, rows, getMemoryBits());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addArchivedIds(Layout building) {
+        List<String> chunk = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try {
+            transactionArchive.forEachTransactionId(transactionId -> {
+                chunk.add(transactionId);
+                if (chunk.size() == REBUILD_BATCH_SIZE) {
+                    addToBuilding(building, chunk);
+                    chunk.clear();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        addToBuilding(building, chunk);
+    }
+
+    /**
+     * 만드는 중인 epoch 가 사라졌으면(Redis 데이터 유실) 다시 만들기를 그만둔다.
+     */
+    private void addToBuilding(Layout building, List<String> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        Layout target = nextLayout;
+        if (target == null || target.epoch != building.epoch) {
+            target = building;
+        }
+        if (write(target, transactionIds).count < 0) {
+            throw new IllegalStateException("Transaction id filter epoch was dropped : " + building.epoch);
+        }
+    }
+
+    /**
+     * 알고 있는 현재 epoch 에 넣고, script 가 돌려준 현재/만드는 중 epoch 가 다르면 그 epoch 에도 넣는다.
+     *
+     * @return script 가 돌려준 현재/만드는 중 epoch
+     */
+    private Written addAll(List<String> transactionIds) {
+        Layout current = layout;
+        Written written = write(current, transactionIds);
+        if (written.current != 0L && (current == null || written.current != current.epoch)) {
+            current = loadLayout(written.current);
+            layout = current;
+            written = write(current, transactionIds);
+        }
+        if (written.next != 0L && written.next != written.current) {
+            Layout building = nextLayout;
+            if (building == null || building.epoch != written.next) {
+                building = loadLayout(written.next);
+                nextLayout = building;
+            }
+            write(building, transactionIds);
+        }
+        return written;
+    }
+
+    /**
+     * @param target null 이면 쓰지 않고 현재/만드는 중 epoch 만 읽는다.
+     */
+    private Written write(Layout target, List<String> transactionIds) {
+        long epoch = target != null ? target.epoch : -1L;
+        int g = target != null ? target.generation : 0;
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(epoch));
+        args.add(String.valueOf(transactionIds.size()));
+        if (target != null) {
+            BloomFilterSpec spec = target.spec(g);
+            for (String transactionId : transactionIds) {
+                for (long index : spec.bitIndexes(transactionId)) {
+                    args.add(String.valueOf(index));
+                }
+            }
+        }
+        List<Long> result = addScript.eval(redissonClient,
+                List.of(EPOCH_KEY, NEXT_EPOCH_KEY, bitSetKey(epoch, g), countKey(epoch, g)), args.toArray());
+        Written written = new Written(result.get(0), result.get(1), result.get(2));
+        if (target != null && written.count > target.capacity(g) && target.canGrow()) {
+            redissonClient.getAtomicLong(generationKey(epoch)).compareAndSet(g, g + 1);
+            Layout grown = target.withGeneration(readGeneration(epoch));
+            if (layout != null && layout.epoch == epoch) {
+                layout = grown;
+            } else if (nextLayout != null && nextLayout.epoch == epoch) {
+                nextLayout = grown;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 모든 세대의 비트를 읽은 뒤 세대 번호와 현재 epoch 를 읽는다. <br>
+     * epoch 가 그대로면 비트는 교체 전, 즉 지워지기 전에 읽은 것이다.
+     */
+    private Lookup lookup(String transactionId, Layout current) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        int[] hashesPerGeneration = new int[current.generation + 1];
+        for (int g = 0; g <= current.generation; g++) {
+            long[] indexes = current.spec(g).bitIndexes(transactionId);
+            hashesPerGeneration[g] = indexes.length;
+            for (long index : indexes) {
+                batch.getBitSet(bitSetKey(current.epoch, g)).getAsync(index);
+            }
+        }
+        batch.getAtomicLong(generationKey(current.epoch)).getAsync();
+        batch.getAtomicLong(EPOCH_KEY).getAsync();
+        List<?> responses = batch.execute().getResponses();
+
+        long epoch = (Long) responses.get(responses.size() - 1);
+        int generation = ((Long) responses.get(responses.size() - 2)).intValue();
+        int offset = 0;
+        for (int g = 0; g <= current.generation; g++) {
+            boolean allSet = true;
+            for (int i = 0; i < hashesPerGeneration[g]; i++) {
+                allSet &= Boolean.TRUE.equals(responses.get(offset + i));
+            }
+            if (allSet) {
+                return new Lookup(true, epoch, generation);
+            }
+            offset += hashesPerGeneration[g];
+        }
+        return new Lookup(false, epoch, generation);
+    }
+
+    /**
+     * @return Redis 에 필터가 없으면 null(준비되지 않은 상태로 돌아간다)
+     */
+    private Layout reload(Lookup lookup) {
+        if (lookup.epoch == 0L) {
+            log.error("Transaction id filter is missing in redis");
+            ready = false;
+            layout = null;
+            return null;
+        }
+        Layout current = loadLayout(lookup.epoch);
+        layout = current;
+        return current;
+    }
+
+    private Layout loadLayout(long epoch) {
+        return new Layout(epoch, redissonClient.getAtomicLong(baseCapacityKey(epoch)).get(), readGeneration(epoch));
+    }
+
+    private void delete(Layout previous) {
+        for (int g = 0; g <= previous.generation; g++) {
+            redissonClient.getBitSet(bitSetKey(previous.epoch, g)).delete();
+            redissonClient.getAtomicLong(countKey(previous.epoch, g)).delete();
+        }
+        redissonClient.getAtomicLong(baseCapacityKey(previous.epoch)).delete();
+        redissonClient.getAtomicLong(generationKey(previous.epoch)).delete();
+    }
+
+    private long countInsertions(Layout current) {
+        long count = 0;
+        for (int g = 0; g <= current.generation; g++) {
+            count += redissonClient.getAtomicLong(countKey(current.epoch, g)).get();
+        }
+        return count;
+    }
+
+    private int readGeneration(long epoch) {
+        return (int) redissonClient.getAtomicLong(generationKey(epoch)).get();
+    }
+
+    /**
+     * 첫 세대 bitmap 이 MAX_BITS 를 넘지 않는 최대 용량
+     */
+    private long maxBaseCapacity() {
+        return (long) (MAX_BITS * Math.log(2) * Math.log(2) / -Math.log(falseProbability));
+    }
+
+    private static String bitSetKey(long epoch, int g) {
+        return KEY_PREFIX + epoch + ":" + g;
+    }
+
+    private static String countKey(long epoch, int g) {
+        return KEY_PREFIX + epoch + ":" + g + ":COUNT";
+    }
+
+    private static String baseCapacityKey(long epoch) {
+        return KEY_PREFIX + epoch + ":BASE";
+    }
+
+    private static String generationKey(long epoch) {
+        return KEY_PREFIX + epoch + ":GENERATION";
+    }
+
+    /**
+     * 한 epoch 의 첫 세대 용량과 현재 세대
+     */
+    private final class Layout {
+        private final long epoch;
+        private final long baseCapacity;
+        private final int generation;
+
+        private Layout(long epoch, long baseCapacity, int generation) {
+            this.epoch = epoch;
+            this.baseCapacity = baseCapacity;
+            this.generation = generation;
+        }
+
+        private Layout withGeneration(int generation) {
+            return new Layout(epoch, baseCapacity, generation);
+        }
+
+        private boolean canGrow() {
+            return generation < MAX_GENERATION && spec(generation + 1).getNumBits() <= MAX_BITS;
+        }
+
+        /**
+         * 세대마다 용량은 두 배, 목표 오탐률은 절반으로 해서 전체 오탐률이 목표의 두 배를 넘지 않게 한다.
+         */
+        private BloomFilterSpec spec(int g) {
+            return BloomFilterSpec.of(capacity(g), falseProbability / (1L << (g + 1)) * 2);
+        }
+
+        private long capacity(int g) {
+            return baseCapacity << g;
+        }
+    }
+
+    private static final class Lookup {
+        private final boolean found;
+        private final long epoch;
+        private final int generation;
+
+        private Lookup(boolean found, long epoch, int generation) {
+            this.found = found;
+            this.epoch = epoch;
+            this.generation = generation;
+        }
+
+        private boolean matches(Layout layout) {
+            return epoch == layout.epoch && generation == layout.generation;
+        }
+    }
+
+    private static final class Written {
+        private final long current;
+        private final long next;
+        private final long count;
+
+        private Written(long current, long next, long count) {
+            this.current = current;
+            this.next = next;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.TransactionIdInterface;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 거래 아이디가 확실히 없는 요청은 lock 취득과 실패 거래 저장 전에 응답한다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TransactionIdFilterAspect {
+
+    private final TransactionIdFilter transactionIdFilter;
+
+    @Around("@annotation(com.zerobase.hseungho.account.aop.AccountLock) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               TransactionIdInterface request) throws Throwable {
+        if (!transactionIdFilter.mightContain(request.getTransactionId())) {
+            throw AccountException.of(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        return pjp.proceed();
+    }
+
+}
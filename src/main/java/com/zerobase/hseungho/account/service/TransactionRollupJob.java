@@ -0,0 +1,301 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.MonthlyTransactionRollup;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.domain.MonthlyRollupCompletion;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.MonthlyRollupCompletionRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 마감된 달의 거래를 계좌별 MonthlyTransactionRollup 으로 접는다. <br>
+ * - 계좌 id 를 chunk-size 개씩 나눠 threads 개 thread 에서 나눠 처리한다. <br>
+ * - chunk 마다 stateless session 하나로 거래를 계좌, 시각 순서로 스크롤하면서 roll-up 을 만들어 바로 넣는다.(영속성 컨텍스트 없음) <br>
+ * - chunk 는 그 달의 roll-up 을 지우고 다시 만들므로 다시 실행해도 된다. 실패한 chunk 는 다른 chunk 를 막지 않는다. <br>
+ * - 모든 chunk 가 끝나야 MonthlyRollupCompletion 을 남긴다. 다시 만들기 시작하면 지우므로 표시가 있는 달만 끝난 달이다. <br>
+ * - 달이 끝나고 close-delay-minutes 가 지나야 마감으로 본다.(잔액 엔진의 늦은 반영) <br>
+ * - 거래 행은 지우지 않는다. 1년이 지나면 TransactionArchiver 가 옮긴다.
+ */
+@Slf4j
+@Component
+public class TransactionRollupJob {
+    private static final String LOCK_KEY = "TRANSACTION:ROLLUP";
+    private static final int FETCH_SIZE = 1000;
+    private static final String DELETE_ROLLUPS = "delete from MonthlyTransactionRollup r " +
+            "where r.rollupMonth = :month and r.accountId between :fromId and :toId";
+    private static final String SELECT_TRANSACTIONS = "select t.account.id, t.transactionType, " +
+            "t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId from Transaction t " +
+            "where t.account.id between :fromId and :toId and t.transactedAt >= :start and t.transactedAt < :end " +
+            "order by t.account.id, t.transactedAt, t.id";
+
+    private final SessionFactory sessionFactory;
+    private final MonthlyRollupCompletionRepository completionRepository;
+    private final AccountRepository accountRepository;
+    private final RedissonClient redissonClient;
+    private final boolean enabled;
+    private final int threads;
+    private final int chunkSize;
+    private final long closeDelayMinutes;
+    private final AtomicLong rolledUpCount = new AtomicLong();
+    private final AtomicLong failedChunkCount = new AtomicLong();
+
+    public TransactionRollupJob(EntityManagerFactory entityManagerFactory,
+                                MonthlyRollupCompletionRepository completionRepository,
+                                AccountRepository accountRepository,
+                                RedissonClient redissonClient,
+                                @Value("${account.rollup.enabled:true}") boolean enabled,
+                                @Value("${account.rollup.threads:4}") int threads,
+                                @Value("${account.rollup.chunk-size:1000}") int chunkSize,
+                                @Value("${account.rollup.close-delay-minutes:60}") long closeDelayMinutes) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.completionRepository = completionRepository;
+        this.accountRepository = accountRepository;
+        this.redissonClient = redissonClient;
+        this.enabled = enabled;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.closeDelayMinutes = closeDelayMinutes;
+    }
+
+    /**
+     * 지난달 roll-up 이 끝나지 않았으면(실패한 chunk 가 있었으면) 다시 만든다.
+     */
+    @Scheduled(cron = "${account.rollup.cron:0 10 * * * *}")
+    public void rollUpLastMonth() {
+        YearMonth lastMonth = YearMonth.now().minusMonths(1);
+        if (!enabled || !isClosed(lastMonth) || completionRepository.existsById(lastMonth.atDay(1))) {
+            return;
+        }
+        rollUp(lastMonth);
+    }
+
+    /**
+     * 정책 <br>
+     * - 마감되지 않은 달은 실패 응답 <br>
+     * - 거래가 보관되기 시작한 달은 실패 응답(지운 roll-up 을 거래 테이블에서 다시 만들 수 없음)
+     *
+     * @return 만든 roll-up 수, 다른 노드가 실행 중이면 -1
+     */
+    public int rollUp(YearMonth month) {
+        if (!isClosed(month)) {
+            throw AccountException.of(ErrorCode.BAD_REQUEST);
+        }
+        if (month.atDay(1).atStartOfDay().isBefore(TransactionArchiver.cutoff())) {
+            throw AccountException.of(ErrorCode.ARCHIVED_PERIOD);
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            return -1;
+        }
+        try {
+            long started = System.nanoTime();
+            completionRepository.findById(month.atDay(1)).ifPresent(completionRepository::delete);
+            int rolledUp = rollUpChunks(month.atDay(1));
+            log.info("Transaction roll-up {} : {} accounts, {} ms",
+                    month, rolledUp, (System.nanoTime() - started) / 1_000_000);
+            return rolledUp;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRolledUpCount() {
+        return rolledUpCount.get();
+    }
+
+    public long getFailedChunkCount() {
+        return failedChunkCount.get();
+    }
+
+    private boolean isClosed(YearMonth month) {
+        return LocalDateTime.now().isAfter(
+                month.plusMonths(1).atDay(1).atStartOfDay().plusMinutes(closeDelayMinutes));
+    }
+
+    private int rollUpChunks(LocalDate month) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rollup-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            long after = 0L;
+            List<Long> accountIds;
+            while (!(accountIds = accountRepository.findIdsAfter(after, PageRequest.of(0, chunkSize))).isEmpty()) {
+                long fromId = accountIds.get(0);
+                long toId = accountIds.get(accountIds.size() - 1);
+                chunks.add(executor.submit(() -> rollUpChunk(month, fromId, toId)));
+                after = toId;
+            }
+            int rolledUp = 0;
+            int failed = 0;
+            for (Future<Integer> chunk : chunks) {
+                int chunkRolledUp = awaitChunk(chunk);
+                if (chunkRolledUp < 0) {
+                    failed++;
+                } else {
+                    rolledUp += chunkRolledUp;
+                }
+            }
+            if (failed == 0) {
+                completionRepository.save(new MonthlyRollupCompletion(month, chunks.size(), LocalDateTime.now()));
+            } else {
+                log.error("Transaction roll-up {} incomplete : {} of {} chunks failed", month, failed, chunks.size());
+            }
+            return rolledUp;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return chunk 의 roll-up 수, 실패하면 -1
+     */
+    private int awaitChunk(Future<Integer> chunk) {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            failedChunkCount.incrementAndGet();
+            log.error("Transaction roll-up chunk failed", e);
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rolling up transactions", e);
+        }
+    }
+
+    int rollUpChunk(LocalDate month, long fromId, long toId) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                session.createQuery(DELETE_ROLLUPS)
+                        .setParameter("month", month)
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId)
+                        .executeUpdate();
+                AtomicInteger inserted = new AtomicInteger();
+                Accumulator accumulator = new Accumulator(month, LocalDateTime.now(), rollup -> {
+                    session.insert(rollup);
+                    inserted.incrementAndGet();
+                });
+                try (ScrollableResults rows = session.createQuery(SELECT_TRANSACTIONS)
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId)
+                        .setParameter("start", month.atStartOfDay())
+                        .setParameter("end", month.plusMonths(1).atStartOfDay())
+                        .setFetchSize(FETCH_SIZE)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rows.next()) {
+                        Object[] row = rows.get();
+                        accumulator.add((Long) row[0], (TransactionType) row[1], (TransactionResultType) row[2],
+                                (Long) row[3], (Long) row[4], (String) row[5]);
+                    }
+                }
+                accumulator.finish();
+                transaction.commit();
+                rolledUpCount.addAndGet(inserted.get());
+                return inserted.get();
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 계좌, 시각 순서로 들어오는 거래를 계좌가 바뀔 때마다 roll-up 하나로 내보낸다.
+     */
+    static class Accumulator {
+        private final LocalDate month;
+        private final LocalDateTime now;
+        private final Consumer<MonthlyTransactionRollup> sink;
+        private MonthlyTransactionRollup current;
+
+        Accumulator(LocalDate month, LocalDateTime now, Consumer<MonthlyTransactionRollup> sink) {
+            this.month = month;
+            this.now = now;
+            this.sink = sink;
+        }
+
+        void add(Long accountId,
+                 TransactionType transactionType,
+                 TransactionResultType transactionResultType,
+                 Long amount,
+                 Long balanceSnapshot,
+                 String transactionId) {
+            if (current != null && !current.getAccountId().equals(accountId)) {
+                finish();
+            }
+            if (current == null) {
+                current = MonthlyTransactionRollup.builder()
+                        .accountId(accountId)
+                        .rollupMonth(month)
+                        .openingBalance(balanceBefore(transactionType, transactionResultType,
+                                amount, balanceSnapshot))
+                        .useSuccessCount(0L)
+                        .useFailureCount(0L)
+                        .useAmount(0L)
+                        .cancelSuccessCount(0L)
+                        .cancelFailureCount(0L)
+                        .cancelAmount(0L)
+                        // stateless session 은 auditing 을 거치지 않는다.
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build();
+            }
+            current.add(transactionType, transactionResultType, amount);
+            current.setClosingBalance(balanceSnapshot);
+            current.setLastTransactionId(transactionId);
+        }
+
+        void finish() {
+            if (current != null) {
+                sink.accept(current);
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 거래 직전 잔액, 실패한 거래의 balanceSnapshot 은 그때의 잔액이다.
+     */
+    static long balanceBefore(TransactionType transactionType,
+                              TransactionResultType transactionResultType,
+                              long amount,
+                              long balanceSnapshot) {
+        if (transactionResultType != TransactionResultType.S) {
+            return balanceSnapshot;
+        }
+        return transactionType == TransactionType.USE ? balanceSnapshot + amount : balanceSnapshot - amount;
+    }
+}
@@ -2,23 +2,34 @@ package com.zerobase.hseungho.account.service;
 
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.domain.OutboxEvent;
 import com.zerobase.hseungho.account.domain.Transaction;
 import com.zerobase.hseungho.account.dto.TransactionDto;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
 import com.zerobase.hseungho.account.exception.AccountException;
 import com.zerobase.hseungho.account.repository.AccountRepository;
-import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
 import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
 import com.zerobase.hseungho.account.type.AccountStatus;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import com.zerobase.hseungho.account.type.TransactionResultType;
 import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.TransactionIds;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,8 +37,16 @@ import java.util.UUID;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
-    private final AccountUserRepository accountUserRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionCache transactionCache;
+    private final TransactionAggregator transactionAggregator;
+    private final TransactionIdFilter transactionIdFilter;
+    private final AccountUserReader accountUserReader;
     private final AccountRepository accountRepository;
+    private final AccountNearCache accountNearCache;
+    private final LockService lockService;
+    private final BalanceEngine balanceEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 정책 <br>
@@ -36,19 +55,28 @@ public class TransactionService {
      * - 계좌가 이미 해지 상태인 경우, <br>
      * - 거래 금액이 잔액보다 큰 경우, <br>
      * - 거래금액이 너무 작거나 큰 경우, 실패 응답 <br>
+     * 잔액 엔진 계좌는 잔액을 엔진에서 바꾸고 DB 에는 비동기로 반영한다.
      */
     public TransactionDto useBalance(Long userId,
                                      String accountNumber,
                                      Long amount) {
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        AccountUser user = accountUserReader.getAccountUser(userId);
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        CachedAccount cachedAccount = getCachedAccount(accountNumber);
 
-        validateUseBalance(user, account, amount);
+        validateUseBalance(user, cachedAccount);
+
+        if (balanceEngine.isManaged(accountNumber)) {
+            return balanceEngine.apply(accountNumber, cachedAccount, TransactionType.USE,
+                    amount, newTransactionId(), LocalDateTime.now()).toDto();
+        }
+
+        Account account = getFencedAccount(cachedAccount);
+
+        validateUseBalance(account, amount);
 
         account.useBalance(amount);
+        eventPublisher.publishEvent(new AccountChangedEvent(user.getId(), accountNumber, 0, -amount));
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(
@@ -72,15 +100,22 @@ public class TransactionService {
     public TransactionDto cancelBalance(String transactionId,
                                         String accountNumber,
                                         Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        CachedTransaction transaction = findTransaction(transactionId)
+                .orElseThrow(() -> AccountException.of(ErrorCode.TRANSACTION_NOT_FOUND));
+
+        CachedAccount cachedAccount = getCachedAccount(accountNumber);
+
+        validateCancelBalance(transaction, cachedAccount, amount);
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (balanceEngine.isManaged(accountNumber)) {
+            return balanceEngine.apply(accountNumber, cachedAccount, TransactionType.CANCEL,
+                    amount, newTransactionId(), LocalDateTime.now()).toDto();
+        }
 
-        validateCancelBalance(transaction, account, amount);
+        Account account = getFencedAccount(cachedAccount);
 
         account.cancelBalance(amount);
+        eventPublisher.publishEvent(new AccountChangedEvent(cachedAccount.getUserId(), accountNumber, 0, amount));
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(
@@ -93,33 +128,89 @@ public class TransactionService {
     }
 
     public TransactionDto queryTransactionById(String transactionId) {
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                        .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND))
-        );
+        return findTransaction(transactionId)
+                .orElseThrow(() -> AccountException.of(ErrorCode.TRANSACTION_NOT_FOUND))
+                .toDto();
     }
 
+    /**
+     * 찾지 못한 아이디는 결과에 담지 않는다.
+     */
+    public Map<String, TransactionDto> queryTransactionsByIds(List<String> transactionIds) {
+        Map<String, CachedTransaction> found = new HashMap<>(transactionCache.findAllByTransactionIds(transactionIds));
+        if (balanceEngine.isEnabled()) {
+            List<String> missing = transactionIds.stream()
+                    .filter(transactionId -> !found.containsKey(transactionId))
+                    .collect(Collectors.toList());
+            found.putAll(balanceEngine.findPending(missing));
+            missing.removeAll(found.keySet());
+            found.putAll(transactionCache.findAllByTransactionIds(missing));
+        }
+        Map<String, TransactionDto> transactions = new HashMap<>();
+        found.forEach((transactionId, transaction) -> transactions.put(transactionId, transaction.toDto()));
+        return transactions;
+    }
+
+    /**
+     * 잔액 엔진 거래는 DB 에 반영되기 전이면 엔진에서 찾는다. <br>
+     * DB 를 본 뒤 엔진이 반영을 마쳤을 수 있으므로, 엔진에도 없으면 DB 를 한 번 더 본다.
+     */
+    private Optional<CachedTransaction> findTransaction(String transactionId) {
+        Optional<CachedTransaction> found = transactionCache.findByTransactionId(transactionId);
+        if (found.isPresent() || !balanceEngine.isEnabled()) {
+            return found;
+        }
+        return Optional.ofNullable(balanceEngine.findPending(List.of(transactionId)).get(transactionId))
+                .or(() -> transactionCache.findByTransactionId(transactionId));
+    }
+
+    /**
+     * 거래와 같은 DB 트랜잭션에서 outbox 이벤트를 저장한다.(OutboxRelay) <br>
+     * 하루 거래 집계는 커밋 후에 모은다.(TransactionAggregator)
+     */
     private Transaction saveAndGetTransaction(TransactionType transactionType,
                                               TransactionResultType transactionResultType,
                                               Account account,
                                               Long amount) {
-        return transactionRepository.save(
+        String transactionId = newTransactionId();
+
+        Transaction transaction = transactionRepository.save(
                 Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)
                         .account(account)
                         .amount(amount)
                         .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                        .transactionId(transactionId)
                         .transactedAt(LocalDateTime.now())
                         .build()
         );
+        outboxEventRepository.save(OutboxEvent.from(transaction));
+        transactionCache.putAfterCommit(transaction);
+        transactionAggregator.recordAfterCommit(account.getId(), transaction.getTransactedAt(),
+                transactionType, transactionResultType, amount);
+
+        return transaction;
+    }
+
+    /**
+     * 필터에는 거래를 저장하기 전에 넣는다.(넣지 못하면 거래 실패, 롤백된 거래 아이디는 오탐으로만 남는다) <br>
+     * 아이디 앞에 발급 시각을 담아 보관된 거래를 찾을 때 쓴다.(TransactionIds)
+     */
+    private String newTransactionId() {
+        String transactionId = TransactionIds.newId();
+        transactionIdFilter.addBeforeCommit(transactionId);
+        return transactionId;
     }
 
     public void saveFailedUseTransaction(String accountNumber,
                                          Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (balanceEngine.isManaged(accountNumber)) {
+            balanceEngine.recordFailure(accountNumber, getCachedAccount(accountNumber), TransactionType.USE,
+                    amount, newTransactionId(), LocalDateTime.now());
+            return;
+        }
+        Account account = getAccount(getCachedAccount(accountNumber));
 
         saveAndGetTransaction(
                 TransactionType.USE,
@@ -131,8 +222,12 @@ public class TransactionService {
 
     public void saveFailedCancelTransaction(String accountNumber,
                                             Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (balanceEngine.isManaged(accountNumber)) {
+            balanceEngine.recordFailure(accountNumber, getCachedAccount(accountNumber), TransactionType.CANCEL,
+                    amount, newTransactionId(), LocalDateTime.now());
+            return;
+        }
+        Account account = getAccount(getCachedAccount(accountNumber));
 
         saveAndGetTransaction(
                 TransactionType.CANCEL,
@@ -142,31 +237,63 @@ public class TransactionService {
         );
     }
 
+    private CachedAccount getCachedAccount(String accountNumber) {
+        return accountNearCache.get(accountNumber)
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    private Account getAccount(CachedAccount cachedAccount) {
+        return accountRepository.findById(cachedAccount.getId())
+                .orElseThrow(() -> AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * lock 보유 중이면 잔액을 읽기 전에 fencing token 을 올린다. <br>
+     * 더 큰 token 이 이미 기록되어 있으면 lock 을 잃은 것이므로 갱신하지 않는다.
+     */
+    private Account getFencedAccount(CachedAccount cachedAccount) {
+        OptionalLong fencingToken = lockService.getFencingToken();
+        if (fencingToken.isPresent()
+                && accountRepository.advanceFencingToken(cachedAccount.getId(), fencingToken.getAsLong()) == 0) {
+            throw AccountException.of(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return getAccount(cachedAccount);
+    }
+
+    /**
+     * 캐시된 소유주와 해지 상태만으로 판단할 수 있는 실패는 계좌를 읽기 전에 응답한다.
+     */
     private void validateUseBalance(AccountUser user,
-                                    Account account,
-                                    Long amount) {
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+                                    CachedAccount cachedAccount) {
+        if (!Objects.equals(user.getId(), cachedAccount.getUserId())) {
+            throw AccountException.of(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (cachedAccount.getAccountStatus() == AccountStatus.UNREGISTERED) {
+            throw AccountException.of(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
+    }
+
+    private void validateUseBalance(Account account,
+                                    Long amount) {
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
-            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+            throw AccountException.of(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
         if (account.getBalance() < amount) {
-            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            throw AccountException.of(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
     }
 
-    private void validateCancelBalance(Transaction transaction,
-                                       Account account,
+    private void validateCancelBalance(CachedTransaction transaction,
+                                       CachedAccount cachedAccount,
                                        Long amount) {
-        if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
-            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        if (!Objects.equals(transaction.getAccountId(), cachedAccount.getId())) {
+            throw AccountException.of(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
         }
         if (!Objects.equals(transaction.getAmount(), amount)) {
-            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+            throw AccountException.of(ErrorCode.CANCEL_MUST_FULLY);
         }
         if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1L))) {
-            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+            throw AccountException.of(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
         }
     }
 
@@ -13,6 +13,7 @@ public enum ErrorCode {
     ACCOUNT_NOT_FOUND(HttpStatus.NOT_FOUND, "계좌가 없습니다."),
     ACCOUNT_TRANSACTION_LOCK(HttpStatus.LOCKED, "해당 계좌는 사용 중입니다."),
     TRANSACTION_NOT_FOUND(HttpStatus.NOT_FOUND, "해당 거래가 없습니다."),
+    STATEMENT_NOT_FOUND(HttpStatus.NOT_FOUND, "해당 달의 거래 내역서가 없습니다."),
     USER_ACCOUNT_UN_MATCH(HttpStatus.FORBIDDEN, "사용자와 계좌의 소유주가 다릅니다."),
     TRANSACTION_ACCOUNT_UN_MATCH(HttpStatus.BAD_REQUEST, "이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
     ACCOUNT_ALREADY_UNREGISTERED(HttpStatus.BAD_REQUEST, "계좌가 이미 해지되었습니다."),
@@ -20,7 +21,12 @@ public enum ErrorCode {
     AMOUNT_EXCEED_BALANCE(HttpStatus.BAD_REQUEST, "거래 금액이 계좌 잔액보다 큽니다."),
     MAX_ACCOUNT_PER_USER_10(HttpStatus.BAD_REQUEST, "사용자 최대 계좌는 10개입니다."),
     CANCEL_MUST_FULLY(HttpStatus.BAD_REQUEST, "부분 취소는 허용되지 않습니다."),
-    TOO_OLD_ORDER_TO_CANCEL(HttpStatus.BAD_REQUEST, "1년이 지난 거래는 취소가 불가능합니다.")
+    TOO_OLD_ORDER_TO_CANCEL(HttpStatus.BAD_REQUEST, "1년이 지난 거래는 취소가 불가능합니다."),
+    TRANSACTION_OVERLOADED(HttpStatus.TOO_MANY_REQUESTS, "요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요."),
+    RATE_LIMIT_EXCEEDED(HttpStatus.TOO_MANY_REQUESTS, "요청 한도를 초과했습니다. 잠시 후 다시 시도해 주세요."),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.CONFLICT, "같은 멱등 키로 다른 요청이 이미 처리되었습니다."),
+    ARCHIVED_PERIOD(HttpStatus.BAD_REQUEST, "보관된 거래가 있는 기간은 다시 계산할 수 없습니다."),
+    TRANSACTION_OUTCOME_UNKNOWN(HttpStatus.SERVICE_UNAVAILABLE, "거래 처리 결과를 확인할 수 없습니다. 거래 조회로 확인해 주세요.")
     ;
 
 
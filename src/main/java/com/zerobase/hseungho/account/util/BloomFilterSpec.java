@@ -0,0 +1,132 @@
+package com.zerobase.hseungho.account.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter 크기 계산과 비트 위치 계산 <br>
+ * - 비트 배열 자체는 들고 있지 않으므로 로컬 BitSet, Redis bitmap 어디에든 쓸 수 있다. <br>
+ * - 비트 위치는 MurmurHash3(x64, 128bit) 두 값을 조합해서(h1 + i * h2) k 개 만든다.
+ */
+public class BloomFilterSpec {
+    private static final double LN2 = Math.log(2);
+
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilterSpec(long numBits, int numHashes) {
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+    }
+
+    public static BloomFilterSpec of(long expectedInsertions, double falseProbability) {
+        long numBits = (long) Math.ceil(-expectedInsertions * Math.log(falseProbability) / (LN2 * LN2));
+        int numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * LN2));
+        return new BloomFilterSpec(numBits, numHashes);
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    public long[] bitIndexes(String value) {
+        long[] hash = murmur3x64(value.getBytes(StandardCharsets.UTF_8));
+        long[] indexes = new long[numHashes];
+        long combined = hash[0];
+        for (int i = 0; i < numHashes; i++) {
+            indexes[i] = (combined & Long.MAX_VALUE) % numBits;
+            combined += hash[1];
+        }
+        return indexes;
+    }
+
+    /**
+     * n 개를 넣었을 때의 이론적 false positive 확률 (1 - e^(-kn/m))^k
+     */
+    public double expectedFalseProbability(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) numHashes * insertions / numBits), numHashes);
+    }
+
+    private static long[] murmur3x64(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        int length = data.length;
+        int blocks = length / 16;
+        long h1 = 0;
+        long h2 = 0;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = littleEndianLong(data, i * 16);
+            long k2 = littleEndianLong(data, i * 16 + 8);
+
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks * 16;
+        long k1 = 0;
+        long k2 = 0;
+        int remaining = length & 15;
+        for (int i = remaining - 1; i >= 8; i--) {
+            k2 ^= (long) (data[tail + i] & 0xff) << ((i - 8) * 8);
+        }
+        if (remaining > 8) {
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+        }
+        for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+            k1 ^= (long) (data[tail + i] & 0xff) << (i * 8);
+        }
+        if (remaining > 0) {
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long littleEndianLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
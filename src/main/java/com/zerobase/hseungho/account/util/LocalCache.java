@@ -0,0 +1,219 @@
+package com.zerobase.hseungho.account.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 크기(또는 무게)와 TTL 로 제한되는 로컬 캐시 <br>
+ * - 키의 hash 로 나눈 segment 마다 따로 lock 을 잡으므로 다른 segment 의 조회끼리는 기다리지 않는다. <br>
+ * - segment 마다 최대 크기를 넘으면 가장 오래 사용되지 않은 엔트리를 제거한다.(segment 단위 LRU) <br>
+ * - weigher 를 주면 엔트리 수 대신 weigher 가 계산한 무게의 합으로 제한한다.(예: 추정 바이트 수) <br>
+ * - 엔트리는 저장 후 ttl 이 지나면 조회 시점에 만료된다.(ttl 이 0 이면 만료 없음) <br>
+ * - 적중/실패/제거/만료 횟수를 집계한다.
+ */
+public class LocalCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final ToLongBiFunction<K, V> weigher;
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public LocalCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    LocalCache(int maximumSize, Duration ttl, LongSupplier ticker) {
+        this(maximumSize, ttl, (key, value) -> 1L, ticker);
+    }
+
+    /**
+     * @param maximumWeight weigher 로 계산한 무게 합의 최대값
+     * @param weigher 엔트리 하나의 무게(1 이상)
+     */
+    public LocalCache(long maximumWeight, Duration ttl, ToLongBiFunction<K, V> weigher) {
+        this(maximumWeight, ttl, weigher, System::nanoTime);
+    }
+
+    LocalCache(long maximumWeight, Duration ttl, ToLongBiFunction<K, V> weigher, LongSupplier ticker) {
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.weigher = weigher;
+        int segmentCount = (int) Math.max(1L, Math.min(MAX_SEGMENTS,
+                Long.highestOneBit(Math.max(1L, maximumWeight / MIN_SEGMENT_SIZE))));
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentWeight = maximumWeight / segmentCount + (i < maximumWeight % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(segmentWeight);
+        }
+        this.segments = segments;
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            LocalCache.Entry<V> entry = segment.get(key);
+            if (entry == null) {
+                missCount.increment();
+                return null;
+            }
+            if (ttlNanos > 0 && entry.expireAt - ticker.getAsLong() <= 0) {
+                segment.remove(key);
+                expirationCount.increment();
+                missCount.increment();
+                return null;
+            }
+            hitCount.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        LocalCache.Entry<V> entry = new LocalCache.Entry<>(value, weigher.applyAsLong(key, value),
+                ttlNanos > 0 ? ticker.getAsLong() + ttlNanos : 0L);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, entry);
+            evictionCount.add(segment.evict());
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * weigher 가 없으면 size 와 같다.
+     */
+    public long weight() {
+        long weight = 0L;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long requestCount = hits + missCount.sum();
+        return requestCount == 0 ? 0.0 : (double) hits / requestCount;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * 접근 순서 LinkedHashMap 과 무게 합, 호출하는 쪽에서 segment 로 동기화한다.
+     */
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, LocalCache.Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumWeight;
+        private long weight;
+
+        private Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        private LocalCache.Entry<V> get(K key) {
+            return entries.get(key);
+        }
+
+        private void put(K key, LocalCache.Entry<V> entry) {
+            LocalCache.Entry<V> previous = entries.put(key, entry);
+            weight += entry.weight - (previous != null ? previous.weight : 0L);
+        }
+
+        private void remove(K key) {
+            LocalCache.Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        }
+
+        private void clear() {
+            entries.clear();
+            weight = 0L;
+        }
+
+        /**
+         * 최대 무게 이하가 될 때까지 가장 오래 사용되지 않은 엔트리부터 제거한다.
+         *
+         * @return 제거한 엔트리 수
+         */
+        private int evict() {
+            int evicted = 0;
+            Iterator<Map.Entry<K, LocalCache.Entry<V>>> eldest = entries.entrySet().iterator();
+            while (weight > maximumWeight && eldest.hasNext()) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expireAt;
+
+        private Entry(V value, long weight, long expireAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+    }
+}
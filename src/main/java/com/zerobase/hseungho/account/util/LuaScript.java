@@ -0,0 +1,51 @@
+package com.zerobase.hseungho.account.util;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * classpath 의 Lua script 를 EVALSHA 로 실행한다. <br>
+ * Redis 가 재시작되어 script 가 사라졌으면 다시 올리고 한 번 더 실행한다.
+ */
+public class LuaScript {
+    private final String source;
+
+    private volatile String sha;
+
+    public LuaScript(String path) {
+        try {
+            this.source = StreamUtils.copyToString(
+                    new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 인자와 결과는 문자열(StringCodec), 정수 결과는 Long 이다.
+     */
+    public <R> R eval(RedissonClient redissonClient, List<Object> keys, Object... args) {
+        RScript rScript = redissonClient.getScript(StringCodec.INSTANCE);
+        if (sha == null) {
+            sha = rScript.scriptLoad(source);
+        }
+        try {
+            return rScript.evalSha(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.MULTI, keys, args);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            sha = rScript.scriptLoad(source);
+            return rScript.evalSha(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.MULTI, keys, args);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.zerobase.hseungho.account.util;
+
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 모든 노드가 같은 디렉터리(공유 저장소)를 쓰는지 확인한다. <br>
+ * - 디렉터리의 .storage-id 파일과 Redis key 에 같은 id 를 둔다. <br>
+ * - key 를 처음 만든 노드만 파일을 만든다. 다른 노드에서 파일이 없거나 id 가 다르면 노드마다 따로 붙은 디렉터리다. <br>
+ * - Redis 에 key 가 없으면(데이터 유실) 파일의 id 로 다시 채운다.
+ */
+public final class SharedDirectory {
+    private static final String ID_FILE = ".storage-id";
+
+    private SharedDirectory() {
+    }
+
+    /**
+     * 공유되지 않은 디렉터리면 IllegalStateException
+     */
+    public static void verify(RedissonClient redissonClient, String key, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path idFile = directory.resolve(ID_FILE);
+        String local = read(idFile);
+        RBucket<String> bucket = redissonClient.getBucket(key, StringCodec.INSTANCE);
+        String candidate = local != null ? local : UUID.randomUUID().toString();
+        String shared = bucket.trySet(candidate) ? candidate : bucket.get();
+        if (local == null && candidate.equals(shared)) {
+            try {
+                Files.writeString(idFile, shared, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+                local = shared;
+            } catch (FileAlreadyExistsException e) {
+                local = read(idFile);
+            }
+        }
+        if (!Objects.equals(shared, local)) {
+            throw new IllegalStateException("Directory is not shared between nodes : " + directory.toAbsolutePath());
+        }
+    }
+
+    private static String read(Path idFile) throws IOException {
+        return Files.exists(idFile) ? Files.readString(idFile, StandardCharsets.UTF_8).trim() : null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.zerobase.hseungho.account.util;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 발급 시각을 앞에 담은 거래 아이디(UUID version 7 형식, 구분자 없는 hex 32자) <br>
+ * - 앞 12자는 발급 시각(epoch ms), 13번째 자리는 버전 7, 나머지는 UUID.randomUUID 의 난수다. <br>
+ * - 아이디만으로 발급 월을 알 수 있으므로 보관된 거래를 찾을 때 시간 색인으로 쓴다. <br>
+ * - 이전에 발급한 아이디(version 4)는 시각이 없다.
+ */
+public final class TransactionIds {
+    private static final int LENGTH = 32;
+    private static final int VERSION_INDEX = 12;
+
+    private TransactionIds() {
+    }
+
+    public static String newId(long epochMillis) {
+        UUID random = UUID.randomUUID();
+        long mostSigBits = (epochMillis << 16) | 0x7000L | (random.getMostSignificantBits() & 0x0FFFL);
+        return hex(mostSigBits) + hex(random.getLeastSignificantBits());
+    }
+
+    public static String newId() {
+        return newId(System.currentTimeMillis());
+    }
+
+    /**
+     * @return 발급 시각, 시각을 담지 않은 아이디면 empty
+     */
+    public static Optional<Instant> issuedAt(String transactionId) {
+        if (transactionId == null
+                || transactionId.length() != LENGTH
+                || transactionId.charAt(VERSION_INDEX) != '7') {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Instant.ofEpochMilli(Long.parseLong(transactionId.substring(0, VERSION_INDEX), 16)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
@@ -0,0 +1,388 @@
+package com.zerobase.hseungho.account.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * memory-mapped segment 파일에 쓰는 write-ahead journal <br>
+ * - 레코드 : [길이 int][crc32c int][lsn long][payload], crc 는 lsn 과 payload 로 계산한다. <br>
+ * - segment 는 segment-size 로 미리 만들어 두고, 다 차면 다음 lsn 으로 시작하는 새 파일로 넘어간다. <br>
+ * - 기록은 mapping 에 복사만 하고, flusher thread 가 모인 기록을 한 번의 force 로 디스크에 내린다.(group commit) <br>
+ *   기록한 쪽은 awaitDurable 로 자기 lsn 이 내려갈 때까지 기다린다.(timeout 까지만) <br>
+ * - force 가 실패하거나 timeout 까지 내려가지 않으면 journal 을 실패 상태로 두고 더는 기록하지 않는다. <br>
+ *   기다리던 쪽은 IOException 을 받고, 이후 force 가 끝나도 내려간 lsn 은 올리지 않는다. <br>
+ *   디스크에 무엇이 남았는지 알 수 없으므로 다시 열어 복구할 때까지 쓰지 않는다. <br>
+ * - 열 때 길이 0, crc 불일치, lsn 불연속 중 먼저 나오는 곳을 끝으로 보고 이후는 지운다.(쓰다 만 레코드) <br>
+ * - 단일 프로세스만 쓴다고 가정한다.
+ */
+@Slf4j
+public class WriteAheadJournal implements Closeable {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Object durableLock = new Object();
+    private final List<MappedByteBuffer> rolled = new ArrayList<>();
+    private final Consumer<MappedByteBuffer> force;
+    private final Thread flusher;
+
+    private Segment current;
+    private long lastLsn;
+    private volatile long durableLsn;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private WriteAheadJournal(Path directory, int segmentSize, Consumer<MappedByteBuffer> force) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.force = force;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * 남아 있는 레코드를 lsn 순서로 넘긴 뒤 이어서 기록할 수 있는 journal 을 연다.
+     *
+     * @param minLastLsn 레코드가 없을 때 마지막 lsn 으로 볼 값(snapshot 의 lsn)
+     */
+    public static WriteAheadJournal open(Path directory,
+                                         int segmentSize,
+                                         long minLastLsn,
+                                         RecordConsumer consumer) throws IOException {
+        return open(directory, segmentSize, minLastLsn, consumer, MappedByteBuffer::force);
+    }
+
+    static WriteAheadJournal open(Path directory,
+                                  int segmentSize,
+                                  long minLastLsn,
+                                  RecordConsumer consumer,
+                                  Consumer<MappedByteBuffer> force) throws IOException {
+        Files.createDirectories(directory);
+        WriteAheadJournal journal = new WriteAheadJournal(directory, segmentSize, force);
+        journal.recover(minLastLsn, consumer);
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * @return 기록한 레코드의 lsn
+     */
+    public synchronized long append(byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal failed", failure);
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize + 4 > segmentSize) {
+            throw new IllegalArgumentException("Record is larger than segment : " + payload.length);
+        }
+        long lsn = lastLsn + 1;
+        if (current.position + recordSize + 4 > current.buffer.capacity()) {
+            roll(lsn);
+        }
+        MappedByteBuffer buffer = current.buffer;
+        int position = current.position;
+        buffer.putLong(position + 8, lsn);
+        buffer.duplicate().position(position + HEADER_SIZE).put(payload);
+        buffer.putInt(position + 4, crc(buffer, position + 8, 8 + payload.length));
+        // 길이를 마지막에 써야 다 쓰지 못한 레코드가 길이 0 으로 남는다.
+        buffer.putInt(position, payload.length);
+        current.position = position + recordSize;
+        lastLsn = lsn;
+        notifyAll();
+        return lsn;
+    }
+
+    /**
+     * lsn 까지의 기록이 디스크에 내려갈 때까지 timeoutMillis 동안 기다린다. <br>
+     * timeout 이면 journal 을 실패 상태로 두고 InterruptedIOException, force 가 실패했으면 IOException <br>
+     * (내려갔는지 알리지 못한 기록이 나중에 내려간 것으로 보이지 않도록 한다)
+     */
+    public void awaitDurable(long lsn, long timeoutMillis) throws IOException {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (durableLock) {
+            while (durableLsn < lsn) {
+                if (failure != null) {
+                    throw new IOException("Journal flush failed", failure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    InterruptedIOException timeout =
+                            new InterruptedIOException("Timed out waiting for journal flush : " + lsn);
+                    fail(timeout);
+                    throw timeout;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(durableLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for journal flush");
+                }
+            }
+        }
+    }
+
+    public synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * 모든 레코드의 lsn 이 lsn 보다 작은 segment 를 지운다.(쓰고 있는 segment 는 남긴다)
+     *
+     * @return 지운 segment 수
+     */
+    public int deleteBefore(long lsn) throws IOException {
+        long currentFirstLsn;
+        synchronized (this) {
+            currentFirstLsn = current.firstLsn;
+        }
+        List<Long> firstLsns = listFirstLsns();
+        int deleted = 0;
+        for (int i = 0; i + 1 < firstLsns.size(); i++) {
+            long nextFirstLsn = firstLsns.get(i + 1);
+            if (nextFirstLsn > lsn || firstLsns.get(i) >= currentFirstLsn) {
+                break;
+            }
+            Files.deleteIfExists(segmentPath(firstLsns.get(i)));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (durableLock) {
+            durableLock.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<MappedByteBuffer> buffers;
+            synchronized (this) {
+                while (lastLsn == durableLsn && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (lastLsn == durableLsn) {
+                    return;
+                }
+                target = lastLsn;
+                buffers = new ArrayList<>(rolled);
+                buffers.add(current.buffer);
+                rolled.clear();
+            }
+            // force 하는 동안 다음 기록이 쌓이고, 다음 force 한 번으로 같이 내려간다.
+            try {
+                buffers.forEach(force);
+            } catch (RuntimeException e) {
+                log.error("Journal flush failed", e);
+                fail(e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : new IOException(e));
+                return;
+            }
+            synchronized (durableLock) {
+                // force 하는 동안 timeout 으로 실패 상태가 되었으면 기다리던 쪽은 이미 실패를 받았다.
+                if (failure != null) {
+                    return;
+                }
+                durableLsn = target;
+                durableLock.notifyAll();
+            }
+        }
+    }
+
+    private void fail(IOException cause) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = cause;
+            }
+        }
+        synchronized (durableLock) {
+            durableLock.notifyAll();
+        }
+    }
+
+    private void roll(long firstLsn) {
+        rolled.add(current.buffer);
+        try {
+            current = Segment.create(segmentPath(firstLsn), firstLsn, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recover(long minLastLsn, RecordConsumer consumer) throws IOException {
+        List<Long> firstLsns = listFirstLsns();
+        long next = -1L;
+        for (int i = 0; i < firstLsns.size(); i++) {
+            long firstLsn = firstLsns.get(i);
+            if (firstLsn < next) {
+                log.error("Journal segments overlap at lsn {}", firstLsn);
+                deleteFrom(firstLsns.subList(i, firstLsns.size()));
+                break;
+            }
+            if (next != -1L && firstLsn > next) {
+                log.warn("Journal lsn gap : {} ~ {}", next, firstLsn - 1);
+            }
+            Segment segment = Segment.open(segmentPath(firstLsn), firstLsn);
+            next = segment.replay(firstLsn, consumer);
+            current = segment;
+            if (segment.truncated) {
+                log.error("Journal truncated at lsn {}", next);
+                deleteFrom(firstLsns.subList(i + 1, firstLsns.size()));
+                break;
+            }
+        }
+        if (current != null) {
+            // 쓰다 만 레코드를 지워야 이어서 쓴 레코드 뒤에 남지 않는다.
+            current.clearFrom(current.position);
+        }
+        lastLsn = Math.max(next - 1, minLastLsn);
+        if (current == null || next - 1 < minLastLsn) {
+            current = Segment.create(segmentPath(lastLsn + 1), lastLsn + 1, segmentSize);
+        }
+        durableLsn = lastLsn;
+    }
+
+    private void deleteFrom(List<Long> firstLsns) throws IOException {
+        for (long firstLsn : firstLsns) {
+            Files.deleteIfExists(segmentPath(firstLsn));
+        }
+    }
+
+    private List<Long> listFirstLsns() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstLsn, SUFFIX));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long lsn, byte[] payload);
+    }
+
+    private static class Segment {
+        private final long firstLsn;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private boolean truncated;
+
+        private Segment(long firstLsn, MappedByteBuffer buffer) {
+            this.firstLsn = firstLsn;
+            this.buffer = buffer;
+        }
+
+        private static Segment create(Path path, long firstLsn, int segmentSize) throws IOException {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                return new Segment(firstLsn, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            }
+        }
+
+        private static Segment open(Path path, long firstLsn) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(firstLsn, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+        }
+
+        /**
+         * @return 다음 레코드에 기대하는 lsn
+         */
+        private long replay(long expected, RecordConsumer consumer) {
+            int capacity = buffer.capacity();
+            while (position + HEADER_SIZE <= capacity) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    return expected;
+                }
+                if (length < 0 || position + HEADER_SIZE + length > capacity
+                        || buffer.getLong(position + 8) != expected
+                        || buffer.getInt(position + 4) != crc(buffer, position + 8, 8 + length)) {
+                    truncated = true;
+                    return expected;
+                }
+                byte[] payload = new byte[length];
+                buffer.duplicate().position(position + HEADER_SIZE).get(payload);
+                consumer.accept(expected, payload);
+                position += HEADER_SIZE + length;
+                expected++;
+            }
+            return expected;
+        }
+
+        private void clearFrom(int offset) {
+            ByteBuffer tail = buffer.duplicate().position(offset);
+            byte[] zeros = new byte[8192];
+            while (tail.hasRemaining()) {
+                tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+            }
+            buffer.force();
+        }
+    }
+}
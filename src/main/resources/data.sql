@@ -1,3 +1,9 @@
-insert into account_user(id, name, created_at, updated_at) values ( 1, 'Pororo', now(), now() );
-insert into account_user(id, name, created_at, updated_at) values ( 2, 'Lupi', now(), now() );
-insert into account_user(id, name, created_at, updated_at) values ( 3, 'Eddie', now(), now() );
+-- lock 백엔드와 상관없이 fencing token 을 발급한다.(FencingTokenIssuer)
+create sequence if not exists account_fencing_token_seq;
+
+insert into account_user(id, name, account_count, created_at, updated_at) values ( 1, 'Pororo', 0, now(), now() );
+insert into account_user(id, name, account_count, created_at, updated_at) values ( 2, 'Lupi', 0, now(), now() );
+insert into account_user(id, name, account_count, created_at, updated_at) values ( 3, 'Eddie', 0, now(), now() );
+
+-- account_count 가 생기기 전에 만든 계좌도 사용자 계좌 수 제한에 포함되도록 채운다.(해지/미등록 계좌 포함)
+update account_user set account_count = (select count(*) from account where account.account_user_id = account_user.id);
@@ -0,0 +1,8 @@
+-- 계좌 목록 버전을 올리고 저장된 목록을 지운다.
+-- KEYS[1] : 버전 key, KEYS[2] : 계좌 목록 key
+-- ARGV[1] : 버전 key ttl(ms)
+-- 반환 : { 새 버전 }
+local version = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+redis.call('DEL', KEYS[2])
+return { version }
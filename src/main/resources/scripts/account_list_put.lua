@@ -0,0 +1,10 @@
+-- 조회 전에 읽은 버전이 그대로일 때만 계좌 목록을 저장한다.(compare-and-set)
+-- KEYS[1] : 버전 key, KEYS[2] : 계좌 목록 key
+-- ARGV[1] : 조회 전에 읽은 버전, ARGV[2] : 계좌 목록(JSON), ARGV[3] : ttl(ms)
+-- 반환 : { 저장 여부(1/0) }
+local version = tonumber(redis.call('GET', KEYS[1]) or '0')
+if version ~= tonumber(ARGV[1]) then
+    return { 0 }
+end
+redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+return { 1 }
@@ -0,0 +1,45 @@
+-- Redis 잔액 엔진 : 잔액 검사와 DECRBY/INCRBY, stream 기록을 한 번에 처리한다.
+-- KEYS[1] : 잔액 key
+-- KEYS[2] : 잔액 변경 순번 key
+-- KEYS[3] : 잔액 변경 stream
+-- KEYS[4] : DB 에 반영되지 않은 거래 아이디 -> stream 항목 id hash
+-- ARGV[1] : 거래 종류(USE/CANCEL)
+-- ARGV[2] : 거래 결과(S/F), F 는 잔액을 바꾸지 않고 기록만 한다.
+-- ARGV[3] : 금액
+-- ARGV[4] ~ ARGV[8] : 계좌 id, 계좌 번호, 사용자 id, 거래 아이디, 거래 시각
+-- ARGV[9], ARGV[10] : 잔액 key 가 없을 때 채울 잔액과 순번, 비어 있으면 채우지 않는다.
+-- 반환 : { 1, 잔액, 순번 } 처리, { 0, 잔액, 0 } 잔액 부족, { -1, 0, 0 } 잔액 key 없음
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    if ARGV[9] == '' then
+        return { -1, 0, 0 }
+    end
+    redis.call('SET', KEYS[1], ARGV[9])
+    redis.call('SET', KEYS[2], ARGV[10])
+end
+
+local balance = tonumber(redis.call('GET', KEYS[1]))
+if ARGV[2] == 'S' then
+    if ARGV[1] == 'USE' then
+        if balance < tonumber(ARGV[3]) then
+            return { 0, balance, 0 }
+        end
+        balance = redis.call('DECRBY', KEYS[1], ARGV[3])
+    else
+        balance = redis.call('INCRBY', KEYS[1], ARGV[3])
+    end
+end
+
+local sequence = redis.call('INCR', KEYS[2])
+local id = redis.call('XADD', KEYS[3], '*',
+        'accountId', ARGV[4],
+        'accountNumber', ARGV[5],
+        'userId', ARGV[6],
+        'transactionId', ARGV[7],
+        'transactionType', ARGV[1],
+        'transactionResultType', ARGV[2],
+        'amount', ARGV[3],
+        'balance', balance,
+        'sequence', sequence,
+        'transactedAt', ARGV[8])
+redis.call('HSET', KEYS[4], ARGV[7], id)
+return { 1, balance, sequence }
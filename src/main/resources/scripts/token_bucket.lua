@@ -0,0 +1,47 @@
+-- 여러 token bucket 에서 한 번에 token 하나씩 꺼낸다. 하나라도 부족하면 아무것도 꺼내지 않는다.
+-- KEYS[i] : bucket key
+-- ARGV[1] : 호출한 노드의 현재 시각(ms), 스크립트 안에서 TIME 을 쓸 수 없는 Redis(3.2 미만)에서만 쓴다.
+-- ARGV[2i], ARGV[2i+1] : KEYS[i] 의 용량, 초당 충전량
+-- 반환 : { 허용 여부(1/0), 다시 시도할 수 있을 때까지 남은 시간(ms), 가장 오래 기다려야 하는 KEYS 번호 }
+-- 노드마다 시계가 달라도 같은 bucket 은 Redis 서버 시각으로 충전한다.
+local now = tonumber(ARGV[1])
+if redis.replicate_commands ~= nil and redis.replicate_commands() then
+    local time = redis.call('TIME')
+    now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+end
+local tokens = {}
+local retryAfter = 0
+local limitedKey = 0
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    local bucket = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local current = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if current == nil then
+        current = capacity
+        ts = now
+    end
+    current = math.min(capacity, current + math.max(0, now - ts) * rate / 1000)
+    tokens[i] = current
+    if current < 1 then
+        local wait = math.ceil((1 - current) * 1000 / rate)
+        if wait > retryAfter then
+            retryAfter = wait
+            limitedKey = i
+        end
+    end
+end
+
+if retryAfter > 0 then
+    return { 0, retryAfter, limitedKey }
+end
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    redis.call('HMSET', KEYS[i], 'tokens', tostring(tokens[i] - 1), 'ts', tostring(now))
+    redis.call('PEXPIRE', KEYS[i], math.ceil(capacity * 1000 / rate) + 1000)
+end
+return { 1, 0, 0 }
@@ -0,0 +1,70 @@
+-- 잔액 거래 진입 : 멱등 키 조회, 요청 제한, lock 취득을 한 번에 처리한다.(fencing token 은 DB 에서 발급)
+-- KEYS[1] : lock key (Redisson lock 과 같은 hash 구조)
+-- KEYS[2] : 멱등 키, ARGV[3] 이 1 일 때만 사용
+-- KEYS[2 + j] : j 번째 token bucket key
+-- ARGV[1] : lock 보유자(Redisson id:thread id)
+-- ARGV[2] : lease(ms)
+-- ARGV[3] : 멱등 키 사용 여부(1/0)
+-- ARGV[4] : 호출한 노드의 현재 시각(ms), 스크립트 안에서 TIME 을 쓸 수 없는 Redis(3.2 미만)에서만 쓴다.
+-- ARGV[3 + 2j], ARGV[4 + 2j] : j 번째 bucket 의 용량, 초당 충전량
+-- 반환 : { 0 } lock 취득
+--        { 1, 저장된 값(요청 hash:응답) } 이미 처리된 요청, token 은 꺼내지 않는다
+--        { 2, lock 남은 시간(ms) } 다른 요청이 보유 중, token 은 꺼냈다
+--        { 3, 다시 시도할 수 있을 때까지 남은 시간(ms), 가장 오래 기다려야 하는 bucket 번호 } 요청 제한
+local now = tonumber(ARGV[4])
+if redis.replicate_commands ~= nil and redis.replicate_commands() then
+    local time = redis.call('TIME')
+    now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+end
+
+if ARGV[3] == '1' then
+    local stored = redis.call('GET', KEYS[2])
+    if stored then
+        return { 1, stored }
+    end
+end
+
+-- token_bucket.lua 와 같은 계산
+local buckets = #KEYS - 2
+local tokens = {}
+local retryAfter = 0
+local limited = 0
+
+for j = 1, buckets do
+    local capacity = tonumber(ARGV[3 + 2 * j])
+    local rate = tonumber(ARGV[4 + 2 * j])
+    local bucket = redis.call('HMGET', KEYS[2 + j], 'tokens', 'ts')
+    local current = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if current == nil then
+        current = capacity
+        ts = now
+    end
+    current = math.min(capacity, current + math.max(0, now - ts) * rate / 1000)
+    tokens[j] = current
+    if current < 1 then
+        local wait = math.ceil((1 - current) * 1000 / rate)
+        if wait > retryAfter then
+            retryAfter = wait
+            limited = j
+        end
+    end
+end
+
+if retryAfter > 0 then
+    return { 3, retryAfter, limited }
+end
+
+for j = 1, buckets do
+    local capacity = tonumber(ARGV[3 + 2 * j])
+    local rate = tonumber(ARGV[4 + 2 * j])
+    redis.call('HMSET', KEYS[2 + j], 'tokens', tostring(tokens[j] - 1), 'ts', tostring(now))
+    redis.call('PEXPIRE', KEYS[2 + j], math.ceil(capacity * 1000 / rate) + 1000)
+end
+
+if redis.call('EXISTS', KEYS[1]) == 0 or redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+    redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return { 0 }
+end
+return { 2, redis.call('PTTL', KEYS[1]) }
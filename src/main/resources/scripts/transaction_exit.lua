@@ -0,0 +1,22 @@
+-- 잔액 거래 종료 : 성공 응답을 저장하고 lock 을 푼다.
+-- 응답을 lock 해제 전에 저장해야 lock 을 기다리던 같은 요청이 저장된 응답을 찾는다.
+-- KEYS[1] : lock key
+-- KEYS[2] : Redisson lock 해제 알림 channel
+-- KEYS[3] : 멱등 키, ARGV[3] 이 비어 있으면 사용하지 않음
+-- ARGV[1] : lock 보유자(Redisson id:thread id)
+-- ARGV[2] : 해제 알림 메시지
+-- ARGV[3] : 저장할 응답
+-- ARGV[4] : 응답 보관 시간(ms)
+-- 반환 : { 1 } 해제, { 0 } lease 가 만료되어 이미 보유하지 않음
+if ARGV[3] ~= '' then
+    redis.call('SET', KEYS[3], ARGV[3], 'PX', ARGV[4])
+end
+
+if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+    return { 0 }
+end
+if redis.call('HINCRBY', KEYS[1], ARGV[1], -1) <= 0 then
+    redis.call('DEL', KEYS[1])
+    redis.call('PUBLISH', KEYS[2], ARGV[2])
+end
+return { 1 }
@@ -0,0 +1,15 @@
+-- 거래 아이디 Bloom filter 한 세대에 비트를 설정한다.
+-- 쓰려는 epoch 가 현재 epoch 나 만드는 중인 epoch 가 아니면(교체된 필터) 아무것도 쓰지 않는다.
+-- KEYS[1] : 현재 epoch key, KEYS[2] : 만드는 중인 epoch key, KEYS[3] : 세대 bitmap key, KEYS[4] : 세대 count key
+-- ARGV[1] : 쓰려는 epoch, ARGV[2] : 추가하는 아이디 수, ARGV[3..] : 비트 위치
+-- 반환 : { 현재 epoch, 만드는 중인 epoch, 추가 후 세대 count(쓰지 않았으면 -1) }
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local next = tonumber(redis.call('GET', KEYS[2]) or '0')
+local epoch = tonumber(ARGV[1])
+if epoch ~= current and epoch ~= next then
+    return { current, next, -1 }
+end
+for i = 3, #ARGV do
+    redis.call('SETBIT', KEYS[3], ARGV[i], 1)
+end
+return { current, next, redis.call('INCRBY', KEYS[4], ARGV[2]) }
@@ -3,28 +3,44 @@ package com.zerobase.hseungho.account.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.dto.AccountDto;
+import com.zerobase.hseungho.account.dto.AccountInfo;
+import com.zerobase.hseungho.account.dto.AccountSummaryInfo;
+import com.zerobase.hseungho.account.dto.BulkCreateAccount;
 import com.zerobase.hseungho.account.dto.CreateAccount;
 import com.zerobase.hseungho.account.dto.DeleteAccount;
 import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.AccountBulkService;
+import com.zerobase.hseungho.account.service.AccountListCache;
 import com.zerobase.hseungho.account.service.AccountService;
+import com.zerobase.hseungho.account.service.AccountSummaryService;
+import com.zerobase.hseungho.account.service.StatementFile;
+import com.zerobase.hseungho.account.service.StatementGenerator;
 import com.zerobase.hseungho.account.type.AccountStatus;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -33,6 +49,21 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private AccountBulkService accountBulkService;
+
+    @MockBean
+    private AccountListCache accountListCache;
+
+    @MockBean
+    private AccountSummaryService accountSummaryService;
+
+    @MockBean
+    private StatementGenerator statementGenerator;
+
+    @TempDir
+    Path directory;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -88,22 +119,22 @@ class AccountControllerTest {
     @Test
     void successGetAccountsByUserId() throws Exception {
         // given
-        List<AccountDto> accountDtos = Arrays.asList(
-                AccountDto.builder()
+        List<AccountInfo> accountInfos = Arrays.asList(
+                AccountInfo.builder()
                         .accountNumber("1234567890")
                         .balance(1000L)
                         .build(),
-                AccountDto.builder()
+                AccountInfo.builder()
                         .accountNumber("1234567123")
                         .balance(2000L)
                         .build(),
-                AccountDto.builder()
+                AccountInfo.builder()
                         .accountNumber("1234567432")
                         .balance(3000L)
                         .build()
         );
-        given(accountService.getAccountsByUserId(anyLong()))
-                .willReturn(accountDtos);
+        given(accountListCache.getAccountInfos(anyLong()))
+                .willReturn(accountInfos);
         // when
         // then
         mockMvc.perform(get("/account?user_id=1"))
@@ -116,6 +147,26 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$[2].balance").value(3000L));
     }
 
+    @Test
+    void successGetAccountSummary() throws Exception {
+        // given
+        given(accountSummaryService.getSummary(anyLong()))
+                .willReturn(AccountSummaryInfo.builder()
+                        .userId(1L)
+                        .accountCount(3)
+                        .totalBalance(6000L)
+                        .lastActivityAt(LocalDateTime.now())
+                        .build());
+        // when
+        // then
+        mockMvc.perform(get("/account/summary?user_id=1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.accountCount").value(3))
+                .andExpect(jsonPath("$.totalBalance").value(6000L));
+    }
+
     @Test
     void failGetAccount() throws Exception {
         // given
@@ -130,6 +181,20 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.errorMessage").value("계좌가 없습니다."));
     }
 
+    @Test
+    void failGetAccountWithCustomMessage() throws Exception {
+        // given
+        given(accountService.getAccount(anyLong()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND, "875 계좌가 없습니다."));
+        // when
+        // then
+        mockMvc.perform(get("/account/875"))
+                .andDo(print())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value("ACCOUNT_NOT_FOUND"))
+                .andExpect(jsonPath("$.errorMessage").value("875 계좌가 없습니다."));
+    }
+
 
 
 
@@ -168,4 +233,74 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successGetStatement() throws Exception {
+        //given
+        Path path = directory.resolve("statements-2023-05.dat");
+        Files.write(path, "skip|statement|".getBytes(StandardCharsets.US_ASCII));
+        given(statementGenerator.find(YearMonth.of(2023, 5), "1000000012"))
+                .willReturn(Optional.of(new StatementFile.Region(path, 5L, 10)));
+
+        //when
+        //then
+        mockMvc.perform(get("/account/statement?account_number=1000000012&month=2023-05"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string("statement|"));
+    }
+
+    @Test
+    void failGetStatement() throws Exception {
+        //given
+        given(statementGenerator.find(any(), anyString()))
+                .willReturn(Optional.empty());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/statement?account_number=1000000012&month=2023-05"))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("STATEMENT_NOT_FOUND"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void successCreateAccounts() throws Exception {
+        //given
+        given(accountBulkService.createAccounts(any()))
+                .willReturn(List.of(
+                        BulkCreateAccount.Result.created(1, 1L, "1000000016"),
+                        BulkCreateAccount.Result.failed(2, 2L, ErrorCode.USER_NOT_FOUND)));
+
+        //when
+        //then
+        mockMvc.perform(post("/account/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkCreateAccount.Request(List.of(
+                                new CreateAccount.Request(1L, 100L),
+                                new CreateAccount.Request(2L, 100L))))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].accountNumber").value("1000000016"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("USER_NOT_FOUND"));
+    }
+
+    @Test
+    void successImportAccounts() throws Exception {
+        //given
+        given(accountBulkService.importCsv(any()))
+                .willReturn(List.of(BulkCreateAccount.Result.created(2, 1L, "1000000016")));
+
+        //when
+        //then
+        mockMvc.perform(post("/account/bulk")
+                        .contentType("text/csv")
+                        .content("user_id,initial_balance\n1,100\n"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].row").value(2));
+    }
+}
@@ -2,9 +2,14 @@ package com.zerobase.hseungho.account.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zerobase.hseungho.account.dto.CancelBalance;
+import com.zerobase.hseungho.account.dto.DailyTransactionAggregateInfo;
+import com.zerobase.hseungho.account.dto.QueryTransactions;
 import com.zerobase.hseungho.account.dto.TransactionDto;
 import com.zerobase.hseungho.account.dto.UseBalance;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.TransactionAggregateService;
 import com.zerobase.hseungho.account.service.TransactionService;
+import com.zerobase.hseungho.account.type.ErrorCode;
 import com.zerobase.hseungho.account.type.TransactionResultType;
 import com.zerobase.hseungho.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
@@ -15,11 +20,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -32,6 +43,9 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionAggregateService transactionAggregateService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -68,6 +82,64 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(12345L));
     }
 
+    @Test
+    @DisplayName("컨트롤러 - 거래 사용 실패, 실패 거래를 남김")
+    void failUseBalance() throws Exception {
+        // given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(AccountException.of(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        ))
+                )
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(transactionService, times(1)).saveFailedUseTransaction("2000000000", 3000L);
+    }
+
+    @Test
+    @DisplayName("컨트롤러 - 거래 사용 결과를 알 수 없으면 실패 거래를 남기지 않음")
+    void unknownOutcomeUseBalance() throws Exception {
+        // given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(AccountException.of(ErrorCode.TRANSACTION_OUTCOME_UNKNOWN));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        ))
+                )
+                .andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.errorCode").value("TRANSACTION_OUTCOME_UNKNOWN"));
+        verify(transactionService, never()).saveFailedUseTransaction(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("컨트롤러 - 거래 취소 결과를 알 수 없으면 실패 거래를 남기지 않음")
+    void unknownOutcomeCancelBalance() throws Exception {
+        // given
+        given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
+                .willThrow(AccountException.of(ErrorCode.TRANSACTION_OUTCOME_UNKNOWN));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/cancel")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CancelBalance.Request("transactionId", "2000000000", 3000L)
+                        ))
+                )
+                .andDo(print())
+                .andExpect(status().isServiceUnavailable());
+        verify(transactionService, never()).saveFailedCancelTransaction(anyString(), anyLong());
+    }
+
     @Test
     @DisplayName("컨트롤러 - 거래 취소 성공")
     void successCancelBalance() throws Exception {
@@ -123,4 +195,81 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321L));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("컨트롤러 - 계좌별 하루 거래 집계 조회")
+    void successGetDailyAggregates() throws Exception {
+        // given
+        given(transactionAggregateService.getDailyAggregates(
+                "1000000000", LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 31)))
+                .willReturn(List.of(
+                        DailyTransactionAggregateInfo.builder()
+                                .accountNumber("1000000000")
+                                .aggregateDate(LocalDate.of(2023, 5, 1))
+                                .useSuccessCount(3L)
+                                .useFailureCount(1L)
+                                .useAmount(3000L)
+                                .useSuccessRatio(0.75)
+                                .build()
+                ));
+        // when
+        // then
+        mockMvc.perform(get("/transaction/aggregate?account_number=1000000000&from=2023-05-01&to=2023-05-31"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].aggregateDate").value("2023-05-01"))
+                .andExpect(jsonPath("$[0].useAmount").value(3000L))
+                .andExpect(jsonPath("$[0].useSuccessRatio").value(0.75));
+    }
+
+    @Test
+    @DisplayName("컨트롤러 - 여러 거래 확인, 요청 순서대로 응답하고 없는 아이디를 따로 알림")
+    void successQueryTransactions() throws Exception {
+        // given
+        given(transactionService.queryTransactionsByIds(List.of("t1", "t2", "t3")))
+                .willReturn(Map.of(
+                        "t3", TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TransactionType.USE)
+                                .transactionResultType(TransactionResultType.S)
+                                .transactionId("t3")
+                                .amount(300L)
+                                .build(),
+                        "t1", TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TransactionType.CANCEL)
+                                .transactionResultType(TransactionResultType.S)
+                                .transactionId("t1")
+                                .amount(100L)
+                                .build()));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new QueryTransactions.Request(List.of("t1", "t2", "t3"))
+                        ))
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("t1"))
+                .andExpect(jsonPath("$.transactions[1].transactionId").value("t3"))
+                .andExpect(jsonPath("$.transactions[1].amount").value(300L))
+                .andExpect(jsonPath("$.missingTransactionIds[0]").value("t2"));
+    }
+
+    @Test
+    @DisplayName("컨트롤러 - 여러 거래 확인, 빈 요청은 실패")
+    void failQueryTransactionsEmpty() throws Exception {
+        // given
+        // when
+        // then
+        mockMvc.perform(post("/transaction/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new QueryTransactions.Request(List.of())
+                        ))
+                )
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,156 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.dto.BulkCreateAccount.Result;
+import com.zerobase.hseungho.account.dto.CreateAccount;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository.AccountCount;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBulkServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountNumberIndex accountNumberIndex;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountBulkService accountBulkService;
+
+    @BeforeEach
+    void setUp() {
+        accountBulkService = new AccountBulkService(accountRepository, accountUserRepository, accountNumberIndex,
+                negativeCache, eventPublisher, entityManager, transactionManager, 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("사용자별 계좌 수를 모아 검사하고 연속된 계좌 번호로 한 번에 저장")
+    void createAccounts() {
+        // given
+        AccountCount accountCount = accountCount(1L, 8);
+        given(accountUserRepository.findAccountCounts(anyCollection())).willReturn(List.of(accountCount));
+        given(accountUserRepository.addAccountCount(1L, 2, 10)).willReturn(1);
+        given(accountUserRepository.getReferenceById(1L)).willReturn(AccountUser.builder().id(1L).build());
+        given(accountRepository.findFirstByOrderByIdDesc())
+                .willReturn(Optional.of(Account.builder().accountNumber("1000000015").build()));
+        given(entityManager.unwrap(Session.class)).willReturn(session);
+        ArgumentCaptor<List<Account>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        List<Result> results = accountBulkService.createAccounts(List.of(
+                new CreateAccount.Request(1L, 100L),
+                new CreateAccount.Request(2L, 100L),
+                new CreateAccount.Request(1L, 200L),
+                new CreateAccount.Request(1L, 300L)));
+        // then
+        assertEquals("1000000016", results.get(0).getAccountNumber());
+        assertEquals(ErrorCode.USER_NOT_FOUND, results.get(1).getErrorCode());
+        assertEquals("1000000017", results.get(2).getAccountNumber());
+        assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, results.get(3).getErrorCode());
+        verify(accountRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        verify(negativeCache).putMissingUser(2L);
+        ArgumentCaptor<AccountChangedEvent> event = ArgumentCaptor.forClass(AccountChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(2, event.getValue().getAccountCountDelta());
+        assertEquals(300L, event.getValue().getBalanceDelta());
+    }
+
+    @Test
+    @DisplayName("CSV 는 header 를 건너뛰고 잘못된 줄은 줄 번호로 실패 응답")
+    void importCsv() throws IOException {
+        // given
+        AccountCount accountCount = accountCount(1L, 0);
+        given(accountUserRepository.findAccountCounts(anyCollection())).willReturn(List.of(accountCount));
+        given(accountUserRepository.addAccountCount(1L, 2, 10)).willReturn(1);
+        given(accountRepository.findFirstByOrderByIdDesc()).willReturn(Optional.empty());
+        given(entityManager.unwrap(Session.class)).willReturn(session);
+        // when
+        List<Result> results = accountBulkService.importCsv(new StringReader(
+                "user_id,initial_balance\n1,1000\n1,-5\n\nx,1\n1,0\n"));
+        // then
+        assertEquals(4, results.size());
+        assertEquals(2, results.get(0).getRow());
+        assertEquals("1000000000", results.get(0).getAccountNumber());
+        assertEquals(ErrorCode.BAD_REQUEST, results.get(1).getErrorCode());
+        assertEquals(5, results.get(2).getRow());
+        assertEquals(ErrorCode.BAD_REQUEST, results.get(2).getErrorCode());
+        assertEquals("1000000001", results.get(3).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("계좌 번호가 겹치면 chunk 를 다시 시도")
+    void retryChunkOnConflict() {
+        // given
+        AccountCount accountCount = accountCount(1L, 0);
+        given(accountUserRepository.findAccountCounts(anyCollection())).willReturn(List.of(accountCount));
+        given(accountUserRepository.addAccountCount(1L, 1, 10)).willReturn(1);
+        given(accountRepository.findFirstByOrderByIdDesc()).willReturn(Optional.empty());
+        given(entityManager.unwrap(Session.class)).willReturn(session);
+        given(accountRepository.saveAll(anyList()))
+                .willThrow(new DataIntegrityViolationException("duplicate"))
+                .willReturn(List.of());
+        // when
+        List<Result> results = accountBulkService.createAccounts(List.of(new CreateAccount.Request(1L, 100L)));
+        // then
+        assertNull(results.get(0).getErrorCode());
+        verify(accountRepository, times(2)).saveAll(anyList());
+        verify(accountNumberIndex, times(1)).put(any());
+    }
+
+    private static AccountCount accountCount(Long id, int count) {
+        AccountCount accountCount = mock(AccountCount.class);
+        given(accountCount.getId()).willReturn(id);
+        given(accountCount.getAccountCount()).willReturn(count);
+        return accountCount;
+    }
+}
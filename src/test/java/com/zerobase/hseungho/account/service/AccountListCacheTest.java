@@ -0,0 +1,152 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.dto.AccountDto;
+import com.zerobase.hseungho.account.dto.AccountInfo;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AccountListCacheTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic rTopic;
+
+    @Mock
+    private RBucket<Object> rBucket;
+
+    @Mock
+    private RScript rScript;
+
+    @Mock
+    private RAtomicLong rAtomicLong;
+
+    private AccountListCache accountListCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(anyString()))
+                .willReturn(rTopic);
+        given(redissonClient.getBucket(anyString(), any()))
+                .willReturn(rBucket);
+        given(redissonClient.getScript(any()))
+                .willReturn(rScript);
+        given(rScript.scriptLoad(anyString()))
+                .willReturn("sha");
+        given(redissonClient.getAtomicLong(anyString()))
+                .willReturn(rAtomicLong);
+        accountListCache = new AccountListCache(accountService, redissonClient,
+                100, Duration.ofMinutes(1), Duration.ofMinutes(10));
+        accountListCache.subscribe();
+    }
+
+    @Test
+    @DisplayName("동시 캐시 미스는 한 번만 조회")
+    void singleFlightOnConcurrentMiss() throws Exception {
+        // given
+        CountDownLatch loading = new CountDownLatch(1);
+        given(accountService.getAccountsByUserId(anyLong()))
+                .willAnswer(invocation -> {
+                    loading.await(1, TimeUnit.SECONDS);
+                    return Collections.singletonList(AccountDto.builder()
+                            .accountNumber("1000000000")
+                            .balance(1000L)
+                            .build());
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<AccountInfo>>> futures = new ArrayList<>();
+        // when
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> accountListCache.getAccountInfos(1L)));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+        // then
+        for (Future<List<AccountInfo>> future : futures) {
+            assertEquals("1000000000", future.get().get(0).getAccountNumber());
+        }
+        executor.shutdown();
+        verify(accountService, times(1)).getAccountsByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("계좌 변경 이벤트를 받으면 다시 조회")
+    void reloadAfterAccountChanged() {
+        // given
+        given(accountService.getAccountsByUserId(anyLong()))
+                .willReturn(Collections.singletonList(AccountDto.builder()
+                        .accountNumber("1000000000")
+                        .balance(1000L)
+                        .build()));
+        accountListCache.getAccountInfos(1L);
+        accountListCache.getAccountInfos(1L);
+        // when
+        accountListCache.onAccountChanged(new AccountChangedEvent(1L, "1000000000"));
+        accountListCache.getAccountInfos(1L);
+        // then
+        verify(accountService, times(2)).getAccountsByUserId(1L);
+        verify(rScript, times(1)).evalSha(any(), eq("sha"), any(), eq(List.of("ACCOUNTS:VERSION:1", "ACCOUNTS:1")),
+                eq("600000"));
+        verify(rTopic, times(1)).publish(1L);
+    }
+
+    @Test
+    @DisplayName("조회 중에 무효화되면 캐시에 적재하지 않음")
+    void skipCachingWhenInvalidatedDuringLoad() {
+        // given
+        given(accountService.getAccountsByUserId(anyLong()))
+                .willAnswer(invocation -> {
+                    accountListCache.onAccountChanged(new AccountChangedEvent(1L, "1000000000"));
+                    return Collections.singletonList(AccountDto.builder()
+                            .accountNumber("1000000000")
+                            .balance(1000L)
+                            .build());
+                })
+                .willReturn(Collections.singletonList(AccountDto.builder()
+                        .accountNumber("1000000000")
+                        .balance(0L)
+                        .build()));
+        // when
+        accountListCache.getAccountInfos(1L);
+        List<AccountInfo> reloaded = accountListCache.getAccountInfos(1L);
+        // then
+        assertEquals(0L, (long) reloaded.get(0).getBalance());
+        verify(accountService, times(2)).getAccountsByUserId(1L);
+        verify(rScript, times(1)).evalSha(any(), eq("sha"), any(), anyList(),
+                eq("0"), anyString(), eq("600000"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNearCacheTest {
+
+    @Mock
+    private AccountNumberIndex accountNumberIndex;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic rTopic;
+
+    private AccountNearCache accountNearCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(anyString()))
+                .willReturn(rTopic);
+        accountNearCache = new AccountNearCache(
+                accountNumberIndex, redissonClient, 100, Duration.ofMinutes(1));
+        accountNearCache.subscribe();
+    }
+
+    @Test
+    @DisplayName("두 번째 조회는 DB 를 거치지 않음")
+    void secondLookupIsCached() {
+        // given
+        given(accountNumberIndex.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(AccountStatus.IN_USE)));
+        // when
+        accountNearCache.get("1000000000");
+        Optional<CachedAccount> cached = accountNearCache.get("1000000000");
+        // then
+        verify(accountNumberIndex, times(1)).findByAccountNumber("1000000000");
+        assertTrue(cached.isPresent());
+        assertEquals(1L, cached.get().getId());
+        assertEquals(12L, cached.get().getUserId());
+        assertEquals(AccountStatus.IN_USE, cached.get().getAccountStatus());
+        assertEquals(1, accountNearCache.getCache().getHitCount());
+    }
+
+    @Test
+    @DisplayName("무효화하면 다시 읽고 다른 노드에 전파")
+    void invalidateReloadsAndPublishes() {
+        // given
+        given(accountNumberIndex.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account(AccountStatus.IN_USE)))
+                .willReturn(Optional.of(account(AccountStatus.UNREGISTERED)));
+        accountNearCache.get("1000000000");
+        // when
+        accountNearCache.invalidate("1000000000");
+        Optional<CachedAccount> cached = accountNearCache.get("1000000000");
+        // then
+        verify(rTopic, times(1)).publish("1000000000");
+        verify(accountNumberIndex, times(2)).findByAccountNumber("1000000000");
+        assertEquals(AccountStatus.UNREGISTERED, cached.get().getAccountStatus());
+    }
+
+    private Account account(AccountStatus status) {
+        return Account.builder()
+                .id(1L)
+                .accountUser(AccountUser.builder().id(12L).name("Pobi").build())
+                .accountStatus(status)
+                .accountNumber("1000000000")
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberIndexTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @Test
+    @DisplayName("적재한 계좌 번호는 PK 로 조회")
+    void findByIdAfterPut() {
+        // given
+        AccountNumberIndex index = new AccountNumberIndex(accountRepository, negativeCache, 10);
+        Account account = account(1L, "1000000000");
+        index.put(account);
+        given(accountRepository.findById(1L)).willReturn(Optional.of(account));
+        // when
+        Optional<Account> found = index.findByAccountNumber("1000000000");
+        // then
+        assertSame(account, found.get());
+        verify(accountRepository, never()).findByAccountNumber("1000000000");
+    }
+
+    @Test
+    @DisplayName("최대 크기를 넘으면 오래된 매핑을 지우고 계좌 번호로 다시 조회")
+    void bounded() {
+        // given
+        AccountNumberIndex index = new AccountNumberIndex(accountRepository, negativeCache, 2);
+        Account first = account(1L, "1000000000");
+        index.put(first);
+        index.put(account(2L, "1000000001"));
+        index.put(account(3L, "1000000002"));
+        given(accountRepository.findByAccountNumber("1000000000")).willReturn(Optional.of(first));
+        // when
+        Optional<Account> found = index.findByAccountNumber("1000000000");
+        // then
+        assertSame(first, found.get());
+        assertEquals(2, index.size());
+        verify(accountRepository).findByAccountNumber("1000000000");
+    }
+
+    private static Account account(Long id, String accountNumber) {
+        return Account.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .build();
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +35,24 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberIndex accountNumberIndex;
+
+    @Mock
+    private AccountNearCache accountNearCache;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @Mock
+    private AccountUserReader accountUserReader;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -46,8 +65,10 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
         given(accountRepository.findFirstByOrderByIdDesc())
                 .willReturn(Optional.of(Account.builder()
                         .accountNumber("1000000012").build()));
@@ -75,8 +96,10 @@ class AccountServiceTest {
                 .id(15L)
                 .name("Pobi")
                 .build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
         given(accountRepository.findFirstByOrderByIdDesc())
                 .willReturn(Optional.empty());
         given(accountRepository.save(any()))
@@ -98,8 +121,8 @@ class AccountServiceTest {
     @DisplayName("해당 유저 없음 - 계좌 생성 실패")
     void createAccount_UserNotFound() {
         // given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willThrow(AccountException.of(ErrorCode.USER_NOT_FOUND));
 
         // when
         AccountException exception = assertThrows(
@@ -119,10 +142,10 @@ class AccountServiceTest {
                 .id(15L)
                 .name("Pobi")
                 .build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10L);
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(0);
 
         // when
         AccountException exception = assertThrows(
@@ -144,9 +167,9 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountNumberIndex.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
                         .balance(0L)
@@ -167,8 +190,8 @@ class AccountServiceTest {
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccount_UserNotFound() {
         // given
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.empty());
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willThrow(AccountException.of(ErrorCode.USER_NOT_FOUND));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -186,9 +209,9 @@ class AccountServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(user));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given((accountNumberIndex.findByAccountNumber(anyString())))
                 .willReturn(Optional.empty());
         // when
         AccountException exception = assertThrows(
@@ -211,9 +234,9 @@ class AccountServiceTest {
                 .id(13L)
                 .name("Harry")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
+        given((accountNumberIndex.findByAccountNumber(anyString())))
                 .willReturn(Optional.of(
                         Account.builder()
                                 .accountUser(harry)
@@ -237,9 +260,9 @@ class AccountServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
+        given((accountNumberIndex.findByAccountNumber(anyString())))
                 .willReturn(Optional.of(
                         Account.builder()
                                 .accountUser(pobi)
@@ -264,9 +287,9 @@ class AccountServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
+        given((accountNumberIndex.findByAccountNumber(anyString())))
                 .willReturn(Optional.of(
                         Account.builder()
                                 .accountUser(pobi)
@@ -306,8 +329,8 @@ class AccountServiceTest {
                         .balance(3000L)
                         .build()
         );
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
         given(accountRepository.findAllByAccountUser(any()))
                 .willReturn(accounts);
         // when
@@ -325,8 +348,8 @@ class AccountServiceTest {
     @Test
     void failedGetAccountsByUserId() {
         // given
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.empty());
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willThrow(AccountException.of(ErrorCode.USER_NOT_FOUND));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -0,0 +1,158 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.AccountSummary;
+import com.zerobase.hseungho.account.dto.AccountSummaryInfo;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.AccountSummaryRepository;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSummaryServiceTest {
+
+    @Mock
+    private AccountSummaryRepository accountSummaryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountSummaryService accountSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        accountSummaryService = new AccountSummaryService(accountSummaryRepository, accountRepository,
+                accountUserRepository, transactionRepository, negativeCache, transactionManager);
+    }
+
+    @Test
+    @DisplayName("요약 행 하나로 응답")
+    void getSummary() {
+        // given
+        given(accountSummaryRepository.findById(12L))
+                .willReturn(Optional.of(AccountSummary.builder()
+                        .userId(12L)
+                        .accountCount(2)
+                        .totalBalance(3000L)
+                        .build()));
+        // when
+        AccountSummaryInfo summary = accountSummaryService.getSummary(12L);
+        // then
+        assertEquals(2, summary.getAccountCount());
+        assertEquals(3000L, summary.getTotalBalance());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("요약 행이 없으면 lock 을 잡고 계좌 테이블에서 계산해 채운다, 사용자도 없으면 실패")
+    void getSummary_Missing() {
+        // given
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+        given(accountUserRepository.existsById(13L))
+                .willReturn(false);
+        given(accountRepository.countByAccountUser_IdAndAccountStatus(12L, AccountStatus.IN_USE))
+                .willReturn(2L);
+        given(accountRepository.sumBalanceByUserId(12L, AccountStatus.IN_USE))
+                .willReturn(3000L);
+        given(transactionRepository.findLastTransactedAtByUserId(12L))
+                .willReturn(Optional.empty());
+        given(accountSummaryRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        AccountSummaryInfo summary = accountSummaryService.getSummary(12L);
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSummaryService.getSummary(13L));
+        // then
+        assertEquals(2, summary.getAccountCount());
+        assertEquals(3000L, summary.getTotalBalance());
+        InOrder inOrder = inOrder(accountUserRepository, accountSummaryRepository, accountRepository);
+        inOrder.verify(accountUserRepository).findByIdForUpdate(12L);
+        inOrder.verify(accountSummaryRepository).findByIdForUpdate(12L);
+        inOrder.verify(accountRepository).countByAccountUser_IdAndAccountStatus(12L, AccountStatus.IN_USE);
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액 변경은 요약 행에 증감만 더한다")
+    void applyBalanceDelta() {
+        // given
+        given(accountSummaryRepository.applyDelta(eq(12L), eq(0), eq(-1000L), any()))
+                .willReturn(1);
+        // when
+        accountSummaryService.onAccountChanged(new AccountChangedEvent(12L, "1000000012", 0, -1000L));
+        accountSummaryService.onAccountChanged(new AccountChangedEvent(12L, "1000000012"));
+        // then
+        verify(accountSummaryRepository, never()).save(any());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("첫 계좌를 만들면 계좌 테이블에서 계산해 요약 행을 만든다")
+    void createSummaryOnFirstAccount() {
+        // given
+        given(accountSummaryRepository.applyDelta(eq(12L), eq(1), eq(1000L), any()))
+                .willReturn(0);
+        given(accountRepository.countByAccountUser_IdAndAccountStatus(12L, AccountStatus.IN_USE))
+                .willReturn(1L);
+        given(accountRepository.sumBalanceByUserId(12L, AccountStatus.IN_USE))
+                .willReturn(1000L);
+        given(transactionRepository.findLastTransactedAtByUserId(12L))
+                .willReturn(Optional.empty());
+        ArgumentCaptor<AccountSummary> captor = ArgumentCaptor.forClass(AccountSummary.class);
+        // when
+        accountSummaryService.onAccountChanged(new AccountChangedEvent(12L, "1000000012", 1, 1000L));
+        // then
+        verify(accountSummaryRepository).save(captor.capture());
+        assertEquals(1, captor.getValue().getAccountCount());
+        assertEquals(1000L, captor.getValue().getTotalBalance());
+        assertNotNull(captor.getValue().getLastActivityAt());
+    }
+
+    @Test
+    @DisplayName("요약 행이 없는 사용자의 잔액 변경은 rebuild 에 맡긴다")
+    void skipBalanceDeltaWithoutSummary() {
+        // given
+        given(accountSummaryRepository.applyDelta(eq(12L), eq(0), eq(500L), any(LocalDateTime.class)))
+                .willReturn(0);
+        // when
+        accountSummaryService.onAccountChanged(new AccountChangedEvent(12L, "1000000012", 0, 500L));
+        // then
+        verify(accountSummaryRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,78 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountUserReaderTest {
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @InjectMocks
+    private AccountUserReader accountUserReader;
+
+    @Test
+    @DisplayName("사용자 조회 성공")
+    void getAccountUserSuccess() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        // when
+        AccountUser accountUser = accountUserReader.getAccountUser(12L);
+        // then
+        assertEquals(12L, accountUser.getId());
+        verify(negativeCache, never()).putMissingUser(anyLong());
+    }
+
+    @Test
+    @DisplayName("없는 사용자는 NegativeCache 에 기록 후 실패")
+    void getAccountUser_UserNotFound() {
+        // given
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.empty());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountUserReader.getAccountUser(1L));
+        // then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+        verify(negativeCache, times(1)).putMissingUser(1L);
+    }
+
+    @Test
+    @DisplayName("NegativeCache 에 있는 사용자는 DB 를 조회하지 않고 실패")
+    void getAccountUser_CachedMissingUser() {
+        // given
+        given(negativeCache.isMissingUser(anyLong()))
+                .willReturn(true);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountUserReader.getAccountUser(1L));
+        // then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+        verify(accountUserRepository, never()).findById(anyLong());
+    }
+}
@@ -0,0 +1,115 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.AdmissionController.Permit;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("노드 동시 처리 수가 limit 를 넘으면 거절")
+    void rejectOverNodeLimit() {
+        // given
+        AdmissionController admissionController = new AdmissionController(2, 1, 10, 500L, 0.5, now::get);
+        admissionController.acquire("1000000000", 1000L);
+        admissionController.acquire("1000000001", 1000L);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionController.acquire("1000000002", 1000L));
+        // then
+        assertEquals(ErrorCode.TRANSACTION_OVERLOADED, exception.getErrorCode());
+        assertEquals(2, admissionController.getInFlight());
+        assertEquals(1, admissionController.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("예상 대기 시간이 lock 대기 시간을 넘으면 거절")
+    void rejectWhenEstimatedWaitExceedsBudget() {
+        // given
+        AdmissionController admissionController = new AdmissionController(100, 1, 100, 500L, 0.5, now::get);
+        Permit first = admissionController.acquire("1000000000", 1000L);
+        now.addAndGet(400 * MILLIS);
+        admissionController.release(first, false);
+        admissionController.acquire("1000000000", 1000L);
+        admissionController.acquire("1000000000", 1000L);
+        admissionController.acquire("1000000000", 1000L);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionController.acquire("1000000000", 1000L));
+        Permit otherAccount = admissionController.acquire("1000000001", 1000L);
+        // then
+        assertEquals(ErrorCode.TRANSACTION_OVERLOADED, exception.getErrorCode());
+        assertEquals(0, otherAccount.getAhead());
+        assertEquals(4, admissionController.getInFlight());
+    }
+
+    @Test
+    @DisplayName("평균 처리 시간은 지연 기준에서 시작해서 첫 요청부터 예상 대기 시간으로 거절")
+    void seedServiceTimeWithLatencyThreshold() {
+        // given
+        AdmissionController admissionController = new AdmissionController(100, 1, 100, 500L, 0.5, now::get);
+        admissionController.acquire("1000000000", 400L);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> admissionController.acquire("1000000000", 400L));
+        // then
+        assertEquals(ErrorCode.TRANSACTION_OVERLOADED, exception.getErrorCode());
+        assertEquals(500 * MILLIS, admissionController.getServiceTimeNanos());
+    }
+
+    @Test
+    @DisplayName("느리면 limit 를 비율로 줄이되 응답 시간 한 번에 한 번만, 빠르면 조금씩 늘림")
+    void additiveIncreaseMultiplicativeDecrease() {
+        // given
+        AdmissionController admissionController = new AdmissionController(16, 2, 20, 500L, 0.5, now::get);
+        Permit slow = admissionController.acquire("1000000000", 1000L);
+        Permit startedBeforeDecrease = admissionController.acquire("1000000001", 1000L);
+        now.addAndGet(600 * MILLIS);
+        // when
+        admissionController.release(slow, false);
+        int afterSlow = admissionController.getLimit();
+        admissionController.release(startedBeforeDecrease, false);
+        int afterSameWindow = admissionController.getLimit();
+        Permit startedAfterDecrease = admissionController.acquire("1000000002", 1000L);
+        now.addAndGet(600 * MILLIS);
+        admissionController.release(startedAfterDecrease, false);
+        int afterNextWindow = admissionController.getLimit();
+        for (int i = 0; i < 10; i++) {
+            admissionController.release(admissionController.acquire("1000000000", 1000L), false);
+        }
+        // then
+        assertEquals(8, afterSlow);
+        assertEquals(8, afterSameWindow);
+        assertEquals(4, afterNextWindow);
+        assertTrue(admissionController.getLimit() > afterNextWindow);
+        assertEquals(0, admissionController.getInFlight());
+    }
+
+    @Test
+    @DisplayName("계좌 lock 경합(앞선 요청 대기, lock 대기 시간 초과)은 limit 를 바꾸지 않음")
+    void lockContentionDoesNotChangeLimit() {
+        // given
+        AdmissionController admissionController = new AdmissionController(10, 2, 20, 500L, 0.5, now::get);
+        Permit holder = admissionController.acquire("1000000000", 1000L);
+        Permit waiter = admissionController.acquire("1000000000", 1000L);
+        Permit timedOut = admissionController.acquire("1000000001", 1000L);
+        now.addAndGet(1000 * MILLIS);
+        // when
+        admissionController.release(waiter, false);
+        admissionController.release(timedOut, true);
+        // then
+        assertEquals(10, admissionController.getLimit());
+        assertEquals(500 * MILLIS, admissionController.getServiceTimeNanos());
+        assertEquals(1, admissionController.getInFlight());
+        assertEquals(0, holder.getAhead());
+    }
+}
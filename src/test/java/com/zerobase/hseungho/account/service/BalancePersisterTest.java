@@ -0,0 +1,156 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.event.AccountChangedEvent;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.PendingEntry;
+import org.redisson.api.RMap;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalancePersisterTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RStream<Object, Object> rStream;
+
+    @Mock
+    private RMap<Object, Object> rMap;
+
+    @Mock
+    private RedisBalanceEngine balanceEngine;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TransactionAggregator transactionAggregator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BalancePersister balancePersister;
+
+    private final StreamMessageId first = new StreamMessageId(1, 0);
+
+    private final StreamMessageId second = new StreamMessageId(2, 0);
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(redissonClient.getId())
+                .willReturn("node-a");
+        lenient().when(redissonClient.getMap(RedisBalanceEngine.PENDING_KEY, StringCodec.INSTANCE))
+                .thenReturn(rMap);
+        BalanceProjection balanceProjection = new BalanceProjection(transactionRepository,
+                accountRepository, outboxEventRepository, transactionAggregator, eventPublisher,
+                transactionManager);
+        balancePersister = new BalancePersister(redissonClient, balanceEngine, balanceProjection, 10, 30_000L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("새 항목을 한 트랜잭션으로 저장하고 계좌별 마지막 잔액만 반영")
+    void persistNewEntries() {
+        // given
+        Map<Object, Object> entries = new LinkedHashMap<>();
+        entries.put(first, entry("t1", "9000", "1"));
+        entries.put(second, entry("t2", "8000", "2"));
+        given(rStream.listPending(anyString(), any(), any(), anyLong(), any(), anyInt()))
+                .willReturn(List.of());
+        given(rStream.readGroup(eq(BalancePersister.GROUP), eq("node-a"), any(StreamReadGroupArgs.class)))
+                .willReturn((Map) entries);
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        // when
+        int persisted = balancePersister.flushBatch();
+        // then
+        assertEquals(2, persisted);
+        verify(transactionRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(8000L, saved.getValue().get(1).getBalanceSnapshot());
+        verify(outboxEventRepository, times(1)).saveAll(argThat(events -> ((List<?>) events).size() == 2));
+        verify(transactionAggregator, times(2)).recordAfterCommit(eq(1L), any(), any(), any(), anyLong());
+        verify(accountRepository, times(1)).advanceBalance(1L, 8000L, 2L);
+        verify(eventPublisher, times(1)).publishEvent(any(AccountChangedEvent.class));
+        verify(rStream).ack(BalancePersister.GROUP, first, second);
+        verify(rStream).remove(first, second);
+        verify(rMap).fastRemove("t1", "t2");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("다른 노드가 반영하지 못한 항목을 가져오고, 이미 저장된 거래는 건너뜀")
+    void claimIdleEntriesAndSkipSaved() {
+        // given
+        PendingEntry pending = new PendingEntry(first, "node-b", 60_000L, 1L);
+        given(rStream.listPending(anyString(), any(), any(), anyLong(), any(), anyInt()))
+                .willReturn(List.of(pending));
+        given(rStream.claim(eq(BalancePersister.GROUP), eq("node-a"), anyLong(), any(), eq(first)))
+                .willReturn((Map) Map.of(first, entry("t1", "9000", "1")));
+        given(rStream.readGroup(eq(BalancePersister.GROUP), eq("node-a"), any(StreamReadGroupArgs.class)))
+                .willReturn(Map.of());
+        given(transactionRepository.findTransactionIdsIn(any()))
+                .willReturn(List.of("t1"));
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        // when
+        balancePersister.flushBatch();
+        // then
+        verify(transactionRepository).saveAll(saved.capture());
+        assertTrue(saved.getValue().isEmpty());
+        verify(accountRepository, times(1)).advanceBalance(1L, 9000L, 1L);
+        verify(rStream).ack(BalancePersister.GROUP, first);
+    }
+
+    private static Map<String, String> entry(String transactionId, String balance, String sequence) {
+        Map<String, String> entry = new LinkedHashMap<>();
+        entry.put("accountId", "1");
+        entry.put("accountNumber", "1000000012");
+        entry.put("userId", "12");
+        entry.put("transactionId", transactionId);
+        entry.put("transactionType", "USE");
+        entry.put("transactionResultType", "S");
+        entry.put("amount", "1000");
+        entry.put("balance", balance);
+        entry.put("sequence", sequence);
+        entry.put("transactedAt", "2026-10-19T10:00:00");
+        return entry;
+    }
+}
@@ -0,0 +1,105 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.MonthlyTransactionRollup;
+import com.zerobase.hseungho.account.dto.BalanceVerification;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.MonthlyTransactionRollupRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository.TransactionEntry;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceVerificationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private MonthlyTransactionRollupRepository rollupRepository;
+
+    @InjectMocks
+    private BalanceVerificationService balanceVerificationService;
+
+    @Test
+    @DisplayName("최근 roll-up 의 마감 잔액부터 다음 달 거래만 더함")
+    void verifyFromRollup() {
+        // given
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder().id(7L).balance(800L).build()));
+        given(rollupRepository.findFirstByAccountIdAndRollupMonthBeforeOrderByRollupMonthDesc(anyLong(), any()))
+                .willReturn(Optional.of(MonthlyTransactionRollup.builder()
+                        .rollupMonth(LocalDate.of(2023, 4, 1))
+                        .closingBalance(1000L)
+                        .build()));
+        given(transactionRepository.streamByAccountIdFrom(7L, LocalDateTime.of(2023, 5, 1, 0, 0)))
+                .willReturn(Stream.of(
+                        new Entry("t1", TransactionType.USE, TransactionResultType.S, 300L, 700L),
+                        new Entry("t2", TransactionType.USE, TransactionResultType.F, 900L, 700L),
+                        new Entry("t3", TransactionType.CANCEL, TransactionResultType.S, 100L, 800L)));
+        // when
+        BalanceVerification verification = balanceVerificationService.verify("1000000012");
+        // then
+        assertTrue(verification.isMatched());
+        assertEquals(LocalDate.of(2023, 4, 1), verification.getRollupMonth());
+        assertEquals(1000L, verification.getOpeningBalance());
+        assertEquals(800L, verification.getExpectedBalance());
+        assertEquals(3L, verification.getScannedTransactions());
+    }
+
+    @Test
+    @DisplayName("roll-up 이 없으면 첫 거래 직전 잔액부터 더하고 어긋난 거래를 찾음")
+    void verifyWithoutRollup() {
+        // given
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(Account.builder().id(7L).balance(500L).build()));
+        given(rollupRepository.findFirstByAccountIdAndRollupMonthBeforeOrderByRollupMonthDesc(anyLong(), any()))
+                .willReturn(Optional.empty());
+        given(transactionRepository.streamByAccountIdFrom(anyLong(), any()))
+                .willReturn(Stream.of(
+                        new Entry("t1", TransactionType.USE, TransactionResultType.S, 300L, 700L),
+                        new Entry("t2", TransactionType.USE, TransactionResultType.S, 100L, 500L)));
+        // when
+        BalanceVerification verification = balanceVerificationService.verify("1000000012");
+        // then
+        assertFalse(verification.isMatched());
+        assertNull(verification.getRollupMonth());
+        assertEquals(1000L, verification.getOpeningBalance());
+        assertEquals(1L, verification.getMismatchCount());
+        assertEquals("t2", verification.getFirstMismatchTransactionId());
+        assertEquals(500L, verification.getExpectedBalance());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Entry implements TransactionEntry {
+        private final String transactionId;
+        private final TransactionType transactionType;
+        private final TransactionResultType transactionResultType;
+        private final Long amount;
+        private final Long balanceSnapshot;
+        private final LocalDateTime transactedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,180 @@
+package com.zerobase.hseungho.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerAccountLockProviderTest {
+
+    private static final AccountLockPolicy POLICY = AccountLockPolicy.DEFAULT;
+
+    @Mock
+    private AccountLockProvider primary;
+
+    @Mock
+    private AccountLockProvider secondary;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreakerAccountLockProvider provider() {
+        lenient().when(primary.getName()).thenReturn("primary");
+        lenient().when(secondary.getName()).thenReturn("secondary");
+        return new CircuitBreakerAccountLockProvider(List.of(primary, secondary), 2, 1000L, 5000L, now::get);
+    }
+
+    @Test
+    @DisplayName("주 백엔드 장애 시 다음 백엔드에서 lock, 해제도 같은 백엔드로")
+    void fallbackOnFailure() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"));
+        given(secondary.tryLock(anyString(), any()))
+                .willReturn(true);
+        // when
+        boolean isLock = provider.tryLock("1234", POLICY);
+        String grantedBy = provider.getGrantedProviderName("1234");
+        provider.unlock("1234");
+        // then
+        assertTrue(isLock);
+        assertEquals("secondary", grantedBy);
+        verify(secondary, times(1)).unlock("1234");
+        verify(primary, never()).unlock(anyString());
+    }
+
+    @Test
+    @DisplayName("경합으로 실패하면 다음 백엔드로 넘기지 않음")
+    void contentionDoesNotFallThrough() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willReturn(false);
+        // when
+        boolean isLock = provider.tryLock("1234", POLICY);
+        // then
+        assertFalse(isLock);
+        verify(secondary, never()).tryLock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("연속 실패 시 주 백엔드를 건너뛰고, open 시간이 지나면 다시 시도")
+    void openAndHalfOpen() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"))
+                .willThrow(new IllegalStateException("down"))
+                .willReturn(true);
+        given(secondary.tryLock(anyString(), any()))
+                .willReturn(true);
+        provider.tryLock("1", POLICY);
+        provider.tryLock("2", POLICY);
+        // when
+        provider.tryLock("3", POLICY);
+        now.addAndGet(1_000_000_000L);
+        provider.tryLock("4", POLICY);
+        // then
+        verify(primary, times(3)).tryLock(anyString(), any());
+        assertEquals("secondary", provider.getGrantedProviderName("3"));
+        assertEquals("primary", provider.getGrantedProviderName("4"));
+    }
+
+    @Test
+    @DisplayName("다시 닫힌 주 백엔드는 guard 시간 동안 다음 백엔드의 lock 도 잡고, 해제도 둘 다")
+    void guardAfterRecovery() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"))
+                .willThrow(new IllegalStateException("down"))
+                .willReturn(true);
+        given(secondary.tryLock(anyString(), any()))
+                .willReturn(true);
+        provider.tryLock("1", POLICY);
+        provider.tryLock("2", POLICY);
+        now.addAndGet(1_000_000_000L);
+        // when
+        provider.tryLock("3", POLICY);
+        provider.unlock("3");
+        now.addAndGet(5_000_000_000L);
+        provider.tryLock("4", POLICY);
+        // then
+        verify(secondary, times(1)).tryLock(eq("3"), any());
+        verify(primary, times(1)).unlock("3");
+        verify(secondary, times(1)).unlock("3");
+        verify(secondary, never()).tryLock(eq("4"), any());
+    }
+
+    @Test
+    @DisplayName("guard lock 을 경합으로 얻지 못하면 주 백엔드 lock 도 풀고 실패")
+    void guardContended() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"))
+                .willThrow(new IllegalStateException("down"))
+                .willReturn(true);
+        given(secondary.tryLock(anyString(), any()))
+                .willReturn(true, true, false);
+        provider.tryLock("1", POLICY);
+        provider.tryLock("2", POLICY);
+        now.addAndGet(1_000_000_000L);
+        // when
+        boolean isLock = provider.tryLock("3", POLICY);
+        // then
+        assertFalse(isLock);
+        assertNull(provider.getGrantedProviderName("3"));
+        verify(primary, times(1)).unlock("3");
+        verify(secondary, never()).unlock("3");
+    }
+
+    @Test
+    @DisplayName("다음 백엔드에는 앞 백엔드에서 쓴 시간을 뺀 대기 시간만 넘김")
+    void passRemainingWait() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willAnswer(invocation -> {
+                    now.addAndGet(300_000_000L);
+                    throw new IllegalStateException("down");
+                });
+        ArgumentCaptor<AccountLockPolicy> policy = ArgumentCaptor.forClass(AccountLockPolicy.class);
+        given(secondary.tryLock(anyString(), policy.capture()))
+                .willReturn(true);
+        // when
+        provider.tryLock("1234", POLICY);
+        // then
+        assertEquals(700L, policy.getValue().getWaitMillis());
+    }
+
+    @Test
+    @DisplayName("모든 백엔드 장애 시 예외")
+    void failClosed() throws InterruptedException {
+        // given
+        CircuitBreakerAccountLockProvider provider = provider();
+        given(primary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"));
+        given(secondary.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("down"));
+        // when
+        // then
+        assertThrows(IllegalStateException.class, () -> provider.tryLock("1234", POLICY));
+    }
+}
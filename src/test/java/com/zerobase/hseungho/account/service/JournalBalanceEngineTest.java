@@ -0,0 +1,184 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class JournalBalanceEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    @Mock
+    private BalanceProjection balanceProjection;
+
+    @TempDir
+    Path directory;
+
+    private JournalBalanceEngine balanceEngine;
+
+    private final CachedAccount account = new CachedAccount(1L, 12L, AccountStatus.IN_USE);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        lenient().when(accountRepository.findById(1L))
+                .thenReturn(Optional.of(Account.builder()
+                        .id(1L)
+                        .accountNumber("1000000012")
+                        .balance(10000L)
+                        .build()));
+        lenient().when(accountRepository.findByAccountNumber("1000000012"))
+                .thenReturn(Optional.of(Account.builder().id(1L).build()));
+        balanceEngine = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        balanceEngine.close();
+    }
+
+    @Test
+    @DisplayName("처음 거래하는 계좌는 DB 잔액에서 시작하고, 사용 결과를 캐시와 DB 반영 대기열에 둔다")
+    void applyUse() {
+        // given
+        // when
+        CachedTransaction transaction = balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "transactionId", LocalDateTime.now());
+        int projected = balanceEngine.projectBatch();
+        // then
+        assertEquals(9000L, transaction.getBalanceSnapshot());
+        assertEquals(9000L, balanceEngine.getBalance("1000000012", 1L));
+        verify(transactionCache, times(1)).put(transaction);
+        assertEquals(1, projected);
+        assertEquals(0, balanceEngine.getUnprojectedCount());
+    }
+
+    @Test
+    @DisplayName("잔액 부족 - 사용 실패, journal 에 남기지 않음")
+    void applyUse_AmountExceedBalance() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.apply("1000000012", account, TransactionType.USE,
+                        20000L, "transactionId", LocalDateTime.now()));
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(0, balanceEngine.projectBatch());
+        verify(balanceProjection, never()).project(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("실패 거래는 현재 잔액으로 기록")
+    void recordFailure() {
+        // given
+        ArgumentCaptor<List<BalanceChange>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        balanceEngine.recordFailure("1000000012", account, TransactionType.USE,
+                20000L, "transactionId", LocalDateTime.now());
+        balanceEngine.projectBatch();
+        // then
+        verify(balanceProjection).project(captor.capture());
+        BalanceChange change = captor.getValue().get(0);
+        assertEquals(TransactionResultType.F, change.getTransactionResultType());
+        assertEquals(10000L, change.getBalance());
+        assertEquals(1L, change.getSequence());
+    }
+
+    @Test
+    @DisplayName("재시작 시 snapshot 과 이후 journal 로 잔액을 복구하고 DB 에 반영하지 못한 변경을 다시 반영")
+    void recoverFromSnapshotAndJournal() throws IOException {
+        // given
+        balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "t1", LocalDateTime.now());
+        balanceEngine.takeSnapshot();
+        balanceEngine.apply("1000000012", account, TransactionType.USE,
+                2000L, "t2", LocalDateTime.now());
+        balanceEngine.apply("1000000012", account, TransactionType.CANCEL,
+                1000L, "t3", LocalDateTime.now());
+        balanceEngine.close();
+        // when
+        balanceEngine = open();
+        // then
+        assertEquals(8000L, balanceEngine.getBalance("1000000012", 1L));
+        assertEquals(3, balanceEngine.getUnprojectedCount());
+        verify(accountRepository, times(1)).findById(1L);
+        assertEquals(7000L, balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "t4", LocalDateTime.now()).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("지정에서 빠진 계좌의 잔액은 버리고, 다시 지정되면 DB 잔액으로 채운다")
+    void dropUnmanagedAccount() throws IOException {
+        // given
+        balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "t1", LocalDateTime.now());
+        balanceEngine.close();
+        balanceEngine = open(List.of("1000000013"));
+        balanceEngine.close();
+        // when
+        balanceEngine = open();
+        // then
+        assertEquals(10000L, balanceEngine.getBalance("1000000012", 1L));
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("DB 에 반영되기 전인 거래는 반영 대기열에서 찾는다")
+    void findPending() {
+        // given
+        balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "t1", LocalDateTime.now());
+        // when
+        Map<String, CachedTransaction> found = balanceEngine.findPending(List.of("t1", "t2"));
+        balanceEngine.projectBatch();
+        // then
+        assertEquals(9000L, found.get("t1").getBalanceSnapshot());
+        assertFalse(found.containsKey("t2"));
+        assertTrue(balanceEngine.findPending(List.of("t1")).isEmpty());
+    }
+
+    private JournalBalanceEngine open() throws IOException {
+        return open(List.of("1000000012"));
+    }
+
+    private JournalBalanceEngine open(List<String> accountNumbers) throws IOException {
+        JournalBalanceEngine engine = new JournalBalanceEngine(accountRepository, transactionCache,
+                balanceProjection, "journal", accountNumbers, directory.toString(), 1, 10, 5000L);
+        engine.open();
+        return engine;
+    }
+}
@@ -0,0 +1,34 @@
+package com.zerobase.hseungho.account.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+class LocalAccountLockProviderTest {
+
+    private final LocalAccountLockProvider localAccountLockProvider = new LocalAccountLockProvider(16);
+
+    @Test
+    void otherThreadWaitsUntilUnlock() throws Exception {
+        // given
+        Assertions.assertTrue(localAccountLockProvider.tryLock("1234", new AccountLockPolicy(0L, -1L, false, -1)));
+        // when
+        boolean whileHeld = CompletableFuture.supplyAsync(this::tryLockQuietly).get();
+        localAccountLockProvider.unlock("1234");
+        boolean afterUnlock = CompletableFuture.supplyAsync(this::tryLockQuietly).get();
+        // then
+        Assertions.assertFalse(whileHeld);
+        Assertions.assertTrue(afterUnlock);
+    }
+
+    private boolean tryLockQuietly() {
+        try {
+            boolean isLock = localAccountLockProvider.tryLock("1234", new AccountLockPolicy(10L, -1L, false, -1));
+            localAccountLockProvider.unlock("1234");
+            return isLock;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
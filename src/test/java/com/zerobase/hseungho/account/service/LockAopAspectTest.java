@@ -1,10 +1,15 @@
 package com.zerobase.hseungho.account.service;
 
+import com.zerobase.hseungho.account.aop.AccountLock;
+import com.zerobase.hseungho.account.controller.TransactionController;
 import com.zerobase.hseungho.account.dto.UseBalance;
 import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.TransactionGuard.Entry;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -12,7 +17,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.reflect.Method;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,53 +33,105 @@ import static org.mockito.Mockito.verify;
 class LockAopAspectTest {
 
     @Mock
-    private LockService lockService;
+    private TransactionGuard transactionGuard;
 
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private MethodSignature methodSignature;
+
+    @Mock
+    private Entry entry;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        given(proceedingJoinPoint.getSignature())
+                .willReturn(methodSignature);
+        given(methodSignature.getMethod())
+                .willReturn(useBalanceMethod());
+        given(transactionGuard.enter(any(), any(), any(), any()))
+                .willReturn(entry);
+    }
+
     @Test
     void lockAndUnlock() throws Throwable {
         // given
-        ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<UseBalance.Request> requestArgumentCaptor = ArgumentCaptor.forClass(UseBalance.Request.class);
+        UseBalance.Response response = UseBalance.Response.builder().accountNumber("1234").build();
+        given(proceedingJoinPoint.proceed())
+                .willReturn(response);
 
         UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
         // when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock(), request);
 
         // then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
-        Assertions.assertEquals("1234", lockArgumentCaptor.getValue());
-        Assertions.assertEquals("1234", unLockArgumentCaptor.getValue());
+        verify(transactionGuard, times(1)).enter(any(), any(), requestArgumentCaptor.capture(), isNull());
+        verify(transactionGuard, times(1)).exit(entry, response);
+        Assertions.assertEquals("1234", requestArgumentCaptor.getValue().getAccountNumber());
     }
 
     @Test
     void lockAndUnlock_evenIfThrow() throws Throwable {
         // given
-        ArgumentCaptor<String> lockArgumentCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> unLockArgumentCaptor = ArgumentCaptor.forClass(String.class);
-
         UseBalance.Request request = new UseBalance.Request(123L, "54321", 1000L);
         given(proceedingJoinPoint.proceed())
-                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                .willThrow(AccountException.of(ErrorCode.ACCOUNT_NOT_FOUND));
 
         // when
         Assertions.assertThrows(
                 AccountException.class,
-                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, request)
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock(), request)
         );
 
         // then
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
-        Assertions.assertEquals("54321", lockArgumentCaptor.getValue());
-        Assertions.assertEquals("54321", unLockArgumentCaptor.getValue());
+        verify(transactionGuard, times(1)).enter(any(), any(), eq(request), any());
+        verify(transactionGuard, times(1)).exit(entry, null);
     }
 
+    @Test
+    void lockWithAnnotationPolicy() throws Throwable {
+        // given
+        ArgumentCaptor<AccountLockPolicy> policyArgumentCaptor = ArgumentCaptor.forClass(AccountLockPolicy.class);
 
-}
\ No newline at end of file
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock(), request);
+
+        // then
+        verify(transactionGuard, times(1)).enter(any(), policyArgumentCaptor.capture(), any(), any());
+        Assertions.assertEquals(1000L, policyArgumentCaptor.getValue().getWaitMillis());
+        Assertions.assertEquals(8, policyArgumentCaptor.getValue().getMaxQueueDepth());
+    }
+
+    @Test
+    void replayWithoutProceed() throws Throwable {
+        // given
+        UseBalance.Response stored = mock(UseBalance.Response.class);
+        given(entry.isReplayed())
+                .willReturn(true);
+        given(transactionGuard.replay(entry, UseBalance.Response.class))
+                .willReturn(stored);
+
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        // when
+        Object response = lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock(), request);
+
+        // then
+        Assertions.assertSame(stored, response);
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(transactionGuard, times(1)).exit(entry, null);
+    }
+
+    private Method useBalanceMethod() throws NoSuchMethodException {
+        return TransactionController.class.getMethod("useBalance", UseBalance.Request.class);
+    }
+
+    private AccountLock accountLock() throws NoSuchMethodException {
+        return useBalanceMethod().getAnnotation(AccountLock.class);
+    }
+}
@@ -8,20 +8,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
 
     @Mock
-    private RedissonClient redissonClient;
+    private AccountLockProvider accountLockProvider;
 
     @Mock
-    private RLock rLock;
+    private FencingTokenIssuer fencingTokenIssuer;
 
     @InjectMocks
     private LockService lockService;
@@ -29,24 +32,25 @@ class LockServiceTest {
     @Test
     void successGetLock() throws InterruptedException {
         // given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(accountLockProvider.tryLock(anyString(), any()))
                 .willReturn(true);
+        given(fencingTokenIssuer.issue())
+                .willReturn(3L);
         // when
         // then
         Assertions.assertDoesNotThrow(
                 () -> lockService.lock("1234")
         );
-
+        Assertions.assertEquals(3L, lockService.getFencingToken().getAsLong());
+        lockService.unlock("1234");
+        Assertions.assertFalse(lockService.getFencingToken().isPresent());
+        verify(accountLockProvider, times(1)).unlock("1234");
     }
 
     @Test
     void failGetLock() throws InterruptedException {
         // given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(accountLockProvider.tryLock(anyString(), any()))
                 .willReturn(false);
         // when
         AccountException exception = Assertions.assertThrows(
@@ -56,4 +60,90 @@ class LockServiceTest {
         // then
         Assertions.assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void failClosedWhenBackendDown() throws InterruptedException {
+        // given
+        given(accountLockProvider.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("No lock provider available"));
+        // when
+        AccountException exception = Assertions.assertThrows(
+                AccountException.class,
+                () -> lockService.lock("1234")
+        );
+        // then
+        Assertions.assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void failFastWhenQueueIsFull() throws Exception {
+        // given
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(accountLockProvider.tryLock(anyString(), any()))
+                .willAnswer(invocation -> {
+                    waiting.countDown();
+                    release.await();
+                    return false;
+                });
+        AccountLockPolicy policy = new AccountLockPolicy(1000L, -1L, false, 0);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                lockService.lock("1234", policy);
+            } catch (AccountException ignored) {
+            }
+        });
+        waiting.await();
+        // when
+        AccountException exception = Assertions.assertThrows(
+                AccountException.class,
+                () -> lockService.lock("1234", policy)
+        );
+        release.countDown();
+        first.get();
+        // then
+        Assertions.assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        Assertions.assertEquals(1L, lockService.getShedCount());
+        Assertions.assertEquals(0, lockService.getQueueDepth("1234"));
+        verify(accountLockProvider, times(1)).tryLock(anyString(), any());
+    }
+
+    @Test
+    void queueLimitCountsHolder() throws Exception {
+        // given
+        CountDownLatch waiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(accountLockProvider.tryLock(anyString(), any()))
+                .willReturn(true)
+                .willAnswer(invocation -> {
+                    waiting.countDown();
+                    release.await();
+                    return false;
+                });
+        given(fencingTokenIssuer.issue())
+                .willReturn(1L);
+        AccountLockPolicy policy = new AccountLockPolicy(1000L, -1L, false, 1);
+        lockService.lock("1234", policy);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            try {
+                lockService.lock("1234", policy);
+            } catch (AccountException ignored) {
+            }
+        });
+        waiting.await();
+        // when
+        AccountException exception = CompletableFuture.supplyAsync(() -> Assertions.assertThrows(
+                AccountException.class,
+                () -> lockService.lock("1234", policy)
+        )).get();
+        int depthWhileFull = lockService.getQueueDepth("1234");
+        release.countDown();
+        second.get();
+        lockService.unlock("1234");
+        // then
+        Assertions.assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        Assertions.assertEquals(2, depthWhileFull);
+        Assertions.assertEquals(0, lockService.getQueueDepth("1234"));
+        verify(accountLockProvider, times(2)).tryLock(anyString(), any());
+    }
+}
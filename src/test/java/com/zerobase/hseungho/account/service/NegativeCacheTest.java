@@ -0,0 +1,73 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.event.AccountUserCreatedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NegativeCacheTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic rTopic;
+
+    private NegativeCache negativeCache;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getTopic(anyString()))
+                .willReturn(rTopic);
+        negativeCache = new NegativeCache(redissonClient, 100, Duration.ofSeconds(30));
+        negativeCache.subscribe();
+    }
+
+    @Test
+    @DisplayName("없는 사용자는 다시 조회해도 캐시에서 응답하고, 생성되면 제거 후 전파")
+    void missingUserIsCachedUntilCreated() {
+        // given
+        negativeCache.putMissingUser(1L);
+        // when
+        boolean cached = negativeCache.isMissingUser(1L);
+        negativeCache.onAccountUserCreated(new AccountUserCreatedEvent(1L));
+        // then
+        assertTrue(cached);
+        assertFalse(negativeCache.isMissingUser(1L));
+        verify(rTopic, times(1)).publish("U:1");
+        assertEquals(1, negativeCache.getMissingUsers().getHitCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("다른 노드의 계좌 생성 메시지로 없는 계좌 캐시 제거")
+    void remoteAccountInvalidation() {
+        // given
+        ArgumentCaptor<MessageListener<String>> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(rTopic).addListener(eq(String.class), captor.capture());
+        negativeCache.putMissingAccount("1000000012");
+        // when
+        captor.getValue().onMessage("NEGATIVE:INVALIDATE", "A:1000000012");
+        // then
+        assertFalse(negativeCache.isMissingAccount("1000000012"));
+        verify(rTopic, times(0)).publish(any());
+    }
+}
@@ -0,0 +1,126 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.OutboxEvent;
+import com.zerobase.hseungho.account.event.BalanceEvent;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxEventSink sink;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getLock("OUTBOX:RELAY:1"))
+                .willReturn(lock);
+        outboxRelay = new OutboxRelay(outboxEventRepository, sink, redissonClient, transactionManager,
+                true, 2, 2, 100L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("partition 의 이벤트를 id 순서로 보내고 지우며, batch 가 가득 차면 이어서 보낸다")
+    void relayInOrder() {
+        // given
+        given(lock.tryLock())
+                .willReturn(true);
+        given(outboxEventRepository.findOldest(eq(2), eq(1), any(Pageable.class)))
+                .willReturn(List.of(event(1L), event(2L)), List.of(event(3L)));
+        ArgumentCaptor<List<BalanceEvent>> published = ArgumentCaptor.forClass(List.class);
+        // when
+        outboxRelay.relay(1);
+        // then
+        verify(sink, times(2)).publish(published.capture());
+        assertEquals(1L, published.getAllValues().get(0).get(0).getEventId());
+        assertEquals(3L, published.getAllValues().get(1).get(0).getEventId());
+        verify(outboxEventRepository).deleteByIdIn(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteByIdIn(List.of(3L));
+        assertEquals(3L, outboxRelay.getRelayedCount());
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("sink 가 실패하면 지우지 않고 다음에 같은 batch 를 다시 보낸다")
+    void keepEventsWhenSinkFails() {
+        // given
+        given(lock.tryLock())
+                .willReturn(true);
+        given(outboxEventRepository.findOldest(eq(2), eq(1), any(Pageable.class)))
+                .willReturn(List.of(event(1L)));
+        willThrow(new IllegalStateException("down"))
+                .given(sink).publish(anyList());
+        // when
+        outboxRelay.relay(1);
+        // then
+        verify(outboxEventRepository, never()).deleteByIdIn(any());
+        assertEquals(0L, outboxRelay.getRelayedCount());
+        assertEquals(1L, outboxRelay.getFailedCount());
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("다른 노드가 partition 을 보내는 중이면 넘긴다")
+    void skipWhenPartitionIsHeld() {
+        // given
+        given(lock.tryLock())
+                .willReturn(false);
+        // when
+        outboxRelay.relay(1);
+        // then
+        verify(outboxEventRepository, never()).findOldest(anyInt(), anyInt(), any());
+        verify(lock, never()).unlock();
+    }
+
+    private static OutboxEvent event(Long id) {
+        return OutboxEvent.builder()
+                .id(id)
+                .accountId(1L)
+                .accountNumber("1000000012")
+                .transactionId("t" + id)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
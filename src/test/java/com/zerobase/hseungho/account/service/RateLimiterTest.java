@@ -0,0 +1,155 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.aop.RateLimit;
+import com.zerobase.hseungho.account.controller.TransactionController;
+import com.zerobase.hseungho.account.dto.CancelBalance;
+import com.zerobase.hseungho.account.dto.UseBalance;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimiterTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript rScript;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getScript(StringCodec.INSTANCE))
+                .willReturn(rScript);
+        given(rScript.scriptLoad(anyString()))
+                .willReturn("sha");
+        rateLimiter = new RateLimiter(redissonClient, environment, 100, now::get);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("사용자와 계좌 bucket 을 한 번에 검사")
+    void acquireChecksUserAndAccountBuckets() throws Exception {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, 0L, 0L));
+        ArgumentCaptor<List<Object>> keys = ArgumentCaptor.forClass(List.class);
+        // when
+        rateLimiter.acquire(rateLimit("useBalance", UseBalance.Request.class), 1L, "1000000000");
+        // then
+        verify(rScript).evalSha(eq(RScript.Mode.READ_WRITE), eq("sha"), eq(RScript.ReturnType.MULTI),
+                keys.capture(), eq("1000000"), eq("20"), eq("10.0"), eq("10"), eq("5.0"));
+        assertEquals(Arrays.asList("RL:use:U:1", "RL:use:A:1000000000"), keys.getValue());
+    }
+
+    @Test
+    @DisplayName("거절된 bucket 은 다시 시도할 수 있을 때까지 Redis 없이 거절")
+    void rejectedBucketIsRejectedLocally() throws Exception {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(0L, 500L, 2L));
+        RateLimit rateLimit = rateLimit("useBalance", UseBalance.Request.class);
+        // when
+        AccountException first = assertThrows(AccountException.class,
+                () -> rateLimiter.acquire(rateLimit, 1L, "1000000000"));
+        now.addAndGet(499L);
+        AccountException second = assertThrows(AccountException.class,
+                () -> rateLimiter.acquire(rateLimit, 2L, "1000000000"));
+        // then
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, first.getErrorCode());
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, second.getErrorCode());
+        assertTrue(first.getErrorMessage().endsWith("(500ms)"));
+        assertTrue(second.getErrorMessage().endsWith("(1ms)"));
+        verify(rScript, times(1)).evalSha(any(), anyString(), any(), anyList(), any());
+        assertEquals(1, rateLimiter.getRemoteRejectedCount());
+        assertEquals(1, rateLimiter.getLocalRejectedCount());
+    }
+
+    @Test
+    @DisplayName("계좌 bucket 이 비어도 같은 사용자의 다른 계좌는 Redis 로 검사")
+    void otherAccountOfLimitedUserIsCheckedRemotely() throws Exception {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(0L, 500L, 2L), Arrays.asList(1L, 0L, 0L));
+        RateLimit rateLimit = rateLimit("useBalance", UseBalance.Request.class);
+        // when
+        assertThrows(AccountException.class,
+                () -> rateLimiter.acquire(rateLimit, 1L, "1000000000"));
+        rateLimiter.acquire(rateLimit, 1L, "1000000001");
+        // then
+        verify(rScript, times(2)).evalSha(any(), anyString(), any(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("설정값이 annotation 속성보다 우선")
+    void environmentOverridesAnnotation() throws Exception {
+        // given
+        environment.setProperty("account.rate-limit.cancel.account-capacity", "3");
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, 0L, 0L));
+        // when
+        rateLimiter.acquire(rateLimit("cancelBalance", CancelBalance.Request.class), null, "1000000000");
+        // then
+        verify(rScript).evalSha(any(), anyString(), any(),
+                eq(List.of("RL:cancel:A:1000000000")), eq("1000000"), eq("3"), eq("1.0"));
+    }
+
+    @Test
+    @DisplayName("script 가 사라졌으면 다시 올리고 재시도")
+    void reloadScriptOnNoScript() throws Exception {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willThrow(new RedisException("NOSCRIPT No matching script"))
+                .willReturn(Arrays.asList(1L, 0L, 0L));
+        // when
+        rateLimiter.acquire(rateLimit("useBalance", UseBalance.Request.class), 1L, "1000000000");
+        // then
+        verify(rScript, times(2)).scriptLoad(anyString());
+        verify(rScript, times(2)).evalSha(any(), anyString(), any(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Redis 장애 시에는 제한하지 않음")
+    void allowWhenRedisFails() throws Exception {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willThrow(new RedisException("connection refused"));
+        // when
+        // then
+        assertDoesNotThrow(() -> rateLimiter.acquire(
+                rateLimit("useBalance", UseBalance.Request.class), 1L, "1000000000"));
+    }
+
+    private static RateLimit rateLimit(String methodName, Class<?> requestType) throws NoSuchMethodException {
+        return TransactionController.class
+                .getMethod(methodName, requestType)
+                .getAnnotation(RateLimit.class);
+    }
+}
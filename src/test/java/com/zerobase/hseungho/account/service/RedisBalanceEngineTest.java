@@ -0,0 +1,266 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RKeys;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBalanceEngineTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript rScript;
+
+    @Mock
+    private RStream<Object, Object> rStream;
+
+    @Mock
+    private RBucket<Object> rBucket;
+
+    @Mock
+    private RMap<Object, Object> rMap;
+
+    @Mock
+    private RSet<Object> rSet;
+
+    @Mock
+    private RKeys rKeys;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    private RedisBalanceEngine balanceEngine;
+
+    private final CachedAccount account = new CachedAccount(1L, 12L, AccountStatus.IN_USE);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redissonClient.getScript(StringCodec.INSTANCE))
+                .thenReturn(rScript);
+        lenient().when(rScript.scriptLoad(anyString()))
+                .thenReturn("sha");
+        balanceEngine = new RedisBalanceEngine(redissonClient, accountRepository, transactionCache,
+                "redis", List.of("1000000012", " "));
+    }
+
+    @Test
+    @DisplayName("지정한 계좌만 엔진으로 처리")
+    void managedAccounts() {
+        // given
+        // when
+        // then
+        assertTrue(balanceEngine.isEnabled());
+        assertTrue(balanceEngine.isManaged("1000000012"));
+        assertFalse(balanceEngine.isManaged("1000000013"));
+    }
+
+    @Test
+    @DisplayName("다른 엔진을 고르면 지정한 계좌도 처리하지 않음")
+    void otherEngineType() {
+        // given
+        RedisBalanceEngine journalSelected = new RedisBalanceEngine(redissonClient, accountRepository,
+                transactionCache, "journal", List.of("1000000012"));
+        // when
+        // then
+        assertFalse(journalSelected.isEnabled());
+        assertFalse(journalSelected.isManaged("1000000012"));
+    }
+
+    @Test
+    @DisplayName("사용 성공 - script 결과 잔액으로 거래를 만들고 캐시에 둔다")
+    void applyUse() {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, 9000L, 3L));
+        // when
+        CachedTransaction transaction = balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "transactionId", LocalDateTime.now());
+        // then
+        assertEquals(9000L, transaction.getBalanceSnapshot());
+        assertEquals(1L, transaction.getAccountId());
+        verify(transactionCache, times(1)).put(transaction);
+    }
+
+    @Test
+    @DisplayName("잔액 부족 - 사용 실패")
+    void applyUse_AmountExceedBalance() {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(0L, 500L, 0L));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.apply("1000000012", account, TransactionType.USE,
+                        1000L, "transactionId", LocalDateTime.now()));
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액 key 가 없으면 반영되지 않은 stream 의 마지막 잔액으로 채운다")
+    void rebuildFromStream() {
+        // given
+        given(rScript.evalSha(any(), anyString(), any(), anyList(), any()))
+                .willReturn(Arrays.asList(-1L, 0L, 0L), Arrays.asList(1L, 6000L, 8L));
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(rStream.range(anyInt(), any(), any()))
+                .willReturn(Map.of(
+                        new StreamMessageId(1, 0), Map.of("accountId", "1", "balance", "7000", "sequence", "7")));
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        // when
+        balanceEngine.apply("1000000012", account, TransactionType.USE,
+                1000L, "transactionId", LocalDateTime.now());
+        // then
+        verify(rScript, times(2)).evalSha(any(), anyString(), any(), anyList(), args.capture());
+        List<Object> retried = args.getAllValues().subList(10, 20);
+        assertEquals("7000", retried.get(8));
+        assertEquals("7", retried.get(9));
+        verify(accountRepository, times(0)).findById(any());
+    }
+
+    @Test
+    @DisplayName("stream 에 남은 변경이 없으면 DB 잔액으로 채운다")
+    void rebuildFromDatabase() {
+        // given
+        given(redissonClient.getBucket("BAL:1000000012", StringCodec.INSTANCE))
+                .willReturn(rBucket);
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(rStream.range(anyInt(), any(), any()))
+                .willReturn(Map.of());
+        given(accountRepository.findById(1L))
+                .willReturn(Optional.of(Account.builder().balance(5000L).build()));
+        // when
+        long balance = balanceEngine.getBalance("1000000012", 1L);
+        // then
+        assertEquals(5000L, balance);
+    }
+
+    @Test
+    @DisplayName("DB 에 반영되기 전인 거래는 BAL:PENDING 과 stream 에서 찾는다")
+    void findPending() {
+        // given
+        StreamMessageId id = new StreamMessageId(5, 1);
+        Map<Object, Object> entry = Map.of("accountId", "1", "accountNumber", "1000000012", "userId", "12",
+                "transactionId", "t1", "transactionType", "USE", "transactionResultType", "S",
+                "amount", "1000", "balance", "9000", "sequence", "3", "transactedAt", "2026-10-19T10:00:00");
+        given(redissonClient.getMap(RedisBalanceEngine.PENDING_KEY, StringCodec.INSTANCE))
+                .willReturn(rMap);
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(rMap.getAll(Set.of("t1", "t2")))
+                .willReturn(Map.of("t1", "5-1"));
+        given(rStream.range(1, id, id))
+                .willReturn(Map.of(id, entry));
+        // when
+        Map<String, CachedTransaction> found = balanceEngine.findPending(List.of("t1", "t2"));
+        // then
+        assertEquals(Set.of("t1"), found.keySet());
+        assertEquals(9000L, found.get("t1").getBalanceSnapshot());
+        assertEquals("1000000012", found.get("t1").getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("시작 시 엔진에서 빠졌거나 새로 지정된 계좌의 잔액 key 를 지운다")
+    void reconcileAccounts() {
+        // given
+        given(redissonClient.getSet(RedisBalanceEngine.ACCOUNTS_KEY, StringCodec.INSTANCE))
+                .willReturn(rSet);
+        given(redissonClient.getKeys())
+                .willReturn(rKeys);
+        given(rSet.readAll())
+                .willReturn(Set.of("1000000013"));
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(rStream.range(anyInt(), any(), any()))
+                .willReturn(Map.of(
+                        new StreamMessageId(1, 0), Map.of("accountId", "2", "accountNumber", "1000000012")));
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        // when
+        balanceEngine.reconcileAccounts();
+        // then
+        verify(rKeys).delete(keys.capture());
+        assertEquals(Set.of("BAL:1000000013", "BAL:1000000013:SEQ", "BAL:1000000012", "BAL:1000000012:SEQ"),
+                Set.copyOf(keys.getAllValues()));
+        verify(rSet).removeAll(Set.of("1000000013"));
+        verify(rSet).addAll(Set.of("1000000012"));
+    }
+
+    @Test
+    @DisplayName("엔진에서 빠진 계좌의 변경이 stream 에 남아 있으면 잔액 key 를 지우지 않고 시작하지 않는다")
+    void reconcileAccounts_Unpersisted() {
+        // given
+        RedisBalanceEngine journalSelected = new RedisBalanceEngine(redissonClient, accountRepository,
+                transactionCache, "journal", List.of("1000000012"));
+        given(redissonClient.getSet(RedisBalanceEngine.ACCOUNTS_KEY, StringCodec.INSTANCE))
+                .willReturn(rSet);
+        given(rSet.readAll())
+                .willReturn(Set.of("1000000012"));
+        given(redissonClient.getStream(RedisBalanceEngine.STREAM_KEY, StringCodec.INSTANCE))
+                .willReturn(rStream);
+        given(rStream.range(anyInt(), any(), any()))
+                .willReturn(Map.of(
+                        new StreamMessageId(1, 0), Map.of("accountId", "1", "accountNumber", "1000000012")));
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                journalSelected::reconcileAccounts);
+        // then
+        assertTrue(exception.getMessage().contains("1000000012"));
+        verify(redissonClient, times(0)).getKeys();
+        verify(rSet, times(0)).removeAll(any());
+    }
+
+    @Test
+    @DisplayName("지정된 계좌가 그대로면 잔액 key 를 지우지 않는다")
+    void reconcileAccounts_Unchanged() {
+        // given
+        given(redissonClient.getSet(RedisBalanceEngine.ACCOUNTS_KEY, StringCodec.INSTANCE))
+                .willReturn(rSet);
+        given(rSet.readAll())
+                .willReturn(Set.of("1000000012"));
+        // when
+        balanceEngine.reconcileAccounts();
+        // then
+        verify(redissonClient, times(0)).getKeys();
+    }
+}
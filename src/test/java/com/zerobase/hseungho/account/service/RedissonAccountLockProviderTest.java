@@ -0,0 +1,82 @@
+package com.zerobase.hseungho.account.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonAccountLockProviderTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    @InjectMocks
+    private RedissonAccountLockProvider redissonAccountLockProvider;
+
+    @Test
+    void tryLockWithoutLease() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), any()))
+                .willReturn(true);
+        // when
+        boolean isLock = redissonAccountLockProvider.tryLock("1234", AccountLockPolicy.DEFAULT);
+        // then
+        Assertions.assertTrue(isLock);
+        verify(rLock, times(1)).tryLock(1000L, TimeUnit.MILLISECONDS);
+        verify(redissonClient).getLock("ACLK:1234");
+    }
+
+    @Test
+    void fairLockWithLease() throws InterruptedException {
+        // given
+        given(redissonClient.getFairLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(rLock.isHeldByCurrentThread())
+                .willReturn(true);
+        // when
+        boolean isLock = redissonAccountLockProvider.tryLock(
+                "1234", new AccountLockPolicy(200L, 3000L, true, -1));
+        redissonAccountLockProvider.unlock("1234");
+        // then
+        Assertions.assertTrue(isLock);
+        verify(rLock, times(1)).tryLock(200L, 3000L, TimeUnit.MILLISECONDS);
+        verify(rLock, times(1)).unlock();
+    }
+
+    @Test
+    void unlockReleasedLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), any()))
+                .willReturn(true);
+        given(rLock.isHeldByCurrentThread())
+                .willReturn(false);
+        // when
+        redissonAccountLockProvider.tryLock("1234", AccountLockPolicy.DEFAULT);
+        Assertions.assertDoesNotThrow(
+                () -> redissonAccountLockProvider.unlock("1234")
+        );
+        // then
+        verify(rLock, times(0)).unlock();
+    }
+}
@@ -0,0 +1,203 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementFileTest {
+
+    @TempDir
+    Path directory;
+
+    private final YearMonth month = YearMonth.of(2023, 5);
+
+    private final LocalDateTime transactedAt = LocalDateTime.of(2023, 5, 4, 9, 5, 7);
+
+    @Test
+    @DisplayName("계좌마다 시작, 거래, 마감 줄을 쓰고 계좌번호로 구간을 찾음")
+    void writeAndFind() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("1000000001", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            writer.add("1000000001", 1000L, "t2", TransactionType.USE, TransactionResultType.F,
+                    900L, 700L, transactedAt.plusHours(1));
+            writer.add("1000000002", null, "t3", TransactionType.CANCEL, TransactionResultType.S,
+                    200L, 200L, transactedAt);
+            assertEquals(2, writer.commit());
+        }
+        // when
+        Optional<StatementFile.Region> first = statementFile.find(month, "1000000001");
+        Optional<StatementFile.Region> second = statementFile.find(month, "1000000002");
+        // then
+        assertTrue(statementFile.exists(month));
+        String[] lines = read(first.orElseThrow()).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("H 1000000001"));
+        assertTrue(lines[0].contains("2023-05"));
+        assertTrue(lines[0].trim().endsWith("1000"));
+        assertTrue(lines[1].startsWith("T 2023-05-04 09:05:07 USE    S"));
+        assertTrue(lines[1].trim().endsWith("t1"));
+        assertTrue(lines[3].startsWith("F          2"));
+        assertTrue(lines[3].trim().endsWith("700"));
+        String[] secondLines = read(second.orElseThrow()).split("\n");
+        assertEquals(3, secondLines.length);
+        assertTrue(secondLines[0].trim().endsWith(" 0"));
+        assertEquals(StatementFile.LINE_LENGTH * 4, first.get().getLength());
+    }
+
+    @Test
+    @DisplayName("내역서가 없는 계좌와 만들지 않은 달은 찾지 못함")
+    void findMissing() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("1000000001", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            writer.commit();
+        }
+        // when
+        // then
+        assertFalse(statementFile.find(month, "1000000000").isPresent());
+        assertFalse(statementFile.find(month, "1000000009").isPresent());
+        assertFalse(statementFile.find(month.plusMonths(1), "1000000001").isPresent());
+    }
+
+    @Test
+    @DisplayName("계좌번호 길이가 달라도 숫자 순서로 쓴 계좌를 찾음")
+    void findByNumericOrder() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("999", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            writer.add("1000000001", 1000L, "t2", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            writer.add("9000000000", 1000L, "t3", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            writer.commit();
+        }
+        // when
+        // then
+        assertTrue(read(statementFile.find(month, "999").orElseThrow()).startsWith("H 999 "));
+        assertTrue(read(statementFile.find(month, "1000000001").orElseThrow()).startsWith("H 1000000001"));
+        assertTrue(read(statementFile.find(month, "9000000000").orElseThrow()).startsWith("H 9000000000"));
+    }
+
+    @Test
+    @DisplayName("계좌번호 순서가 아니면 쓰지 않음")
+    void outOfOrder() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("1000000001", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            // when
+            // then
+            assertThrows(IllegalStateException.class, () -> writer.add("999", 1000L, "t2",
+                    TransactionType.USE, TransactionResultType.S, 300L, 700L, transactedAt));
+        }
+        assertFalse(statementFile.exists(month));
+    }
+
+    @Test
+    @DisplayName("거래가 없는 계좌는 시작, 마감 줄만 씀")
+    void withoutTransactions() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.addWithoutTransactions("1000000001", 500L);
+            writer.add("1000000002", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+            assertEquals(2, writer.commit());
+        }
+        // when
+        String[] lines = read(statementFile.find(month, "1000000001").orElseThrow()).split("\n");
+        // then
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].trim().endsWith(" 500"));
+        assertTrue(lines[1].startsWith("F          0"));
+        assertTrue(lines[1].trim().endsWith(" 500"));
+    }
+
+    @Test
+    @DisplayName("커밋하지 않고 닫으면 임시 파일을 지우고 이전 내역서를 남김")
+    void closeWithoutCommit() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        // when
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("1000000001", 1000L, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, 700L, transactedAt);
+        }
+        // then
+        assertFalse(statementFile.exists(month));
+        try (var files = Files.list(directory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("다시 만들어도 먼저 찾은 구간은 이전 세대의 파일을 그대로 보내고, 그 이전 세대는 지움")
+    void regenerate() throws IOException {
+        // given
+        StatementFile statementFile = new StatementFile(directory.toString());
+        write(statementFile, 1000L);
+        StatementFile.Region first = statementFile.find(month, "1000000001").orElseThrow();
+        // when
+        write(statementFile, 2000L);
+        StatementFile.Region second = statementFile.find(month, "1000000001").orElseThrow();
+        write(statementFile, 3000L);
+        // then
+        assertNotEquals(first.getPath(), second.getPath());
+        assertThrows(IOException.class, () -> read(first));
+        assertTrue(read(second).startsWith("H 1000000001"));
+        assertTrue(read(second).split("\n")[0].trim().endsWith(" 2000"));
+        assertTrue(read(statementFile.find(month, "1000000001").orElseThrow()).split("\n")[0].trim()
+                .endsWith(" 3000"));
+        try (var files = Files.list(directory)) {
+            assertEquals(3L, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("파일이 구간보다 짧으면 보내지 않고 실패")
+    void transferShortFile() throws IOException {
+        // given
+        Path path = directory.resolve("short.dat");
+        Files.write(path, new byte[10]);
+        StatementFile.Region region = new StatementFile.Region(path, 0L, 20);
+        // when
+        // then
+        assertThrows(IOException.class, () -> read(region));
+    }
+
+    private void write(StatementFile statementFile, long openingBalance) throws IOException {
+        try (StatementFile.Writer writer = statementFile.open(month)) {
+            writer.add("1000000001", openingBalance, "t1", TransactionType.USE, TransactionResultType.S,
+                    300L, openingBalance - 300L, transactedAt);
+            writer.commit();
+        }
+    }
+
+    private static String read(StatementFile.Region region) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        region.transferTo(Channels.newChannel(out));
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
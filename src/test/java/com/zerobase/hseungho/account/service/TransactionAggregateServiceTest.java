@@ -0,0 +1,158 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import com.zerobase.hseungho.account.dto.DailyTransactionAggregateInfo;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.DailyTransactionAggregateRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.repository.TransactionRepository.TransactionTotal;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.type.AccountStatus;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionAggregateServiceTest {
+
+    @Mock
+    private DailyTransactionAggregateRepository aggregateRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionAggregator transactionAggregator;
+
+    @Mock
+    private AccountNearCache accountNearCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionAggregateService transactionAggregateService;
+
+    private final LocalDate day = LocalDate.now().minusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        transactionAggregateService = new TransactionAggregateService(aggregateRepository,
+                transactionRepository, transactionAggregator, accountNearCache, transactionManager);
+    }
+
+    @Test
+    @DisplayName("집계 행으로 하루 건수, 금액, 성공 비율 응답")
+    void getDailyAggregates() {
+        // given
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(AccountUser.builder().id(12L).build())
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012")
+                .build();
+        given(accountNearCache.get("1000000012"))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(aggregateRepository.findByAccountIdAndAggregateDateBetweenOrderByAggregateDate(7L, day, day))
+                .willReturn(List.of(DailyTransactionAggregate.empty(7L, day)
+                        .add(TransactionType.USE, TransactionResultType.S, 3L, 3000L)
+                        .add(TransactionType.USE, TransactionResultType.F, 1L, 9000L)));
+        // when
+        List<DailyTransactionAggregateInfo> aggregates =
+                transactionAggregateService.getDailyAggregates("1000000012", day, day);
+        // then
+        assertEquals(1, aggregates.size());
+        assertEquals(3000L, aggregates.get(0).getUseAmount());
+        assertEquals(0.75, aggregates.get(0).getUseSuccessRatio());
+        assertNull(aggregates.get(0).getCancelSuccessRatio());
+    }
+
+    @Test
+    @DisplayName("시작일이 종료일보다 늦으면 실패")
+    void getDailyAggregates_invalidRange() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionAggregateService.getDailyAggregates("1000000012", day, day.minusDays(1)));
+        // then
+        assertEquals(ErrorCode.BAD_REQUEST, exception.getErrorCode());
+        verifyNoInteractions(accountNearCache, aggregateRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("backfill - 모인 증감을 먼저 내리고 날짜의 집계를 거래 테이블에서 다시 만듦")
+    void backfill() {
+        // given
+        List<TransactionTotal> totals = List.of(
+                total(7L, TransactionType.USE, TransactionResultType.S, 2L, 2500L),
+                total(7L, TransactionType.CANCEL, TransactionResultType.S, 1L, 500L),
+                total(8L, TransactionType.USE, TransactionResultType.F, 1L, 100L));
+        given(transactionRepository.sumByAccount(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .willReturn(totals);
+        ArgumentCaptor<Iterable<DailyTransactionAggregate>> captor = ArgumentCaptor.forClass(Iterable.class);
+        // when
+        int rebuilt = transactionAggregateService.backfill(day, day);
+        // then
+        assertEquals(2, rebuilt);
+        verify(transactionAggregator).flush();
+        verify(aggregateRepository).deleteByAggregateDate(day);
+        verify(aggregateRepository).saveAll(captor.capture());
+        for (DailyTransactionAggregate aggregate : captor.getValue()) {
+            if (aggregate.getAccountId() == 7L) {
+                assertEquals(2L, aggregate.getUseSuccessCount());
+                assertEquals(500L, aggregate.getCancelAmount());
+            } else {
+                assertEquals(1L, aggregate.getUseFailureCount());
+                assertEquals(0L, aggregate.getUseAmount());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("backfill - 거래가 보관되기 시작한 날짜는 실패")
+    void backfill_ArchivedPeriod() {
+        // given
+        LocalDate archived = LocalDate.now().minusYears(1L).minusDays(1);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionAggregateService.backfill(archived, day));
+        // then
+        assertEquals(ErrorCode.ARCHIVED_PERIOD, exception.getErrorCode());
+        verifyNoInteractions(transactionAggregator, aggregateRepository, transactionRepository);
+    }
+
+    private static TransactionTotal total(Long accountId,
+                                          TransactionType transactionType,
+                                          TransactionResultType transactionResultType,
+                                          long count,
+                                          long amount) {
+        TransactionTotal total = mock(TransactionTotal.class);
+        given(total.getAccountId()).willReturn(accountId);
+        given(total.getTransactionType()).willReturn(transactionType);
+        given(total.getTransactionResultType()).willReturn(transactionResultType);
+        given(total.getCount()).willReturn(count);
+        given(total.getAmount()).willReturn(amount);
+        return total;
+    }
+}
@@ -0,0 +1,118 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.DailyTransactionAggregate;
+import com.zerobase.hseungho.account.repository.DailyTransactionAggregateRepository;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionAggregatorTest {
+
+    @Mock
+    private DailyTransactionAggregateRepository aggregateRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionAggregator transactionAggregator;
+
+    private final LocalDateTime morning = LocalDateTime.of(2023, 5, 1, 9, 0);
+
+    @BeforeEach
+    void setUp() {
+        transactionAggregator = new TransactionAggregator(aggregateRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("계좌-날짜별로 모아서 한 번에 증감을 더함")
+    void flush() {
+        // given
+        transactionAggregator.record(1L, morning, TransactionType.USE, TransactionResultType.S, 1000L);
+        transactionAggregator.record(1L, morning.plusHours(3), TransactionType.USE, TransactionResultType.S, 2000L);
+        transactionAggregator.record(1L, morning, TransactionType.USE, TransactionResultType.F, 5000L);
+        transactionAggregator.record(1L, morning, TransactionType.CANCEL, TransactionResultType.S, 1000L);
+        given(aggregateRepository.applyDelta(anyLong(), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong()))
+                .willReturn(1);
+        // when
+        transactionAggregator.flush();
+        // then
+        verify(aggregateRepository, times(1)).applyDelta(1L, LocalDate.of(2023, 5, 1),
+                2L, 1L, 3000L, 1L, 0L, 1000L);
+        verify(aggregateRepository).saveAll(List.of());
+        assertEquals(0, transactionAggregator.getPendingCount());
+        assertEquals(1L, transactionAggregator.getFlushedCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("행이 없는 계좌-날짜만 새로 저장")
+    void flush_insertMissing() {
+        // given
+        transactionAggregator.record(1L, morning, TransactionType.USE, TransactionResultType.S, 1000L);
+        transactionAggregator.record(2L, morning, TransactionType.USE, TransactionResultType.S, 3000L);
+        given(aggregateRepository.applyDelta(eq(1L), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong()))
+                .willReturn(1);
+        given(aggregateRepository.applyDelta(eq(2L), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong()))
+                .willReturn(0);
+        ArgumentCaptor<List<DailyTransactionAggregate>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        transactionAggregator.flush();
+        // then
+        verify(aggregateRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(2L, captor.getValue().get(0).getAccountId());
+        assertEquals(3000L, captor.getValue().get(0).getUseAmount());
+    }
+
+    @Test
+    @DisplayName("flush 에 실패하면 증감을 다시 모아 다음 flush 에 더함")
+    void flush_failed() {
+        // given
+        transactionAggregator.record(1L, morning, TransactionType.USE, TransactionResultType.S, 1000L);
+        given(aggregateRepository.applyDelta(anyLong(), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong()))
+                .willThrow(new DataIntegrityViolationException("duplicate"))
+                .willReturn(1);
+        transactionAggregator.flush();
+        transactionAggregator.record(1L, morning, TransactionType.USE, TransactionResultType.S, 500L);
+        // when
+        transactionAggregator.flush();
+        // then
+        assertEquals(1L, transactionAggregator.getFailedCount());
+        verify(aggregateRepository, times(1)).applyDelta(1L, LocalDate.of(2023, 5, 1),
+                2L, 0L, 1500L, 0L, 0L, 0L);
+    }
+
+    @Test
+    @DisplayName("모인 거래가 없으면 DB 에 접근하지 않음")
+    void flush_empty() {
+        // given
+        // when
+        transactionAggregator.flush();
+        // then
+        verifyNoInteractions(aggregateRepository, transactionManager);
+    }
+}
@@ -0,0 +1,158 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.ArchivedLegacyTransaction;
+import com.zerobase.hseungho.account.repository.ArchivedLegacyTransactionRepository;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import com.zerobase.hseungho.account.util.TransactionIds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TransactionArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime may = LocalDateTime.of(2022, 5, 1, 12, 30, 15, 123456789);
+
+    private final ArchivedLegacyTransactionRepository legacyRepository =
+            mock(ArchivedLegacyTransactionRepository.class);
+
+    private final LocalDateTime june = LocalDateTime.of(2022, 6, 3, 9, 0);
+
+    @Test
+    @DisplayName("아이디 발급 월 파일에 나눠 보관하고 아이디로 다시 찾음")
+    void appendAndFind() throws IOException {
+        // given
+        TransactionArchive archive = new TransactionArchive(legacyRepository, directory.toString());
+        List<CachedTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime transactedAt = (i % 2 == 0 ? may : june).plusMinutes(i);
+            transactions.add(transaction(TransactionIds.newId(transactedAt.toInstant(ZoneOffset.UTC).toEpochMilli()),
+                    transactedAt, i));
+        }
+        // when
+        archive.append(transactions);
+        // then
+        assertTrue(Files.exists(directory.resolve("transactions-2022-05.arc")));
+        assertTrue(Files.exists(directory.resolve("transactions-2022-06.arc")));
+        for (CachedTransaction expected : transactions) {
+            CachedTransaction found = archive.find(expected.getTransactionId()).get();
+            assertEquals(expected.getAccountId(), found.getAccountId());
+            assertEquals(expected.getAccountNumber(), found.getAccountNumber());
+            assertEquals(expected.getTransactionType(), found.getTransactionType());
+            assertEquals(expected.getAmount(), found.getAmount());
+            assertEquals(expected.getBalanceSnapshot(), found.getBalanceSnapshot());
+            assertEquals(expected.getTransactedAt(), found.getTransactedAt());
+        }
+        assertEquals(Optional.empty(), archive.find(TransactionIds.newId(
+                may.toInstant(ZoneOffset.UTC).toEpochMilli())));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("시각이 없는 이전 아이디는 거래 월 파일에 보관하고 색인에 남긴 달의 파일에서 찾음")
+    void legacyId() throws IOException {
+        // given
+        TransactionArchive archive = new TransactionArchive(legacyRepository, directory.toString());
+        String legacyId = UUID.randomUUID().toString().replace("-", "");
+        List<CachedTransaction> transactions = List.of(
+                transaction(TransactionIds.newId(), june, 1), transaction(legacyId, may, 2));
+        archive.append(transactions);
+        ArgumentCaptor<List<ArchivedLegacyTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        archive.indexLegacy(transactions);
+        // then
+        verify(legacyRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        ArchivedLegacyTransaction legacy = captor.getValue().get(0);
+        assertEquals(legacyId, legacy.getTransactionId());
+        assertEquals(LocalDate.of(2022, 5, 1), legacy.getArchiveMonth());
+        assertTrue(Files.exists(directory.resolve("transactions-2022-05.arc")));
+        given(legacyRepository.findById(legacyId)).willReturn(Optional.of(legacy));
+        assertEquals(2L, archive.find(legacyId).get().getAccountId());
+        String unknownId = UUID.randomUUID().toString().replace("-", "");
+        assertEquals(Optional.empty(), archive.find(unknownId));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("색인이 비어 있으면 보관 파일의 이전 아이디로 색인을 다시 만듦")
+    void rebuildLegacyIndex() throws IOException {
+        // given
+        TransactionArchive archive = new TransactionArchive(legacyRepository, directory.toString());
+        String legacyId = UUID.randomUUID().toString().replace("-", "");
+        archive.append(List.of(transaction(TransactionIds.newId(), june, 1), transaction(legacyId, may, 2)));
+        ArgumentCaptor<List<ArchivedLegacyTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        int indexed = archive.rebuildLegacyIndex();
+        // then
+        assertEquals(1, indexed);
+        verify(legacyRepository).saveAll(captor.capture());
+        assertEquals(legacyId, captor.getValue().get(0).getTransactionId());
+        assertEquals(LocalDate.of(2022, 5, 1), captor.getValue().get(0).getArchiveMonth());
+    }
+
+    @Test
+    @DisplayName("색인이 있으면 다시 만들지 않음")
+    void rebuildLegacyIndex_AlreadyIndexed() throws IOException {
+        // given
+        TransactionArchive archive = new TransactionArchive(legacyRepository, directory.toString());
+        archive.append(List.of(transaction(UUID.randomUUID().toString().replace("-", ""), may, 2)));
+        given(legacyRepository.count()).willReturn(1L);
+        // when
+        int indexed = archive.rebuildLegacyIndex();
+        // then
+        assertEquals(0, indexed);
+        verify(legacyRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("쓰다 만 block 은 건너뛰고 다음에 붙일 때 잘라냄")
+    void partialBlock() throws IOException {
+        // given
+        TransactionArchive archive = new TransactionArchive(legacyRepository, directory.toString());
+        String first = TransactionIds.newId(may.toInstant(ZoneOffset.UTC).toEpochMilli());
+        String second = TransactionIds.newId(may.plusDays(1).toInstant(ZoneOffset.UTC).toEpochMilli());
+        archive.append(List.of(transaction(first, may, 1)));
+        Path path = directory.resolve("transactions-2022-05.arc");
+        Files.write(path, new byte[]{0x54, 0x58, 0x41, 0x52, 0, 0, 0, 1, 0}, StandardOpenOption.APPEND);
+        // when
+        archive.append(List.of(transaction(second, may.plusDays(1), 2)));
+        // then
+        assertEquals(1L, archive.find(first).get().getAccountId());
+        assertEquals(2L, archive.find(second).get().getAccountId());
+        List<String> transactionIds = new ArrayList<>();
+        archive.forEachTransactionId(transactionIds::add);
+        assertEquals(List.of(first, second), transactionIds);
+    }
+
+    private static CachedTransaction transaction(String transactionId, LocalDateTime transactedAt, long accountId) {
+        return new CachedTransaction(accountId, String.valueOf(1000000000L + accountId),
+                accountId % 3 == 0 ? TransactionType.CANCEL : TransactionType.USE,
+                accountId % 5 == 0 ? TransactionResultType.F : TransactionResultType.S,
+                1000L * accountId, 50000L - accountId, transactionId, transactedAt);
+    }
+}
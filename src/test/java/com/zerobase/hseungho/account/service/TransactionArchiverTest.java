@@ -0,0 +1,124 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiverTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionArchiver transactionArchiver;
+
+    private final LocalDateTime before = LocalDateTime.of(2022, 5, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        transactionArchiver = new TransactionArchiver(transactionRepository, transactionArchive,
+                redissonClient, transactionManager, true, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("보관 파일에 붙인 뒤 이전 아이디를 색인에 남기고 거래 테이블에서 지움")
+    void archiveBatch() throws IOException {
+        // given
+        given(transactionRepository.findOldest(any(), any()))
+                .willReturn(List.of(transaction(1L, "t1"), transaction(2L, "t2")));
+        ArgumentCaptor<List<CachedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        int archived = transactionArchiver.archiveBatch(before);
+        // then
+        assertEquals(2, archived);
+        InOrder inOrder = inOrder(transactionArchive, transactionRepository);
+        inOrder.verify(transactionArchive).append(captor.capture());
+        inOrder.verify(transactionArchive).indexLegacy(captor.getValue());
+        inOrder.verify(transactionRepository).deleteByIdIn(List.of(1L, 2L));
+        assertEquals("t2", captor.getValue().get(1).getTransactionId());
+        assertEquals(2L, transactionArchiver.getArchivedCount());
+    }
+
+    @Test
+    @DisplayName("보관 파일에 쓰지 못하면 지우지 않음")
+    void archiveBatch_appendFailed() throws IOException {
+        // given
+        given(transactionRepository.findOldest(any(), any()))
+                .willReturn(List.of(transaction(1L, "t1")));
+        willThrow(new IOException("disk full")).given(transactionArchive).append(anyList());
+        // when
+        assertThrows(RuntimeException.class, () -> transactionArchiver.archiveBatch(before));
+        // then
+        verify(transactionRepository, never()).deleteByIdIn(any());
+        assertEquals(0L, transactionArchiver.getArchivedCount());
+    }
+
+    @Test
+    @DisplayName("다른 노드가 보관 중이면 넘김")
+    void archive_locked() {
+        // given
+        given(redissonClient.getLock("TRANSACTION:ARCHIVE")).willReturn(lock);
+        given(lock.tryLock()).willReturn(false);
+        // when
+        transactionArchiver.archive();
+        // then
+        verifyNoInteractions(transactionRepository, transactionArchive);
+    }
+
+    private static Transaction transaction(Long id, String transactionId) {
+        return Transaction.builder()
+                .id(id)
+                .account(Account.builder()
+                        .id(3L)
+                        .accountNumber("1000000012")
+                        .build())
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.of(2021, 4, 1, 12, 0))
+                .build();
+    }
+}
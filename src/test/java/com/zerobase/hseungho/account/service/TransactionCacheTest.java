@@ -0,0 +1,164 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.Account;
+import com.zerobase.hseungho.account.domain.Transaction;
+import com.zerobase.hseungho.account.dto.TransactionDto;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionCacheTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Test
+    @DisplayName("두 번째 조회는 DB 를 거치지 않고 같은 값을 복원")
+    void secondLookupIsDecodedFromCache() {
+        // given
+        TransactionCache transactionCache = new TransactionCache(transactionRepository, transactionIdFilter,
+                transactionArchive, DataSize.ofMegabytes(1));
+        given(transactionIdFilter.mightContain(anyString())).willReturn(true);
+        LocalDateTime transactedAt = LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456789);
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder()
+                                .id(3L)
+                                .accountNumber("1000000012").build())
+                        .transactionType(TransactionType.CANCEL)
+                        .transactionResultType(TransactionResultType.F)
+                        .transactionId("transactionId")
+                        .transactedAt(transactedAt)
+                        .amount(1000L)
+                        .balanceSnapshot(9000L)
+                        .build()));
+        // when
+        transactionCache.findByTransactionId("transactionId");
+        CachedTransaction cached = transactionCache.findByTransactionId("transactionId").get();
+        // then
+        verify(transactionRepository, times(1)).findByTransactionId("transactionId");
+        TransactionDto dto = cached.toDto();
+        assertEquals(3L, cached.getAccountId());
+        assertEquals("1000000012", dto.getAccountNumber());
+        assertEquals(TransactionType.CANCEL, dto.getTransactionType());
+        assertEquals(TransactionResultType.F, dto.getTransactionResultType());
+        assertEquals(1000L, dto.getAmount());
+        assertEquals(9000L, dto.getBalanceSnapshot());
+        assertEquals("transactionId", dto.getTransactionId());
+        assertEquals(transactedAt, dto.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("없는 거래는 캐시하지 않음")
+    void missingTransactionIsNotCached() {
+        // given
+        TransactionCache transactionCache = new TransactionCache(transactionRepository, transactionIdFilter,
+                transactionArchive, DataSize.ofMegabytes(1));
+        given(transactionIdFilter.mightContain(anyString())).willReturn(true);
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        // when
+        transactionCache.findByTransactionId("transactionId");
+        Optional<CachedTransaction> cached = transactionCache.findByTransactionId("transactionId");
+        // then
+        assertFalse(cached.isPresent());
+        verify(transactionRepository, times(2)).findByTransactionId("transactionId");
+        assertEquals(0, transactionCache.getCache().size());
+    }
+
+    @Test
+    @DisplayName("Bloom filter 에 없는 거래는 DB 를 조회하지 않음")
+    void definiteMissSkipsDatabase() {
+        // given
+        TransactionCache transactionCache = new TransactionCache(transactionRepository, transactionIdFilter,
+                transactionArchive, DataSize.ofMegabytes(1));
+        given(transactionIdFilter.mightContain(anyString())).willReturn(false);
+        // when
+        Optional<CachedTransaction> cached = transactionCache.findByTransactionId("transactionId");
+        // then
+        assertFalse(cached.isPresent());
+        verify(transactionRepository, times(0)).findByTransactionId(anyString());
+    }
+
+    @Test
+    @DisplayName("DB 에 없으면 보관된 거래에서 찾아 캐시")
+    void archivedTransactionIsFoundAndCached() {
+        // given
+        TransactionCache transactionCache = new TransactionCache(transactionRepository, transactionIdFilter,
+                transactionArchive, DataSize.ofMegabytes(1));
+        given(transactionIdFilter.mightContain(anyString())).willReturn(true);
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionArchive.find("transactionId"))
+                .willReturn(Optional.of(new CachedTransaction(3L, "1000000012", TransactionType.USE,
+                        TransactionResultType.S, 1000L, 9000L, "transactionId",
+                        LocalDateTime.of(2021, 5, 1, 12, 0))));
+        // when
+        transactionCache.findByTransactionId("transactionId");
+        CachedTransaction cached = transactionCache.findByTransactionId("transactionId").get();
+        // then
+        verify(transactionArchive, times(1)).find("transactionId");
+        assertEquals(9000L, cached.getBalanceSnapshot());
+        assertEquals(LocalDateTime.of(2021, 5, 1, 12, 0), cached.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("여러 거래는 캐시와 Bloom filter 를 거친 나머지만 DB 에서 한 번에 조회")
+    void findAllByTransactionIds() {
+        // given
+        TransactionCache transactionCache = new TransactionCache(transactionRepository, transactionIdFilter,
+                transactionArchive, DataSize.ofMegabytes(1));
+        transactionCache.put(new CachedTransaction(3L, "1000000012", TransactionType.USE,
+                TransactionResultType.S, 1000L, 9000L, "cached", LocalDateTime.of(2023, 5, 1, 12, 0)));
+        given(transactionIdFilter.mightContain("stored")).willReturn(true);
+        given(transactionIdFilter.mightContain("missing")).willReturn(true);
+        given(transactionIdFilter.mightContain("filtered")).willReturn(false);
+        given(transactionRepository.findAllByTransactionIdIn(List.of("stored", "missing")))
+                .willReturn(List.of(Transaction.builder()
+                        .account(Account.builder()
+                                .id(3L)
+                                .accountNumber("1000000012").build())
+                        .transactionType(TransactionType.CANCEL)
+                        .transactionResultType(TransactionResultType.S)
+                        .transactionId("stored")
+                        .transactedAt(LocalDateTime.of(2023, 5, 2, 12, 0))
+                        .amount(1000L)
+                        .balanceSnapshot(10000L)
+                        .build()));
+        given(transactionArchive.find("missing")).willReturn(Optional.empty());
+        // when
+        Map<String, CachedTransaction> found = transactionCache.findAllByTransactionIds(
+                List.of("cached", "stored", "missing", "filtered", "stored"));
+        // then
+        assertEquals(2, found.size());
+        assertEquals(9000L, found.get("cached").getBalanceSnapshot());
+        assertEquals(10000L, found.get("stored").getBalanceSnapshot());
+        assertTrue(transactionCache.findByTransactionId("stored").isPresent());
+        verify(transactionRepository, times(0)).findByTransactionId(anyString());
+    }
+}
@@ -0,0 +1,265 @@
+package com.zerobase.hseungho.account.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.hseungho.account.aop.AccountLock;
+import com.zerobase.hseungho.account.controller.TransactionController;
+import com.zerobase.hseungho.account.dto.UseBalance;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.service.TransactionGuard.Entry;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionGuardTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RScript rScript;
+
+    @Mock
+    private RBucket<Object> rBucket;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private CircuitBreakerAccountLockProvider accountLockProvider;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TransactionGuard transactionGuard;
+
+    private Method method;
+
+    private AccountLockPolicy policy;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        lenient().when(redissonClient.getScript(StringCodec.INSTANCE))
+                .thenReturn(rScript);
+        lenient().when(redissonClient.getId())
+                .thenReturn("node");
+        lenient().when(rScript.scriptLoad(anyString()))
+                .thenAnswer(invocation -> scriptName(invocation.getArgument(0)));
+        lenient().when(accountLockProvider.isPrimaryClosed("redisson"))
+                .thenReturn(true);
+        RateLimiter rateLimiter = new RateLimiter(redissonClient, new MockEnvironment(), 100, now::get);
+        transactionGuard = new TransactionGuard(redissonClient, rateLimiter, lockService, accountLockProvider,
+                objectMapper, true, 10_000L, 60_000L, 5_000L, now::get);
+        method = TransactionController.class.getMethod("useBalance", UseBalance.Request.class);
+        policy = AccountLockPolicy.from(method.getAnnotation(AccountLock.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("lock 이 비어 있으면 script 한 번으로 요청 제한과 함께 진입하고 한 번으로 응답 저장과 해제")
+    void enterAndExitByScript() throws Exception {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(List.of(0L));
+        given(rScript.evalSha(any(), eq("exit"), any(), anyList(), any()))
+                .willReturn(List.of(1L));
+        ArgumentCaptor<List<Object>> enterKeys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object> exitArgs = ArgumentCaptor.forClass(Object.class);
+        UseBalance.Response response = UseBalance.Response.builder().transactionId("tx").build();
+        // when
+        Entry entry = transactionGuard.enter(method, policy, request(), "key");
+        transactionGuard.exit(entry, response);
+        // then
+        verify(rScript).evalSha(any(), eq("enter"), any(), enterKeys.capture(), any());
+        assertEquals(Arrays.asList("ACLK:1000000000", "IDEM:1000000000:U1:useBalance:key",
+                        "RL:use:U:1", "RL:use:A:1000000000"),
+                enterKeys.getValue());
+        verify(rScript, never()).evalSha(any(), eq("bucket"), any(), anyList(), any());
+        verify(lockService).hold("1000000000");
+        verify(lockService).release("1000000000");
+        verify(lockService, never()).lock(anyString(), any());
+        verify(rScript).evalSha(any(), eq("exit"), any(), anyList(), exitArgs.capture());
+        String stored = (String) exitArgs.getAllValues().get(2);
+        assertTrue(stored.startsWith(hash(request()) + ":"));
+        assertTrue(stored.contains("\"transactionId\":\"tx\""));
+        assertEquals(1, transactionGuard.getScriptCount());
+    }
+
+    @Test
+    @DisplayName("이미 처리된 요청은 lock 없이 저장된 응답을 돌려줌")
+    void replayStoredResponse() throws Exception {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, hash(request()) + ":{\"transactionId\":\"tx\"}"));
+        // when
+        Entry entry = transactionGuard.enter(method, policy, request(), "key");
+        Object replayed = transactionGuard.replay(entry, UseBalance.Response.class);
+        transactionGuard.exit(entry, null);
+        // then
+        assertTrue(entry.isReplayed());
+        assertEquals("tx", ((UseBalance.Response) replayed).getTransactionId());
+        verify(rScript, never()).evalSha(any(), eq("exit"), any(), anyList(), any());
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    @Test
+    @DisplayName("같은 멱등 키로 본문이 다른 요청은 저장된 응답을 돌려주지 않고 실패")
+    void rejectReusedIdempotencyKey() throws Exception {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, hash(new UseBalance.Request(1L, "1000000000", 2000L))
+                        + ":{\"transactionId\":\"tx\"}"));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionGuard.enter(method, policy, request(), "key"));
+        // then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertEquals(0, transactionGuard.getReplayCount());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("요청 한도를 넘으면 lock 없이 거절하고, 다시 시도할 수 있을 때까지 Redis 없이 거절")
+    void rejectRateLimited() {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(3L, 500L, 2L));
+        // when
+        AccountException first = assertThrows(AccountException.class,
+                () -> transactionGuard.enter(method, policy, request(), null));
+        now.addAndGet(100L);
+        AccountException second = assertThrows(AccountException.class,
+                () -> transactionGuard.enter(method, policy, request(), null));
+        // then
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, first.getErrorCode());
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, second.getErrorCode());
+        verify(rScript, times(1)).evalSha(any(), eq("enter"), any(), anyList(), any());
+        verify(lockService, never()).hold(anyString());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("다른 요청이 보유 중이면 LockService 로 기다린 뒤 먼저 처리된 응답을 확인")
+    void waitByLockServiceWhenContended() throws Exception {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(2L, 5000L));
+        given(redissonClient.getBucket("IDEM:1000000000:U1:useBalance:key", StringCodec.INSTANCE))
+                .willReturn(rBucket);
+        UseBalance.Response response = UseBalance.Response.builder().transactionId("tx").build();
+        // when
+        Entry entry = transactionGuard.enter(method, policy, request(), "key");
+        transactionGuard.exit(entry, response);
+        // then
+        assertFalse(entry.isReplayed());
+        verify(lockService).lock("1000000000", policy);
+        verify(rBucket).set(and(startsWith(hash(request()) + ":"), contains("\"transactionId\":\"tx\"")),
+                eq(60_000L), eq(TimeUnit.MILLISECONDS));
+        verify(lockService).unlock("1000000000");
+        assertEquals(1, transactionGuard.getContendedCount());
+    }
+
+    @Test
+    @DisplayName("기다린 뒤 찾은 응답이 다른 요청의 것이면 lock 을 풀고 실패")
+    void rejectReusedIdempotencyKeyAfterWait() {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(2L, 5000L));
+        given(redissonClient.getBucket("IDEM:1000000000:U1:useBalance:key", StringCodec.INSTANCE))
+                .willReturn(rBucket);
+        given(rBucket.get())
+                .willReturn("other:{\"transactionId\":\"tx\"}");
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionGuard.enter(method, policy, request(), "key"));
+        // then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        verify(lockService).lock("1000000000", policy);
+        verify(lockService).unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("redisson 백엔드가 닫혀 있지 않으면 진입 script 를 쓰지 않고 RateLimiter 와 LockService 로 처리")
+    void fallbackWhenCircuitIsNotClosed() {
+        // given
+        given(accountLockProvider.isPrimaryClosed("redisson"))
+                .willReturn(false);
+        given(rScript.evalSha(any(), eq("bucket"), any(), anyList(), any()))
+                .willReturn(Arrays.asList(1L, 0L, 0L));
+        // when
+        Entry entry = transactionGuard.enter(method, policy, request(), null);
+        // then
+        verify(rScript, never()).evalSha(any(), eq("enter"), any(), anyList(), any());
+        verify(rScript).evalSha(any(), eq("bucket"), any(), anyList(), any());
+        verify(lockService).lock("1000000000", policy);
+        assertEquals(TransactionGuard.Holder.LOCK_SERVICE, entry.getHolder());
+        assertEquals(1, transactionGuard.getFallbackCount());
+    }
+
+    @Test
+    @DisplayName("script 가 실패하면 기존 경로로 처리하고 한동안 script 를 쓰지 않음")
+    void fallbackWhenScriptFails() {
+        // given
+        given(rScript.evalSha(any(), eq("enter"), any(), anyList(), any()))
+                .willThrow(new RedisException("connection refused"));
+        // when
+        transactionGuard.enter(method, policy, request(), null);
+        now.addAndGet(1_000L);
+        transactionGuard.enter(method, policy, request(), null);
+        // then
+        verify(rScript, times(1)).evalSha(any(), eq("enter"), any(), anyList(), any());
+        verify(rScript, never()).evalSha(any(), eq("bucket"), any(), anyList(), any());
+        verify(lockService, times(2)).lock("1000000000", policy);
+        assertEquals(2, transactionGuard.getFallbackCount());
+    }
+
+    private static String scriptName(String script) {
+        if (script.contains("잔액 거래 진입")) {
+            return "enter";
+        }
+        return script.contains("token bucket") ? "bucket" : "exit";
+    }
+
+    private UseBalance.Request request() {
+        return new UseBalance.Request(1L, "1000000000", 1000L);
+    }
+
+    private String hash(UseBalance.Request request) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 내장 Redis 로 필터 비트와 epoch 교체를 확인한다.(거래 테이블과 보관 파일은 mock)
+ */
+class TransactionIdFilterTest {
+
+    private static RedisServer redisServer;
+
+    private static RedissonClient redissonClient;
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+
+    private final TransactionArchive transactionArchive = mock(TransactionArchive.class);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        given(transactionRepository.count()).willReturn(1L);
+        given(transactionRepository.streamAllTransactionIds()).willAnswer(invocation -> Stream.of("db-1"));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("준비되기 전에는 있을 수 있음, 만든 뒤에는 넣은 아이디만 있음")
+    void addAndLookup() {
+        // given
+        TransactionIdFilter filter = newFilter();
+        assertTrue(filter.mightContain("unknown"));
+        filter.initialize();
+        // when
+        filter.addBeforeCommit("t-1");
+        // then
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("db-1"));
+        assertTrue(filter.mightContain("t-1"));
+        assertFalse(filter.mightContain("unknown"));
+        assertEquals(1L, filter.getDefiniteMissCount());
+    }
+
+    @Test
+    @DisplayName("다른 노드가 넣은 아이디도 있음")
+    void addFromOtherNode() {
+        // given
+        TransactionIdFilter node1 = newFilter();
+        TransactionIdFilter node2 = newFilter();
+        node1.initialize();
+        node2.initialize();
+        // when
+        node2.addBeforeCommit("t-2");
+        // then
+        assertTrue(node1.mightContain("t-2"));
+    }
+
+    @Test
+    @DisplayName("다시 만드는 동안 넣은 아이디는 새 epoch 에도 들어가고, 교체 뒤 옛 epoch 를 쓰던 노드도 새 epoch 로 조회")
+    void epochSwapDuringRebuild() throws IOException {
+        // given
+        TransactionIdFilter node1 = newFilter();
+        TransactionIdFilter node2 = newFilter();
+        node1.initialize();
+        node2.initialize();
+        node2.addBeforeCommit("before-loss");
+        redissonClient.getKeys().delete("TXBF:EPOCH");
+        willAnswer(invocation -> {
+            node2.addBeforeCommit("during-rebuild");
+            return null;
+        }).given(transactionArchive).forEachTransactionId(any());
+        // when
+        node1.refresh();
+        // then
+        assertTrue(node1.isReady());
+        assertTrue(node2.mightContain("during-rebuild"));
+        assertTrue(node2.mightContain("db-1"));
+        assertFalse(node2.mightContain("before-loss"));
+        assertEquals(2L, redissonClient.getAtomicLong("TXBF:EPOCH").get());
+    }
+
+    @Test
+    @DisplayName("현재 epoch 가 없을 때 넣은 아이디는 커밋된 뒤에 한 번 더 넣음")
+    void addAgainAfterCommitWhileRebuilding() {
+        // given
+        TransactionIdFilter filter = newFilter();
+        filter.initialize();
+        redissonClient.getKeys().delete("TXBF:EPOCH");
+        TransactionSynchronizationManager.initSynchronization();
+        filter.addBeforeCommit("t-3");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        // when
+        filter.refresh();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        // then
+        assertEquals(1, synchronizations.size());
+        assertTrue(filter.mightContain("t-3"));
+    }
+
+    @Test
+    @DisplayName("Redis 에 넣지 못하면 거래 실패")
+    void addFailed() {
+        // given
+        RedissonClient brokenClient = mock(RedissonClient.class);
+        given(brokenClient.getScript(any()))
+                .willThrow(new IllegalStateException("redis down"));
+        TransactionIdFilter filter = new TransactionIdFilter(brokenClient, transactionRepository,
+                transactionArchive, transactionManager, 1000L, 0.001);
+        // when
+        AccountException exception = assertThrows(AccountException.class, () -> filter.addBeforeCommit("t-4"));
+        // then
+        assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, exception.getErrorCode());
+        assertTrue(filter.mightContain("t-4"));
+    }
+
+    private TransactionIdFilter newFilter() {
+        return new TransactionIdFilter(redissonClient, transactionRepository, transactionArchive,
+                transactionManager, 1000L, 0.001);
+    }
+}
@@ -0,0 +1,179 @@
+package com.zerobase.hseungho.account.service;
+
+import com.zerobase.hseungho.account.domain.MonthlyRollupCompletion;
+import com.zerobase.hseungho.account.domain.MonthlyTransactionRollup;
+import com.zerobase.hseungho.account.exception.AccountException;
+import com.zerobase.hseungho.account.repository.AccountRepository;
+import com.zerobase.hseungho.account.repository.MonthlyRollupCompletionRepository;
+import com.zerobase.hseungho.account.type.ErrorCode;
+import com.zerobase.hseungho.account.type.TransactionResultType;
+import com.zerobase.hseungho.account.type.TransactionType;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRollupJobTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private MonthlyRollupCompletionRepository completionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    private TransactionRollupJob transactionRollupJob;
+
+    @BeforeEach
+    void setUp() {
+        given(entityManagerFactory.unwrap(SessionFactory.class)).willReturn(sessionFactory);
+        transactionRollupJob = new TransactionRollupJob(entityManagerFactory, completionRepository,
+                accountRepository, redissonClient, true, 2, 100, 60);
+    }
+
+    @Test
+    @DisplayName("계좌가 바뀔 때마다 시작, 마감 잔액과 합계를 담은 roll-up 을 내보냄")
+    void accumulate() {
+        // given
+        List<MonthlyTransactionRollup> rollups = new ArrayList<>();
+        TransactionRollupJob.Accumulator accumulator = new TransactionRollupJob.Accumulator(
+                LocalDate.of(2023, 5, 1), LocalDateTime.now(), rollups::add);
+        // when
+        accumulator.add(1L, TransactionType.USE, TransactionResultType.S, 300L, 700L, "t1");
+        accumulator.add(1L, TransactionType.USE, TransactionResultType.F, 5000L, 700L, "t2");
+        accumulator.add(1L, TransactionType.CANCEL, TransactionResultType.S, 300L, 1000L, "t3");
+        accumulator.add(2L, TransactionType.CANCEL, TransactionResultType.S, 200L, 200L, "t4");
+        accumulator.finish();
+        // then
+        assertEquals(2, rollups.size());
+        MonthlyTransactionRollup first = rollups.get(0);
+        assertEquals(1000L, first.getOpeningBalance());
+        assertEquals(1000L, first.getClosingBalance());
+        assertEquals(1L, first.getUseSuccessCount());
+        assertEquals(1L, first.getUseFailureCount());
+        assertEquals(300L, first.getUseAmount());
+        assertEquals(300L, first.getCancelAmount());
+        assertEquals("t3", first.getLastTransactionId());
+        MonthlyTransactionRollup second = rollups.get(1);
+        assertEquals(0L, second.getOpeningBalance());
+        assertEquals(200L, second.getClosingBalance());
+        assertEquals(200L, second.getBalanceDelta());
+    }
+
+    @Test
+    @DisplayName("마감되지 않은 달은 roll-up 실패")
+    void rollUpNotClosedMonth() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionRollupJob.rollUp(YearMonth.now()));
+        // then
+        assertEquals(ErrorCode.BAD_REQUEST, exception.getErrorCode());
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    @DisplayName("거래가 보관되기 시작한 달은 roll-up 실패")
+    void rollUpArchivedMonth() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionRollupJob.rollUp(YearMonth.now().minusYears(1L)));
+        // then
+        assertEquals(ErrorCode.ARCHIVED_PERIOD, exception.getErrorCode());
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    @DisplayName("모든 chunk 가 끝나면 완료 표시를 남김")
+    void rollUpCompleted() {
+        // given
+        YearMonth month = YearMonth.now().minusMonths(2);
+        TransactionRollupJob job = spy(transactionRollupJob);
+        given(redissonClient.getLock(any())).willReturn(lock);
+        given(lock.tryLock()).willReturn(true);
+        given(accountRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L));
+        given(accountRepository.findIdsAfter(eq(2L), any())).willReturn(List.of());
+        doReturn(2).when(job).rollUpChunk(month.atDay(1), 1L, 2L);
+        ArgumentCaptor<MonthlyRollupCompletion> captor = ArgumentCaptor.forClass(MonthlyRollupCompletion.class);
+        // when
+        int rolledUp = job.rollUp(month);
+        // then
+        assertEquals(2, rolledUp);
+        verify(completionRepository).save(captor.capture());
+        assertEquals(month.atDay(1), captor.getValue().getRollupMonth());
+        assertEquals(1, captor.getValue().getChunkCount());
+    }
+
+    @Test
+    @DisplayName("실패한 chunk 가 있으면 완료 표시를 남기지 않음")
+    void rollUpChunkFailed() {
+        // given
+        YearMonth month = YearMonth.now().minusMonths(2);
+        TransactionRollupJob job = spy(transactionRollupJob);
+        given(redissonClient.getLock(any())).willReturn(lock);
+        given(lock.tryLock()).willReturn(true);
+        given(completionRepository.findById(month.atDay(1)))
+                .willReturn(Optional.of(new MonthlyRollupCompletion(month.atDay(1), 1, LocalDateTime.now())));
+        given(accountRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L));
+        given(accountRepository.findIdsAfter(eq(2L), any())).willReturn(List.of());
+        doThrow(new IllegalStateException("db down")).when(job).rollUpChunk(month.atDay(1), 1L, 2L);
+        // when
+        int rolledUp = job.rollUp(month);
+        // then
+        assertEquals(0, rolledUp);
+        verify(completionRepository).delete(any());
+        verify(completionRepository, never()).save(any());
+        assertEquals(1L, job.getFailedChunkCount());
+    }
+
+    @Test
+    @DisplayName("지난달 roll-up 이 이미 끝났으면 다시 만들지 않음")
+    void rollUpLastMonthAlreadyDone() {
+        // given
+        transactionRollupJob = new TransactionRollupJob(entityManagerFactory, completionRepository,
+                accountRepository, redissonClient, true, 2, 100, 0);
+        given(completionRepository.existsById(any())).willReturn(true);
+        // when
+        transactionRollupJob.rollUpLastMonth();
+        // then
+        verifyNoInteractions(redissonClient, accountRepository);
+    }
+}
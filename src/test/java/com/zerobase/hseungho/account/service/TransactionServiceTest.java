@@ -2,12 +2,15 @@ package com.zerobase.hseungho.account.service;
 
 import com.zerobase.hseungho.account.domain.Account;
 import com.zerobase.hseungho.account.domain.AccountUser;
+import com.zerobase.hseungho.account.domain.OutboxEvent;
 import com.zerobase.hseungho.account.domain.Transaction;
 import com.zerobase.hseungho.account.dto.TransactionDto;
 import com.zerobase.hseungho.account.exception.AccountException;
 import com.zerobase.hseungho.account.repository.AccountRepository;
-import com.zerobase.hseungho.account.repository.AccountUserRepository;
+import com.zerobase.hseungho.account.repository.OutboxEventRepository;
 import com.zerobase.hseungho.account.repository.TransactionRepository;
+import com.zerobase.hseungho.account.service.AccountNearCache.CachedAccount;
+import com.zerobase.hseungho.account.service.TransactionCache.CachedTransaction;
 import com.zerobase.hseungho.account.type.AccountStatus;
 import com.zerobase.hseungho.account.type.ErrorCode;
 import com.zerobase.hseungho.account.type.TransactionResultType;
@@ -20,9 +23,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -38,11 +45,35 @@ class TransactionServiceTest {
     private AccountRepository accountRepository;
 
     @Mock
-    private AccountUserRepository accountUserRepository;
+    private AccountNearCache accountNearCache;
+
+    @Mock
+    private AccountUserReader accountUserReader;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    @Mock
+    private TransactionAggregator transactionAggregator;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -59,9 +90,11 @@ class TransactionServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .balance(10000L)
                 .accountNumber("1000000012").build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(accountRepository.findById(any()))
                 .willReturn(Optional.of(account));
         given(transactionRepository.save(any()))
                 .willReturn(Transaction.builder()
@@ -85,14 +118,44 @@ class TransactionServiceTest {
         assertEquals(TransactionType.USE, transactionDto.getTransactionType());
         assertEquals(9000L, transactionDto.getBalanceSnapshot());
         assertEquals(1000L, transactionDto.getAmount());
+        verify(outboxEventRepository, times(1)).save(any(OutboxEvent.class));
+        verify(transactionAggregator, times(1)).recordAfterCommit(any(), any(),
+                eq(TransactionType.USE), eq(TransactionResultType.S), eq(1000L));
+    }
+
+    @Test
+    @DisplayName("잔액 엔진 계좌 - DB 계좌를 읽지 않고 엔진으로 사용")
+    void useBalance_balanceEngine() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(new CachedAccount(1L, 12L, AccountStatus.IN_USE)));
+        given(balanceEngine.isManaged("1000000012"))
+                .willReturn(true);
+        given(balanceEngine.apply(eq("1000000012"), any(), eq(TransactionType.USE), eq(1000L), anyString(), any()))
+                .willReturn(new CachedTransaction(1L, "1000000012", TransactionType.USE,
+                        TransactionResultType.S, 1000L, 9000L, "transactionId", LocalDateTime.now()));
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 1000L);
+        // then
+        verify(accountRepository, times(0)).findById(any());
+        verify(transactionRepository, times(0)).save(any());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals("transactionId", transactionDto.getTransactionId());
     }
 
     @Test
     @DisplayName("해당 유저 없음 - 거래 사용 실패")
     void useBalance_UserNotFound() {
         // given
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.empty());
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willThrow(AccountException.of(ErrorCode.USER_NOT_FOUND));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -110,9 +173,9 @@ class TransactionServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(user));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given((accountNearCache.get(anyString())))
                 .willReturn(Optional.empty());
         // when
         AccountException exception = assertThrows(
@@ -135,14 +198,14 @@ class TransactionServiceTest {
                 .id(13L)
                 .name("Harry")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
+        given((accountNearCache.get(anyString())))
                 .willReturn(Optional.of(
-                        Account.builder()
+                        CachedAccount.from(Account.builder()
                                 .accountUser(harry)
                                 .balance(0L)
-                                .accountNumber("1000000012").build()
+                                .accountNumber("1000000012").build())
                 ));
         // when
         AccountException exception = assertThrows(
@@ -161,15 +224,15 @@ class TransactionServiceTest {
                 .id(12L)
                 .name("Pobi")
                 .build();
-        given((accountUserRepository.findById(anyLong())))
-                .willReturn(Optional.of(pobi));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(pobi);
+        given((accountNearCache.get(anyString())))
                 .willReturn(Optional.of(
-                        Account.builder()
+                        CachedAccount.from(Account.builder()
                                 .accountUser(pobi)
                                 .balance(100L)
                                 .accountStatus(AccountStatus.UNREGISTERED)
-                                .accountNumber("1000000012").build()
+                                .accountNumber("1000000012").build())
                 ));
         // when
         AccountException exception = assertThrows(
@@ -193,9 +256,11 @@ class TransactionServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .balance(100L)
                 .accountNumber("1000000012").build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(accountRepository.findById(any()))
                 .willReturn(Optional.of(account));
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
 
@@ -210,6 +275,41 @@ class TransactionServiceTest {
         verify(transactionRepository, times(0)).save(any());
     }
 
+    @Test
+    @DisplayName("더 큰 fencing token 이 이미 기록됨 - 거래 사용 실패")
+    void useBalance_StaleFencingToken() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi")
+                .build();
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountUserReader.getAccountUser(anyLong()))
+                .willReturn(user);
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(lockService.getFencingToken())
+                .willReturn(OptionalLong.of(5L));
+        given(accountRepository.advanceFencingToken(anyLong(), anyLong()))
+                .willReturn(0);
+
+        // when
+        AccountException exception = assertThrows(
+                AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", 1000L)
+        );
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(accountRepository).advanceFencingToken(7L, 5L);
+        verify(accountRepository, times(0)).findById(any());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
     @Test
     @DisplayName("실패 트랜잭션 저장 성공")
     void saveFailedUseTransaction() {
@@ -223,7 +323,9 @@ class TransactionServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .balance(10000L)
                 .accountNumber("1000000012").build();
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(accountRepository.findById(any()))
                 .willReturn(Optional.of(account));
         given(transactionRepository.save(any()))
                 .willReturn(Transaction.builder()
@@ -268,9 +370,11 @@ class TransactionServiceTest {
                 .amount(1000L)
                 .balanceSnapshot(9000L)
                 .build();
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(transactionCache.findByTransactionId(anyString()))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
+        given(accountNearCache.get(anyString()))
+                .willReturn(Optional.of(CachedAccount.from(account)));
+        given(accountRepository.findById(any()))
                 .willReturn(Optional.of(account));
         given(transactionRepository.save(any()))
                 .willReturn(
@@ -304,6 +408,9 @@ class TransactionServiceTest {
     void cancelBalance_AccountNotFound() {
         // given
         Transaction transaction = Transaction.builder()
+                .account(Account.builder()
+                        .id(1L)
+                        .accountNumber("1000000012").build())
                 .transactionType(TransactionType.USE)
                 .transactionResultType(TransactionResultType.S)
                 .transactionId("transactionId")
@@ -311,9 +418,9 @@ class TransactionServiceTest {
                 .amount(1000L)
                 .balanceSnapshot(9000L)
                 .build();
-        given((transactionRepository.findByTransactionId(anyString())))
-                .willReturn(Optional.of(transaction));
-        given((accountRepository.findByAccountNumber(anyString())))
+        given((transactionCache.findByTransactionId(anyString())))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
+        given((accountNearCache.get(anyString())))
                 .willReturn(Optional.empty());
         // when
         AccountException exception = assertThrows(
@@ -328,7 +435,7 @@ class TransactionServiceTest {
     @DisplayName("원 거래 없음 - 거래 취소 실패")
     void cancelBalance_TransactionNotFound() {
         // given
-        given((transactionRepository.findByTransactionId(anyString())))
+        given((transactionCache.findByTransactionId(anyString())))
                 .willReturn(Optional.empty());
 
         AccountException exception = assertThrows(
@@ -369,10 +476,10 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given((transactionRepository.findByTransactionId(anyString())))
-                .willReturn(Optional.of(transaction));
-        given((accountRepository.findByAccountNumber(anyString())))
-                .willReturn(Optional.of(accountNotUse));
+        given((transactionCache.findByTransactionId(anyString())))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
+        given((accountNearCache.get(anyString())))
+                .willReturn(Optional.of(CachedAccount.from(accountNotUse)));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -410,10 +517,10 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given((transactionRepository.findByTransactionId(anyString())))
-                .willReturn(Optional.of(transaction));
-        given((accountRepository.findByAccountNumber(anyString())))
-                .willReturn(Optional.of(account));
+        given((transactionCache.findByTransactionId(anyString())))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
+        given((accountNearCache.get(anyString())))
+                .willReturn(Optional.of(CachedAccount.from(account)));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -451,10 +558,10 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
-        given((transactionRepository.findByTransactionId(anyString())))
-                .willReturn(Optional.of(transaction));
-        given((accountRepository.findByAccountNumber(anyString())))
-                .willReturn(Optional.of(account));
+        given((transactionCache.findByTransactionId(anyString())))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
+        given((accountNearCache.get(anyString())))
+                .willReturn(Optional.of(CachedAccount.from(account)));
         // when
         AccountException exception = assertThrows(
                 AccountException.class,
@@ -491,8 +598,8 @@ class TransactionServiceTest {
                 .amount(1000L)
                 .balanceSnapshot(9000L)
                 .build();
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionCache.findByTransactionId(anyString()))
+                .willReturn(Optional.of(CachedTransaction.from(transaction)));
         // when
         TransactionDto transactionDto = transactionService.queryTransactionById("trxId");
         // then
@@ -503,11 +610,50 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("DB 에 반영되기 전인 잔액 엔진 거래는 엔진에서 조회")
+    void queryPendingTransaction() {
+        // given
+        CachedTransaction pending = new CachedTransaction(1L, "1000000012", TransactionType.USE,
+                TransactionResultType.S, 1000L, 9000L, "transactionId", LocalDateTime.now());
+        given(transactionCache.findByTransactionId("transactionId"))
+                .willReturn(Optional.empty());
+        given(balanceEngine.isEnabled())
+                .willReturn(true);
+        given(balanceEngine.findPending(List.of("transactionId")))
+                .willReturn(Map.of("transactionId", pending));
+        // when
+        TransactionDto transactionDto = transactionService.queryTransactionById("transactionId");
+        // then
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        verify(transactionCache, times(1)).findByTransactionId("transactionId");
+    }
+
+    @Test
+    @DisplayName("엔진에 없으면 반영을 마쳤을 수 있으므로 DB 를 한 번 더 조회")
+    void queryPendingTransaction_PersistedMeanwhile() {
+        // given
+        CachedTransaction persisted = new CachedTransaction(1L, "1000000012", TransactionType.USE,
+                TransactionResultType.S, 1000L, 9000L, "transactionId", LocalDateTime.now());
+        given(transactionCache.findByTransactionId("transactionId"))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(persisted));
+        given(balanceEngine.isEnabled())
+                .willReturn(true);
+        given(balanceEngine.findPending(List.of("transactionId")))
+                .willReturn(Map.of());
+        // when
+        TransactionDto transactionDto = transactionService.queryTransactionById("transactionId");
+        // then
+        assertEquals("transactionId", transactionDto.getTransactionId());
+        verify(transactionCache, times(2)).findByTransactionId("transactionId");
+    }
+
     @Test
     @DisplayName("원 거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound() {
         // given
-        given((transactionRepository.findByTransactionId(anyString())))
+        given((transactionCache.findByTransactionId(anyString())))
                 .willReturn(Optional.empty());
 
         // when
@@ -0,0 +1,64 @@
+package com.zerobase.hseungho.account.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterSpecTest {
+
+    @Test
+    @DisplayName("크기 계산 - 100만 건, 0.1% 이면 약 1.7MB, 해시 10개")
+    void sizing() {
+        // given
+        // when
+        BloomFilterSpec spec = BloomFilterSpec.of(1_000_000, 0.001);
+        // then
+        assertEquals(14_377_588, spec.getNumBits());
+        assertEquals(10, spec.getNumHashes());
+    }
+
+    @Test
+    @DisplayName("넣은 값은 항상 포함, 측정한 false positive 는 목표의 1.5배 이내")
+    void measuredFalsePositiveRate() {
+        // given
+        int insertions = 100_000;
+        double target = 0.01;
+        BloomFilterSpec spec = BloomFilterSpec.of(insertions, target);
+        BitSet bits = new BitSet((int) spec.getNumBits());
+        String[] inserted = new String[insertions];
+        for (int i = 0; i < insertions; i++) {
+            inserted[i] = UUID.randomUUID().toString().replace("-", "");
+            for (long index : spec.bitIndexes(inserted[i])) {
+                bits.set((int) index);
+            }
+        }
+        // when
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (contains(spec, bits, UUID.randomUUID().toString().replace("-", ""))) {
+                falsePositives++;
+            }
+        }
+        // then
+        for (String value : inserted) {
+            assertTrue(contains(spec, bits, value));
+        }
+        double measured = (double) falsePositives / probes;
+        assertTrue(measured < target * 1.5, "measured false positive rate : " + measured);
+        assertEquals(target, spec.expectedFalseProbability(insertions), target * 0.1);
+    }
+
+    private static boolean contains(BloomFilterSpec spec, BitSet bits, String value) {
+        for (long index : spec.bitIndexes(value)) {
+            if (!bits.get((int) index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
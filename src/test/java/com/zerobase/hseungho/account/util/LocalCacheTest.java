@@ -0,0 +1,98 @@
+package com.zerobase.hseungho.account.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCacheTest {
+
+    @Test
+    @DisplayName("최대 크기를 넘으면 가장 오래 사용하지 않은 엔트리 제거")
+    void evictLeastRecentlyUsed() {
+        // given
+        LocalCache<String, Long> cache = new LocalCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        cache.get("a");
+        // when
+        cache.put("c", 3L);
+        // then
+        assertEquals(1L, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3L, cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("ttl 이 지난 엔트리는 만료")
+    void expireAfterTtl() {
+        // given
+        AtomicLong now = new AtomicLong();
+        LocalCache<String, Long> cache = new LocalCache<>(10, Duration.ofSeconds(5), now::get);
+        cache.put("a", 1L);
+        // when
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        Long beforeExpire = cache.get("a");
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        Long afterExpire = cache.get("a");
+        // then
+        assertEquals(1L, beforeExpire);
+        assertNull(afterExpire);
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    @DisplayName("무효화")
+    void invalidate() {
+        // given
+        LocalCache<String, Long> cache = new LocalCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        // when
+        cache.invalidate("a");
+        // then
+        assertNull(cache.get("a"));
+        assertEquals(2L, cache.get("b"));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("segment 로 나뉘어도 전체 크기는 최대 크기를 넘지 않음")
+    void boundedAcrossSegments() {
+        // given
+        LocalCache<Integer, Integer> cache = new LocalCache<>(1000, Duration.ZERO);
+        // when
+        for (int i = 0; i < 5000; i++) {
+            cache.put(i, i);
+        }
+        // then
+        assertTrue(cache.size() <= 1000);
+        assertEquals(5000 - cache.size(), cache.getEvictionCount());
+        assertEquals(4999, cache.get(4999));
+    }
+
+    @Test
+    @DisplayName("weigher 를 주면 무게 합으로 제한")
+    void evictByWeight() {
+        // given
+        LocalCache<String, String> cache = new LocalCache<>(10L, Duration.ZERO,
+                (key, value) -> (long) value.length());
+        cache.put("a", "1234");
+        cache.put("b", "1234");
+        // when
+        cache.put("c", "123456");
+        // then
+        assertNull(cache.get("a"));
+        assertEquals("1234", cache.get("b"));
+        assertEquals("123456", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(10L, cache.weight());
+    }
+}
@@ -0,0 +1,87 @@
+package com.zerobase.hseungho.account.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    @DisplayName("저장 후 조회")
+    void putAndGet() {
+        // given
+        LongLongHashMap map = new LongLongHashMap(4, -1L);
+        // when
+        map.put(1000000000L, 1L);
+        map.put(1000000001L, 2L);
+        long previous = map.put(1000000000L, 3L);
+        // then
+        assertEquals(1L, previous);
+        assertEquals(3L, map.get(1000000000L));
+        assertEquals(2L, map.get(1000000001L));
+        assertEquals(-1L, map.get(1000000002L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    @DisplayName("키 0 도 일반 키처럼 동작")
+    void zeroKey() {
+        // given
+        LongLongHashMap map = new LongLongHashMap(4, -1L);
+        // when
+        map.put(0L, 7L);
+        // then
+        assertTrue(map.containsKey(0L));
+        assertEquals(7L, map.get(0L));
+        assertEquals(7L, map.remove(0L));
+        assertFalse(map.containsKey(0L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    @DisplayName("확장과 삭제 후에도 HashMap 과 같은 결과")
+    void matchesHashMapAfterResizeAndRemove() {
+        // given
+        LongLongHashMap map = new LongLongHashMap(2, -1L);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        // when
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1_000_000_000L + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assertEquals(removed == null ? -1L : removed, map.remove(key));
+            } else {
+                expected.put(key, (long) i);
+                map.put(key, i);
+            }
+        }
+        // then
+        assertEquals(expected.size(), map.size());
+        for (long key = 1_000_000_000L; key < 1_000_005_000L; key++) {
+            assertEquals(expected.getOrDefault(key, -1L), map.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("forEach 는 키 0 을 포함한 모든 엔트리를 한 번씩 돈다")
+    void forEach() {
+        // given
+        LongLongHashMap map = new LongLongHashMap(2, -1L);
+        Map<Long, Long> expected = new HashMap<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key, key * 10);
+            expected.put(key, key * 10);
+        }
+        // when
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        // then
+        assertEquals(expected, visited);
+    }
+}
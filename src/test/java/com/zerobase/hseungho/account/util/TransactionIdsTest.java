@@ -0,0 +1,53 @@
+package com.zerobase.hseungho.account.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdsTest {
+
+    @Test
+    @DisplayName("아이디에서 발급 시각을 복원")
+    void issuedAt() {
+        // given
+        long millis = Instant.parse("2023-05-01T12:30:15.123Z").toEpochMilli();
+        // when
+        String transactionId = TransactionIds.newId(millis);
+        // then
+        assertEquals(32, transactionId.length());
+        assertTrue(transactionId.matches("[0-9a-f]{32}"));
+        assertEquals('7', transactionId.charAt(12));
+        assertEquals(Optional.of(Instant.ofEpochMilli(millis)), TransactionIds.issuedAt(transactionId));
+    }
+
+    @Test
+    @DisplayName("발급 순서대로 정렬되고 같은 시각이어도 겹치지 않음")
+    void ordered() {
+        // given
+        long millis = System.currentTimeMillis();
+        // when
+        String first = TransactionIds.newId(millis);
+        String second = TransactionIds.newId(millis);
+        String later = TransactionIds.newId(millis + 1);
+        // then
+        assertNotEquals(first, second);
+        assertTrue(first.compareTo(later) < 0);
+        assertTrue(second.compareTo(later) < 0);
+    }
+
+    @Test
+    @DisplayName("시각이 없는 이전 아이디는 empty")
+    void legacyId() {
+        // given
+        String legacyId = UUID.randomUUID().toString().replace("-", "");
+        // when
+        // then
+        assertEquals(Optional.empty(), TransactionIds.issuedAt(legacyId));
+        assertEquals(Optional.empty(), TransactionIds.issuedAt("transactionId"));
+    }
+}
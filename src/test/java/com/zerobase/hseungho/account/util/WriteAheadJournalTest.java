@@ -0,0 +1,165 @@
+package com.zerobase.hseungho.account.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadJournalTest {
+
+    private static final int SEGMENT_SIZE = 256;
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("다시 열면 기록한 레코드를 lsn 순서로 돌려주고 이어서 기록")
+    void appendAndRecover() throws IOException {
+        // given
+        try (WriteAheadJournal journal = open(new ArrayList<>())) {
+            for (int i = 1; i <= 20; i++) {
+                long lsn = journal.append(payload(i));
+                journal.awaitDurable(lsn, TIMEOUT_MILLIS);
+            }
+        }
+        // when
+        List<String> recovered = new ArrayList<>();
+        try (WriteAheadJournal journal = open(recovered)) {
+            // then
+            assertEquals(20, recovered.size());
+            assertEquals("1:record-1", recovered.get(0));
+            assertEquals("20:record-20", recovered.get(19));
+            assertEquals(20L, journal.getLastLsn());
+            assertEquals(21L, journal.append(payload(21)));
+        }
+        assertTrue(segments().size() > 1);
+    }
+
+    @Test
+    @DisplayName("쓰다 만 레코드는 crc 가 맞지 않아 버리고 그 자리부터 다시 기록")
+    void truncateTornRecord() throws IOException {
+        // given
+        try (WriteAheadJournal journal = open(new ArrayList<>())) {
+            journal.append(payload(1));
+            journal.awaitDurable(journal.append(payload(2)), TIMEOUT_MILLIS);
+        }
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // 두 번째 레코드의 payload 한 바이트를 깨뜨린다.
+            int second = 16 + payload(1).length;
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), second + 16);
+        }
+        // when
+        List<String> recovered = new ArrayList<>();
+        try (WriteAheadJournal journal = open(recovered)) {
+            journal.awaitDurable(journal.append(payload(3)), TIMEOUT_MILLIS);
+        }
+        List<String> reopened = new ArrayList<>();
+        open(reopened).close();
+        // then
+        assertEquals(List.of("1:record-1"), recovered);
+        assertEquals(List.of("1:record-1", "2:record-3"), reopened);
+    }
+
+    @Test
+    @DisplayName("lsn 이전 레코드만 있는 segment 를 지우고, 레코드가 없으면 snapshot lsn 다음부터 기록")
+    void deleteBeforeAndContinueAfterSnapshot() throws IOException {
+        // given
+        long last;
+        try (WriteAheadJournal journal = open(new ArrayList<>())) {
+            for (int i = 1; i <= 20; i++) {
+                journal.append(payload(i));
+            }
+            last = journal.getLastLsn();
+            journal.awaitDurable(last, TIMEOUT_MILLIS);
+            int before = segments().size();
+            // when
+            int deleted = journal.deleteBefore(last + 1);
+            // then
+            assertEquals(before - 1, deleted);
+            assertEquals(1, segments().size());
+        }
+        Files.delete(segments().get(0));
+        try (WriteAheadJournal journal = WriteAheadJournal.open(directory, SEGMENT_SIZE, 100L,
+                (lsn, payload) -> fail())) {
+            assertEquals(101L, journal.append(payload(101)));
+        }
+    }
+
+    @Test
+    @DisplayName("force 가 실패하면 기다리던 쪽은 IOException, 이후 기록은 거절")
+    void failOnForceError() throws IOException {
+        // given
+        try (WriteAheadJournal journal = WriteAheadJournal.open(directory, SEGMENT_SIZE, 0L, (lsn, payload) -> {
+        }, buffer -> {
+            throw new UncheckedIOException(new IOException("disk error"));
+        })) {
+            // when
+            long lsn = journal.append(payload(1));
+            IOException exception = assertThrows(IOException.class,
+                    () -> journal.awaitDurable(lsn, TIMEOUT_MILLIS));
+            // then
+            assertEquals("disk error", exception.getCause().getMessage());
+            assertTrue(journal.isFailed());
+            assertEquals(0L, journal.getDurableLsn());
+            assertThrows(IllegalStateException.class, () -> journal.append(payload(2)));
+        }
+    }
+
+    @Test
+    @DisplayName("timeout 까지 내려가지 않으면 실패 상태로 두고, 이후 force 가 끝나도 내려간 것으로 보지 않음")
+    void awaitDurableTimeout() throws IOException {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        try (WriteAheadJournal journal = WriteAheadJournal.open(directory, SEGMENT_SIZE, 0L, (lsn, payload) -> {
+        }, buffer -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            // when
+            long lsn = journal.append(payload(1));
+            // then
+            assertThrows(InterruptedIOException.class, () -> journal.awaitDurable(lsn, 50L));
+            release.countDown();
+            assertThrows(IOException.class, () -> journal.awaitDurable(lsn, TIMEOUT_MILLIS));
+            assertTrue(journal.isFailed());
+            assertEquals(0L, journal.getDurableLsn());
+            assertThrows(IllegalStateException.class, () -> journal.append(payload(2)));
+        }
+    }
+
+    private WriteAheadJournal open(List<String> recovered) throws IOException {
+        return WriteAheadJournal.open(directory, SEGMENT_SIZE, 0L,
+                (lsn, payload) -> recovered.add(lsn + ":" + new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+}